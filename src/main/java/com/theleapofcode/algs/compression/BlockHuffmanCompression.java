@@ -0,0 +1,477 @@
+package com.theleapofcode.algs.compression;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.theleapofcode.algs.stacksandqueues.MinPriorityQueue;
+
+/**
+ * The {@code BlockHuffmanCompression} class provides static methods for
+ * compressing and expanding a stream of bytes using Huffman codes over the
+ * 8-bit alphabet, one block at a time.
+ * <p>
+ * Each block gets its own canonical Huffman code, limited to 11 bits per
+ * symbol, so that the header of a block is just the 256 code lengths. The
+ * encoder packs the codes into a 64-bit bit buffer and writes 32 bits at a
+ * time. The decoder refills its bit buffer up to eight bytes at a time and
+ * decodes each symbol with a single lookup of the next 11 bits in a
+ * 2<sup>11</sup>-entry table, instead of walking the trie. A block that would
+ * not shrink is stored as is. Memory stays proportional to the block size
+ * whatever the length of the stream.
+ * <p>
+ * The stream is a magic number, then for each block its length and the length
+ * of its encoding (as big-endian integers) followed by the encoding, and a
+ * zero length at the end.
+ */
+public class BlockHuffmanCompression {
+
+	/**
+	 * The default block size, in bytes.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 1 << 18;
+
+	static final int MAX_CODE_LENGTH = 11;
+
+	private static final int R = 256; // alphabet size of extended ASCII
+	private static final int MAGIC = 0x48554642; // "HUFB"
+	private static final int HUFFMAN = 1, STORED = 2; // modes of a block
+	private static final int LENGTHS = R / 2; // bytes of packed code lengths
+
+	// Huffman trie node
+	private static class Node implements Comparable<Node> {
+		private final int freq;
+		private final Node left, right;
+
+		Node(int freq, Node left, Node right) {
+			this.freq = freq;
+			this.left = left;
+			this.right = right;
+		}
+
+		// compare, based on frequency
+		public int compareTo(Node that) {
+			return Integer.compare(this.freq, that.freq);
+		}
+	}
+
+	/**
+	 * Reads bytes from the input until the end of the stream; compresses them
+	 * in blocks of {@link #DEFAULT_BLOCK_SIZE} bytes; and writes the results
+	 * to the output. Neither stream is closed.
+	 *
+	 * @param in
+	 *            the input
+	 * @param out
+	 *            the output
+	 * @throws IOException
+	 *             if the input cannot be read or the output written
+	 */
+	public static void compress(InputStream in, OutputStream out) throws IOException {
+		compress(in, out, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Reads bytes from the input until the end of the stream; compresses them
+	 * in blocks of the given size; and writes the results to the output.
+	 * Neither stream is closed.
+	 *
+	 * @param in
+	 *            the input
+	 * @param out
+	 *            the output
+	 * @param blockSize
+	 *            the block size, in bytes
+	 * @throws IOException
+	 *             if the input cannot be read or the output written
+	 * @throws IllegalArgumentException
+	 *             if {@code blockSize < 1}
+	 */
+	public static void compress(InputStream in, OutputStream out, int blockSize) throws IOException {
+		if (blockSize < 1)
+			throw new IllegalArgumentException("block size must be positive");
+		byte[] block = new byte[blockSize];
+		byte[] encoded = new byte[maxEncodedLength(blockSize)];
+		Streams.writeInt(out, MAGIC);
+		int n;
+		while ((n = Streams.readFully(in, block)) > 0) {
+			int length = encodeBlock(block, n, encoded);
+			Streams.writeInt(out, n);
+			Streams.writeInt(out, length);
+			out.write(encoded, 0, length);
+		}
+		Streams.writeInt(out, 0);
+		out.flush();
+	}
+
+	/**
+	 * Reads a stream written by {@code compress} from the input; expands it;
+	 * and writes the results to the output. Neither stream is closed.
+	 *
+	 * @param in
+	 *            the input
+	 * @param out
+	 *            the output
+	 * @throws IOException
+	 *             if the input cannot be read, is not a compressed stream, or
+	 *             if the output cannot be written
+	 */
+	public static void expand(InputStream in, OutputStream out) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		if (data.readInt() != MAGIC)
+			throw new IOException("not a Huffman block stream");
+		byte[] block = new byte[0];
+		byte[] encoded = new byte[0];
+		int n;
+		while ((n = data.readInt()) != 0) {
+			int length = data.readInt();
+			if (n < 0 || length < 1 || length > maxEncodedLength(n))
+				throw new IOException("corrupt block header");
+			if (block.length < n) {
+				block = new byte[n];
+				encoded = new byte[maxEncodedLength(n)];
+			}
+			data.readFully(encoded, 0, length);
+			decodeBlock(encoded, length, block, n);
+			out.write(block, 0, n);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Returns the largest encoding of a block of {@code n} bytes.
+	 */
+	static int maxEncodedLength(int n) {
+		return 1 + Math.max(n, LENGTHS + (int) (((long) n * MAX_CODE_LENGTH + 7) / 8) + 4);
+	}
+
+	/**
+	 * Encodes {@code block[0..n)} into {@code out}, which has room for
+	 * {@code maxEncodedLength(n)} bytes, and returns the length of the
+	 * encoding.
+	 */
+	static int encodeBlock(byte[] block, int n, byte[] out) {
+		int[] freq = new int[R];
+		for (int i = 0; i < n; i++)
+			freq[block[i] & 0xff]++;
+		int[] lengths = codeLengths(freq);
+		int[] codes = canonicalCodes(lengths);
+
+		long bits = 0;
+		for (int c = 0; c < R; c++)
+			bits += (long) freq[c] * lengths[c];
+		if (LENGTHS + (bits + 7) / 8 >= n) {
+			out[0] = STORED;
+			System.arraycopy(block, 0, out, 1, n);
+			return 1 + n;
+		}
+
+		out[0] = HUFFMAN;
+		writeLengths(lengths, out);
+
+		// codes and lengths packed as code << 4 | length
+		int[] table = new int[R];
+		for (int c = 0; c < R; c++)
+			table[c] = codes[c] << 4 | lengths[c];
+		int p = 1 + LENGTHS;
+		long buffer = 0; // the low count bits are pending, oldest first
+		int count = 0;
+		for (int i = 0; i < n; i++) {
+			int e = table[block[i] & 0xff];
+			buffer = (buffer << (e & 15)) | (e >>> 4);
+			count += e & 15;
+			if (count >= 32) {
+				count -= 32;
+				int word = (int) (buffer >>> count);
+				out[p++] = (byte) (word >>> 24);
+				out[p++] = (byte) (word >>> 16);
+				out[p++] = (byte) (word >>> 8);
+				out[p++] = (byte) word;
+			}
+		}
+		for (; count > 0; count -= 8)
+			out[p++] = (byte) (count >= 8 ? buffer >>> (count - 8) : buffer << (8 - count));
+		return p;
+	}
+
+	/**
+	 * Decodes the encoding {@code in[0..length)} of a block of {@code n} bytes
+	 * into {@code out}.
+	 *
+	 * @throws IOException
+	 *             if the encoding is corrupt
+	 */
+	static void decodeBlock(byte[] in, int length, byte[] out, int n) throws IOException {
+		if (in[0] == STORED) {
+			if (length != 1 + n)
+				throw new EOFException("corrupt stored block");
+			System.arraycopy(in, 1, out, 0, n);
+			return;
+		}
+		if (in[0] != HUFFMAN || length < 1 + LENGTHS)
+			throw new IOException("corrupt block");
+		int[] table = decodingTable(readLengths(in, R));
+
+		final int L = MAX_CODE_LENGTH;
+		int p = 1 + LENGTHS; // next byte to load
+		long buffer = 0; // the high count bits are the next bits of the code
+		int count = 0;
+		long used = 0; // bits of codes, to check against the bits of in
+		int i = 0;
+		while (i < n) {
+			// refill to at least 56 bits, eight bytes at a time if possible
+			if (p + 8 <= length) {
+				long word = 0;
+				for (int k = 0; k < 8; k++)
+					word = (word << 8) | (in[p + k] & 0xff);
+				buffer |= word >>> count;
+				int bytes = (63 - count) >>> 3;
+				p += bytes;
+				count += bytes << 3;
+			} else {
+				for (; count <= 56; count += 8)
+					buffer |= (long) (p < length ? in[p++] & 0xff : 0) << (56 - count);
+			}
+			// five codes of at most 11 bits fit in 56 bits
+			for (int k = Math.min(5, n - i); k > 0; k--) {
+				int e = table[(int) (buffer >>> (64 - L))];
+				if (e == 0)
+					throw new IOException("corrupt Huffman code");
+				out[i++] = (byte) (e >>> 4);
+				buffer <<= e & 15;
+				count -= e & 15;
+				used += e & 15;
+			}
+		}
+		// past the end of in, the refill reads zeros
+		if (used > 8L * (length - 1 - LENGTHS))
+			throw new EOFException("truncated block");
+	}
+
+	/**
+	 * Returns the largest encoding of {@code n} symbols of an alphabet of size
+	 * {@code r}.
+	 */
+	static int maxEncodedLength(int n, int r) {
+		return 1 + Math.max(2 * n, (r + 1) / 2 + (int) (((long) n * MAX_CODE_LENGTH + 7) / 8) + 4);
+	}
+
+	/**
+	 * Encodes {@code symbols[0..n)}, each less than {@code r}, into
+	 * {@code out}, which has room for {@code maxEncodedLength(n, r)} bytes, and
+	 * returns the length of the encoding. The alphabet may be larger than the
+	 * bytes, up to 2<sup>{@code MAX_CODE_LENGTH}</sup> symbols.
+	 */
+	static int encodeSymbols(char[] symbols, int n, int r, byte[] out) {
+		int[] freq = new int[r];
+		for (int i = 0; i < n; i++)
+			freq[symbols[i]]++;
+		int[] lengths = codeLengths(freq);
+		int[] codes = canonicalCodes(lengths);
+
+		long bits = 0;
+		for (int c = 0; c < r; c++)
+			bits += (long) freq[c] * lengths[c];
+		if ((r + 1) / 2 + (bits + 7) / 8 >= 2 * n) {
+			out[0] = STORED;
+			for (int i = 0; i < n; i++) {
+				out[1 + 2 * i] = (byte) (symbols[i] >>> 8);
+				out[2 + 2 * i] = (byte) symbols[i];
+			}
+			return 1 + 2 * n;
+		}
+
+		out[0] = HUFFMAN;
+		writeLengths(lengths, out);
+		int p = 1 + (r + 1) / 2;
+		long buffer = 0; // the low count bits are pending, oldest first
+		int count = 0;
+		for (int i = 0; i < n; i++) {
+			int c = symbols[i];
+			buffer = (buffer << lengths[c]) | codes[c];
+			count += lengths[c];
+			if (count >= 32) {
+				count -= 32;
+				int word = (int) (buffer >>> count);
+				out[p++] = (byte) (word >>> 24);
+				out[p++] = (byte) (word >>> 16);
+				out[p++] = (byte) (word >>> 8);
+				out[p++] = (byte) word;
+			}
+		}
+		for (; count > 0; count -= 8)
+			out[p++] = (byte) (count >= 8 ? buffer >>> (count - 8) : buffer << (8 - count));
+		return p;
+	}
+
+	/**
+	 * Decodes the encoding {@code in[0..length)} of {@code n} symbols of an
+	 * alphabet of size {@code r} into {@code out}.
+	 *
+	 * @throws IOException
+	 *             if the encoding is corrupt
+	 */
+	static void decodeSymbols(byte[] in, int length, char[] out, int n, int r) throws IOException {
+		if (length < 1)
+			throw new EOFException("empty block");
+		if (in[0] == STORED) {
+			if (length != 1 + 2 * n)
+				throw new EOFException("corrupt stored block");
+			for (int i = 0; i < n; i++) {
+				out[i] = (char) ((in[1 + 2 * i] & 0xff) << 8 | (in[2 + 2 * i] & 0xff));
+				if (out[i] >= r)
+					throw new IOException("corrupt symbol " + (int) out[i]);
+			}
+			return;
+		}
+		if (in[0] != HUFFMAN || length < 1 + (r + 1) / 2)
+			throw new IOException("corrupt block");
+		int[] table = decodingTable(readLengths(in, r));
+
+		final int L = MAX_CODE_LENGTH;
+		int p = 1 + (r + 1) / 2; // next byte to load
+		long buffer = 0; // the high count bits are the next bits of the code
+		int count = 0;
+		long used = 0; // bits of codes, to check against the bits of in
+		for (int i = 0; i < n; i++) {
+			for (; count <= 56; count += 8)
+				buffer |= (long) (p < length ? in[p++] & 0xff : 0) << (56 - count);
+			int e = table[(int) (buffer >>> (64 - L))];
+			if (e == 0)
+				throw new IOException("corrupt Huffman code");
+			out[i] = (char) (e >>> 4);
+			buffer <<= e & 15;
+			count -= e & 15;
+			used += e & 15;
+		}
+		// past the end of in, the refill reads zeros
+		if (used > 8L * (length - 1 - (r + 1) / 2))
+			throw new EOFException("truncated block");
+	}
+
+	// the code lengths, two to a byte, after the mode byte
+	private static void writeLengths(int[] lengths, byte[] out) {
+		for (int c = 0; c < lengths.length; c += 2)
+			out[1 + c / 2] = (byte) (lengths[c] << 4 | (c + 1 < lengths.length ? lengths[c + 1] : 0));
+	}
+
+	private static int[] readLengths(byte[] in, int r) {
+		int[] lengths = new int[r];
+		for (int c = 0; c < r; c++)
+			lengths[c] = (c % 2 == 0 ? in[1 + c / 2] >>> 4 : in[1 + c / 2]) & 15;
+		return lengths;
+	}
+
+	// lengths of a Huffman code for the frequencies of the symbols of the
+	// alphabet, at most MAX_CODE_LENGTH
+	private static int[] codeLengths(int[] freq) {
+		int r = freq.length;
+		int[] lengths = new int[r];
+		MinPriorityQueue<Node> pq = new MinPriorityQueue<>();
+		for (int c = 0; c < r; c++)
+			if (freq[c] > 0)
+				pq.enque(new Node(freq[c], null, null));
+		if (pq.isEmpty())
+			return lengths;
+		if (pq.size() == 1) {
+			for (int c = 0; c < r; c++)
+				if (freq[c] > 0)
+					lengths[c] = 1;
+			return lengths;
+		}
+		while (pq.size() > 1) {
+			Node left = pq.deque();
+			Node right = pq.deque();
+			pq.enque(new Node(left.freq + right.freq, left, right));
+		}
+
+		// number of codes of each length, with the lengths over the limit
+		// moved up the tree (as in JPEG, Annex K.3)
+		int[] counts = new int[r];
+		countLengths(pq.deque(), 0, counts);
+		for (int len = r - 1; len > MAX_CODE_LENGTH; len--) {
+			while (counts[len] > 0) {
+				int j = len - 2;
+				while (counts[j] == 0)
+					j--;
+				counts[len] -= 2;
+				counts[len - 1]++;
+				counts[j + 1] += 2;
+				counts[j]--;
+			}
+		}
+
+		// the most frequent symbols get the shortest codes
+		int used = 0;
+		int[] symbols = new int[r];
+		for (int c = 0; c < r; c++)
+			if (freq[c] > 0)
+				symbols[used++] = c;
+		sortByFrequency(symbols, used, freq);
+		for (int len = 1, k = 0; len <= MAX_CODE_LENGTH; len++)
+			for (int j = 0; j < counts[len]; j++)
+				lengths[symbols[k++]] = len;
+		return lengths;
+	}
+
+	private static void countLengths(Node x, int depth, int[] counts) {
+		if (x.left == null) {
+			counts[depth]++;
+			return;
+		}
+		countLengths(x.left, depth + 1, counts);
+		countLengths(x.right, depth + 1, counts);
+	}
+
+	// insertion sort of symbols[0..n) by decreasing frequency
+	private static void sortByFrequency(int[] symbols, int n, int[] freq) {
+		for (int i = 1; i < n; i++) {
+			int s = symbols[i];
+			int j = i;
+			for (; j > 0 && freq[symbols[j - 1]] < freq[s]; j--)
+				symbols[j] = symbols[j - 1];
+			symbols[j] = s;
+		}
+	}
+
+	// canonical codes: by increasing length, then increasing symbol
+	private static int[] canonicalCodes(int[] lengths) {
+		int[] codes = new int[lengths.length];
+		int code = 0;
+		for (int len = 1; len <= MAX_CODE_LENGTH; len++) {
+			for (int c = 0; c < lengths.length; c++)
+				if (lengths[c] == len)
+					codes[c] = code++;
+			code <<= 1;
+		}
+		return codes;
+	}
+
+	// table from the next MAX_CODE_LENGTH bits to symbol << 4 | length, or 0
+	// for bits that start no code
+	private static int[] decodingTable(int[] lengths) throws IOException {
+		final int L = MAX_CODE_LENGTH;
+		int[] table = new int[1 << L];
+		int code = 0;
+		for (int len = 1; len <= L; len++) {
+			for (int c = 0; c < lengths.length; c++) {
+				if (lengths[c] != len)
+					continue;
+				int first = code << (L - len), last = (code + 1) << (L - len);
+				if (last > table.length)
+					throw new IOException("corrupt code lengths");
+				for (int k = first; k < last; k++)
+					table[k] = c << 4 | len;
+				code++;
+			}
+			code <<= 1;
+		}
+		for (int c = 0; c < lengths.length; c++)
+			if (lengths[c] > L)
+				throw new IOException("corrupt code lengths");
+		return table;
+	}
+
+}
@@ -0,0 +1,314 @@
+package com.theleapofcode.algs.compression;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import com.theleapofcode.algs.string.SuffixArrays;
+
+/**
+ * The {@code BurrowsWheelerCompression} class provides static methods for
+ * compressing and expanding a stream of bytes in blocks, in the manner of
+ * bzip2: the Burrows-Wheeler transform, then move-to-front, then run-length
+ * encoding of the zeros, then Huffman codes.
+ * <p>
+ * The Burrows-Wheeler transform of a block is the last column of the sorted
+ * rotations of the block followed by a sentinel smaller than every byte; it is
+ * read off the suffix array of the block (see {@link SuffixArrays}), built in
+ * linear time, and stored without the sentinel, with the row of the sentinel.
+ * It groups the bytes that precede similar contexts, so move-to-front turns it
+ * into mostly small ranks and long runs of zeros. Each run of zeros is written
+ * as its length in bijective base 2, with two symbols RUNA and RUNB, and the
+ * resulting 257 symbols are compressed with a canonical Huffman code (see
+ * {@link BlockHuffmanCompression}).
+ * <p>
+ * The inverse transform follows the last-to-first mapping from the row of the
+ * sentinel, in linear time, with one primitive {@code int} per byte that packs
+ * the next row and the byte. Blocks are independent, so they can also be
+ * compressed in parallel (see {@link ParallelBlockCompression}).
+ */
+public class BurrowsWheelerCompression {
+
+	/**
+	 * The default block size, in bytes.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+	/**
+	 * The largest block size, in bytes.
+	 */
+	public static final int MAX_BLOCK_SIZE = 1 << 23;
+
+	private static final int R = 256; // alphabet size of extended ASCII
+	private static final int RUNA = 0, RUNB = 1; // digits of the length of a run of zeros
+	private static final int SYMBOLS = R + 1; // RUNA, RUNB, then ranks 1 to 255 plus one
+	private static final int MAGIC = 0x42575443; // "BWTC"
+
+	/**
+	 * Reads bytes from the input until the end of the stream; compresses them
+	 * in blocks of {@link #DEFAULT_BLOCK_SIZE} bytes; and writes the results
+	 * to the output. Neither stream is closed.
+	 *
+	 * @param in
+	 *            the input
+	 * @param out
+	 *            the output
+	 * @throws IOException
+	 *             if the input cannot be read or the output written
+	 */
+	public static void compress(InputStream in, OutputStream out) throws IOException {
+		compress(in, out, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Reads bytes from the input until the end of the stream; compresses them
+	 * in blocks of the given size; and writes the results to the output.
+	 * Neither stream is closed.
+	 *
+	 * @param in
+	 *            the input
+	 * @param out
+	 *            the output
+	 * @param blockSize
+	 *            the block size, in bytes
+	 * @throws IOException
+	 *             if the input cannot be read or the output written
+	 * @throws IllegalArgumentException
+	 *             unless {@code 1 <= blockSize <= MAX_BLOCK_SIZE}
+	 */
+	public static void compress(InputStream in, OutputStream out, int blockSize) throws IOException {
+		if (blockSize < 1 || blockSize > MAX_BLOCK_SIZE)
+			throw new IllegalArgumentException("block size must be between 1 and " + MAX_BLOCK_SIZE);
+		byte[] block = new byte[blockSize];
+		byte[] encoded = new byte[maxEncodedLength(blockSize)];
+		Streams.writeInt(out, MAGIC);
+		int n;
+		while ((n = Streams.readFully(in, block)) > 0) {
+			int length = encodeBlock(block, n, encoded);
+			Streams.writeInt(out, n);
+			Streams.writeInt(out, length);
+			out.write(encoded, 0, length);
+		}
+		Streams.writeInt(out, 0);
+		out.flush();
+	}
+
+	/**
+	 * Reads a stream written by {@code compress} from the input; expands it;
+	 * and writes the results to the output. Neither stream is closed.
+	 *
+	 * @param in
+	 *            the input
+	 * @param out
+	 *            the output
+	 * @throws IOException
+	 *             if the input cannot be read, is not a compressed stream, or
+	 *             if the output cannot be written
+	 */
+	public static void expand(InputStream in, OutputStream out) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		if (data.readInt() != MAGIC)
+			throw new IOException("not a Burrows-Wheeler stream");
+		byte[] block = new byte[0];
+		byte[] encoded = new byte[0];
+		int n;
+		while ((n = data.readInt()) != 0) {
+			int length = data.readInt();
+			if (n < 0 || n > MAX_BLOCK_SIZE || length < 0 || length > maxEncodedLength(n))
+				throw new IOException("corrupt block header");
+			if (block.length < n) {
+				block = new byte[n];
+				encoded = new byte[maxEncodedLength(n)];
+			}
+			data.readFully(encoded, 0, length);
+			decodeBlock(encoded, length, block, n);
+			out.write(block, 0, n);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Returns the largest encoding of a block of {@code n} bytes.
+	 */
+	static int maxEncodedLength(int n) {
+		return 8 + BlockHuffmanCompression.maxEncodedLength(n, SYMBOLS);
+	}
+
+	/**
+	 * Encodes {@code block[0..n)} into {@code out}, which has room for
+	 * {@code maxEncodedLength(n)} bytes, and returns the length of the
+	 * encoding: the row of the sentinel, the number of symbols, and their
+	 * Huffman encoding.
+	 */
+	static int encodeBlock(byte[] block, int n, byte[] out) {
+		byte[] last = new byte[n];
+		int primary = transform(block, n, last);
+
+		// move-to-front, with the runs of zeros in bijective base 2
+		char[] symbols = new char[n];
+		int m = 0;
+		byte[] order = identity();
+		int run = 0;
+		for (int i = 0; i < n; i++) {
+			byte b = last[i];
+			byte c = order[0];
+			if (c == b) {
+				run++;
+				continue;
+			}
+			m = writeRun(symbols, m, run);
+			run = 0;
+			int rank = 1;
+			byte t = order[1];
+			order[1] = c;
+			while (t != b) {
+				byte u = order[++rank];
+				order[rank] = t;
+				t = u;
+			}
+			order[0] = b;
+			symbols[m++] = (char) (rank + 1);
+		}
+		m = writeRun(symbols, m, run);
+
+		byte[] encoded = new byte[BlockHuffmanCompression.maxEncodedLength(m, SYMBOLS)];
+		int length = BlockHuffmanCompression.encodeSymbols(symbols, m, SYMBOLS, encoded);
+		writeInt(out, 0, primary);
+		writeInt(out, 4, m);
+		System.arraycopy(encoded, 0, out, 8, length);
+		return 8 + length;
+	}
+
+	/**
+	 * Decodes the encoding {@code in[0..length)} of a block of {@code n} bytes
+	 * into {@code out}.
+	 *
+	 * @throws IOException
+	 *             if the encoding is corrupt
+	 */
+	static void decodeBlock(byte[] in, int length, byte[] out, int n) throws IOException {
+		if (n > MAX_BLOCK_SIZE || length < 8)
+			throw new IOException("corrupt block");
+		int primary = readInt(in, 0);
+		int m = readInt(in, 4);
+		if (n > 0 && (primary < 1 || primary > n) || m < 0 || m > n)
+			throw new IOException("corrupt block header");
+		char[] symbols = new char[m];
+		BlockHuffmanCompression.decodeSymbols(Arrays.copyOfRange(in, 8, length), length - 8, symbols, m, SYMBOLS);
+
+		// undo the runs of zeros and move-to-front
+		byte[] last = new byte[n];
+		byte[] order = identity();
+		int j = 0;
+		int run = 0, weight = 1;
+		for (int i = 0; i < m; i++) {
+			int s = symbols[i];
+			if (s == RUNA || s == RUNB) {
+				run += weight << s;
+				weight <<= 1;
+				if (run > n - j)
+					throw new IOException("run past the end of the block");
+				continue;
+			}
+			Arrays.fill(last, j, j + run, order[0]);
+			j += run;
+			run = 0;
+			weight = 1;
+			if (j == n)
+				throw new IOException("symbol past the end of the block");
+			int rank = s - 1;
+			byte b = order[rank];
+			System.arraycopy(order, 0, order, 1, rank);
+			order[0] = b;
+			last[j++] = b;
+		}
+		Arrays.fill(last, j, j + run, order[0]);
+		if (j + run != n)
+			throw new IOException("block shorter than " + n + " bytes");
+
+		inverseTransform(last, n, primary, out);
+	}
+
+	private static byte[] identity() {
+		byte[] order = new byte[R];
+		for (int c = 0; c < R; c++)
+			order[c] = (byte) c;
+		return order;
+	}
+
+	// appends a run of zeros of the given length, in bijective base 2
+	private static int writeRun(char[] symbols, int m, int run) {
+		while (run > 0) {
+			if ((run & 1) == 1) {
+				symbols[m++] = RUNA;
+				run = (run - 1) >> 1;
+			} else {
+				symbols[m++] = RUNB;
+				run = (run - 2) >> 1;
+			}
+		}
+		return m;
+	}
+
+	/**
+	 * Writes the Burrows-Wheeler transform of {@code block[0..n)} into
+	 * {@code last}, without the sentinel, and returns the row of the sentinel.
+	 */
+	static int transform(byte[] block, int n, byte[] last) {
+		if (n == 0)
+			return 0;
+		byte[] text = n == block.length ? block : Arrays.copyOf(block, n);
+		int[] sa = SuffixArrays.build(text);
+		// row 0 is the sentinel alone, preceded by the last byte
+		last[0] = text[n - 1];
+		int primary = 0;
+		for (int i = 0, j = 1; i < n; i++) {
+			if (sa[i] == 0)
+				primary = i + 1;
+			else
+				last[j++] = text[sa[i] - 1];
+		}
+		return primary;
+	}
+
+	/**
+	 * Writes the block whose Burrows-Wheeler transform is {@code last[0..n)},
+	 * with the sentinel at row {@code primary}, into {@code out}.
+	 */
+	static void inverseTransform(byte[] last, int n, int primary, byte[] out) {
+		// first row of each byte: the sentinel comes first
+		int[] first = new int[R + 1];
+		for (int j = 0; j < n; j++)
+			first[(last[j] & 0xff) + 1]++;
+		first[0] = 1;
+		for (int c = 0; c < R; c++)
+			first[c + 1] += first[c];
+
+		// the row preceding each row, and the byte that precedes it
+		int[] next = new int[n + 1];
+		for (int j = 0; j < n; j++) {
+			int c = last[j] & 0xff;
+			int row = j < primary ? j : j + 1;
+			next[row] = first[c]++ << 8 | c;
+		}
+		for (int k = n - 1, row = 0; k >= 0; k--) {
+			int e = next[row];
+			out[k] = (byte) e;
+			row = e >>> 8;
+		}
+	}
+
+	private static void writeInt(byte[] b, int p, int x) {
+		b[p] = (byte) (x >>> 24);
+		b[p + 1] = (byte) (x >>> 16);
+		b[p + 2] = (byte) (x >>> 8);
+		b[p + 3] = (byte) x;
+	}
+
+	private static int readInt(byte[] b, int p) {
+		return (b[p] & 0xff) << 24 | (b[p + 1] & 0xff) << 16 | (b[p + 2] & 0xff) << 8 | (b[p + 3] & 0xff);
+	}
+
+}
@@ -1,13 +1,20 @@
 package com.theleapofcode.algs.compression;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 import com.theleapofcode.algs.stacksandqueues.MinPriorityQueue;
-import com.theleapofcode.algs.util.BinaryStdIn;
-import com.theleapofcode.algs.util.BinaryStdOut;
+import com.theleapofcode.algs.util.BitInput;
+import com.theleapofcode.algs.util.BitOutput;
 
 /**
  * The {@code HuffmanCompression} class provides static methods for compressing
  * and expanding a binary input using Huffman codes over the 8-bit extended
  * ASCII alphabet.
+ * <p>
+ * The methods keep no state between calls, so any number of streams can be
+ * compressed and expanded at once from separate threads.
  */
 public class HuffmanCompression {
 
@@ -40,48 +47,49 @@ public class HuffmanCompression {
 	}
 
 	/**
-	 * Reads a sequence of 8-bit bytes from standard input; compresses them
-	 * using Huffman codes with an 8-bit alphabet; and writes the results to
-	 * standard output.
+	 * Reads a sequence of 8-bit bytes from the input until the end of the
+	 * stream; compresses them using Huffman codes with an 8-bit alphabet; and
+	 * writes the results to the output. Neither stream is closed.
+	 *
+	 * @param in
+	 *            the input
+	 * @param out
+	 *            the output
+	 * @throws IOException
+	 *             if the input cannot be read or the output written
 	 */
-	public static void compress() {
+	public static void compress(InputStream in, OutputStream out) throws IOException {
 		// read the input
-		String s = BinaryStdIn.readString();
-		char[] input = s.toCharArray();
+		byte[] input = Streams.readAll(in);
 
 		// tabulate frequency counts
 		int[] freq = new int[R];
 		for (int i = 0; i < input.length; i++)
-			freq[input[i]]++;
+			freq[input[i] & 0xff]++;
 
 		// build Huffman trie
 		Node root = buildTrie(freq);
 
-		// build code table
-		String[] st = new String[R];
-		buildCode(st, root, "");
+		// build code table: the frequencies are ints, so no code is longer
+		// than 64 bits
+		long[] codes = new long[R];
+		int[] lengths = new int[R];
+		buildCode(codes, lengths, root, 0, 0);
 
 		// print trie for decoder
-		writeTrie(root);
+		BitOutput bits = new BitOutput(out);
+		writeTrie(bits, root);
 
 		// print number of bytes in original uncompressed message
-		BinaryStdOut.write(input.length);
+		bits.writeInt(input.length);
 
 		// use Huffman code to encode input
 		for (int i = 0; i < input.length; i++) {
-			String code = st[input[i]];
-			for (int j = 0; j < code.length(); j++) {
-				if (code.charAt(j) == '0') {
-					BinaryStdOut.write(false);
-				} else if (code.charAt(j) == '1') {
-					BinaryStdOut.write(true);
-				} else
-					throw new IllegalStateException("Illegal state");
-			}
+			int c = input[i] & 0xff;
+			bits.writeBits(codes[c], lengths[c]);
 		}
 
-		// close output stream
-		BinaryStdOut.close();
+		bits.flush();
 	}
 
 	// build the Huffman trie given frequencies
@@ -93,8 +101,10 @@ public class HuffmanCompression {
 			if (freq[i] > 0)
 				pq.enque(new Node(i, freq[i], null, null));
 
-		// special case in case there is only one character with a nonzero
-		// frequency
+		// special case in case there are fewer than two characters with a
+		// nonzero frequency
+		if (pq.isEmpty())
+			pq.enque(new Node('\0', 0, null, null));
 		if (pq.size() == 1) {
 			if (freq['\0'] == 0)
 				pq.enque(new Node('\0', 0, null, null));
@@ -112,62 +122,78 @@ public class HuffmanCompression {
 		return pq.deque();
 	}
 
-	// write bitstring-encoded trie to standard output
-	private static void writeTrie(Node x) {
+	// write bitstring-encoded trie to the output
+	private static void writeTrie(BitOutput bits, Node x) throws IOException {
 		if (x.isLeaf()) {
-			BinaryStdOut.write(true);
-			BinaryStdOut.write(x.ch, 8);
+			bits.writeBit(true);
+			bits.writeByte(x.ch);
 			return;
 		}
-		BinaryStdOut.write(false);
-		writeTrie(x.left);
-		writeTrie(x.right);
+		bits.writeBit(false);
+		writeTrie(bits, x.left);
+		writeTrie(bits, x.right);
 	}
 
-	// make a lookup table from symbols and their encodings
-	private static void buildCode(String[] st, Node x, String s) {
+	// make a lookup table from symbols to their encodings, as the low length
+	// bits of a long
+	private static void buildCode(long[] codes, int[] lengths, Node x, long code, int length) {
 		if (!x.isLeaf()) {
-			buildCode(st, x.left, s + '0');
-			buildCode(st, x.right, s + '1');
+			buildCode(codes, lengths, x.left, code << 1, length + 1);
+			buildCode(codes, lengths, x.right, code << 1 | 1, length + 1);
 		} else {
-			st[x.ch] = s;
+			codes[x.ch] = code;
+			lengths[x.ch] = length;
 		}
 	}
 
 	/**
 	 * Reads a sequence of bits that represents a Huffman-compressed message
-	 * from standard input; expands them; and writes the results to standard
-	 * output.
+	 * from the input; expands them; and writes the results to the output.
+	 * Neither stream is closed.
+	 *
+	 * @param in
+	 *            the input
+	 * @param out
+	 *            the output
+	 * @throws IOException
+	 *             if the input cannot be read, is not a compressed message, or
+	 *             if the output cannot be written
 	 */
-	public static void expand() {
+	public static void expand(InputStream in, OutputStream out) throws IOException {
+		BitInput bits = new BitInput(in);
 
 		// read in Huffman trie from input stream
-		Node root = readTrie();
+		Node root = readTrie(bits, 0);
 
 		// number of bytes to write
-		int length = BinaryStdIn.readInt();
+		int length = bits.readInt();
+		if (length < 0)
+			throw new IOException("corrupt length " + length);
 
 		// decode using the Huffman trie
+		BitOutput output = new BitOutput(out);
 		for (int i = 0; i < length; i++) {
 			Node x = root;
 			while (!x.isLeaf()) {
-				boolean bit = BinaryStdIn.readBoolean();
-				if (bit)
+				if (bits.readBit())
 					x = x.right;
 				else
 					x = x.left;
 			}
-			BinaryStdOut.write(x.ch, 8);
+			output.writeByte(x.ch);
 		}
-		BinaryStdOut.close();
+		output.flush();
 	}
 
-	private static Node readTrie() {
-		boolean isLeaf = BinaryStdIn.readBoolean();
+	// a trie of R leaves is at most R - 1 deep
+	private static Node readTrie(BitInput bits, int depth) throws IOException {
+		if (depth >= R)
+			throw new IOException("corrupt trie");
+		boolean isLeaf = bits.readBit();
 		if (isLeaf) {
-			return new Node(BinaryStdIn.readChar(), -1, null, null);
+			return new Node((char) bits.readByte(), -1, null, null);
 		} else {
-			return new Node('\0', -1, readTrie(), readTrie());
+			return new Node('\0', -1, readTrie(bits, depth + 1), readTrie(bits, depth + 1));
 		}
 	}
 
@@ -0,0 +1,462 @@
+package com.theleapofcode.algs.compression;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * The {@code LZ77Compression} class provides static methods for compressing
+ * and expanding a stream of bytes using LZ77 compression: repeated substrings
+ * are replaced by the offset and the length of an earlier occurrence in a
+ * sliding window of the input (32 KB to 1 MB).
+ * <p>
+ * Matches of at least 4 bytes are found with hash chains: the positions of
+ * the window are linked by the hash of their next 4 bytes, and the chain of the
+ * current position is searched for the longest match. The level (1 to 9) sets
+ * how many positions of a chain are tried and how long a match is good enough
+ * to stop; from level 4 on, a match is put off by one byte when the next
+ * position has a longer one (lazy matching). On repetitive data the chains
+ * are as long as the window lets them be, so large windows cost the most time
+ * at high levels.
+ * <p>
+ * The input is parsed in blocks of 256 KB, and each block is written as
+ * separate streams of bytes, as in LZ4: a token per sequence of literals and a
+ * match, with the two lengths in its two nibbles, the longer lengths, the
+ * literals, and the number of bits of each offset; each of these is compressed
+ * with its own canonical Huffman code (see {@link BlockHuffmanCompression}).
+ * The low bits of the offsets, which are close to random, are written as they
+ * are.
+ */
+public class LZ77Compression {
+
+	/**
+	 * The default level.
+	 */
+	public static final int DEFAULT_LEVEL = 6;
+
+	/**
+	 * The fastest level.
+	 */
+	public static final int MIN_LEVEL = 1;
+
+	/**
+	 * The level that compresses best.
+	 */
+	public static final int MAX_LEVEL = 9;
+
+	/**
+	 * The default size of the window, in bytes.
+	 */
+	public static final int DEFAULT_WINDOW = 1 << 16;
+
+	/**
+	 * The smallest size of the window, in bytes.
+	 */
+	public static final int MIN_WINDOW = 1 << 15;
+
+	/**
+	 * The largest size of the window, in bytes.
+	 */
+	public static final int MAX_WINDOW = 1 << 20;
+
+	static final int BLOCK_SIZE = 1 << 18;
+
+	private static final int MIN_MATCH = 4;
+	private static final int HASH_BITS = 16;
+	private static final int NIL = -1;
+	private static final int MAGIC = 0x4c5a3737; // "LZ77"
+
+	// by level: positions of a chain tried, match length good enough to stop,
+	// and match length good enough to try a quarter of the chain for a longer
+	// one (as in zlib)
+	private static final int[] CHAIN = { 0, 4, 8, 16, 16, 32, 64, 128, 256, 1024 };
+	private static final int[] NICE = { 0, 16, 24, 32, 32, 64, 128, 192, 258, 258 };
+	private static final int[] GOOD = { 0, 4, 4, 4, 4, 8, 8, 16, 32, 32 };
+	private static final int LAZY = 4; // lowest level with lazy matching
+
+	// bounds of the streams of a block of BLOCK_SIZE bytes
+	private static final int MAX_SEQUENCES = BLOCK_SIZE / MIN_MATCH + 1;
+	private static final int MAX_EXTRAS = BLOCK_SIZE + 2 * MAX_SEQUENCES;
+	private static final int MAX_BITS = (MAX_SEQUENCES * 20 + 7) / 8;
+
+	/**
+	 * Reads bytes from the input until the end of the stream; compresses them
+	 * at the default level with a window of the default size; and writes the
+	 * results to the output. Neither stream is closed.
+	 *
+	 * @param in
+	 *            the input
+	 * @param out
+	 *            the output
+	 * @throws IOException
+	 *             if the input cannot be read or the output written
+	 */
+	public static void compress(InputStream in, OutputStream out) throws IOException {
+		compress(in, out, DEFAULT_LEVEL, DEFAULT_WINDOW);
+	}
+
+	/**
+	 * Reads bytes from the input until the end of the stream; compresses them;
+	 * and writes the results to the output. Neither stream is closed.
+	 *
+	 * @param in
+	 *            the input
+	 * @param out
+	 *            the output
+	 * @param level
+	 *            the level, from 1 (fastest) to 9 (smallest)
+	 * @param window
+	 *            the size of the window, in bytes
+	 * @throws IOException
+	 *             if the input cannot be read or the output written
+	 * @throws IllegalArgumentException
+	 *             unless {@code MIN_LEVEL <= level <= MAX_LEVEL} and
+	 *             {@code MIN_WINDOW <= window <= MAX_WINDOW}
+	 */
+	public static void compress(InputStream in, OutputStream out, int level, int window) throws IOException {
+		if (level < MIN_LEVEL || level > MAX_LEVEL)
+			throw new IllegalArgumentException("level must be between " + MIN_LEVEL + " and " + MAX_LEVEL);
+		if (window < MIN_WINDOW || window > MAX_WINDOW)
+			throw new IllegalArgumentException("window must be between " + MIN_WINDOW + " and " + MAX_WINDOW);
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeInt(window);
+		Encoder encoder = new Encoder(level, window);
+		while (true) {
+			int n = encoder.read(in);
+			if (n == 0)
+				break;
+			encoder.parse();
+			encoder.write(data, n);
+			if (n < BLOCK_SIZE)
+				break;
+		}
+		data.writeInt(0);
+		data.flush();
+	}
+
+	/**
+	 * Reads a stream written by {@code compress} from the input; expands it;
+	 * and writes the results to the output. Neither stream is closed.
+	 *
+	 * @param in
+	 *            the input
+	 * @param out
+	 *            the output
+	 * @throws IOException
+	 *             if the input cannot be read, is not a compressed stream, or
+	 *             if the output cannot be written
+	 */
+	public static void expand(InputStream in, OutputStream out) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		if (data.readInt() != MAGIC)
+			throw new IOException("not an LZ77 stream");
+		int window = data.readInt();
+		if (window < MIN_WINDOW || window > MAX_WINDOW)
+			throw new IOException("corrupt window size " + window);
+		Decoder decoder = new Decoder(window);
+		int n;
+		while ((n = data.readInt()) != 0) {
+			if (n < 0 || n > BLOCK_SIZE)
+				throw new IOException("corrupt block length " + n);
+			decoder.read(data, n);
+			decoder.execute(n);
+			out.write(decoder.buffer, decoder.end - n, n);
+		}
+		out.flush();
+	}
+
+	// the streams of a block
+	private static class Streams {
+		final byte[] literals = new byte[BLOCK_SIZE];
+		final byte[] tokens = new byte[MAX_SEQUENCES];
+		final byte[] extras = new byte[MAX_EXTRAS];
+		final byte[] codes = new byte[MAX_SEQUENCES];
+		final byte[] bits = new byte[MAX_BITS];
+		int literalCount, tokenCount, extraCount, codeCount, bitLength;
+		final byte[] encoded = new byte[BlockHuffmanCompression.maxEncodedLength(MAX_EXTRAS)];
+	}
+
+	// the window, the hash chains and the streams of the block being parsed
+	private static class Encoder extends Streams {
+		private final int window;
+		private final int chain, nice, good;
+		private final boolean lazy;
+		private final byte[] buffer; // the window, then the block
+		private final int[] head = new int[1 << HASH_BITS]; // last position of each hash
+		private final int[] prev; // previous position with the same hash
+		private int start, end; // the block is buffer[start..end)
+		private int matchOffset; // offset of the last match found
+
+		private long pending; // the low pendingCount bits of the offsets
+		private int pendingCount;
+
+		Encoder(int level, int window) {
+			this.window = window;
+			this.chain = CHAIN[level];
+			this.nice = NICE[level];
+			this.good = GOOD[level];
+			this.lazy = level >= LAZY;
+			this.buffer = new byte[2 * window + BLOCK_SIZE];
+			this.prev = new int[buffer.length];
+			Arrays.fill(head, NIL);
+		}
+
+		// reads the next block, sliding the window first if there is no
+		// room, and returns its length
+		int read(InputStream in) throws IOException {
+			if (end + BLOCK_SIZE > buffer.length) {
+				int shift = end - window;
+				System.arraycopy(buffer, shift, buffer, 0, window);
+				for (int h = 0; h < head.length; h++)
+					head[h] = head[h] < shift ? NIL : head[h] - shift;
+				for (int i = 0; i < window; i++)
+					prev[i] = prev[i + shift] < shift ? NIL : prev[i + shift] - shift;
+				end = window;
+			}
+			start = end;
+			while (end - start < BLOCK_SIZE) {
+				int read = in.read(buffer, end, BLOCK_SIZE - (end - start));
+				if (read < 0)
+					break;
+				end += read;
+			}
+			return end - start;
+		}
+
+		private int hash(int i) {
+			int x = (buffer[i] & 0xff) | (buffer[i + 1] & 0xff) << 8 | (buffer[i + 2] & 0xff) << 16
+					| buffer[i + 3] << 24;
+			return (x * 0x9E3779B1) >>> (32 - HASH_BITS);
+		}
+
+		private void insert(int i) {
+			int h = hash(i);
+			prev[i] = head[h];
+			head[h] = i;
+		}
+
+		// the length of the longest match of position i, if longer than
+		// current, with its offset in matchOffset; 0 otherwise
+		private int find(int i, int current) {
+			int maxLength = end - i;
+			if (current >= maxLength)
+				return 0;
+			int best = current;
+			int min = i - window;
+			int tries = current >= good ? chain >> 2 : chain;
+			for (int c = head[hash(i)]; c >= 0 && c >= min && tries-- > 0; c = prev[c]) {
+				if (buffer[c + best] != buffer[i + best] || buffer[c] != buffer[i])
+					continue;
+				int length = 1;
+				while (length < maxLength && buffer[c + length] == buffer[i + length])
+					length++;
+				if (length > best) {
+					best = length;
+					matchOffset = i - c;
+					if (length >= nice || length == maxLength)
+						break;
+				}
+			}
+			return best > current ? best : 0;
+		}
+
+		// parses the block into its streams
+		void parse() {
+			literalCount = tokenCount = extraCount = codeCount = bitLength = 0;
+			pending = 0;
+			pendingCount = 0;
+			int anchor = start; // first literal not yet in a sequence
+			int last = end - MIN_MATCH; // last position with a hash
+			int i = start;
+			while (i <= last) {
+				int length = find(i, MIN_MATCH - 1);
+				int offset = matchOffset;
+				insert(i);
+				if (length == 0) {
+					i++;
+					continue;
+				}
+				if (lazy) {
+					while (length < nice && i + 1 <= last) {
+						int next = find(i + 1, length);
+						if (next == 0)
+							break;
+						insert(++i);
+						length = next;
+						offset = matchOffset;
+					}
+				}
+				sequence(anchor, i, length, offset);
+				for (int j = i + 1; j < i + length && j <= last; j++)
+					insert(j);
+				i += length;
+				anchor = i;
+			}
+			if (anchor < end)
+				sequence(anchor, end, 0, 0);
+			for (; pendingCount > 0; pendingCount -= 8)
+				bits[bitLength++] = (byte) (pendingCount >= 8 ? pending >>> (pendingCount - 8)
+						: pending << (8 - pendingCount));
+		}
+
+		// the literals buffer[from..to) followed by a match, if length > 0
+		private void sequence(int from, int to, int length, int offset) {
+			int literalLength = to - from;
+			System.arraycopy(buffer, from, literals, literalCount, literalLength);
+			literalCount += literalLength;
+			int matchLength = length == 0 ? 0 : length - MIN_MATCH;
+			tokens[tokenCount++] = (byte) (Math.min(literalLength, 15) << 4 | Math.min(matchLength, 15));
+			if (literalLength >= 15)
+				extra(literalLength - 15);
+			if (length == 0)
+				return;
+			if (matchLength >= 15)
+				extra(matchLength - 15);
+			int code = 32 - Integer.numberOfLeadingZeros(offset);
+			codes[codeCount++] = (byte) code;
+			pending = (pending << (code - 1)) | (offset ^ (1 << (code - 1)));
+			pendingCount += code - 1;
+			while (pendingCount >= 8) {
+				pendingCount -= 8;
+				bits[bitLength++] = (byte) (pending >>> pendingCount);
+			}
+		}
+
+		private void extra(int length) {
+			for (; length >= 255; length -= 255)
+				extras[extraCount++] = (byte) 255;
+			extras[extraCount++] = (byte) length;
+		}
+
+		void write(DataOutputStream data, int n) throws IOException {
+			data.writeInt(n);
+			write(data, literals, literalCount);
+			write(data, tokens, tokenCount);
+			write(data, extras, extraCount);
+			write(data, codes, codeCount);
+			data.writeInt(bitLength);
+			data.write(bits, 0, bitLength);
+		}
+
+		private void write(DataOutputStream data, byte[] stream, int count) throws IOException {
+			int length = BlockHuffmanCompression.encodeBlock(stream, count, encoded);
+			data.writeInt(count);
+			data.writeInt(length);
+			data.write(encoded, 0, length);
+		}
+	}
+
+	// the window and the streams of the block being expanded
+	private static class Decoder extends Streams {
+		private final int window;
+		private final byte[] buffer; // the window, then the block
+		private int end;
+
+		private int literal, token, extra, code, bit; // next of each stream
+		private long pending; // the low pendingCount bits are the next ones
+		private int pendingCount;
+
+		Decoder(int window) {
+			this.window = window;
+			this.buffer = new byte[2 * window + BLOCK_SIZE];
+		}
+
+		void read(DataInputStream data, int n) throws IOException {
+			literalCount = read(data, literals, n);
+			tokenCount = read(data, tokens, tokens.length);
+			extraCount = read(data, extras, extras.length);
+			codeCount = read(data, codes, codes.length);
+			bitLength = data.readInt();
+			if (bitLength < 0 || bitLength > bits.length)
+				throw new IOException("corrupt offset bits");
+			data.readFully(bits, 0, bitLength);
+			literal = token = extra = code = bit = 0;
+			pending = 0;
+			pendingCount = 0;
+		}
+
+		private int read(DataInputStream data, byte[] stream, int max) throws IOException {
+			int count = data.readInt();
+			int length = data.readInt();
+			if (count < 0 || count > max || length < 1 || length > BlockHuffmanCompression.maxEncodedLength(count))
+				throw new IOException("corrupt stream header");
+			data.readFully(encoded, 0, length);
+			BlockHuffmanCompression.decodeBlock(encoded, length, stream, count);
+			return count;
+		}
+
+		// runs the sequences of a block of n bytes, sliding the window first
+		// if there is no room
+		void execute(int n) throws IOException {
+			if (end + n > buffer.length) {
+				int shift = end - window;
+				System.arraycopy(buffer, shift, buffer, 0, window);
+				end = window;
+			}
+			int pos = end, limit = end + n;
+			while (pos < limit) {
+				if (token == tokenCount)
+					throw new IOException("missing sequence");
+				int t = tokens[token++] & 0xff;
+				int literalLength = t >>> 4;
+				if (literalLength == 15)
+					literalLength += nextExtra();
+				if (literalLength > literalCount - literal || literalLength > limit - pos)
+					throw new IOException("corrupt literal length");
+				System.arraycopy(literals, literal, buffer, pos, literalLength);
+				literal += literalLength;
+				pos += literalLength;
+				if (pos == limit)
+					break;
+
+				int length = (t & 15) + MIN_MATCH;
+				if ((t & 15) == 15)
+					length += nextExtra();
+				if (code == codeCount)
+					throw new IOException("missing offset");
+				int c = codes[code++];
+				if (c < 1 || c > 21)
+					throw new IOException("corrupt offset code " + c);
+				int offset = (1 << (c - 1)) | nextBits(c - 1);
+				if (offset > window || offset > pos || length > limit - pos)
+					throw new IOException("corrupt match");
+				if (offset >= length) {
+					System.arraycopy(buffer, pos - offset, buffer, pos, length);
+				} else {
+					for (int j = 0; j < length; j++)
+						buffer[pos + j] = buffer[pos - offset + j];
+				}
+				pos += length;
+			}
+			end = limit;
+		}
+
+		private int nextExtra() throws IOException {
+			int length = 0;
+			int b;
+			do {
+				if (extra == extraCount)
+					throw new IOException("missing length");
+				b = extras[extra++] & 0xff;
+				length += b;
+			} while (b == 255);
+			return length;
+		}
+
+		private int nextBits(int w) throws IOException {
+			while (pendingCount < w) {
+				if (bit == bitLength)
+					throw new IOException("missing offset bits");
+				pending = (pending << 8) | (bits[bit++] & 0xff);
+				pendingCount += 8;
+			}
+			pendingCount -= w;
+			return (int) (pending >>> pendingCount) & ((1 << w) - 1);
+		}
+	}
+
+}
@@ -8,62 +8,77 @@
  *
  *  Compress or expand binary input from standard input using LZW.
  *
- *  WARNING: STARTING WITH ORACLE JAVA 6, UPDATE 7 the SUBSTRING
- *  METHOD TAKES TIME AND SPACE LINEAR IN THE SIZE OF THE EXTRACTED
- *  SUBSTRING (INSTEAD OF CONSTANT SPACE AND TIME AS IN EARLIER
- *  IMPLEMENTATIONS).
- *
- *  See <a href = "http://java-performance.info/changes-to-string-java-1-7-0_06/">this article</a>
- *  for more details.
- *
  ******************************************************************************/
 
 package com.theleapofcode.algs.compression;
 
-import com.theleapofcode.algs.trie.TernarySearchTrieSymbolTable;
-import com.theleapofcode.algs.util.BinaryStdIn;
-import com.theleapofcode.algs.util.BinaryStdOut;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import com.theleapofcode.algs.util.BitInput;
+import com.theleapofcode.algs.util.BitOutput;
 
 /**
  * The {@code LZWCompression} class provides static methods for compressing and
  * expanding a binary input using LZW compression over the 8-bit extended ASCII
  * alphabet with 12-bit codewords.
+ * <p>
+ * The methods keep no state between calls, so any number of streams can be
+ * compressed and expanded at once from separate threads.
  */
 public class LZWCompression {
 	private static final int R = 256; // number of input chars
 	private static final int L = 4096; // number of codewords = 2^W
 	private static final int W = 12; // codeword width
+	private static final int HASH_SIZE = 2 * L; // slots of the block dictionary
 
 	/**
-	 * Reads a sequence of 8-bit bytes from standard input; compresses them
-	 * using LZW compression with 12-bit codewords; and writes the results to
-	 * standard output.
+	 * Reads a sequence of 8-bit bytes from the input until the end of the
+	 * stream; compresses them using LZW compression with 12-bit codewords; and
+	 * writes the results to the output. Neither stream is closed.
+	 *
+	 * @param in
+	 *            the input
+	 * @param out
+	 *            the output
+	 * @throws IOException
+	 *             if the input cannot be read or the output written
 	 */
-	public static void compress() {
-		String input = BinaryStdIn.readString();
-		TernarySearchTrieSymbolTable<Integer> st = new TernarySearchTrieSymbolTable<>();
-		for (int i = 0; i < R; i++)
-			st.put("" + (char) i, i);
-		int code = R + 1; // R is codeword for EOF
+	public static void compress(InputStream in, OutputStream out) throws IOException {
+		byte[] input = Streams.readAll(in);
+		byte[] block = new byte[maxEncodedLength(input.length)];
+		int length = encodeBlock(input, input.length, block);
 
-		while (input.length() > 0) {
-			String s = st.longestPrefixOf(input); // Find max prefix match s.
-			BinaryStdOut.write(st.get(s), W); // Print s's encoding.
-			int t = s.length();
-			if (t < input.length() && code < L) // Add s to symbol table.
-				st.put(input.substring(0, t + 1), code++);
-			input = input.substring(t); // Scan past s in input.
-		}
-		BinaryStdOut.write(R, W);
-		BinaryStdOut.close();
+		// the codewords of the block, without the padding of its last byte,
+		// which is shorter than a codeword, then EOF
+		long bits = (long) length * 8 / W * W;
+		int bytes = (int) (bits / 8), rest = (int) (bits % 8);
+		BitOutput output = new BitOutput(out);
+		for (int i = 0; i < bytes; i++)
+			output.writeByte(block[i]);
+		if (rest != 0)
+			output.writeBits((block[bytes] & 0xff) >>> (8 - rest), rest);
+		output.writeBits(R, W);
+		output.flush();
 	}
 
 	/**
 	 * Reads a sequence of bit encoded using LZW compression with 12-bit
-	 * codewords from standard input; expands them; and writes the results to
-	 * standard output.
+	 * codewords from the input; expands them; and writes the results to the
+	 * output. Neither stream is closed.
+	 *
+	 * @param in
+	 *            the input
+	 * @param out
+	 *            the output
+	 * @throws IOException
+	 *             if the input cannot be read, is not a compressed message, or
+	 *             if the output cannot be written
 	 */
-	public static void expand() {
+	public static void expand(InputStream in, OutputStream out) throws IOException {
 		String[] st = new String[L];
 		int i; // next available codeword value
 
@@ -72,16 +87,21 @@ public class LZWCompression {
 			st[i] = "" + (char) i;
 		st[i++] = ""; // (unused) lookahead for EOF
 
-		int codeword = BinaryStdIn.readInt(W);
-		if (codeword == R)
-			return; // expanded message is empty string
+		BitInput bits = new BitInput(in);
+		BitOutput output = new BitOutput(out);
+		int codeword = (int) bits.readBits(W);
+		if (codeword > R)
+			throw new IOException("corrupt codeword " + codeword);
 		String val = st[codeword];
 
-		while (true) {
-			BinaryStdOut.write(val);
-			codeword = BinaryStdIn.readInt(W);
+		while (codeword != R) {
+			for (int j = 0; j < val.length(); j++)
+				output.writeByte(val.charAt(j));
+			codeword = (int) bits.readBits(W);
 			if (codeword == R)
 				break;
+			if (codeword > i)
+				throw new IOException("corrupt codeword " + codeword);
 			String s = st[codeword];
 			if (i == codeword)
 				s = val + val.charAt(0); // special case hack
@@ -89,7 +109,119 @@ public class LZWCompression {
 				st[i++] = val + s.charAt(0);
 			val = s;
 		}
-		BinaryStdOut.close();
+		output.flush();
+	}
+
+	/**
+	 * Returns the largest encoding of a block of {@code n} bytes.
+	 */
+	static int maxEncodedLength(int n) {
+		return (int) (((long) n * W + 7) / 8);
+	}
+
+	/**
+	 * Encodes {@code block[0..n)} into {@code out}, which has room for
+	 * {@code maxEncodedLength(n)} bytes, and returns the length of the
+	 * encoding: the 12-bit codewords of {@code compress}, without the EOF
+	 * codeword, since the length of the block is known.
+	 */
+	static int encodeBlock(byte[] block, int n, byte[] out) {
+		if (n == 0)
+			return 0;
+		// open-addressing dictionary from prefix codeword << 8 | next byte
+		// to codeword
+		int[] keys = new int[HASH_SIZE];
+		int[] codes = new int[HASH_SIZE];
+		Arrays.fill(keys, -1);
+		int code = R + 1; // R is codeword for EOF
+
+		int p = 0;
+		int buffer = 0, count = 0; // the low count bits of buffer are pending
+		int prefix = block[0] & 0xff;
+		for (int i = 1; i <= n; i++) {
+			if (i < n) {
+				int key = prefix << 8 | (block[i] & 0xff);
+				int slot = (key * 0x9E3779B1) >>> (32 - 13); // log2(HASH_SIZE)
+				while (keys[slot] != -1 && keys[slot] != key)
+					slot = (slot + 1) & (HASH_SIZE - 1);
+				if (keys[slot] == key) {
+					prefix = codes[slot];
+					continue;
+				}
+				if (code < L) {
+					keys[slot] = key;
+					codes[slot] = code++;
+				}
+			}
+			buffer = (buffer << W) | prefix;
+			count += W;
+			while (count >= 8) {
+				count -= 8;
+				out[p++] = (byte) (buffer >>> count);
+			}
+			if (i < n)
+				prefix = block[i] & 0xff;
+		}
+		if (count > 0)
+			out[p++] = (byte) (buffer << (8 - count));
+		return p;
+	}
+
+	/**
+	 * Decodes the encoding {@code in[0..length)} of a block of {@code n} bytes
+	 * into {@code out}.
+	 *
+	 * @throws IOException
+	 *             if the encoding is corrupt
+	 */
+	static void decodeBlock(byte[] in, int length, byte[] out, int n) throws IOException {
+		// codeword i is codeword prefixes[i] followed by byte lasts[i]
+		int[] prefixes = new int[L];
+		byte[] lasts = new byte[L];
+		int[] lengths = new int[L];
+		for (int c = 0; c < R; c++) {
+			lasts[c] = (byte) c;
+			lengths[c] = 1;
+		}
+		int next = R + 1; // next available codeword value
+
+		int p = 0;
+		int buffer = 0, count = 0;
+		int previous = -1, previousStart = 0;
+		for (int pos = 0; pos < n;) {
+			while (count < W) {
+				if (p == length)
+					throw new EOFException("truncated block");
+				buffer = (buffer << 8) | (in[p++] & 0xff);
+				count += 8;
+			}
+			count -= W;
+			int codeword = (buffer >>> count) & (L - 1);
+			if (codeword == R || codeword > next || previous < 0 && codeword >= R)
+				throw new IOException("corrupt codeword " + codeword);
+			if (previous >= 0 && next < L && codeword == next) {
+				// special case: previous string and its own first byte
+				prefixes[next] = previous;
+				lasts[next] = out[previousStart];
+				lengths[next] = lengths[previous] + 1;
+				next++;
+				previous = -1;
+			}
+			int len = lengths[codeword];
+			if (pos + len > n)
+				throw new IOException("block longer than " + n + " bytes");
+			for (int j = len - 1, c = codeword; j >= 0; j--, c = prefixes[c])
+				out[pos + j] = lasts[c];
+			if (previous >= 0 && next < L) {
+				prefixes[next] = previous;
+				lasts[next] = out[pos];
+				lengths[next] = lengths[previous] + 1;
+				next++;
+			}
+			previous = codeword;
+			previousStart = pos;
+			pos += len;
+		}
 	}
 
 }
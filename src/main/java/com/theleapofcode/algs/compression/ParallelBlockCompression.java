@@ -0,0 +1,492 @@
+package com.theleapofcode.algs.compression;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.theleapofcode.algs.stacksandqueues.Queue;
+import com.theleapofcode.algs.stacksandqueues.QueueLinkedListImpl;
+
+/**
+ * The {@code ParallelBlockCompression} class compresses and expands streams in
+ * independent blocks, on the threads of a {@link ForkJoinPool}.
+ * <p>
+ * The input is split into blocks of a fixed size (1 MB by default), and each
+ * block is compressed by its own task with its own Huffman code, LZW
+ * dictionary or Burrows-Wheeler transform (see {@link Codec}). The blocks are
+ * written in order as frames: the length of the block and the length of its
+ * encoding, as big-endian integers, followed by the encoding. A frame of
+ * length zero ends the blocks, and is followed by an index of the offsets of
+ * the frames in the stream, and a trailer with the offset of the index.
+ * <p>
+ * Both directions keep at most a fixed window of blocks in flight ahead of the
+ * block being written, so memory stays proportional to the window times the
+ * block size. Expanding a stream needs only its frames, and decodes them in
+ * parallel too; a {@link Reader} over a file uses the index to decode any block
+ * on its own, from any number of threads.
+ */
+public class ParallelBlockCompression {
+
+	/**
+	 * The default block size, in bytes.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+	private static final int MAGIC = 0x50424c4b; // "PBLK"
+	private static final int HEADER = 9; // magic, codec, block size
+	private static final int TRAILER = 12; // index offset, magic
+
+	/**
+	 * The codec that compresses each block.
+	 */
+	public enum Codec {
+		/** Canonical Huffman codes (see {@link BlockHuffmanCompression}). */
+		HUFFMAN {
+			int maxEncodedLength(int n) {
+				return BlockHuffmanCompression.maxEncodedLength(n);
+			}
+
+			int encode(byte[] block, int n, byte[] out) {
+				return BlockHuffmanCompression.encodeBlock(block, n, out);
+			}
+
+			void decode(byte[] in, int length, byte[] out, int n) throws IOException {
+				BlockHuffmanCompression.decodeBlock(in, length, out, n);
+			}
+		},
+		/** LZW with 12-bit codewords (see {@link LZWCompression}). */
+		LZW {
+			int maxEncodedLength(int n) {
+				return LZWCompression.maxEncodedLength(n);
+			}
+
+			int encode(byte[] block, int n, byte[] out) {
+				return LZWCompression.encodeBlock(block, n, out);
+			}
+
+			void decode(byte[] in, int length, byte[] out, int n) throws IOException {
+				LZWCompression.decodeBlock(in, length, out, n);
+			}
+		},
+		/**
+		 * The Burrows-Wheeler transform, move-to-front and Huffman codes (see
+		 * {@link BurrowsWheelerCompression}).
+		 */
+		BWT {
+			int maxBlockSize() {
+				return BurrowsWheelerCompression.MAX_BLOCK_SIZE;
+			}
+
+			int maxEncodedLength(int n) {
+				return BurrowsWheelerCompression.maxEncodedLength(n);
+			}
+
+			int encode(byte[] block, int n, byte[] out) {
+				return BurrowsWheelerCompression.encodeBlock(block, n, out);
+			}
+
+			void decode(byte[] in, int length, byte[] out, int n) throws IOException {
+				BurrowsWheelerCompression.decodeBlock(in, length, out, n);
+			}
+		};
+
+		int maxBlockSize() {
+			return Integer.MAX_VALUE;
+		}
+
+		abstract int maxEncodedLength(int n);
+
+		abstract int encode(byte[] block, int n, byte[] out);
+
+		abstract void decode(byte[] in, int length, byte[] out, int n) throws IOException;
+	}
+
+	private final Codec codec;
+	private final ForkJoinPool pool;
+	private final int blockSize;
+	private final int window; // blocks in flight ahead of the one being written
+
+	/**
+	 * Initializes compression with the given codec, in blocks of
+	 * {@link #DEFAULT_BLOCK_SIZE} bytes, with two blocks per thread of the pool
+	 * in flight.
+	 *
+	 * @param codec
+	 *            the codec
+	 * @param pool
+	 *            the pool whose threads compress and expand the blocks
+	 */
+	public ParallelBlockCompression(Codec codec, ForkJoinPool pool) {
+		this(codec, pool, DEFAULT_BLOCK_SIZE, 2 * pool.getParallelism());
+	}
+
+	/**
+	 * Initializes compression with the given codec.
+	 *
+	 * @param codec
+	 *            the codec
+	 * @param pool
+	 *            the pool whose threads compress and expand the blocks
+	 * @param blockSize
+	 *            the size of the blocks, in bytes
+	 * @param window
+	 *            the number of blocks that may be in flight ahead of the block
+	 *            being written
+	 * @throws IllegalArgumentException
+	 *             if {@code blockSize} or {@code window} is not positive, or
+	 *             if {@code blockSize} is too large for the codec
+	 */
+	public ParallelBlockCompression(Codec codec, ForkJoinPool pool, int blockSize, int window) {
+		if (blockSize < 1)
+			throw new IllegalArgumentException("block size must be positive");
+		if (blockSize > codec.maxBlockSize())
+			throw new IllegalArgumentException("block size must be at most " + codec.maxBlockSize());
+		if (window < 1)
+			throw new IllegalArgumentException("window must be positive");
+		this.codec = codec;
+		this.pool = pool;
+		this.blockSize = blockSize;
+		this.window = window;
+	}
+
+	/**
+	 * Reads bytes from the input until the end of the stream; compresses them
+	 * block by block in parallel; and writes the results to the output.
+	 * Neither stream is closed.
+	 *
+	 * @param in
+	 *            the input
+	 * @param out
+	 *            the output
+	 * @throws IOException
+	 *             if the input cannot be read or the output written
+	 */
+	public void compress(InputStream in, OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeByte(codec.ordinal());
+		data.writeInt(blockSize);
+		long offset = HEADER;
+		long[] offsets = new long[16];
+		int blocks = 0;
+
+		Queue<EncodeTask> running = new QueueLinkedListImpl<>();
+		boolean more = true;
+		while (true) {
+			while (more && running.size() < window) {
+				byte[] block = new byte[blockSize];
+				int n = Streams.readFully(in, block);
+				if (n == 0) {
+					more = false;
+					break;
+				}
+				more = n == blockSize;
+				EncodeTask task = new EncodeTask(block, n);
+				pool.execute(task);
+				running.enque(task);
+			}
+			if (running.isEmpty())
+				break;
+			EncodeTask task = running.deque();
+			byte[] encoded = task.join();
+			if (blocks == offsets.length)
+				offsets = Arrays.copyOf(offsets, 2 * blocks);
+			offsets[blocks++] = offset;
+			data.writeInt(task.n);
+			data.writeInt(task.length);
+			data.write(encoded, 0, task.length);
+			offset += 8 + task.length;
+		}
+		data.writeInt(0);
+		offset += 4;
+
+		data.writeInt(blocks);
+		for (int i = 0; i < blocks; i++)
+			data.writeLong(offsets[i]);
+		data.writeLong(offset);
+		data.writeInt(MAGIC);
+		data.flush();
+	}
+
+	/**
+	 * Reads a stream written by {@code compress} from the input; expands it
+	 * block by block in parallel; and writes the results to the output. The
+	 * codec and the block size are those of the stream. Neither stream is
+	 * closed.
+	 *
+	 * @param in
+	 *            the input
+	 * @param out
+	 *            the output
+	 * @throws IOException
+	 *             if the input cannot be read, is not a compressed stream, or
+	 *             if the output cannot be written
+	 */
+	public void expand(InputStream in, OutputStream out) throws IOException {
+		DataInputStream data = new DataInputStream(in);
+		if (data.readInt() != MAGIC)
+			throw new IOException("not a block compressed stream");
+		Codec streamCodec = codec(data.readUnsignedByte());
+		int streamBlockSize = data.readInt();
+
+		Queue<DecodeTask> running = new QueueLinkedListImpl<>();
+		boolean more = true;
+		while (true) {
+			while (more && running.size() < window) {
+				int n = data.readInt();
+				if (n == 0) {
+					more = false;
+					break;
+				}
+				int length = data.readInt();
+				if (n < 0 || n > streamBlockSize || length < 0 || length > streamCodec.maxEncodedLength(n))
+					throw new IOException("corrupt block header");
+				byte[] encoded = new byte[length];
+				data.readFully(encoded);
+				DecodeTask task = new DecodeTask(streamCodec, encoded, n);
+				pool.execute(task);
+				running.enque(task);
+			}
+			if (running.isEmpty())
+				break;
+			DecodeTask task = running.deque();
+			out.write(join(task), 0, task.n);
+		}
+
+		// the index and the trailer
+		int blocks = data.readInt();
+		if (blocks < 0)
+			throw new IOException("corrupt index");
+		for (long skip = 8L * blocks + TRAILER; skip > 0; skip--)
+			data.readByte();
+		out.flush();
+	}
+
+	private static Codec codec(int id) throws IOException {
+		if (id >= Codec.values().length)
+			throw new IOException("unknown codec " + id);
+		return Codec.values()[id];
+	}
+
+	// joins a decoding task, rethrowing the exception it failed with
+	private static byte[] join(DecodeTask task) throws IOException {
+		try {
+			return task.join();
+		} catch (UncheckedIOException e) {
+			for (Throwable cause = e; cause != null; cause = cause.getCause())
+				if (cause instanceof IOException)
+					throw (IOException) cause;
+			throw e;
+		}
+	}
+
+	// encodes a block, keeping the length of its encoding
+	private class EncodeTask extends RecursiveTask<byte[]> {
+		private static final long serialVersionUID = 1L;
+		private final byte[] block;
+		private final int n;
+		private int length;
+
+		private EncodeTask(byte[] block, int n) {
+			this.block = block;
+			this.n = n;
+		}
+
+		@Override
+		protected byte[] compute() {
+			byte[] encoded = new byte[codec.maxEncodedLength(n)];
+			length = codec.encode(block, n, encoded);
+			return encoded;
+		}
+	}
+
+	// decodes the encoding of a block of n bytes
+	private static class DecodeTask extends RecursiveTask<byte[]> {
+		private static final long serialVersionUID = 1L;
+		private final Codec codec;
+		private final byte[] encoded;
+		private final int n;
+
+		private DecodeTask(Codec codec, byte[] encoded, int n) {
+			this.codec = codec;
+			this.encoded = encoded;
+			this.n = n;
+		}
+
+		@Override
+		protected byte[] compute() {
+			byte[] block = new byte[n];
+			try {
+				codec.decode(encoded, encoded.length, block, n);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return block;
+		}
+	}
+
+	/**
+	 * The {@code Reader} class gives random access to the blocks of a file
+	 * written by {@code compress}. It reads the file with positional reads,
+	 * so any number of threads may use it at once. The channel is not closed.
+	 */
+	public static class Reader {
+		private final FileChannel channel;
+		private final Codec codec;
+		private final int blockSize;
+		private final long[] offsets; // offset of the frame of each block
+		private final long size; // number of bytes once expanded
+
+		/**
+		 * Reads the header and the index of the file.
+		 *
+		 * @param channel
+		 *            the file
+		 * @throws IOException
+		 *             if the file cannot be read or is not a compressed stream
+		 */
+		public Reader(FileChannel channel) throws IOException {
+			this.channel = channel;
+			long end = channel.size();
+			if (end < HEADER + 4 + 4 + TRAILER)
+				throw new IOException("not a block compressed stream");
+			ByteBuffer header = readAt(0, HEADER);
+			ByteBuffer trailer = readAt(end - TRAILER, TRAILER);
+			if (header.getInt() != MAGIC || trailer.getInt(8) != MAGIC)
+				throw new IOException("not a block compressed stream");
+			codec = ParallelBlockCompression.codec(header.get() & 0xff);
+			blockSize = header.getInt();
+
+			long index = trailer.getLong(0);
+			if (index < HEADER || index > end - TRAILER - 4)
+				throw new IOException("corrupt trailer");
+			int blocks = readAt(index, 4).getInt();
+			if (blocks < 0 || index + 4 + 8L * blocks != end - TRAILER)
+				throw new IOException("corrupt index");
+			ByteBuffer entries = readAt(index + 4, 8 * blocks);
+			offsets = new long[blocks];
+			for (int i = 0; i < blocks; i++)
+				offsets[i] = entries.getLong();
+			size = blocks == 0 ? 0 : (long) (blocks - 1) * blockSize + readAt(offsets[blocks - 1], 4).getInt();
+		}
+
+		/**
+		 * Returns the codec of the file.
+		 *
+		 * @return the codec of the file
+		 */
+		public Codec codec() {
+			return codec;
+		}
+
+		/**
+		 * Returns the number of blocks.
+		 *
+		 * @return the number of blocks
+		 */
+		public int blocks() {
+			return offsets.length;
+		}
+
+		/**
+		 * Returns the size of the blocks; the last one may be shorter.
+		 *
+		 * @return the size of the blocks, in bytes
+		 */
+		public int blockSize() {
+			return blockSize;
+		}
+
+		/**
+		 * Returns the number of bytes of the file once expanded.
+		 *
+		 * @return the expanded size, in bytes
+		 */
+		public long size() {
+			return size;
+		}
+
+		/**
+		 * Reads and expands a block.
+		 *
+		 * @param i
+		 *            the index of the block
+		 * @return the bytes of block {@code i}
+		 * @throws IOException
+		 *             if the file cannot be read or the block is corrupt
+		 * @throws IndexOutOfBoundsException
+		 *             unless {@code 0 <= i < blocks()}
+		 */
+		public byte[] block(int i) throws IOException {
+			if (i < 0 || i >= offsets.length)
+				throw new IndexOutOfBoundsException("block " + i + " of " + offsets.length);
+			ByteBuffer frame = readAt(offsets[i], 8);
+			int n = frame.getInt(), length = frame.getInt();
+			if (n < 1 || n > blockSize || length < 0 || length > codec.maxEncodedLength(n))
+				throw new IOException("corrupt block header");
+			byte[] encoded = readAt(offsets[i] + 8, length).array();
+			byte[] block = new byte[n];
+			codec.decode(encoded, length, block, n);
+			return block;
+		}
+
+		/**
+		 * Reads expanded bytes starting at the given position, expanding only
+		 * the blocks they belong to.
+		 *
+		 * @param position
+		 *            the position in the expanded bytes
+		 * @param b
+		 *            the buffer into which bytes are read
+		 * @param off
+		 *            the offset in {@code b} of the first byte
+		 * @param len
+		 *            the largest number of bytes to read
+		 * @return the number of bytes read, or -1 if {@code position} is at or
+		 *         past the end
+		 * @throws IOException
+		 *             if the file cannot be read or a block is corrupt
+		 * @throws IndexOutOfBoundsException
+		 *             if {@code position} is negative, or {@code off} and
+		 *             {@code len} are out of the bounds of {@code b}
+		 */
+		public int read(long position, byte[] b, int off, int len) throws IOException {
+			if (position < 0 || off < 0 || len < 0 || off + len > b.length)
+				throw new IndexOutOfBoundsException();
+			if (position >= size)
+				return -1;
+			int read = 0;
+			while (read < len && position < size) {
+				int i = (int) (position / blockSize);
+				int from = (int) (position - (long) i * blockSize);
+				byte[] block = block(i);
+				int count = Math.min(len - read, block.length - from);
+				System.arraycopy(block, from, b, off + read, count);
+				read += count;
+				position += count;
+			}
+			return read;
+		}
+
+		// reads exactly length bytes at the position
+		private ByteBuffer readAt(long position, int length) throws IOException {
+			ByteBuffer buffer = ByteBuffer.allocate(length);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, position + buffer.position()) < 0)
+					throw new EOFException("truncated file");
+			}
+			buffer.flip();
+			return buffer;
+		}
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.theleapofcode.algs.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The {@code Streams} class holds the stream helpers shared by the codecs:
+ * reading whole blocks or whole streams, and writing the big-endian integers
+ * of the frame headers.
+ */
+final class Streams {
+
+	private Streams() {
+	}
+
+	/**
+	 * Reads until {@code b} is full or the stream ends, and returns the number
+	 * of bytes read.
+	 */
+	static int readFully(InputStream in, byte[] b) throws IOException {
+		int n = 0;
+		while (n < b.length) {
+			int read = in.read(b, n, b.length - n);
+			if (read < 0)
+				break;
+			n += read;
+		}
+		return n;
+	}
+
+	/**
+	 * Reads the stream until its end.
+	 */
+	static byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1 << 13];
+		for (int n; (n = in.read(buffer)) >= 0;)
+			bytes.write(buffer, 0, n);
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Writes {@code x} as four bytes, high byte first.
+	 */
+	static void writeInt(OutputStream out, int x) throws IOException {
+		out.write(x >>> 24);
+		out.write(x >>> 16);
+		out.write(x >>> 8);
+		out.write(x);
+	}
+
+}
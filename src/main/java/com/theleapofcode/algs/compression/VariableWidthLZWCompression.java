@@ -0,0 +1,334 @@
+package com.theleapofcode.algs.compression;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * The {@code VariableWidthLZWCompression} class provides static methods for
+ * compressing and expanding a stream of bytes using LZW compression with
+ * variable-width codewords, in the manner of the Unix {@code compress}
+ * utility.
+ * <p>
+ * Codewords start 9 bits wide and widen by one bit each time the dictionary
+ * outgrows them, up to a maximum width (16 bits by default). Once the
+ * dictionary is full it is kept as long as the compression ratio keeps
+ * improving; when the ratio drops, the encoder emits a clear codeword and both
+ * sides start over with an empty dictionary, so the dictionary follows the
+ * input instead of its beginning.
+ * <p>
+ * The dictionary of the encoder is an open-addressing hash table from the
+ * pair (prefix codeword, next byte) to a codeword, packed into primitive
+ * {@code long}s, and the dictionary of the decoder is a pair of arrays indexed
+ * by codeword, so each input byte takes one hash probe and each output byte
+ * one array access. The streams are read and written through buffers, and the
+ * bits through 64-bit accumulators, so time is linear and memory is bounded by
+ * the maximum width, whatever the length of the stream.
+ */
+public class VariableWidthLZWCompression {
+
+	/**
+	 * The default maximum width of the codewords, in bits.
+	 */
+	public static final int DEFAULT_MAX_WIDTH = 16;
+
+	/**
+	 * The smallest width of the codewords, in bits.
+	 */
+	public static final int MIN_WIDTH = 9;
+
+	/**
+	 * The largest maximum width of the codewords, in bits.
+	 */
+	public static final int MAX_WIDTH = 20;
+
+	private static final int R = 256; // number of input chars
+	private static final int CLEAR = R; // codeword to empty the dictionary
+	private static final int EOF = R + 1; // codeword for the end of the stream
+	private static final int FIRST = R + 2; // first codeword of the dictionary
+	private static final int MAGIC = 0x4c5a5756; // "LZWV"
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final int CHECK_GAP = 1 << 14; // input bytes between ratio checks
+
+	/**
+	 * Reads bytes from the input until the end of the stream; compresses them
+	 * using LZW compression with codewords of up to
+	 * {@link #DEFAULT_MAX_WIDTH} bits; and writes the results to the output.
+	 * Neither stream is closed.
+	 *
+	 * @param in
+	 *            the input
+	 * @param out
+	 *            the output
+	 * @throws IOException
+	 *             if the input cannot be read or the output written
+	 */
+	public static void compress(InputStream in, OutputStream out) throws IOException {
+		compress(in, out, DEFAULT_MAX_WIDTH);
+	}
+
+	/**
+	 * Reads bytes from the input until the end of the stream; compresses them
+	 * using LZW compression with codewords of up to {@code maxWidth} bits; and
+	 * writes the results to the output. Neither stream is closed.
+	 *
+	 * @param in
+	 *            the input
+	 * @param out
+	 *            the output
+	 * @param maxWidth
+	 *            the maximum width of the codewords, in bits
+	 * @throws IOException
+	 *             if the input cannot be read or the output written
+	 * @throws IllegalArgumentException
+	 *             unless {@code MIN_WIDTH <= maxWidth <= MAX_WIDTH}
+	 */
+	public static void compress(InputStream in, OutputStream out, int maxWidth) throws IOException {
+		if (maxWidth < MIN_WIDTH || maxWidth > MAX_WIDTH)
+			throw new IllegalArgumentException("maximum width must be between " + MIN_WIDTH + " and " + MAX_WIDTH);
+		Encoder encoder = new Encoder(out, maxWidth);
+		byte[] input = new byte[BUFFER_SIZE];
+		int n;
+		while ((n = in.read(input)) != -1)
+			encoder.encode(input, n);
+		encoder.finish();
+	}
+
+	/**
+	 * Reads a stream written by {@code compress} from the input; expands it;
+	 * and writes the results to the output. Neither stream is closed, but the
+	 * input may have been read past the end of the compressed stream.
+	 *
+	 * @param in
+	 *            the input
+	 * @param out
+	 *            the output
+	 * @throws IOException
+	 *             if the input cannot be read, is not a compressed stream, or
+	 *             if the output cannot be written
+	 */
+	public static void expand(InputStream in, OutputStream out) throws IOException {
+		new Decoder(in, out).decode();
+	}
+
+	// the width of the codewords when the largest possible one is bound - 1
+	private static int width(int bound) {
+		return Math.max(MIN_WIDTH, 32 - Integer.numberOfLeadingZeros(bound - 1));
+	}
+
+	// the encoder and its state between buffers of input
+	private static class Encoder {
+		private final OutputStream out;
+		private final int max; // number of codewords
+		private final long[] table; // key << 32 | codeword, or 0 if empty
+		private final int mask, shift;
+
+		private int next = FIRST; // next available codeword value
+		private int width = MIN_WIDTH;
+		private int prefix = -1; // codeword of the current match, if any
+		private boolean fresh = true; // no codeword since the dictionary was emptied
+
+		// the ratio since the dictionary was emptied
+		private long consumed, written; // bytes in, bits out
+		private long resetConsumed, resetWritten;
+		private long checkpoint;
+		private double best;
+
+		private final byte[] output = new byte[BUFFER_SIZE];
+		private int p;
+		private long bits; // the low count bits are pending, oldest first
+		private int count;
+
+		private Encoder(OutputStream out, int maxWidth) throws IOException {
+			this.out = out;
+			this.max = 1 << maxWidth;
+			this.table = new long[2 * max];
+			this.mask = table.length - 1;
+			this.shift = 32 - (maxWidth + 1);
+			writeInt(MAGIC);
+			write(maxWidth, 8);
+		}
+
+		private void encode(byte[] input, int n) throws IOException {
+			for (int i = 0; i < n; i++) {
+				int c = input[i] & 0xff;
+				if (prefix < 0) {
+					prefix = c;
+					continue;
+				}
+				int key = prefix << 8 | c;
+				int slot = (key * 0x9E3779B1) >>> shift;
+				long e;
+				while ((e = table[slot]) != 0 && (int) (e >>> 32) != key)
+					slot = (slot + 1) & mask;
+				if (e != 0) {
+					prefix = (int) e;
+					continue;
+				}
+
+				write(prefix, width);
+				fresh = false;
+				if (next < max) {
+					table[slot] = (long) key << 32 | next;
+					if (next++ == 1 << width)
+						width++;
+				} else if (consumed + i >= checkpoint) {
+					checkpoint = consumed + i + CHECK_GAP;
+					double ratio = (double) (consumed + i - resetConsumed) / (written - resetWritten);
+					if (ratio > best) {
+						best = ratio;
+					} else {
+						write(CLEAR, width);
+						Arrays.fill(table, 0);
+						next = FIRST;
+						width = MIN_WIDTH;
+						fresh = true;
+						best = 0;
+						resetConsumed = consumed + i;
+						resetWritten = written;
+					}
+				}
+				prefix = c;
+			}
+			consumed += n;
+		}
+
+		private void finish() throws IOException {
+			if (prefix >= 0) {
+				write(prefix, width);
+				fresh = false;
+			}
+			// the decoder reads EOF as if after one more codeword of the
+			// dictionary, unless it has no codeword to add one with
+			write(EOF, fresh ? width : width(Math.min(next + 1, max)));
+			for (; count > 0; count -= 8)
+				output[p++] = (byte) (count >= 8 ? bits >>> (count - 8) : bits << (8 - count));
+			out.write(output, 0, p);
+			out.flush();
+		}
+
+		private void write(int x, int w) throws IOException {
+			bits = (bits << w) | x;
+			count += w;
+			written += w;
+			if (count >= 32) {
+				count -= 32;
+				int word = (int) (bits >>> count);
+				output[p++] = (byte) (word >>> 24);
+				output[p++] = (byte) (word >>> 16);
+				output[p++] = (byte) (word >>> 8);
+				output[p++] = (byte) word;
+				if (p == output.length) {
+					out.write(output, 0, p);
+					p = 0;
+				}
+			}
+		}
+
+		private void writeInt(int x) throws IOException {
+			write(x >>> 16, 16);
+			write(x & 0xffff, 16);
+		}
+	}
+
+	// the decoder, reading bits from a buffer of input
+	private static class Decoder {
+		private final InputStream in;
+		private final OutputStream out;
+
+		private final byte[] input = new byte[BUFFER_SIZE];
+		private int p, limit;
+		private long bits; // the low count bits are the next ones
+		private int count;
+
+		private Decoder(InputStream in, OutputStream out) {
+			this.in = in;
+			this.out = out;
+		}
+
+		private void decode() throws IOException {
+			if ((read(16) << 16 | read(16)) != MAGIC)
+				throw new IOException("not an LZW stream");
+			int maxWidth = read(8);
+			if (maxWidth < MIN_WIDTH || maxWidth > MAX_WIDTH)
+				throw new IOException("corrupt maximum width " + maxWidth);
+			int max = 1 << maxWidth;
+
+			// codeword i is codeword prefixes[i] followed by byte lasts[i]
+			int[] prefixes = new int[max];
+			byte[] lasts = new byte[max];
+			int[] lengths = new int[max];
+			for (int c = 0; c < R; c++) {
+				lasts[c] = (byte) c;
+				lengths[c] = 1;
+			}
+			int next = FIRST; // next available codeword value
+
+			// room for a buffer and the longest string
+			byte[] output = new byte[BUFFER_SIZE + max];
+			int q = 0;
+			int previous = -1;
+			byte previousFirst = 0;
+			while (true) {
+				int codeword = read(width(previous < 0 ? next : Math.min(next + 1, max)));
+				if (codeword == EOF)
+					break;
+				if (codeword == CLEAR) {
+					next = FIRST;
+					previous = -1;
+					continue;
+				}
+				if (codeword > next || codeword == next && (previous < 0 || next == max))
+					throw new IOException("corrupt codeword " + codeword);
+				if (codeword == next) {
+					// special case: previous string and its own first byte
+					prefixes[next] = previous;
+					lasts[next] = previousFirst;
+					lengths[next] = lengths[previous] + 1;
+					next++;
+					previous = -1;
+				}
+				int len = lengths[codeword];
+				if (q + len > output.length) {
+					out.write(output, 0, q);
+					q = 0;
+				}
+				for (int j = len - 1, c = codeword; j >= 0; j--, c = prefixes[c])
+					output[q + j] = lasts[c];
+				if (previous >= 0 && next < max) {
+					prefixes[next] = previous;
+					lasts[next] = output[q];
+					lengths[next] = lengths[previous] + 1;
+					next++;
+				}
+				previous = codeword;
+				previousFirst = output[q];
+				q += len;
+				if (q >= BUFFER_SIZE) {
+					out.write(output, 0, q);
+					q = 0;
+				}
+			}
+			out.write(output, 0, q);
+			out.flush();
+		}
+
+		private int read(int w) throws IOException {
+			while (count < w) {
+				if (p == limit) {
+					limit = in.read(input);
+					p = 0;
+					if (limit <= 0)
+						throw new EOFException("truncated LZW stream");
+				}
+				bits = (bits << 8) | (input[p++] & 0xff);
+				count += 8;
+			}
+			count -= w;
+			return (int) (bits >>> count) & ((1 << w) - 1);
+		}
+	}
+
+}
@@ -96,7 +96,8 @@ public class MaxPriorityQueue<T extends Comparable<T>> implements Queue<T> {
 		items[size] = null;
 		sink(0);
 
-		if (size == items.length / 4) { // When array is 25%, resize to half
+		if (size > 0 && size == items.length / 4) { // When array is 25%, resize
+														// to half
 			resize(items.length / 2);
 		}
 
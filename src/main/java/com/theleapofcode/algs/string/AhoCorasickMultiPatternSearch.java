@@ -0,0 +1,383 @@
+package com.theleapofcode.algs.string;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.theleapofcode.algs.stacksandqueues.Queue;
+import com.theleapofcode.algs.stacksandqueues.QueueLinkedListImpl;
+import com.theleapofcode.algs.trie.StringSymbolTable;
+
+/**
+ * The {@code AhoCorasickMultiPatternSearch} class finds every occurrence of
+ * every key of a string symbol table in a text, in a single pass over the text.
+ * <p>
+ * This implementation uses the Aho-Corasick automaton. The keyword trie is laid
+ * out in breadth-first order so that the outgoing edges of each state are a
+ * sorted run of one {@code char[]}: the child reached through edge <em>e</em> is
+ * state <em>e</em> + 1, so no target array is needed. The root keeps a dense
+ * transition table since nearly every mismatch ends there. Each state has a
+ * failure link (the state of its longest proper suffix in the trie) and a
+ * dictionary-suffix link (the nearest state on the failure chain that ends a
+ * pattern), so reporting the matches ending at a position never visits a state
+ * that does not produce output.
+ * <p>
+ * Construction takes time proportional to <em>L</em> log <em>L</em> and space
+ * proportional to <em>L</em> (plus the 2<sup>16</sup> entry root table), where
+ * <em>L</em> is the total length of the patterns. Searching takes time
+ * proportional to <em>N</em> log <em>R</em> + <em>Z</em>, where <em>N</em> is
+ * the length of the text and <em>Z</em> is the number of matches reported.
+ */
+public class AhoCorasickMultiPatternSearch {
+
+	/**
+	 * Receives the matches found by a search.
+	 */
+	public interface MatchHandler {
+
+		/**
+		 * Called once per occurrence, in order of the end of the occurrence
+		 * and, for occurrences ending at the same position, longest first.
+		 *
+		 * @param pattern
+		 *            the pattern that occurs
+		 * @param offset
+		 *            the index of the first character of the occurrence
+		 */
+		public void match(String pattern, long offset);
+
+	}
+
+	/**
+	 * An occurrence of a pattern in a text.
+	 */
+	public static class Match {
+		private final String pattern;
+		private final long offset;
+
+		public Match(String pattern, long offset) {
+			this.pattern = pattern;
+			this.offset = offset;
+		}
+
+		public String pattern() {
+			return pattern;
+		}
+
+		public long offset() {
+			return offset;
+		}
+
+		@Override
+		public String toString() {
+			return "(" + pattern + " @ " + offset + ")";
+		}
+	}
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final String[] patterns; // sorted patterns
+	private final int[] edgeStart; // edges of state s are edgeStart[s]..edgeStart[s+1]-1
+	private final char[] edgeLabel; // label of each edge; edge e leads to state e + 1
+	private final int[] rootNext; // dense transitions out of the root
+	private final int[] fail; // failure links
+	private final int[] dict; // dictionary-suffix links, -1 if none
+	private final int[] output; // index of the pattern ending at each state, -1 if none
+
+	/**
+	 * Builds the automaton for the keys of the given symbol table.
+	 *
+	 * @param st
+	 *            the symbol table whose keys are the patterns
+	 * @throws IllegalArgumentException
+	 *             if {@code st} is {@code null}, or if it contains the empty
+	 *             string
+	 */
+	public AhoCorasickMultiPatternSearch(StringSymbolTable<?> st) {
+		if (st == null)
+			throw new IllegalArgumentException("symbol table is null");
+		String[] keys = new String[st.size()];
+		int n = 0;
+		for (String key : st.keys()) {
+			if (key.isEmpty())
+				throw new IllegalArgumentException("empty pattern");
+			if (n == keys.length)
+				keys = Arrays.copyOf(keys, 2 * n + 1);
+			keys[n++] = key;
+		}
+		patterns = Arrays.copyOf(keys, n);
+		// sorted keys add the children of every trie node in increasing order
+		Arrays.sort(patterns);
+
+		int total = 1;
+		for (String pattern : patterns)
+			total += pattern.length();
+
+		// linked trie: first child, last child, next sibling and label of each
+		// node, in insertion order
+		int[] first = new int[total];
+		int[] last = new int[total];
+		int[] sibling = new int[total];
+		char[] label = new char[total];
+		int[] terminal = new int[total];
+		Arrays.fill(first, -1);
+		Arrays.fill(terminal, -1);
+		int nodes = 1;
+		for (int p = 0; p < patterns.length; p++) {
+			String pattern = patterns[p];
+			int x = 0;
+			for (int d = 0; d < pattern.length(); d++) {
+				char c = pattern.charAt(d);
+				// a child labelled c, if any, is the last one added
+				int y = last[x];
+				if (first[x] < 0 || label[y] != c) {
+					y = nodes++;
+					label[y] = c;
+					first[y] = -1;
+					sibling[y] = -1;
+					if (first[x] < 0)
+						first[x] = y;
+					else
+						sibling[last[x]] = y;
+					last[x] = y;
+				}
+				x = y;
+			}
+			if (terminal[x] < 0)
+				terminal[x] = p;
+		}
+
+		// renumber in breadth-first order; the children of each state are
+		// enqueued together, so edge e of the flattened layout leads to e + 1
+		int[] order = new int[nodes];
+		edgeStart = new int[nodes + 1];
+		edgeLabel = new char[nodes - 1];
+		output = new int[nodes];
+		int tail = 1;
+		for (int head = 0; head < nodes; head++) {
+			int x = order[head];
+			output[head] = terminal[x];
+			edgeStart[head] = tail - 1;
+			for (int y = first[x]; y >= 0; y = sibling[y]) {
+				edgeLabel[tail - 1] = label[y];
+				order[tail++] = y;
+			}
+		}
+		edgeStart[nodes] = nodes - 1;
+
+		rootNext = new int[Character.MAX_VALUE + 1];
+		for (int e = edgeStart[0]; e < edgeStart[1]; e++)
+			rootNext[edgeLabel[e]] = e + 1;
+
+		// failure and dictionary-suffix links, in breadth-first order so the
+		// links of every shallower state are already set
+		fail = new int[nodes];
+		dict = new int[nodes];
+		dict[0] = -1;
+		for (int s = 0; s < nodes; s++) {
+			for (int e = edgeStart[s]; e < edgeStart[s + 1]; e++) {
+				int t = e + 1;
+				fail[t] = s == 0 ? 0 : next(fail[s], edgeLabel[e]);
+				dict[t] = output[fail[t]] >= 0 ? fail[t] : dict[fail[t]];
+			}
+		}
+	}
+
+	// the child of state s along c, or -1 if none
+	private int child(int s, char c) {
+		int lo = edgeStart[s], hi = edgeStart[s + 1] - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			char m = edgeLabel[mid];
+			if (m < c)
+				lo = mid + 1;
+			else if (m > c)
+				hi = mid - 1;
+			else
+				return mid + 1;
+		}
+		return -1;
+	}
+
+	// the state reached from s on reading c
+	private int next(int s, char c) {
+		while (s != 0) {
+			int t = child(s, c);
+			if (t >= 0)
+				return t;
+			s = fail[s];
+		}
+		return rootNext[c];
+	}
+
+	// reports every pattern ending at state s, whose last character is at end
+	private void report(int s, long end, MatchHandler handler) {
+		if (output[s] < 0)
+			s = dict[s];
+		for (; s > 0; s = dict[s]) {
+			String pattern = patterns[output[s]];
+			handler.match(pattern, end - pattern.length() + 1);
+		}
+	}
+
+	/**
+	 * Returns the number of patterns.
+	 *
+	 * @return the number of patterns
+	 */
+	public int size() {
+		return patterns.length;
+	}
+
+	/**
+	 * Returns the number of states of the automaton, including the root.
+	 *
+	 * @return the number of states of the automaton
+	 */
+	public int states() {
+		return output.length;
+	}
+
+	/**
+	 * Reports every occurrence of every pattern in the text.
+	 *
+	 * @param text
+	 *            the text
+	 * @param handler
+	 *            the receiver of the matches
+	 */
+	public void search(char[] text, MatchHandler handler) {
+		search(text, 0, text.length, handler);
+	}
+
+	/**
+	 * Reports every occurrence of every pattern in {@code text[from..to)}.
+	 * Offsets are relative to the start of {@code text}.
+	 *
+	 * @param text
+	 *            the text
+	 * @param from
+	 *            the index of the first character to scan
+	 * @param to
+	 *            one past the index of the last character to scan
+	 * @param handler
+	 *            the receiver of the matches
+	 */
+	public void search(char[] text, int from, int to, MatchHandler handler) {
+		if (from < 0 || to > text.length || from > to)
+			throw new IndexOutOfBoundsException("from = " + from + ", to = " + to);
+		int s = 0;
+		for (int i = from; i < to; i++) {
+			s = next(s, text[i]);
+			if (dict[s] >= 0 || output[s] >= 0)
+				report(s, i, handler);
+		}
+	}
+
+	/**
+	 * Reports every occurrence of every pattern in the text.
+	 *
+	 * @param text
+	 *            the text
+	 * @param handler
+	 *            the receiver of the matches
+	 */
+	public void search(CharSequence text, MatchHandler handler) {
+		int s = 0;
+		for (int i = 0, n = text.length(); i < n; i++) {
+			s = next(s, text.charAt(i));
+			if (dict[s] >= 0 || output[s] >= 0)
+				report(s, i, handler);
+		}
+	}
+
+	/**
+	 * Reports every occurrence of every pattern in the characters read from
+	 * {@code in}, until the end of the stream. The text is read through a
+	 * fixed-size buffer, so occurrences spanning buffer boundaries are found
+	 * without holding the whole text in memory. The reader is not closed.
+	 *
+	 * @param in
+	 *            the source of the text
+	 * @param handler
+	 *            the receiver of the matches
+	 * @throws IOException
+	 *             if reading from {@code in} fails
+	 */
+	public void search(Reader in, MatchHandler handler) throws IOException {
+		char[] buffer = new char[BUFFER_SIZE];
+		long position = 0;
+		int s = 0;
+		int n;
+		while ((n = in.read(buffer)) >= 0) {
+			for (int i = 0; i < n; i++) {
+				s = next(s, buffer[i]);
+				if (dict[s] >= 0 || output[s] >= 0)
+					report(s, position + i, handler);
+			}
+			position += n;
+		}
+	}
+
+	/**
+	 * Reports every occurrence of every pattern in the remaining bytes of
+	 * {@code in}, each byte read as the character with the same unsigned value
+	 * (ISO-8859-1). Offsets are relative to the position of the buffer when
+	 * the search starts; the position is advanced to the limit.
+	 *
+	 * @param in
+	 *            the buffer holding the text
+	 * @param handler
+	 *            the receiver of the matches
+	 */
+	public void search(ByteBuffer in, MatchHandler handler) {
+		long start = in.position();
+		int s = 0;
+		while (in.hasRemaining()) {
+			long i = in.position() - start;
+			s = next(s, (char) (in.get() & 0xff));
+			if (dict[s] >= 0 || output[s] >= 0)
+				report(s, i, handler);
+		}
+	}
+
+	/**
+	 * Returns every occurrence of every pattern in the text, in the order
+	 * described by {@link MatchHandler#match(String, long)}.
+	 *
+	 * @param text
+	 *            the text
+	 * @return the occurrences, as an iterable
+	 */
+	public Iterable<Match> searchAll(CharSequence text) {
+		final Queue<Match> matches = new QueueLinkedListImpl<>();
+		search(text, new MatchHandler() {
+			@Override
+			public void match(String pattern, long offset) {
+				matches.enque(new Match(pattern, offset));
+			}
+		});
+		return matches;
+	}
+
+	/**
+	 * Returns the index of the end of the first occurrence of any pattern in
+	 * the text.
+	 *
+	 * @param text
+	 *            the text
+	 * @return one past the index of the last character of the occurrence of a
+	 *         pattern that ends first; -1 if no pattern occurs
+	 */
+	public int searchFirst(CharSequence text) {
+		int s = 0;
+		for (int i = 0, n = text.length(); i < n; i++) {
+			s = next(s, text.charAt(i));
+			if (dict[s] >= 0 || output[s] >= 0)
+				return i + 1;
+		}
+		return -1;
+	}
+
+}
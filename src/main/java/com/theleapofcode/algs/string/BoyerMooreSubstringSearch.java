@@ -1,11 +1,31 @@
 package com.theleapofcode.algs.string;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
 /**
- * The {@code BoyerMoore} class finds the first occurrence of a pattern string
- * in a text string.
+ * The {@code BoyerMoore} class finds the first occurrence, or every
+ * occurrence, of a pattern string in a text string.
  * <p>
  * This implementation uses the Boyer-Moore algorithm (with the bad-character
  * rule, but not the strong good suffix rule).
+ * <p>
+ * Byte texts, given as a {@code byte[]} or a {@code ByteBuffer}, are searched
+ * for the pattern as bytes, which requires every character of the pattern to
+ * be less than 256. Instead of skipping, the byte mode filters eight
+ * positions at a time on the first and last byte of the pattern, with
+ * word-at-a-time arithmetic, and verifies the positions that pass the filter
+ * byte by byte.
+ * <p>
+ * Byte streams, read from a {@code ReadableByteChannel} such as a
+ * {@code FileChannel}, are searched through a buffer in the same way, without
+ * holding the stream in memory. The last <em>m</em> - 1 bytes of each buffer
+ * are carried over to the front of the next, so occurrences that cross a
+ * buffer boundary are found. Offsets are {@code long}s, counted from the
+ * position of the channel when the search starts.
  */
 public class BoyerMooreSubstringSearch {
 	private final int R; // the radix
@@ -13,6 +33,7 @@ public class BoyerMooreSubstringSearch {
 
 	private char[] pattern; // store the pattern as a character array
 	private String pat; // or as a string
+	private byte[] bytes; // the pattern as bytes, or null if it does not fit
 
 	/**
 	 * Preprocesses the pattern string.
@@ -30,6 +51,7 @@ public class BoyerMooreSubstringSearch {
 			right[c] = -1;
 		for (int j = 0; j < pat.length(); j++)
 			right[pat.charAt(j)] = j;
+		bytes = ByteSearch.bytes(pat);
 	}
 
 	/**
@@ -52,6 +74,7 @@ public class BoyerMooreSubstringSearch {
 			right[c] = -1;
 		for (int j = 0; j < pattern.length; j++)
 			right[pattern[j]] = j;
+		bytes = ByteSearch.bytes(new String(pattern));
 	}
 
 	/**
@@ -108,4 +131,247 @@ public class BoyerMooreSubstringSearch {
 		return n; // not found
 	}
 
+	/**
+	 * Sends the index of every occurrence of the pattern string in the text
+	 * string, in increasing order, to the sink. Occurrences may overlap.
+	 *
+	 * @param txt
+	 *            the text string
+	 * @param sink
+	 *            receives the index of each occurrence
+	 * @return the number of occurrences
+	 */
+	public int searchAll(String txt, IntConsumer sink) {
+		int m = pat.length();
+		int n = txt.length();
+		int count = 0;
+		int skip;
+		for (int i = 0; i <= n - m; i += skip) {
+			skip = 0;
+			for (int j = m - 1; j >= 0; j--) {
+				if (pat.charAt(j) != txt.charAt(i + j)) {
+					skip = Math.max(1, j - right[txt.charAt(i + j)]);
+					break;
+				}
+			}
+			if (skip == 0) {
+				sink.accept(i);
+				count++;
+				skip = 1;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Sends the index of every occurrence of the pattern string in the text
+	 * string, in increasing order, to the sink. Occurrences may overlap.
+	 *
+	 * @param text
+	 *            the text string
+	 * @param sink
+	 *            receives the index of each occurrence
+	 * @return the number of occurrences
+	 */
+	public int searchAll(char[] text, IntConsumer sink) {
+		int m = pattern.length;
+		int n = text.length;
+		int count = 0;
+		int skip;
+		for (int i = 0; i <= n - m; i += skip) {
+			skip = 0;
+			for (int j = m - 1; j >= 0; j--) {
+				if (pattern[j] != text[i + j]) {
+					skip = Math.max(1, j - right[text[i + j]]);
+					break;
+				}
+			}
+			if (skip == 0) {
+				sink.accept(i);
+				count++;
+				skip = 1;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the index of the first occurrrence of the pattern in the text
+	 * bytes.
+	 *
+	 * @param text
+	 *            the text bytes
+	 * @return the index of the first occurrence of the pattern in the text;
+	 *         n if no such match
+	 * @throws IllegalStateException
+	 *             if a character of the pattern is not less than 256
+	 */
+	public int search(byte[] text) {
+		int i = ByteSearch.indexOf(ByteSearch.view(text), bytes(), 0, text.length);
+		return i < 0 ? text.length : i;
+	}
+
+	/**
+	 * Returns the index, relative to the position of the buffer, of the first
+	 * occurrrence of the pattern in the remaining bytes of the buffer. The
+	 * position of the buffer is not changed.
+	 *
+	 * @param text
+	 *            the text bytes
+	 * @return the index of the first occurrence of the pattern in the text;
+	 *         the number of remaining bytes if no such match
+	 * @throws IllegalStateException
+	 *             if a character of the pattern is not less than 256
+	 */
+	public int search(ByteBuffer text) {
+		int from = text.position(), to = text.limit();
+		int i = ByteSearch.indexOf(ByteSearch.view(text), bytes(), from, to);
+		return i < 0 ? to - from : i - from;
+	}
+
+	/**
+	 * Sends the index of every occurrence of the pattern in the text bytes, in
+	 * increasing order, to the sink. Occurrences may overlap.
+	 *
+	 * @param text
+	 *            the text bytes
+	 * @param sink
+	 *            receives the index of each occurrence
+	 * @return the number of occurrences
+	 * @throws IllegalStateException
+	 *             if a character of the pattern is not less than 256
+	 */
+	public int searchAll(byte[] text, IntConsumer sink) {
+		return searchAll(ByteSearch.view(text), 0, text.length, sink);
+	}
+
+	/**
+	 * Sends the index, relative to the position of the buffer, of every
+	 * occurrence of the pattern in the remaining bytes of the buffer, in
+	 * increasing order, to the sink. Occurrences may overlap. The position of
+	 * the buffer is not changed.
+	 *
+	 * @param text
+	 *            the text bytes
+	 * @param sink
+	 *            receives the index of each occurrence
+	 * @return the number of occurrences
+	 * @throws IllegalStateException
+	 *             if a character of the pattern is not less than 256
+	 */
+	public int searchAll(ByteBuffer text, IntConsumer sink) {
+		return searchAll(ByteSearch.view(text), text.position(), text.limit(), sink);
+	}
+
+	/**
+	 * Returns the offset of the first occurrence of the pattern in the bytes
+	 * read from the channel. Reading stops after the first occurrence.
+	 *
+	 * @param channel
+	 *            the channel
+	 * @return the offset of the first occurrence of the pattern from the
+	 *         current position of the channel; the number of bytes read if no
+	 *         such match
+	 * @throws IOException
+	 *             if the channel cannot be read
+	 * @throws IllegalStateException
+	 *             if a character of the pattern is not less than 256
+	 */
+	public long search(ReadableByteChannel channel) throws IOException {
+		long first = stream(channel, ByteBuffer.allocateDirect(ByteSearch.BUFFER_SIZE), null);
+		return first < 0 ? -1 - first : first;
+	}
+
+	/**
+	 * Sends the offset of every occurrence of the pattern in the bytes read
+	 * from the channel, until the end of the stream, to the sink, in
+	 * increasing order. Occurrences may overlap.
+	 *
+	 * @param channel
+	 *            the channel
+	 * @param sink
+	 *            receives the offset of each occurrence
+	 * @return the number of occurrences
+	 * @throws IOException
+	 *             if the channel cannot be read
+	 * @throws IllegalStateException
+	 *             if a character of the pattern is not less than 256
+	 */
+	public long searchAll(ReadableByteChannel channel, LongConsumer sink) throws IOException {
+		return stream(channel, ByteBuffer.allocateDirect(ByteSearch.BUFFER_SIZE), sink);
+	}
+
+	/**
+	 * Sends the offset of every occurrence of the pattern in the bytes read
+	 * from the channel, until the end of the stream, to the sink, in
+	 * increasing order, reading through the given buffer. Occurrences may
+	 * overlap. The buffer can be reused across searches; a direct buffer
+	 * saves a copy per read.
+	 *
+	 * @param channel
+	 *            the channel
+	 * @param buffer
+	 *            the buffer to read into
+	 * @param sink
+	 *            receives the offset of each occurrence
+	 * @return the number of occurrences
+	 * @throws IOException
+	 *             if the channel cannot be read
+	 * @throws IllegalArgumentException
+	 *             if the buffer is smaller than the pattern
+	 * @throws IllegalStateException
+	 *             if a character of the pattern is not less than 256
+	 */
+	public long searchAll(ReadableByteChannel channel, ByteBuffer buffer, LongConsumer sink) throws IOException {
+		return stream(channel, buffer, sink);
+	}
+
+	// without a sink, returns the offset of the first match, or -1 minus the
+	// number of bytes read; with a sink, sends it every match and returns
+	// their number
+	private long stream(ReadableByteChannel channel, ByteBuffer buffer, LongConsumer sink) throws IOException {
+		byte[] p = bytes();
+		int m = p.length;
+		if (m == 0)
+			throw new IllegalStateException("empty pattern");
+		if (buffer.capacity() < m)
+			throw new IllegalArgumentException("buffer of " + buffer.capacity() + " bytes for a pattern of " + m);
+		buffer.clear();
+		ByteBuffer view = ByteSearch.view(buffer);
+		long base = 0; // offset of the first byte of the buffer
+		long count = 0;
+		while (channel.read(buffer) >= 0) {
+			int to = buffer.position();
+			for (int i = ByteSearch.indexOf(view, p, 0, to); i >= 0; i = ByteSearch.indexOf(view, p, i + 1, to)) {
+				if (sink == null)
+					return base + i;
+				sink.accept(base + i);
+				count++;
+			}
+			// carry over the m - 1 last bytes, which may start a match
+			int keep = Math.min(to, m - 1);
+			buffer.flip();
+			buffer.position(to - keep);
+			buffer.compact();
+			base += to - keep;
+		}
+		return sink == null ? -1 - (base + buffer.position()) : count;
+	}
+
+	private int searchAll(ByteBuffer text, int from, int to, IntConsumer sink) {
+		byte[] p = bytes();
+		int count = 0;
+		for (int i = ByteSearch.indexOf(text, p, from, to); i >= 0; i = ByteSearch.indexOf(text, p, i + 1, to)) {
+			sink.accept(i - from);
+			count++;
+		}
+		return count;
+	}
+
+	private byte[] bytes() {
+		if (bytes == null)
+			throw new IllegalStateException("pattern has a character not less than 256");
+		return bytes;
+	}
+
 }
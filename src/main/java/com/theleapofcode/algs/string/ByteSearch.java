@@ -0,0 +1,123 @@
+package com.theleapofcode.algs.string;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The {@code ByteSearch} class holds the word-at-a-time (SWAR) scans shared by
+ * the byte modes of the substring searches. A scan loads eight bytes of text
+ * into a {@code long} and finds the bytes equal to a given byte with a few
+ * arithmetic operations, with no branch per byte.
+ * <p>
+ * Texts are read through little-endian {@code ByteBuffer} views, whose
+ * {@code getLong} the JIT compiles to a single unaligned load, so the
+ * lowest-addressed byte of a word is its least significant byte.
+ */
+final class ByteSearch {
+
+	/**
+	 * The size of the direct buffers of the streaming searches.
+	 */
+	static final int BUFFER_SIZE = 1 << 16;
+
+	private static final long LOW7 = 0x7f7f7f7f7f7f7f7fL;
+	private static final long ONES = 0x0101010101010101L;
+
+	private ByteSearch() {
+	}
+
+	/**
+	 * Returns a little-endian view of {@code text}.
+	 */
+	static ByteBuffer view(byte[] text) {
+		return ByteBuffer.wrap(text).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Returns a little-endian view of {@code text}, with the same position and
+	 * limit, that can be read without changing {@code text}.
+	 */
+	static ByteBuffer view(ByteBuffer text) {
+		return text.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Returns the characters of the pattern as bytes, or {@code null} if a
+	 * character is outside the byte range.
+	 */
+	static byte[] bytes(CharSequence pattern) {
+		byte[] bytes = new byte[pattern.length()];
+		for (int j = 0; j < bytes.length; j++) {
+			char c = pattern.charAt(j);
+			if (c > 0xff)
+				return null;
+			bytes[j] = (byte) c;
+		}
+		return bytes;
+	}
+
+	// the byte b in every byte of a word
+	private static long broadcast(int b) {
+		return (b & 0xffL) * ONES;
+	}
+
+	// a word with the high bit set in exactly the bytes of x that are zero
+	private static long zeros(long x) {
+		return ~(((x & LOW7) + LOW7) | x | LOW7);
+	}
+
+	/**
+	 * Returns the index of the first byte {@code b} in {@code text[from..to)},
+	 * or -1 if there is none.
+	 */
+	static int indexOf(ByteBuffer text, byte b, int from, int to) {
+		long pattern = broadcast(b);
+		int i = from;
+		for (; i + 8 <= to; i += 8) {
+			long z = zeros(text.getLong(i) ^ pattern);
+			if (z != 0)
+				return i + (Long.numberOfTrailingZeros(z) >>> 3);
+		}
+		for (; i < to; i++)
+			if (text.get(i) == b)
+				return i;
+		return -1;
+	}
+
+	/**
+	 * Returns the index of the first occurrence of {@code pattern} in
+	 * {@code text[from..to)}, or -1 if there is none. Eight candidate
+	 * positions at a time are filtered on their first and last bytes, and
+	 * each candidate left is verified byte by byte.
+	 */
+	static int indexOf(ByteBuffer text, byte[] pattern, int from, int to) {
+		int m = pattern.length;
+		if (m == 0)
+			return from <= to ? from : -1;
+		long first = broadcast(pattern[0]);
+		long last = broadcast(pattern[m - 1]);
+		int i = from;
+		// the words at i and i + m - 1 must both fit before to
+		for (; i + m + 7 <= to; i += 8) {
+			long x = (text.getLong(i) ^ first) | (text.getLong(i + m - 1) ^ last);
+			for (long z = zeros(x); z != 0; z &= z - 1) {
+				int k = i + (Long.numberOfTrailingZeros(z) >>> 3);
+				if (matches(text, k, pattern))
+					return k;
+			}
+		}
+		for (; i + m <= to; i++)
+			if (text.get(i) == pattern[0] && text.get(i + m - 1) == pattern[m - 1] && matches(text, i, pattern))
+				return i;
+		return -1;
+	}
+
+	// do the inner bytes of the pattern match at position k?
+	private static boolean matches(ByteBuffer text, int k, byte[] pattern) {
+		for (int j = 1; j < pattern.length - 1; j++)
+			if (text.get(k + j) != pattern[j])
+				return false;
+		return true;
+	}
+
+}
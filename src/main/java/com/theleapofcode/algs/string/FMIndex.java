@@ -0,0 +1,388 @@
+package com.theleapofcode.algs.string;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.theleapofcode.algs.stacksandqueues.MinPriorityQueue;
+
+/**
+ * The {@code FMIndex} class is a compressed full-text index of a byte string.
+ * It counts and locates the occurrences of a pattern without keeping the text
+ * or its suffix array.
+ * <p>
+ * This implementation stores the Burrows-Wheeler transform of the text,
+ * derived from its suffix array (see {@link SuffixArrays}), in a
+ * Huffman-shaped wavelet tree: a binary tree with the Huffman code of the
+ * bytes as its shape and a bitvector with constant-time rank at each internal
+ * node, so the transform takes about <em>H</em><sub>0</sub> bits per byte.
+ * <em>count</em> runs a backward search, taking time proportional to
+ * <em>m</em> times the code length, where <em>m</em> is the length of the
+ * pattern. <em>locate</em> also keeps the suffix array entries of the text
+ * positions that are multiples of the sample rate <em>s</em>, and takes
+ * <em>s</em> LF steps at most per occurrence.
+ * <p>
+ * The text is indexed as a sequence of unsigned bytes followed by a virtual
+ * sentinel smaller than every byte. String patterns are encoded as UTF-8.
+ */
+public class FMIndex {
+
+	/**
+	 * The default sample rate of the suffix array.
+	 */
+	public static final int DEFAULT_SAMPLE_RATE = 32;
+
+	private static final int R = 256;
+
+	private final int n; // length of the text
+	private final int dollar; // row of the sentinel in the transform
+	private final int[] C; // C[c] = rows starting with a symbol less than c
+	private final boolean[] present; // does byte c occur in the text?
+	private final long[] codes; // Huffman code of each byte, as bits from the root
+	private final int[] lengths; // length of the Huffman code of each byte
+	private final WaveletNode root; // wavelet tree of the transform without the sentinel
+	private final RankBitVector sampled; // rows whose suffix array entry is kept
+	private final int[] samples; // kept suffix array entries, in row order
+	private final int sampleRate;
+
+	// bitvector with rank in constant time: one count per 512 bits
+	private static class RankBitVector {
+		private final long[] words;
+		private final int[] blocks; // number of ones before each block of 8 words
+
+		private RankBitVector(long[] words) {
+			this.words = words;
+			this.blocks = new int[(words.length >>> 3) + 1];
+			int ones = 0;
+			for (int w = 0; w <= words.length; w++) {
+				if ((w & 7) == 0)
+					blocks[w >>> 3] = ones;
+				if (w < words.length)
+					ones += Long.bitCount(words[w]);
+			}
+		}
+
+		private boolean get(int i) {
+			return ((words[i >>> 6] >>> (i & 63)) & 1) != 0;
+		}
+
+		// number of ones in positions [0, i)
+		private int rank1(int i) {
+			int w = i >>> 6;
+			int r = blocks[w >>> 3];
+			for (int k = w & ~7; k < w; k++)
+				r += Long.bitCount(words[k]);
+			if ((i & 63) != 0)
+				r += Long.bitCount(words[w] & ((1L << (i & 63)) - 1));
+			return r;
+		}
+
+		private long bytes() {
+			return 8L * words.length + 4L * blocks.length;
+		}
+	}
+
+	// node of the wavelet tree, built as a Huffman trie
+	private static class WaveletNode implements Comparable<WaveletNode> {
+		private final int symbol; // byte of a leaf
+		private final long freq;
+		private final WaveletNode left, right;
+		private long[] words; // bits while building
+		private int filled; // bits written while building
+		private RankBitVector bits; // 0 goes left, 1 goes right
+
+		private WaveletNode(int symbol, long freq, WaveletNode left, WaveletNode right) {
+			this.symbol = symbol;
+			this.freq = freq;
+			this.left = left;
+			this.right = right;
+		}
+
+		private boolean isLeaf() {
+			return left == null;
+		}
+
+		public int compareTo(WaveletNode that) {
+			return Long.compare(this.freq, that.freq);
+		}
+	}
+
+	/**
+	 * Builds the index of the given bytes, keeping every
+	 * {@link #DEFAULT_SAMPLE_RATE}th suffix array entry.
+	 *
+	 * @param text
+	 *            the text
+	 */
+	public FMIndex(byte[] text) {
+		this(text, DEFAULT_SAMPLE_RATE);
+	}
+
+	/**
+	 * Builds the index of the given bytes.
+	 *
+	 * @param text
+	 *            the text
+	 * @param sampleRate
+	 *            keep the suffix array entries of the text positions that are
+	 *            multiples of {@code sampleRate}
+	 * @throws IllegalArgumentException
+	 *             if {@code sampleRate < 1}
+	 */
+	public FMIndex(byte[] text, int sampleRate) {
+		if (sampleRate < 1)
+			throw new IllegalArgumentException("sample rate must be positive");
+		this.n = text.length;
+		this.sampleRate = sampleRate;
+
+		// suffix array of text + sentinel: the sentinel suffix comes first
+		int[] sa = SuffixArrays.build(text);
+		int rows = n + 1;
+
+		long[] freq = new long[R];
+		for (byte b : text)
+			freq[b & 0xff]++;
+		C = new int[R + 1];
+		C[0] = 1;
+		for (int c = 0; c < R; c++)
+			C[c + 1] = C[c] + (int) freq[c];
+		present = new boolean[R];
+		for (int c = 0; c < R; c++)
+			present[c] = freq[c] > 0;
+
+		// Huffman trie over the bytes of the transform
+		codes = new long[R];
+		lengths = new int[R];
+		root = buildTrie(freq);
+		if (root != null)
+			assignCodes(root, 0, 0);
+
+		// route the transform through the trie, and sample the suffix array
+		long[] marks = new long[(rows + 63) >>> 6];
+		int count = 0;
+		int d = 0;
+		for (int row = 0; row < rows; row++) {
+			int pos = row == 0 ? n : sa[row - 1];
+			if (pos % sampleRate == 0) {
+				marks[row >>> 6] |= 1L << (row & 63);
+				count++;
+			}
+			if (pos == 0)
+				d = row;
+			else
+				append(text[pos - 1] & 0xff);
+		}
+		dollar = d;
+		sampled = new RankBitVector(marks);
+		samples = new int[count];
+		for (int row = 0, k = 0; row < rows; row++) {
+			int pos = row == 0 ? n : sa[row - 1];
+			if (pos % sampleRate == 0)
+				samples[k++] = pos;
+		}
+		if (root != null)
+			finish(root);
+	}
+
+	private static WaveletNode buildTrie(long[] freq) {
+		MinPriorityQueue<WaveletNode> pq = new MinPriorityQueue<>();
+		for (int c = 0; c < R; c++)
+			if (freq[c] > 0)
+				pq.enque(new WaveletNode(c, freq[c], null, null));
+		if (pq.isEmpty())
+			return null;
+		while (pq.size() > 1) {
+			WaveletNode left = pq.deque();
+			WaveletNode right = pq.deque();
+			WaveletNode parent = new WaveletNode(-1, left.freq + right.freq, left, right);
+			parent.words = new long[(int) ((parent.freq + 63) >>> 6)];
+			pq.enque(parent);
+		}
+		return pq.deque();
+	}
+
+	private void assignCodes(WaveletNode x, long code, int length) {
+		if (x.isLeaf()) {
+			codes[x.symbol] = code;
+			lengths[x.symbol] = length;
+			return;
+		}
+		assignCodes(x.left, code << 1, length + 1);
+		assignCodes(x.right, (code << 1) | 1, length + 1);
+	}
+
+	// writes the bits of byte c along its path
+	private void append(int c) {
+		WaveletNode x = root;
+		for (int k = lengths[c] - 1; k >= 0; k--) {
+			long bit = (codes[c] >>> k) & 1;
+			x.words[x.filled >>> 6] |= bit << (x.filled & 63);
+			x.filled++;
+			x = bit == 0 ? x.left : x.right;
+		}
+	}
+
+	private static void finish(WaveletNode x) {
+		if (x.isLeaf())
+			return;
+		x.bits = new RankBitVector(x.words);
+		x.words = null;
+		finish(x.left);
+		finish(x.right);
+	}
+
+	// number of occurrences of byte c in the first i symbols of the transform
+	// without the sentinel
+	private int rank(int c, int i) {
+		WaveletNode x = root;
+		for (int k = lengths[c] - 1; k >= 0; k--) {
+			int ones = x.bits.rank1(i);
+			if (((codes[c] >>> k) & 1) == 0) {
+				i -= ones;
+				x = x.left;
+			} else {
+				i = ones;
+				x = x.right;
+			}
+		}
+		return i;
+	}
+
+	// the row reached by one LF step from row, which is not the sentinel row
+	private int lf(int row) {
+		int i = row < dollar ? row : row - 1;
+		WaveletNode x = root;
+		while (!x.isLeaf()) {
+			int ones = x.bits.rank1(i);
+			if (x.bits.get(i)) {
+				i = ones;
+				x = x.right;
+			} else {
+				i -= ones;
+				x = x.left;
+			}
+		}
+		return C[x.symbol] + i;
+	}
+
+	// the first row and one past the last row prefixed by the pattern, packed
+	// into a long; empty if the first is not less than the last
+	private long range(byte[] pattern) {
+		if (pattern.length == 0)
+			throw new IllegalArgumentException("empty pattern");
+		int lo = 0, hi = n + 1;
+		for (int k = pattern.length - 1; k >= 0 && lo < hi; k--) {
+			int c = pattern[k] & 0xff;
+			if (!present[c])
+				return 0;
+			lo = C[c] + rank(c, lo > dollar ? lo - 1 : lo);
+			hi = C[c] + rank(c, hi > dollar ? hi - 1 : hi);
+		}
+		return lo < hi ? ((long) lo << 32) | hi : 0;
+	}
+
+	/**
+	 * Returns the length of the text.
+	 *
+	 * @return the length of the text
+	 */
+	public int length() {
+		return n;
+	}
+
+	/**
+	 * Returns the number of occurrences of the pattern in the text.
+	 *
+	 * @param pattern
+	 *            the pattern
+	 * @return the number of occurrences of {@code pattern}
+	 * @throws IllegalArgumentException
+	 *             if {@code pattern} is empty
+	 */
+	public int count(byte[] pattern) {
+		long range = range(pattern);
+		return (int) range - (int) (range >>> 32);
+	}
+
+	/**
+	 * Returns the number of occurrences of the pattern, encoded as UTF-8, in
+	 * the text.
+	 *
+	 * @param pattern
+	 *            the pattern
+	 * @return the number of occurrences of {@code pattern}
+	 * @throws IllegalArgumentException
+	 *             if {@code pattern} is empty
+	 */
+	public int count(String pattern) {
+		return count(pattern.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Returns the positions of the occurrences of the pattern in the text.
+	 *
+	 * @param pattern
+	 *            the pattern
+	 * @return the positions of the occurrences of {@code pattern}, in
+	 *         increasing order
+	 * @throws IllegalArgumentException
+	 *             if {@code pattern} is empty
+	 */
+	public int[] locate(byte[] pattern) {
+		long range = range(pattern);
+		int lo = (int) (range >>> 32), hi = (int) range;
+		int[] positions = new int[hi - lo];
+		for (int row = lo; row < hi; row++) {
+			int r = row;
+			int steps = 0;
+			while (!sampled.get(r)) {
+				r = lf(r);
+				steps++;
+			}
+			positions[row - lo] = samples[sampled.rank1(r)] + steps;
+		}
+		Arrays.sort(positions);
+		return positions;
+	}
+
+	/**
+	 * Returns the positions of the occurrences of the pattern, encoded as
+	 * UTF-8, in the text.
+	 *
+	 * @param pattern
+	 *            the pattern
+	 * @return the positions of the occurrences of {@code pattern}, in
+	 *         increasing order
+	 * @throws IllegalArgumentException
+	 *             if {@code pattern} is empty
+	 */
+	public int[] locate(String pattern) {
+		return locate(pattern.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Returns the approximate number of bytes taken by the index.
+	 *
+	 * @return the approximate size of the index, in bytes
+	 */
+	public long sizeInBytes() {
+		long size = 4L * C.length + R + 8L * codes.length + 4L * lengths.length;
+		size += sampled.bytes() + 4L * samples.length;
+		return size + bytes(root);
+	}
+
+	private static long bytes(WaveletNode x) {
+		if (x == null || x.isLeaf())
+			return 0;
+		return x.bits.bytes() + bytes(x.left) + bytes(x.right);
+	}
+
+	/**
+	 * Returns the sample rate of the suffix array.
+	 *
+	 * @return the sample rate of the suffix array
+	 */
+	public int sampleRate() {
+		return sampleRate;
+	}
+
+}
@@ -0,0 +1,309 @@
+package com.theleapofcode.algs.string;
+
+import com.theleapofcode.algs.stacksandqueues.MinPriorityQueue;
+
+/**
+ * The {@code GeneralizedSuffixArray} class is a suffix array of a collection
+ * of documents, with the document of each suffix, for finding the substrings
+ * that several documents share.
+ * <p>
+ * This implementation concatenates the documents, each followed by its own
+ * separator, over an integer alphabet in which the separators are smaller than
+ * every character and distinct from each other, so that no common prefix runs
+ * across a separator. The suffix array and the LCP array are built with
+ * SA-IS and Kasai's algorithm (see {@link SuffixArrays}), in time and space
+ * proportional to the total length <em>n</em> of the documents.
+ * <p>
+ * The longest substring common to <em>k</em> of the documents is found in
+ * time proportional to <em>n</em>, with a window over the suffix array that
+ * holds suffixes of <em>k</em> distinct documents, and a deque that keeps the
+ * minimum LCP of the window. The most frequent repeated substrings are found
+ * by enumerating the LCP intervals (the internal nodes of the suffix tree)
+ * with a stack, in time proportional to <em>n</em> log <em>k</em> for the top
+ * <em>k</em>.
+ * <p>
+ * Results are {@link Substring}s: a document, an offset and a length, without
+ * materializing the substring.
+ */
+public class GeneralizedSuffixArray {
+
+	/**
+	 * A substring of a document, and the number of its occurrences in all the
+	 * documents.
+	 */
+	public static class Substring {
+		private final int document;
+		private final int offset;
+		private final int length;
+		private final int occurrences;
+
+		public Substring(int document, int offset, int length, int occurrences) {
+			this.document = document;
+			this.offset = offset;
+			this.length = length;
+			this.occurrences = occurrences;
+		}
+
+		public int document() {
+			return document;
+		}
+
+		public int offset() {
+			return offset;
+		}
+
+		public int length() {
+			return length;
+		}
+
+		public int occurrences() {
+			return occurrences;
+		}
+
+		@Override
+		public String toString() {
+			return "(" + document + ":" + offset + "+" + length + " x" + occurrences + ")";
+		}
+	}
+
+	// an LCP interval ranked by occurrences, then length
+	private static class Interval implements Comparable<Interval> {
+		private final int row; // a row of the interval
+		private final int length;
+		private final int occurrences;
+
+		private Interval(int row, int length, int occurrences) {
+			this.row = row;
+			this.length = length;
+			this.occurrences = occurrences;
+		}
+
+		public int compareTo(Interval that) {
+			if (this.occurrences != that.occurrences)
+				return Integer.compare(this.occurrences, that.occurrences);
+			return Integer.compare(this.length, that.length);
+		}
+	}
+
+	private final String[] documents;
+	private final int[] starts; // start of each document in the concatenation
+	private final int[] text; // the concatenation
+	private final int[] sa; // suffix array; rows 0 to N-1 are the separators
+	private final int[] lcp; // LCP array
+	private final int[] docs; // document of the suffix of each row
+
+	/**
+	 * Builds the generalized suffix array of the documents.
+	 *
+	 * @param documents
+	 *            the documents
+	 * @throws IllegalArgumentException
+	 *             if there are no documents
+	 */
+	public GeneralizedSuffixArray(String[] documents) {
+		int N = documents.length;
+		if (N == 0)
+			throw new IllegalArgumentException("no documents");
+		this.documents = documents.clone();
+		this.starts = new int[N + 1];
+		long total = 0;
+		for (int d = 0; d < N; d++)
+			total += documents[d].length() + 1;
+		if (total > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("documents too long: " + total);
+
+		// document d, then separator d, over the characters shifted up by N
+		text = new int[(int) total];
+		int[] positionDocs = new int[text.length];
+		for (int d = 0, p = 0; d < N; d++) {
+			starts[d] = p;
+			String document = documents[d];
+			for (int i = 0; i < document.length(); i++, p++) {
+				text[p] = document.charAt(i) + N;
+				positionDocs[p] = d;
+			}
+			positionDocs[p] = d;
+			text[p++] = d;
+		}
+		starts[N] = text.length;
+		sa = SuffixArrays.build(text, N + Character.MAX_VALUE);
+		lcp = SuffixArrays.lcp(text, sa);
+		docs = new int[sa.length];
+		for (int i = 0; i < sa.length; i++)
+			docs[i] = positionDocs[sa[i]];
+	}
+
+	/**
+	 * Returns the number of documents.
+	 *
+	 * @return the number of documents
+	 */
+	public int documents() {
+		return documents.length;
+	}
+
+	/**
+	 * Returns the text of a substring.
+	 *
+	 * @param s
+	 *            the substring
+	 * @return the text of {@code s}
+	 */
+	public String substring(Substring s) {
+		return documents[s.document].substring(s.offset, s.offset + s.length);
+	}
+
+	// the substring of the given length starting at the suffix of row i
+	private Substring substring(int i, int length, int occurrences) {
+		int d = docs[i];
+		return new Substring(d, sa[i] - starts[d], length, occurrences);
+	}
+
+	/**
+	 * Returns a longest substring that occurs in at least {@code k} of the
+	 * documents.
+	 *
+	 * @param k
+	 *            the number of documents
+	 * @return a longest substring of at least {@code k} documents, with the
+	 *         number of its occurrences in all the documents; {@code null} if
+	 *         the only such substring is the empty string
+	 * @throws IllegalArgumentException
+	 *             unless {@code 1 <= k <= N}
+	 */
+	public Substring longestCommon(int k) {
+		int N = documents.length;
+		if (k < 1 || k > N)
+			throw new IllegalArgumentException("k must be between 1 and " + N);
+		int n = sa.length;
+		if (k == 1) {
+			int longest = 0;
+			for (int d = 1; d < N; d++)
+				if (documents[d].length() > documents[longest].length())
+					longest = d;
+			int length = documents[longest].length();
+			if (length == 0)
+				return null;
+			int row = N;
+			while (sa[row] != starts[longest])
+				row++;
+			return interval(row, row, length);
+		}
+
+		// window of rows [l, r] of the real suffixes, holding suffixes of
+		// distinct documents, and a deque of the rows j in (l, r] of
+		// increasing lcp[j]
+		int[] counts = new int[N];
+		int distinct = 0;
+		int[] deque = new int[n];
+		int head = 0, tail = 0;
+		int best = 0, bestL = -1, bestR = -1;
+		for (int l = N, r = N; r < n; r++) {
+			if (counts[docs[r]]++ == 0)
+				distinct++;
+			if (r > l) {
+				while (tail > head && lcp[deque[tail - 1]] >= lcp[r])
+					tail--;
+				deque[tail++] = r;
+			}
+			// drop the left suffixes that the window can do without
+			while (distinct - (counts[docs[l]] == 1 ? 1 : 0) >= k) {
+				if (--counts[docs[l]] == 0)
+					distinct--;
+				l++;
+				while (tail > head && deque[head] <= l)
+					head++;
+			}
+			if (distinct >= k && tail > head && lcp[deque[head]] > best) {
+				best = lcp[deque[head]];
+				bestL = l;
+				bestR = r;
+			}
+		}
+		return best == 0 ? null : interval(bestL, bestR, best);
+	}
+
+	// the prefix of the given length of the suffixes of rows [l, r], which
+	// share it, with every suffix of its LCP interval as an occurrence
+	private Substring interval(int l, int r, int length) {
+		int N = documents.length;
+		while (l > N && lcp[l] >= length)
+			l--;
+		while (r + 1 < sa.length && lcp[r + 1] >= length)
+			r++;
+		return substring(l, length, r - l + 1);
+	}
+
+	/**
+	 * Returns the {@code k} maximal repeats with the most occurrences, most
+	 * frequent first and, among equally frequent ones, longest first. A
+	 * maximal repeat occurs at least twice, and cannot be extended to the
+	 * left or to the right without losing an occurrence.
+	 *
+	 * @param k
+	 *            the number of repeats
+	 * @param minLength
+	 *            the length of the shortest repeat to report
+	 * @return at most {@code k} maximal repeats of length at least
+	 *         {@code minLength}
+	 * @throws IllegalArgumentException
+	 *             if {@code k < 0}
+	 */
+	public Substring[] topRepeated(int k, int minLength) {
+		if (k < 0)
+			throw new IllegalArgumentException("k must not be negative");
+		int N = documents.length;
+		int n = sa.length;
+
+		// mixed[i] = number of rows j in (N, i] whose left character differs
+		// from that of row j - 1, so an interval [lb, rb] is left-maximal iff
+		// mixed[rb] > mixed[lb]; separators are distinct, and a suffix at
+		// the start of the text has no left character at all
+		int[] mixed = new int[n];
+		for (int i = N + 1; i < n; i++) {
+			boolean differs = sa[i] == 0 || sa[i - 1] == 0 || text[sa[i] - 1] != text[sa[i - 1] - 1];
+			mixed[i] = mixed[i - 1] + (differs ? 1 : 0);
+		}
+
+		MinPriorityQueue<Interval> top = new MinPriorityQueue<>();
+		if (k > 0 && n > N) {
+			// stack of open LCP intervals: their LCP value and left bound
+			int[] values = new int[n - N + 1];
+			int[] bounds = new int[n - N + 1];
+			int size = 0;
+			values[size] = 0;
+			bounds[size++] = N;
+			for (int i = N + 1; i <= n; i++) {
+				int h = i < n ? lcp[i] : 0;
+				int lb = i - 1;
+				while (h < values[size - 1]) {
+					size--;
+					lb = bounds[size];
+					int length = values[size];
+					int occurrences = i - lb;
+					if (length >= minLength && mixed[i - 1] > mixed[lb]) {
+						Interval interval = new Interval(lb, length, occurrences);
+						if (top.size() < k)
+							top.enque(interval);
+						else if (top.peek().compareTo(interval) < 0) {
+							top.deque();
+							top.enque(interval);
+						}
+					}
+				}
+				if (h > values[size - 1]) {
+					values[size] = h;
+					bounds[size++] = lb;
+				}
+			}
+		}
+
+		Substring[] repeats = new Substring[top.size()];
+		for (int j = repeats.length - 1; j >= 0; j--) {
+			Interval interval = top.deque();
+			repeats[j] = substring(interval.row, interval.length, interval.occurrences);
+		}
+		return repeats;
+	}
+
+}
@@ -1,13 +1,32 @@
 package com.theleapofcode.algs.string;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
 /**
- * The {@code KMP} class finds the first occurrence of a pattern string in a
- * text string.
+ * The {@code KMP} class finds the first occurrence, or every occurrence, of a
+ * pattern string in a text string.
  * <p>
  * This implementation uses a version of the Knuth-Morris-Pratt substring search
  * algorithm. The version takes time as space proportional to <em>N</em> + <em>M
  * R</em> in the worst case, where <em>N</em> is the length of the text string,
  * <em>M</em> is the length of the pattern, and <em>R</em> is the alphabet size.
+ * <p>
+ * Byte texts, given as a {@code byte[]} or a {@code ByteBuffer}, are searched
+ * for the pattern as bytes, which requires every character of the pattern to
+ * be less than 256. While the automaton is in its start state, the byte mode
+ * skips to the next occurrence of the first byte of the pattern eight bytes
+ * at a time, with word-at-a-time arithmetic, so the worst case stays linear.
+ * <p>
+ * Byte streams, read from a {@code ReadableByteChannel} such as a
+ * {@code FileChannel}, are searched through a buffer in the same way, without
+ * holding the stream in memory. The automaton state is carried from one
+ * buffer to the next, so occurrences that cross a buffer boundary are found
+ * without reading any byte twice. Offsets are {@code long}s, counted from the
+ * position of the channel when the search starts.
  */
 public class KanuthMorrisPrattSubstringSearch {
 	private final int R; // the radix
@@ -15,6 +34,8 @@ public class KanuthMorrisPrattSubstringSearch {
 
 	private char[] pattern; // either the character array for the pattern
 	private String pat; // or the pattern string
+	private int restart; // the state after a match
+	private byte[] bytes; // the pattern as bytes, or null if it does not fit
 
 	/**
 	 * Preprocesses the pattern string.
@@ -30,12 +51,15 @@ public class KanuthMorrisPrattSubstringSearch {
 		int m = pat.length();
 		dfa = new int[R][m];
 		dfa[pat.charAt(0)][0] = 1;
-		for (int x = 0, j = 1; j < m; j++) {
+		int x = 0;
+		for (int j = 1; j < m; j++) {
 			for (int c = 0; c < R; c++)
 				dfa[c][j] = dfa[c][x]; // Copy mismatch cases.
 			dfa[pat.charAt(j)][j] = j + 1; // Set match case.
 			x = dfa[pat.charAt(j)][x]; // Update restart state.
 		}
+		restart = x;
+		bytes = ByteSearch.bytes(pat);
 	}
 
 	/**
@@ -56,12 +80,15 @@ public class KanuthMorrisPrattSubstringSearch {
 		int m = pattern.length;
 		dfa = new int[R][m];
 		dfa[pattern[0]][0] = 1;
-		for (int x = 0, j = 1; j < m; j++) {
+		int x = 0;
+		for (int j = 1; j < m; j++) {
 			for (int c = 0; c < R; c++)
 				dfa[c][j] = dfa[c][x]; // Copy mismatch cases.
 			dfa[pattern[j]][j] = j + 1; // Set match case.
 			x = dfa[pattern[j]][x]; // Update restart state.
 		}
+		restart = x;
+		bytes = ByteSearch.bytes(new String(pattern));
 	}
 
 	/**
@@ -110,4 +137,255 @@ public class KanuthMorrisPrattSubstringSearch {
 		return n; // not found
 	}
 
+	/**
+	 * Sends the index of every occurrence of the pattern string in the text
+	 * string, in increasing order, to the sink. Occurrences may overlap.
+	 *
+	 * @param txt
+	 *            the text string
+	 * @param sink
+	 *            receives the index of each occurrence
+	 * @return the number of occurrences
+	 */
+	public int searchAll(String txt, IntConsumer sink) {
+		int m = pat.length();
+		int n = txt.length();
+		int count = 0;
+		for (int i = 0, j = 0; i < n; i++) {
+			j = dfa[txt.charAt(i)][j];
+			if (j == m) {
+				sink.accept(i + 1 - m);
+				count++;
+				j = restart;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Sends the index of every occurrence of the pattern string in the text
+	 * string, in increasing order, to the sink. Occurrences may overlap.
+	 *
+	 * @param text
+	 *            the text string
+	 * @param sink
+	 *            receives the index of each occurrence
+	 * @return the number of occurrences
+	 */
+	public int searchAll(char[] text, IntConsumer sink) {
+		int m = pattern.length;
+		int n = text.length;
+		int count = 0;
+		for (int i = 0, j = 0; i < n; i++) {
+			j = dfa[text[i]][j];
+			if (j == m) {
+				sink.accept(i + 1 - m);
+				count++;
+				j = restart;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the index of the first occurrrence of the pattern in the text
+	 * bytes.
+	 *
+	 * @param text
+	 *            the text bytes
+	 * @return the index of the first occurrence of the pattern in the text;
+	 *         N if no such match
+	 * @throws IllegalStateException
+	 *             if a character of the pattern is not less than 256
+	 */
+	public int search(byte[] text) {
+		int i = search(ByteSearch.view(text), 0, text.length, null);
+		return i < 0 ? text.length : i;
+	}
+
+	/**
+	 * Returns the index, relative to the position of the buffer, of the first
+	 * occurrrence of the pattern in the remaining bytes of the buffer. The
+	 * position of the buffer is not changed.
+	 *
+	 * @param text
+	 *            the text bytes
+	 * @return the index of the first occurrence of the pattern in the text;
+	 *         the number of remaining bytes if no such match
+	 * @throws IllegalStateException
+	 *             if a character of the pattern is not less than 256
+	 */
+	public int search(ByteBuffer text) {
+		int i = search(ByteSearch.view(text), text.position(), text.limit(), null);
+		return i < 0 ? text.remaining() : i;
+	}
+
+	/**
+	 * Sends the index of every occurrence of the pattern in the text bytes, in
+	 * increasing order, to the sink. Occurrences may overlap.
+	 *
+	 * @param text
+	 *            the text bytes
+	 * @param sink
+	 *            receives the index of each occurrence
+	 * @return the number of occurrences
+	 * @throws IllegalStateException
+	 *             if a character of the pattern is not less than 256
+	 */
+	public int searchAll(byte[] text, IntConsumer sink) {
+		return search(ByteSearch.view(text), 0, text.length, sink);
+	}
+
+	/**
+	 * Sends the index, relative to the position of the buffer, of every
+	 * occurrence of the pattern in the remaining bytes of the buffer, in
+	 * increasing order, to the sink. Occurrences may overlap. The position of
+	 * the buffer is not changed.
+	 *
+	 * @param text
+	 *            the text bytes
+	 * @param sink
+	 *            receives the index of each occurrence
+	 * @return the number of occurrences
+	 * @throws IllegalStateException
+	 *             if a character of the pattern is not less than 256
+	 */
+	public int searchAll(ByteBuffer text, IntConsumer sink) {
+		return search(ByteSearch.view(text), text.position(), text.limit(), sink);
+	}
+
+	/**
+	 * Returns the offset of the first occurrence of the pattern in the bytes
+	 * read from the channel. Reading stops after the first occurrence.
+	 *
+	 * @param channel
+	 *            the channel
+	 * @return the offset of the first occurrence of the pattern from the
+	 *         current position of the channel; the number of bytes read if no
+	 *         such match
+	 * @throws IOException
+	 *             if the channel cannot be read
+	 * @throws IllegalStateException
+	 *             if a character of the pattern is not less than 256
+	 */
+	public long search(ReadableByteChannel channel) throws IOException {
+		long first = stream(channel, ByteBuffer.allocateDirect(ByteSearch.BUFFER_SIZE), null);
+		return first < 0 ? -1 - first : first;
+	}
+
+	/**
+	 * Sends the offset of every occurrence of the pattern in the bytes read
+	 * from the channel, until the end of the stream, to the sink, in
+	 * increasing order. Occurrences may overlap.
+	 *
+	 * @param channel
+	 *            the channel
+	 * @param sink
+	 *            receives the offset of each occurrence
+	 * @return the number of occurrences
+	 * @throws IOException
+	 *             if the channel cannot be read
+	 * @throws IllegalStateException
+	 *             if a character of the pattern is not less than 256
+	 */
+	public long searchAll(ReadableByteChannel channel, LongConsumer sink) throws IOException {
+		return stream(channel, ByteBuffer.allocateDirect(ByteSearch.BUFFER_SIZE), sink);
+	}
+
+	/**
+	 * Sends the offset of every occurrence of the pattern in the bytes read
+	 * from the channel, until the end of the stream, to the sink, in
+	 * increasing order, reading through the given buffer. Occurrences may
+	 * overlap. The buffer can be reused across searches; a direct buffer
+	 * saves a copy per read.
+	 *
+	 * @param channel
+	 *            the channel
+	 * @param buffer
+	 *            the buffer to read into
+	 * @param sink
+	 *            receives the offset of each occurrence
+	 * @return the number of occurrences
+	 * @throws IOException
+	 *             if the channel cannot be read
+	 * @throws IllegalArgumentException
+	 *             if the buffer is empty
+	 * @throws IllegalStateException
+	 *             if a character of the pattern is not less than 256
+	 */
+	public long searchAll(ReadableByteChannel channel, ByteBuffer buffer, LongConsumer sink) throws IOException {
+		return stream(channel, buffer, sink);
+	}
+
+	// without a sink, returns the offset of the first match, or -1 minus the
+	// number of bytes read; with a sink, sends it every match and returns
+	// their number
+	private long stream(ReadableByteChannel channel, ByteBuffer buffer, LongConsumer sink) throws IOException {
+		byte[] p = bytes();
+		int m = p.length;
+		byte first = p[0];
+		if (buffer.capacity() == 0)
+			throw new IllegalArgumentException("empty buffer");
+		buffer.clear();
+		ByteBuffer view = ByteSearch.view(buffer);
+		long base = 0; // offset of the first byte of the buffer
+		long count = 0;
+		int j = 0; // the state of the DFA
+		while (channel.read(buffer) >= 0) {
+			int to = buffer.position();
+			for (int i = 0; i < to; i++) {
+				if (j == 0) {
+					i = ByteSearch.indexOf(view, first, i, to);
+					if (i < 0)
+						break;
+				}
+				int c = view.get(i) & 0xff;
+				j = c < R ? dfa[c][j] : 0;
+				if (j == m) {
+					if (sink == null)
+						return base + i + 1 - m;
+					sink.accept(base + i + 1 - m);
+					count++;
+					j = restart;
+				}
+			}
+			base += to;
+			buffer.clear();
+		}
+		return sink == null ? -1 - base : count;
+	}
+
+	// runs the DFA over text[from..to); without a sink, returns the index of
+	// the first occurrence relative to from, or -1, and with a sink, sends
+	// every occurrence to it and returns their number
+	private int search(ByteBuffer text, int from, int to, IntConsumer sink) {
+		byte[] p = bytes();
+		int m = p.length;
+		byte first = p[0];
+		int count = 0;
+		for (int i = from, j = 0; i < to; i++) {
+			if (j == 0) {
+				i = ByteSearch.indexOf(text, first, i, to);
+				if (i < 0)
+					break;
+			}
+			int c = text.get(i) & 0xff;
+			j = c < R ? dfa[c][j] : 0;
+			if (j == m) {
+				if (sink == null)
+					return i + 1 - m - from;
+				sink.accept(i + 1 - m - from);
+				count++;
+				j = restart;
+			}
+		}
+		return sink == null ? -1 : count;
+	}
+
+	private byte[] bytes() {
+		if (bytes == null)
+			throw new IllegalStateException("pattern has a character not less than 256");
+		return bytes;
+	}
+
 }
@@ -1,5 +1,6 @@
 package com.theleapofcode.algs.string;
 
+import java.nio.charset.StandardCharsets;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -11,9 +12,7 @@ public class KeywordWithContextSearch {
 		int n = text.length();
 
 		for (int i = sa.rank(query); i < n; i++) {
-			int from1 = sa.index(i);
-			int to1 = Math.min(n, from1 + query.length());
-			if (!query.equals(text.substring(from1, to1)))
+			if (!text.startsWith(query, sa.index(i)))
 				break;
 			int from2 = Math.max(0, sa.index(i) - context);
 			int to2 = Math.min(n, sa.index(i) + context + query.length());
@@ -23,4 +22,35 @@ public class KeywordWithContextSearch {
 		return result;
 	}
 
+	/**
+	 * Returns each occurrence of {@code query} in an indexed text, with
+	 * {@code context} bytes of text on either side, in the order of the
+	 * suffixes starting at the occurrences. Only the suffixes of the matching
+	 * range and their context are read from the index.
+	 *
+	 * @param index
+	 *            the suffix array index of the text
+	 * @param context
+	 *            the number of bytes of context on either side
+	 * @param query
+	 *            the keyword
+	 * @return the occurrences of {@code query} with their context
+	 */
+	public static List<String> search(SuffixArrayIndex index, int context, String query) {
+		List<String> result = new LinkedList<>();
+		byte[] key = query.getBytes(StandardCharsets.UTF_8);
+		int n = index.length();
+
+		for (int i = index.rank(key); i < n; i++) {
+			int from = index.index(i);
+			if (!index.startsWith(from, key))
+				break;
+			int from2 = Math.max(0, from - context);
+			int to2 = (int) Math.min(n, (long) from + context + key.length);
+			result.add(index.substring(from2, to2));
+		}
+
+		return result;
+	}
+
 }
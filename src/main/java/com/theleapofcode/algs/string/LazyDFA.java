@@ -0,0 +1,230 @@
+package com.theleapofcode.algs.string;
+
+import java.util.Arrays;
+
+import com.theleapofcode.algs.symboltable.SeparateChainingHashSymbolTable;
+
+/**
+ * The {@code LazyDFA} class is a deterministic finite state automaton built on
+ * demand from a {@link RegexNFA}. Each DFA state is a set of NFA states, and
+ * has a 256-entry transition table that is filled in the first time each
+ * character is read in that state. Characters outside the table are stepped
+ * through the NFA on every read.
+ * <p>
+ * The number of cached states is bounded. When the cache is full it is
+ * flushed and rebuilt from the current state. If the cache is flushed again
+ * before it has paid for itself (fewer than ten characters read, over all
+ * runs, per cached state), the rest of that run is simulated on the NFA.
+ * <p>
+ * In unanchored mode the start states are added back after every character,
+ * so the automaton recognizes every text containing a match.
+ */
+final class LazyDFA {
+
+	private static final int R = 256; // size of the transition tables
+	private static final int UNKNOWN = -1; // transition not computed yet
+
+	private final RegexNFA nfa;
+	private final boolean unanchored;
+	private final int maxStates;
+
+	private int[][] next; // transition tables
+	private int[][] sets; // NFA states of each DFA state
+	private int[][] accepts; // regular expressions accepted in each DFA state
+	private int count; // number of cached DFA states
+	private SeparateChainingHashSymbolTable<StateSet, Integer> index;
+	private int start; // the start state, or UNKNOWN
+	private long flushes; // number of times the cache was flushed
+	private long read; // characters read through the cache since the last flush
+
+	// hashable wrapper of a sorted array of NFA states
+	private static class StateSet {
+		private final int[] states;
+		private final int hash;
+
+		private StateSet(int[] states) {
+			this.states = states;
+			this.hash = Arrays.hashCode(states);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof StateSet && Arrays.equals(states, ((StateSet) other).states);
+		}
+	}
+
+	LazyDFA(RegexNFA nfa, boolean unanchored, int maxStates) {
+		if (maxStates < 2)
+			throw new IllegalArgumentException("cache must hold at least 2 states");
+		this.nfa = nfa;
+		this.unanchored = unanchored;
+		this.maxStates = maxStates;
+		flush();
+		flushes = 0;
+	}
+
+	private void flush() {
+		int capacity = Math.min(maxStates, 16);
+		next = new int[capacity][];
+		sets = new int[capacity][];
+		accepts = new int[capacity][];
+		count = 0;
+		index = new SeparateChainingHashSymbolTable<>();
+		start = UNKNOWN;
+		flushes++;
+	}
+
+	// the DFA state for the given NFA states, added (flushing if full) if new
+	private int state(int[] set) {
+		StateSet key = new StateSet(set);
+		Integer d = index.get(key);
+		if (d != null)
+			return d;
+		if (count == maxStates)
+			flush();
+		if (count == next.length) {
+			int capacity = Math.min(maxStates, 2 * count);
+			next = Arrays.copyOf(next, capacity);
+			sets = Arrays.copyOf(sets, capacity);
+			accepts = Arrays.copyOf(accepts, capacity);
+		}
+		int[] table = new int[R];
+		Arrays.fill(table, UNKNOWN);
+		next[count] = table;
+		sets[count] = set;
+		accepts[count] = nfa.accepts(set);
+		index.put(key, count);
+		return count++;
+	}
+
+	private int start() {
+		if (start == UNKNOWN)
+			start = state(nfa.start());
+		return start;
+	}
+
+	// the state reached from d on reading c
+	private int step(int d, char c) {
+		if (c < R) {
+			int t = next[d][c];
+			if (t != UNKNOWN)
+				return t;
+		}
+		int[] set = nfa.step(sets[d], c, unanchored);
+		long before = flushes;
+		int t = state(set);
+		// d is gone if the cache was flushed
+		if (c < R && flushes == before)
+			next[d][c] = t;
+		return t;
+	}
+
+	/**
+	 * Runs the automaton over {@code text[from..to)} and returns the regular
+	 * expressions accepted at the end, in increasing order. In unanchored
+	 * mode, returns those accepted at the end of some prefix instead; the scan
+	 * stops early once every regular expression is accepted, or once any is
+	 * if {@code any} is {@code true}.
+	 */
+	int[] run(CharSequence text, int from, int to, boolean any) {
+		int patterns = nfa.patterns();
+		boolean[] seen = unanchored ? new boolean[patterns] : null;
+		int found = 0;
+
+		int d = start();
+		long flushed = flushes;
+		int mark = from; // characters before mark are counted in read
+		int i = from;
+		boolean thrashing = false;
+		for (; i < to; i++) {
+			if (unanchored && accepts[d].length > 0) {
+				found = see(accepts[d], seen, found);
+				if (any || found == patterns) {
+					read += i - mark;
+					return collect(seen, found);
+				}
+			}
+			d = step(d, text.charAt(i));
+			if (flushes != flushed) {
+				flushed = flushes;
+				long progress = read + (i - mark);
+				read = 0;
+				mark = i;
+				if (progress < 10L * maxStates) {
+					thrashing = true;
+					i++;
+					break;
+				}
+			}
+			if (!unanchored && sets[d].length == 0) {
+				read += i + 1 - mark;
+				return new int[0];
+			}
+		}
+		read += i - mark;
+		if (!thrashing) {
+			if (!unanchored)
+				return accepts[d];
+			found = see(accepts[d], seen, found);
+			return collect(seen, found);
+		}
+
+		// the cache is thrashing: finish on the NFA
+		int[] set = sets[d];
+		for (; i <= to; i++) {
+			int[] ids = nfa.accepts(set);
+			if (i == to && !unanchored)
+				return ids;
+			if (unanchored && ids.length > 0) {
+				found = see(ids, seen, found);
+				if (any || found == patterns)
+					break;
+			}
+			if (i == to)
+				break;
+			set = nfa.step(set, text.charAt(i), unanchored);
+			if (!unanchored && set.length == 0)
+				return new int[0];
+		}
+		return collect(seen, found);
+	}
+
+	private static int see(int[] ids, boolean[] seen, int found) {
+		for (int id : ids) {
+			if (!seen[id]) {
+				seen[id] = true;
+				found++;
+			}
+		}
+		return found;
+	}
+
+	private static int[] collect(boolean[] seen, int found) {
+		int[] ids = new int[found];
+		int n = 0;
+		for (int id = 0; id < seen.length; id++)
+			if (seen[id])
+				ids[n++] = id;
+		return ids;
+	}
+
+	/**
+	 * Returns the number of cached DFA states.
+	 */
+	int states() {
+		return count;
+	}
+
+	/**
+	 * Returns the number of times the cache was flushed because it was full.
+	 */
+	long flushes() {
+		return flushes;
+	}
+
+}
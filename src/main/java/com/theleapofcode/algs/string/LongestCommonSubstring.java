@@ -5,36 +5,17 @@ package com.theleapofcode.algs.string;
  * client for computing the longest common substring that appears in two given
  * strings.
  * <p>
- * This implementation computes the suffix array of each string and applies a
- * merging operation to determine the longest common substring.
+ * This implementation builds one suffix array and LCP array (see
+ * {@link SuffixArrays}) over the concatenation of the two strings, separated
+ * by a character smaller than any other. The longest common substring is the
+ * longest common prefix of two adjacent suffixes that start in different
+ * strings. It takes time proportional to the total length of the strings.
+ * <p>
+ * The longest substring common to <em>k</em> of <em>N</em> strings is found
+ * with a {@link GeneralizedSuffixArray}.
  */
 public class LongestCommonSubstring {
 
-	// return the longest common prefix of suffix s[p..] and suffix t[q..]
-	private static String lcp(String s, int p, String t, int q) {
-		int n = Math.min(s.length() - p, t.length() - q);
-		for (int i = 0; i < n; i++) {
-			if (s.charAt(p + i) != t.charAt(q + i))
-				return s.substring(p, p + i);
-		}
-		return s.substring(p, p + n);
-	}
-
-	// compare suffix s[p..] and suffix t[q..]
-	private static int compare(String s, int p, String t, int q) {
-		int n = Math.min(s.length() - p, t.length() - q);
-		for (int i = 0; i < n; i++) {
-			if (s.charAt(p + i) != t.charAt(q + i))
-				return s.charAt(p + i) - t.charAt(q + i);
-		}
-		if (s.length() - p < t.length() - q)
-			return -1;
-		else if (s.length() - p > t.length() - q)
-			return +1;
-		else
-			return 0;
-	}
-
 	/**
 	 * Returns the longest common string of the two specified strings.
 	 *
@@ -46,24 +27,53 @@ public class LongestCommonSubstring {
 	 *         {@code s} and {@code t}; the empty string if no such string
 	 */
 	public static String lcs(String s, String t) {
-		SuffixArray suffix1 = new SuffixArray(s);
-		SuffixArray suffix2 = new SuffixArray(t);
+		int n1 = s.length(), n2 = t.length();
 
-		// find longest common substring by "merging" sorted suffixes
-		String lcs = "";
-		int i = 0, j = 0;
-		while (i < s.length() && j < t.length()) {
-			int p = suffix1.index(i);
-			int q = suffix2.index(j);
-			String x = lcp(s, p, t, q);
-			if (x.length() > lcs.length())
-				lcs = x;
-			if (compare(s, p, t, q) < 0)
-				i++;
-			else
-				j++;
+		// s, separator, t over the alphabet shifted up by one
+		int[] text = new int[n1 + 1 + n2];
+		for (int i = 0; i < n1; i++)
+			text[i] = s.charAt(i) + 1;
+		text[n1] = 0;
+		for (int i = 0; i < n2; i++)
+			text[n1 + 1 + i] = t.charAt(i) + 1;
+		int[] sa = SuffixArrays.build(text, Character.MAX_VALUE + 1);
+		int[] lcp = SuffixArrays.lcp(text, sa);
+
+		// the separator is unique, so no common prefix runs across it
+		int best = 0, index = 0;
+		for (int i = 1; i < sa.length; i++) {
+			boolean first = sa[i] < n1, previous = sa[i - 1] < n1;
+			if (sa[i] == n1 || sa[i - 1] == n1 || first == previous)
+				continue;
+			if (lcp[i] > best) {
+				best = lcp[i];
+				index = sa[i];
+			}
 		}
-		return lcs;
+		if (best == 0)
+			return "";
+		if (index < n1)
+			return s.substring(index, index + best);
+		return t.substring(index - n1 - 1, index - n1 - 1 + best);
+	}
+
+	/**
+	 * Returns the longest string that is a substring of at least {@code k} of
+	 * the specified strings.
+	 *
+	 * @param strings
+	 *            the strings
+	 * @param k
+	 *            the number of strings
+	 * @return the longest string that appears as a substring in at least
+	 *         {@code k} of {@code strings}; the empty string if no such string
+	 * @throws IllegalArgumentException
+	 *             unless {@code 1 <= k <= strings.length}
+	 */
+	public static String lcs(String[] strings, int k) {
+		GeneralizedSuffixArray gsa = new GeneralizedSuffixArray(strings);
+		GeneralizedSuffixArray.Substring common = gsa.longestCommon(k);
+		return common == null ? "" : gsa.substring(common);
 	}
 
 }
@@ -18,14 +18,15 @@ public class LongestRepeatedSubstring {
 	public static String lrs(String text) {
 		int n = text.length();
 		SuffixArray sa = new SuffixArray(text);
-		String lrs = "";
+		int best = 0, index = 0;
 		for (int i = 1; i < n; i++) {
 			int length = sa.lcp(i);
-			if (length > lrs.length()) {
-				lrs = text.substring(sa.index(i), sa.index(i) + length);
+			if (length > best) {
+				best = length;
+				index = sa.index(i);
 			}
 		}
-		return lrs;
+		return text.substring(index, index + best);
 	}
 
 }
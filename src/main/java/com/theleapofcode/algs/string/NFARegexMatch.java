@@ -1,75 +1,80 @@
 package com.theleapofcode.algs.string;
 
-import com.theleapofcode.algs.digraph.Digraph;
-import com.theleapofcode.algs.digraph.DirectedDepthFirstSearch;
-import com.theleapofcode.algs.stacksandqueues.Bag;
-import com.theleapofcode.algs.stacksandqueues.BagLinkedListImpl;
-import com.theleapofcode.algs.stacksandqueues.Stack;
-import com.theleapofcode.algs.stacksandqueues.StackLinkedListImpl;
-
 /**
  * The {@code NFARegexMatch} class provides a data type for creating a
  * <em>nondeterministic finite state automaton</em> (NFA) from a regular
- * expression and testing whether a given string is matched by that regular
- * expression. It supports the following operations: <em>concatenation</em>,
- * <em>closure</em>, <em>binary or</em>, and <em>parentheses</em>. It does not
- * support <em>mutiway or</em>, <em>character classes</em>,
- * <em>metacharacters</em> (either in the text or pattern), <em>capturing
- * capabilities</em>, <em>greedy</em> or <em>relucantant</em> modifiers, and
- * other features in industrial-strength implementations such as
- * {@link java.util.regex.Pattern} and {@link java.util.regex.Matcher}.
+ * expression and testing whether a given string, or some substring of it, is
+ * matched by that regular expression. It supports <em>concatenation</em>,
+ * <em>closure</em> ({@code *}), <em>one or more</em> ({@code +}), <em>zero or
+ * one</em> ({@code ?}), <em>parentheses</em>, <em>multiway or</em>
+ * ({@code |}), the wildcard {@code .}, <em>character classes</em> such as
+ * {@code [a-z_]} and {@code [^/]}, and metacharacters escaped with a
+ * backslash. It does not support <em>capturing capabilities</em>,
+ * <em>greedy</em> or <em>reluctant</em> modifiers, and other features in
+ * industrial-strength implementations such as {@link java.util.regex.Pattern}
+ * and {@link java.util.regex.Matcher}.
+ * <p>
+ * This implementation builds the NFA using a digraph and a stack (see
+ * {@link RegexNFA}), and runs it as a <em>lazy DFA</em>: each DFA state is a
+ * set of NFA states, built and cached the first time the text leads to it,
+ * with a transition table filled in one character at a time. The
+ * {@code matches} methods test the whole text; the {@code find} methods test
+ * for a match anywhere in it, with a second DFA that restarts the NFA at every
+ * character. The constructor takes time proportional to <em>m</em>, where
+ * <em>m</em> is the number of characters in the regular expression. Matching
+ * takes time proportional to <em>n</em>, the number of characters in the
+ * text, once the DFA states it visits are cached, plus time proportional to
+ * <em>m</em> for each state and transition built. At most a fixed number of
+ * states are cached in each mode; when the cache thrashes, the text is
+ * simulated on the NFA, in time proportional to <em>m n</em> at worst.
  * <p>
- * This implementation builds the NFA using a digraph and a stack and simulates
- * the NFA using digraph search (see the textbook for details). The constructor
- * takes time proportional to <em>m</em>, where <em>m</em> is the number of
- * characters in the regular expression. The <em>recognizes</em> method takes
- * time proportional to <em>m n</em>, where <em>n</em> is the number of
- * characters in the text.
+ * The DFA caches and the scratch arrays of the NFA change on every match, so
+ * an instance is not thread-safe; use one instance per thread.
  */
 public class NFARegexMatch {
 
-	private Digraph graph; // digraph of epsilon transitions
-	private String regexp; // regular expression
-	private final int m; // number of characters in regular expression
+	/**
+	 * The default maximum number of cached DFA states.
+	 */
+	public static final int DEFAULT_CACHE_STATES = 4096;
+
+	private final String regexp; // regular expression
+	private final RegexNFA nfa; // the NFA
+	private final int maxStates; // bound on cached DFA states
+	private LazyDFA anchored; // DFA for matches
+	private LazyDFA unanchored; // DFA for find
 
 	/**
 	 * Initializes the NFA from the specified regular expression.
 	 *
 	 * @param regexp
 	 *            the regular expression
+	 * @throws IllegalArgumentException
+	 *             if the regular expression is not valid
 	 */
 	public NFARegexMatch(String regexp) {
-		this.regexp = regexp;
-		m = regexp.length();
-		Stack<Integer> ops = new StackLinkedListImpl<>();
-		graph = new Digraph(m + 1);
-		for (int i = 0; i < m; i++) {
-			int lp = i;
-			if (regexp.charAt(i) == '(' || regexp.charAt(i) == '|')
-				ops.push(i);
-			else if (regexp.charAt(i) == ')') {
-				int or = ops.pop();
-
-				// 2-way or operator
-				if (regexp.charAt(or) == '|') {
-					lp = ops.pop();
-					graph.addEdge(lp, or + 1);
-					graph.addEdge(or, i);
-				} else if (regexp.charAt(or) == '(') {
-					lp = or;
-				}
-			}
+		this(regexp, DEFAULT_CACHE_STATES);
+	}
 
-			// closure operator (uses 1-character lookahead)
-			if (i < m - 1 && regexp.charAt(i + 1) == '*') {
-				graph.addEdge(lp, i + 1);
-				graph.addEdge(i + 1, lp);
-			}
-			if (regexp.charAt(i) == '(' || regexp.charAt(i) == '*' || regexp.charAt(i) == ')')
-				graph.addEdge(i, i + 1);
-		}
-		if (ops.size() != 0)
-			throw new IllegalArgumentException("Invalid regular expression");
+	/**
+	 * Initializes the NFA from the specified regular expression, caching at
+	 * most {@code maxStates} DFA states in each of the matches and find
+	 * modes.
+	 *
+	 * @param regexp
+	 *            the regular expression
+	 * @param maxStates
+	 *            the maximum number of cached DFA states
+	 * @throws IllegalArgumentException
+	 *             if the regular expression is not valid, or if
+	 *             {@code maxStates < 2}
+	 */
+	public NFARegexMatch(String regexp, int maxStates) {
+		if (maxStates < 2)
+			throw new IllegalArgumentException("cache must hold at least 2 states");
+		this.regexp = regexp;
+		this.nfa = new RegexNFA(regexp);
+		this.maxStates = maxStates;
 	}
 
 	/**
@@ -81,40 +86,90 @@ public class NFARegexMatch {
 	 *         {@code false} otherwise
 	 */
 	public boolean recognizes(String txt) {
-		DirectedDepthFirstSearch dfs = new DirectedDepthFirstSearch(graph, 0);
-		Bag<Integer> pc = new BagLinkedListImpl<>();
-		for (int v = 0; v < graph.V(); v++)
-			if (dfs.marked(v))
-				pc.add(v);
+		return matches(txt, 0, txt.length());
+	}
 
-		// Compute possible NFA states for txt[i+1]
-		for (int i = 0; i < txt.length(); i++) {
-			if (txt.charAt(i) == '*' || txt.charAt(i) == '|' || txt.charAt(i) == '(' || txt.charAt(i) == ')')
-				throw new IllegalArgumentException("text contains the metacharacter '" + txt.charAt(i) + "'");
+	/**
+	 * Returns true if the whole text is matched by the regular expression.
+	 *
+	 * @param text
+	 *            the text
+	 * @return {@code true} if the text is matched by the regular expression,
+	 *         {@code false} otherwise
+	 */
+	public boolean matches(CharSequence text) {
+		return matches(text, 0, text.length());
+	}
 
-			Bag<Integer> match = new BagLinkedListImpl<>();
-			for (int v : pc) {
-				if (v == m)
-					continue;
-				if ((regexp.charAt(v) == txt.charAt(i)) || regexp.charAt(v) == '.')
-					match.add(v + 1);
-			}
-			dfs = new DirectedDepthFirstSearch(graph, match);
-			pc = new BagLinkedListImpl<>();
-			for (int v = 0; v < graph.V(); v++)
-				if (dfs.marked(v))
-					pc.add(v);
+	/**
+	 * Returns true if {@code text[from..to)} is matched by the regular
+	 * expression.
+	 *
+	 * @param text
+	 *            the text
+	 * @param from
+	 *            the index of the first character of the substring
+	 * @param to
+	 *            one past the index of the last character of the substring
+	 * @return {@code true} if the substring is matched by the regular
+	 *         expression, {@code false} otherwise
+	 * @throws IndexOutOfBoundsException
+	 *             unless {@code 0 <= from <= to <= text.length()}
+	 */
+	public boolean matches(CharSequence text, int from, int to) {
+		checkRange(text, from, to);
+		if (anchored == null)
+			anchored = new LazyDFA(nfa, false, maxStates);
+		return anchored.run(text, from, to, true).length > 0;
+	}
+
+	/**
+	 * Returns true if some substring of the text is matched by the regular
+	 * expression.
+	 *
+	 * @param text
+	 *            the text
+	 * @return {@code true} if some substring of the text is matched by the
+	 *         regular expression, {@code false} otherwise
+	 */
+	public boolean find(CharSequence text) {
+		return find(text, 0, text.length());
+	}
 
-			// optimization if no states reachable
-			if (pc.size() == 0)
-				return false;
-		}
+	/**
+	 * Returns true if some substring of {@code text[from..to)} is matched by
+	 * the regular expression.
+	 *
+	 * @param text
+	 *            the text
+	 * @param from
+	 *            the index of the first character to search
+	 * @param to
+	 *            one past the index of the last character to search
+	 * @return {@code true} if some substring of {@code text[from..to)} is
+	 *         matched by the regular expression, {@code false} otherwise
+	 * @throws IndexOutOfBoundsException
+	 *             unless {@code 0 <= from <= to <= text.length()}
+	 */
+	public boolean find(CharSequence text, int from, int to) {
+		checkRange(text, from, to);
+		if (unanchored == null)
+			unanchored = new LazyDFA(nfa, true, maxStates);
+		return unanchored.run(text, from, to, true).length > 0;
+	}
+
+	/**
+	 * Returns the regular expression.
+	 *
+	 * @return the regular expression
+	 */
+	public String regexp() {
+		return regexp;
+	}
 
-		// check for accept state
-		for (int v : pc)
-			if (v == m)
-				return true;
-		return false;
+	static void checkRange(CharSequence text, int from, int to) {
+		if (from < 0 || to > text.length() || from > to)
+			throw new IndexOutOfBoundsException("from = " + from + ", to = " + to);
 	}
 
 }
@@ -0,0 +1,396 @@
+package com.theleapofcode.algs.string;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.theleapofcode.algs.stacksandqueues.Queue;
+import com.theleapofcode.algs.stacksandqueues.QueueLinkedListImpl;
+
+/**
+ * The {@code ParallelGrep} class searches files for a pattern on the threads
+ * of a {@link ForkJoinPool}.
+ * <p>
+ * Each file is split into chunks, and each chunk is memory-mapped and searched
+ * by its own task. The substring engines ({@link KanuthMorrisPrattSubstringSearch}
+ * and {@link BoyerMooreSubstringSearch}, in their byte modes) read
+ * <em>m</em> - 1 bytes past the end of their chunk, so a match that crosses
+ * into the next chunk is found, and report only the matches that start in
+ * their chunk. The regular expression engine ({@link NFARegexMatch}) matches
+ * lines, ending at {@code '\n'}, and reports each line that contains a match
+ * from the chunk in which the line starts.
+ * <p>
+ * The matches are streamed through an iterator, in order of file and then
+ * offset. At most a fixed window of chunks is submitted ahead of the chunk the
+ * iterator is reading, so a slow consumer holds back the search instead of
+ * letting the matches pile up; a window of a few chunks per thread keeps every
+ * thread, and so the disks, busy. A consumer that stops early closes the
+ * iterator to cancel the chunks in the window.
+ * <p>
+ * Patterns and texts are compared as bytes; a character of the pattern is the
+ * byte of the same value.
+ */
+public class ParallelGrep {
+
+	/**
+	 * The default size of the chunks, in bytes.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 23;
+
+	private static final int LINE_OVERLAP = 1 << 16; // bytes mapped past a chunk for its last line
+
+	/**
+	 * The engine that searches each chunk.
+	 */
+	public enum Engine {
+		/** Knuth-Morris-Pratt substring search. */
+		KMP,
+		/** Boyer-Moore substring search. */
+		BOYER_MOORE,
+		/** Regular expression search, line by line. */
+		REGEX
+	}
+
+	/**
+	 * A match in a file: an occurrence of the pattern or, for regular
+	 * expressions, a line containing a match.
+	 */
+	public static class Match {
+		private final Path file;
+		private final long offset;
+		private final long end;
+
+		public Match(Path file, long offset, long end) {
+			this.file = file;
+			this.offset = offset;
+			this.end = end;
+		}
+
+		public Path file() {
+			return file;
+		}
+
+		public long offset() {
+			return offset;
+		}
+
+		public long end() {
+			return end;
+		}
+
+		@Override
+		public String toString() {
+			return file + ":" + offset;
+		}
+	}
+
+	private final String pattern;
+	private final Engine engine;
+	private final ForkJoinPool pool;
+	private final int chunkSize;
+	private final int window; // chunks submitted ahead of the consumer
+	private final KanuthMorrisPrattSubstringSearch kmp;
+	private final BoyerMooreSubstringSearch boyerMoore;
+	private final ThreadLocal<NFARegexMatch> regex; // not thread-safe: one per thread
+
+	/**
+	 * Initializes a search for the pattern with the given engine, in chunks of
+	 * {@link #DEFAULT_CHUNK_SIZE} bytes, with four chunks per thread of the
+	 * pool in flight.
+	 *
+	 * @param pattern
+	 *            the pattern or, for {@code REGEX}, the regular expression
+	 * @param engine
+	 *            the engine
+	 * @param pool
+	 *            the pool whose threads search the chunks
+	 * @throws IllegalArgumentException
+	 *             if a substring pattern is empty or has a character not less
+	 *             than 256, or if a regular expression is not valid
+	 */
+	public ParallelGrep(String pattern, Engine engine, ForkJoinPool pool) {
+		this(pattern, engine, pool, DEFAULT_CHUNK_SIZE, 4 * pool.getParallelism());
+	}
+
+	/**
+	 * Initializes a search for the pattern with the given engine.
+	 *
+	 * @param pattern
+	 *            the pattern or, for {@code REGEX}, the regular expression
+	 * @param engine
+	 *            the engine
+	 * @param pool
+	 *            the pool whose threads search the chunks
+	 * @param chunkSize
+	 *            the size of the chunks, in bytes
+	 * @param window
+	 *            the number of chunks that may be searched ahead of the chunk
+	 *            whose matches are being read
+	 * @throws IllegalArgumentException
+	 *             if a substring pattern is empty or has a character not less
+	 *             than 256, if a regular expression is not valid, or if
+	 *             {@code chunkSize} or {@code window} is not positive
+	 */
+	public ParallelGrep(String pattern, Engine engine, ForkJoinPool pool, int chunkSize, int window) {
+		if (chunkSize < 1)
+			throw new IllegalArgumentException("chunk size must be positive");
+		if (window < 1)
+			throw new IllegalArgumentException("window must be positive");
+		if (engine != Engine.REGEX) {
+			if (pattern.isEmpty())
+				throw new IllegalArgumentException("empty pattern");
+			if (ByteSearch.bytes(pattern) == null)
+				throw new IllegalArgumentException("pattern has a character not less than 256");
+		}
+		this.pattern = pattern;
+		this.engine = engine;
+		this.pool = pool;
+		this.chunkSize = chunkSize;
+		this.window = window;
+		this.kmp = engine == Engine.KMP ? new KanuthMorrisPrattSubstringSearch(pattern) : null;
+		this.boyerMoore = engine == Engine.BOYER_MOORE ? new BoyerMooreSubstringSearch(pattern) : null;
+		if (engine == Engine.REGEX) {
+			new NFARegexMatch(pattern); // fails here if not valid
+			this.regex = ThreadLocal.withInitial(() -> new NFARegexMatch(pattern));
+		} else {
+			this.regex = null;
+		}
+	}
+
+	/**
+	 * Returns the matches in the files, in order of file and then offset. The
+	 * chunks are searched in parallel as the iterator advances; close the
+	 * iterator to cancel the search of the chunks ahead of it, if it is not
+	 * read to the end.
+	 *
+	 * @param files
+	 *            the files
+	 * @return an iterator over the matches
+	 * @throws UncheckedIOException
+	 *             from the iterator, if a file cannot be read
+	 */
+	public Matches search(Iterable<Path> files) {
+		return new Matches(files.iterator());
+	}
+
+	/**
+	 * Returns the number of matches in the files.
+	 *
+	 * @param files
+	 *            the files
+	 * @return the number of matches
+	 * @throws UncheckedIOException
+	 *             if a file cannot be read
+	 */
+	public long count(Iterable<Path> files) {
+		long count = 0;
+		try (Matches it = search(files)) {
+			for (; it.hasNext(); it.next())
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * The matches of a search, which joins the chunk tasks in order and
+	 * submits new ones. Closing it cancels the chunks submitted ahead of it;
+	 * it is closed too when a chunk fails.
+	 */
+	public class Matches implements Iterator<Match>, AutoCloseable {
+		private final Iterator<Path> files;
+		private final Queue<ChunkTask> running = new QueueLinkedListImpl<>();
+		private Iterator<Match> current;
+		private Path file; // the file being split into chunks
+		private long size; // its size
+		private long next; // the start of its next chunk
+		private boolean closed;
+
+		private Matches(Iterator<Path> files) {
+			this.files = files;
+			this.current = new QueueLinkedListImpl<Match>().iterator();
+		}
+
+		// submits chunks until the window is full or no chunk is left
+		private void submit() {
+			while (!closed && running.size() < window) {
+				while (file == null || next >= size) {
+					if (!files.hasNext())
+						return;
+					file = files.next();
+					next = 0;
+					try {
+						size = Files.size(file);
+					} catch (IOException e) {
+						close();
+						throw new UncheckedIOException(e);
+					}
+				}
+				long end = Math.min(size, next + chunkSize);
+				ChunkTask task = new ChunkTask(file, next, end, size);
+				pool.execute(task);
+				running.enque(task);
+				next = end;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			submit();
+			while (!current.hasNext()) {
+				if (running.isEmpty())
+					return false;
+				ChunkTask task = running.deque();
+				try {
+					current = task.join().iterator();
+				} catch (RuntimeException | Error e) {
+					close();
+					throw e;
+				}
+				submit();
+			}
+			return true;
+		}
+
+		@Override
+		public Match next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			return current.next();
+		}
+
+		/**
+		 * Cancels the chunks submitted ahead of the matches read so far; the
+		 * iterator then has no more matches. Chunks already being searched
+		 * run to the end, but their matches are dropped.
+		 */
+		@Override
+		public void close() {
+			closed = true;
+			while (!running.isEmpty())
+				running.deque().cancel(false);
+			current = new QueueLinkedListImpl<Match>().iterator();
+		}
+	}
+
+	// searches the chunk [start, end) of a file
+	private class ChunkTask extends RecursiveTask<Queue<Match>> {
+		private static final long serialVersionUID = 1L;
+		private final Path file;
+		private final long start, end, size;
+
+		private ChunkTask(Path file, long start, long end, long size) {
+			this.file = file;
+			this.start = start;
+			this.end = end;
+			this.size = size;
+		}
+
+		@Override
+		protected Queue<Match> compute() {
+			Queue<Match> matches = new QueueLinkedListImpl<>();
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				if (engine == Engine.REGEX)
+					searchLines(channel, matches);
+				else
+					searchBytes(channel, matches);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return matches;
+		}
+
+		private void searchBytes(FileChannel channel, Queue<Match> matches) throws IOException {
+			int m = pattern.length();
+			long mapEnd = Math.min(size, end + m - 1);
+			ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, mapEnd - start);
+			int length = (int) (end - start);
+			if (engine == Engine.KMP)
+				kmp.searchAll(chunk, i -> add(matches, i, length, m));
+			else
+				boyerMoore.searchAll(chunk, i -> add(matches, i, length, m));
+		}
+
+		private void add(Queue<Match> matches, int i, int length, int m) {
+			if (i < length)
+				matches.enque(new Match(file, start + i, start + i + m));
+		}
+
+		private void searchLines(FileChannel channel, Queue<Match> matches) throws IOException {
+			// map from the byte before the chunk, to see if a line starts at
+			// start, to a little past its end, for its last line
+			long base = start == 0 ? 0 : start - 1;
+			int length = (int) (Math.min(size, end + LINE_OVERLAP) - base);
+			ByteBuffer text = map(channel, base, length);
+			long line = base; // start of the next line, in the file
+			if (start > 0) {
+				int newline = ByteSearch.indexOf(text, (byte) '\n', 0, (int) (end - base));
+				if (newline < 0)
+					return;
+				line = base + newline + 1;
+			}
+			NFARegexMatch matcher = regex.get();
+			CharSequence chars = new ByteChars(text, length);
+			while (line < end) {
+				int newline = ByteSearch.indexOf(text, (byte) '\n', (int) (line - base), length);
+				// a line that runs past the mapping is mapped again from its
+				// start, twice as far each time, up to 2 GB
+				while (newline < 0 && base + length < size && length < Integer.MAX_VALUE) {
+					long span = 2L * (base + length - line) + LINE_OVERLAP;
+					length = (int) Math.min(Math.min(size - line, Integer.MAX_VALUE), span);
+					base = line;
+					text = map(channel, base, length);
+					chars = new ByteChars(text, length);
+					newline = ByteSearch.indexOf(text, (byte) '\n', 0, length);
+				}
+				int lineEnd = newline < 0 ? length : newline;
+				if (matcher.find(chars, (int) (line - base), lineEnd))
+					matches.enque(new Match(file, line, base + lineEnd));
+				line = base + lineEnd + 1;
+			}
+		}
+
+		private ByteBuffer map(FileChannel channel, long position, int length) throws IOException {
+			return ByteSearch.view(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+		}
+	}
+
+	// the bytes of a buffer as characters of the same value
+	private static class ByteChars implements CharSequence {
+		private final ByteBuffer bytes;
+		private final int length;
+
+		private ByteChars(ByteBuffer bytes, int length) {
+			this.bytes = bytes;
+			this.length = length;
+		}
+
+		public int length() {
+			return length;
+		}
+
+		public char charAt(int index) {
+			return (char) (bytes.get(index) & 0xff);
+		}
+
+		public CharSequence subSequence(int start, int end) {
+			StringBuilder sb = new StringBuilder(end - start);
+			for (int i = start; i < end; i++)
+				sb.append(charAt(i));
+			return sb.toString();
+		}
+
+		@Override
+		public String toString() {
+			return subSequence(0, length).toString();
+		}
+	}
+
+}
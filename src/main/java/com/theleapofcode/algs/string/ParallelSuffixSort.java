@@ -0,0 +1,388 @@
+package com.theleapofcode.algs.string;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The {@code ParallelSuffixSort} class builds suffix arrays on a
+ * {@link ForkJoinPool}, by prefix doubling with parallel radix sorts of rank
+ * pairs. The suffixes are first sorted by their first <em>k</em> characters,
+ * packed into one key of at most 48 bits after the alphabet is reduced to the
+ * symbols that occur; after the round with offset <em>h</em>, they are sorted
+ * by their first 2<em>h</em> characters, that is by the pair (rank of the
+ * suffix, rank of the suffix <em>h</em> characters further on).
+ * <p>
+ * While many suffixes still tie, the order by the second rank is read off the
+ * suffix array of the previous round (Manber and Myers), so a round only sorts
+ * every suffix by its first rank. Once fewer than a quarter of the suffixes
+ * tie, a round only sorts the groups that still tie, by the pair of ranks, and
+ * leaves the other suffixes in place (Larsson and Sadakane). The sorts are
+ * least significant digit radix sorts with digits of at most 12 bits, whose
+ * histograms and scatters are split into blocks across the threads of the
+ * pool, and the ranks are recomputed by a parallel prefix maximum over the
+ * group boundaries.
+ * <p>
+ * A round takes time proportional to the number of suffixes it sorts, and the
+ * rounds stop as soon as every suffix has a rank of its own, after about
+ * log<sub>2</sub> of the longest repeat rounds, so a text made of one long
+ * repeat takes about log<sub>2</sub> <em>n</em> rounds over all the
+ * suffixes. The arrays take 28 to 32 bytes per character.
+ */
+final class ParallelSuffixSort {
+
+	private static final int KEY_BITS = 48; // bits of the initial keys
+	private static final int DIGIT_BITS = 12;
+	private static final int GRAIN = 1 << 14; // least elements per block
+
+	private final int[] s; // the text
+	private final int n;
+	private final int parallelism;
+	private int[] sa; // suffixes sorted so far
+	private final int[] rank; // first index in sa of the group of each suffix
+	private int[] vals, buffer; // values of the radix sorts and their buffer
+	private long[] keys, keyBuffer; // keys of the radix sorts and their buffer
+	private int[] slots; // indexes in sa of the suffixes that still tie
+
+	private interface Body {
+		void run(int block, int lo, int hi);
+	}
+
+	// runs body on blocks [lo, hi) of m elements split into blocks
+	private static class For extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int lo, hi, m, blocks;
+		private final Body body;
+
+		private For(int lo, int hi, int m, int blocks, Body body) {
+			this.lo = lo;
+			this.hi = hi;
+			this.m = m;
+			this.blocks = blocks;
+			this.body = body;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo == 1) {
+				body.run(lo, (int) ((long) m * lo / blocks), (int) ((long) m * hi / blocks));
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new For(lo, mid, m, blocks, body), new For(mid, hi, m, blocks, body));
+		}
+	}
+
+	private ParallelSuffixSort(int[] s, int parallelism) {
+		this.s = s;
+		this.n = s.length;
+		this.parallelism = parallelism;
+		this.rank = new int[n];
+		this.keys = new long[n];
+		this.keyBuffer = new long[n];
+	}
+
+	/**
+	 * Returns the suffix array of {@code s}, whose values must not be
+	 * negative, built on the given pool.
+	 */
+	static int[] sort(int[] s, ForkJoinPool pool) {
+		final ParallelSuffixSort sort = new ParallelSuffixSort(s, pool.getParallelism());
+		return pool.invoke(new RecursiveTask<int[]>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected int[] compute() {
+				return sort.run();
+			}
+		});
+	}
+
+	private int blocks(int m) {
+		return Math.max(1, Math.min(m / GRAIN, 16 * parallelism));
+	}
+
+	// runs body on the blocks of m elements, and returns the number of blocks
+	private int forEachBlock(int m, Body body) {
+		int blocks = blocks(m);
+		if (m > 0)
+			new For(0, blocks, m, blocks, body).invoke();
+		return blocks;
+	}
+
+	private int[] run() {
+		if (n == 0)
+			return new int[0];
+		int[] code = codes();
+		int sigma = 0;
+		for (int c : code)
+			sigma = Math.max(sigma, c);
+		// 0 stands for the end of the text, the symbols are 1 to sigma
+		int width = 32 - Integer.numberOfLeadingZeros(sigma);
+		int k = Math.max(1, KEY_BITS / width);
+		vals = new int[n];
+		buffer = new int[n];
+		forEachBlock(n, (b, lo, hi) -> {
+			for (int i = lo; i < hi; i++) {
+				long key = 0;
+				for (int j = i; j < i + k; j++)
+					key = (key << width) | (j < n ? code[j] : 0);
+				vals[i] = i;
+				keys[i] = key;
+			}
+		});
+		radixSort(n, k * width);
+		sa = vals;
+		vals = buffer;
+		int groups = rank(0);
+
+		int h = k;
+		for (; groups < n && 4L * (n - groups) >= n; h *= 2)
+			groups = round(h);
+		if (groups < n) {
+			int m = tied();
+			for (; m > 0; h *= 2)
+				m = sparseRound(h, m);
+		}
+		return sa;
+	}
+
+	// the symbols of s, renumbered from 1 in order if few enough
+	private int[] codes() {
+		int max = 0;
+		for (int c : s)
+			max = Math.max(max, c);
+		int[] code = new int[n];
+		if (max >= n) {
+			for (int i = 0; i < n; i++)
+				code[i] = s[i] + 1;
+			return code;
+		}
+		int[] symbol = new int[max + 1];
+		for (int c : s)
+			symbol[c] = 1;
+		for (int c = 0, next = 0; c <= max; c++)
+			if (symbol[c] != 0)
+				symbol[c] = ++next;
+		for (int i = 0; i < n; i++)
+			code[i] = symbol[s[i]];
+		return code;
+	}
+
+	// sorts every suffix by its first 2 * offset characters, and returns the
+	// number of groups
+	private int round(int offset) {
+		// the suffixes in the order of the rank offset further on: those that
+		// end within offset characters first, then the others from sa
+		int tail = Math.max(0, n - offset);
+		int[] count = new int[blocks(n) + 1];
+		int blocks = forEachBlock(n, (b, lo, hi) -> {
+			int c = 0;
+			for (int j = lo; j < hi; j++)
+				if (sa[j] >= offset)
+					c++;
+			count[b + 1] = c;
+		});
+		count[0] = n - tail;
+		for (int b = 0; b < blocks; b++)
+			count[b + 1] += count[b];
+		forEachBlock(n, (b, lo, hi) -> {
+			for (int i = tail + lo; i < Math.min(tail + hi, n); i++) {
+				vals[i - tail] = i;
+				keys[i - tail] = rank[i];
+			}
+			int x = count[b];
+			for (int j = lo; j < hi; j++) {
+				int i = sa[j] - offset;
+				if (i >= 0) {
+					vals[x] = i;
+					keys[x++] = rank[i];
+				}
+			}
+		});
+		buffer = sa;
+		radixSort(n, 32 - Integer.numberOfLeadingZeros(n - 1));
+		sa = vals;
+		vals = buffer;
+		return rank(offset);
+	}
+
+	// recomputes the ranks from the keys, sorted in the order of sa, and the
+	// ranks offset further on if offset is positive; leaves the index of the
+	// group of each suffix of sa in vals, and returns the number of groups
+	private int rank(int offset) {
+		int[] head = vals;
+		int[] last = new int[blocks(n)];
+		int[] count = new int[last.length];
+		int blocks = forEachBlock(n, (b, lo, hi) -> {
+			int h = -1, c = 0;
+			int before = lo > 0 ? next(sa[lo - 1], offset) : 0;
+			for (int j = lo; j < hi; j++) {
+				int after = next(sa[j], offset);
+				if (j == 0 || keys[j] != keys[j - 1] || after != before) {
+					h = j;
+					c++;
+				}
+				head[j] = h;
+				before = after;
+			}
+			last[b] = h;
+			count[b] = c;
+		});
+		int groups = 0;
+		for (int b = 0, h = 0; b < blocks; b++) {
+			int lastHead = last[b];
+			last[b] = h;
+			if (lastHead >= 0)
+				h = lastHead;
+			groups += count[b];
+		}
+		// every rank has been read before any is written
+		forEachBlock(n, (b, lo, hi) -> {
+			for (int j = lo; j < hi; j++) {
+				if (head[j] < 0)
+					head[j] = last[b];
+				rank[sa[j]] = head[j];
+			}
+		});
+		return groups;
+	}
+
+	// rank of the suffix offset after i, -1 past the end, or 0 if offset is 0
+	private int next(int i, int offset) {
+		if (offset == 0)
+			return 0;
+		return i + offset < n ? rank[i + offset] : -1;
+	}
+
+	// collects in slots the indexes in sa of the suffixes that still tie, from
+	// the groups left in vals by rank, and returns their number
+	private int tied() {
+		int[] head = vals;
+		int[] count = new int[blocks(n) + 1];
+		int blocks = forEachBlock(n, (b, lo, hi) -> {
+			int c = 0;
+			for (int j = lo; j < hi; j++)
+				if (head[j] != j || j + 1 < n && head[j + 1] != j + 1)
+					c++;
+			count[b + 1] = c;
+		});
+		for (int b = 0; b < blocks; b++)
+			count[b + 1] += count[b];
+		int m = count[blocks];
+		slots = new int[m];
+		forEachBlock(n, (b, lo, hi) -> {
+			int x = count[b];
+			for (int j = lo; j < hi; j++)
+				if (head[j] != j || j + 1 < n && head[j + 1] != j + 1)
+					slots[x++] = j;
+		});
+		buffer = new int[m];
+		return m;
+	}
+
+	// sorts the m suffixes that still tie by their first 2 * offset
+	// characters, and returns the number that still tie
+	private int sparseRound(int offset, int m) {
+		long stride = n + 1L;
+		forEachBlock(m, (b, lo, hi) -> {
+			for (int x = lo; x < hi; x++) {
+				int i = sa[slots[x]];
+				vals[x] = i;
+				keys[x] = rank[i] * stride + next(i, offset) + 1;
+			}
+		});
+		radixSort(m, 64 - Long.numberOfLeadingZeros(n * stride - 1));
+
+		// a group takes the same slots as before, so its head is the slot of
+		// its first suffix
+		int[] last = new int[blocks(m)];
+		int[] count = new int[last.length + 1];
+		int blocks = forEachBlock(m, (b, lo, hi) -> {
+			int h = -1, c = 0;
+			for (int x = lo; x < hi; x++) {
+				if (x == 0 || keys[x] != keys[x - 1])
+					h = x;
+				if (h != x || x + 1 < m && keys[x + 1] == keys[x])
+					c++;
+			}
+			last[b] = h;
+			count[b + 1] = c;
+		});
+		for (int b = 0, h = 0; b < blocks; b++) {
+			int lastHead = last[b];
+			last[b] = h;
+			if (lastHead >= 0)
+				h = lastHead;
+			count[b + 1] += count[b];
+		}
+		int[] tied = buffer;
+		forEachBlock(m, (b, lo, hi) -> {
+			int h = last[b], y = count[b];
+			for (int x = lo; x < hi; x++) {
+				if (x == 0 || keys[x] != keys[x - 1])
+					h = x;
+				sa[slots[x]] = vals[x];
+				rank[vals[x]] = slots[h];
+				if (h != x || x + 1 < m && keys[x + 1] == keys[x])
+					tied[y++] = slots[x];
+			}
+		});
+		buffer = slots;
+		slots = tied;
+		return count[blocks];
+	}
+
+	private void swap() {
+		int[] a = vals;
+		vals = buffer;
+		buffer = a;
+		long[] b = keys;
+		keys = keyBuffer;
+		keyBuffer = b;
+	}
+
+	// stable sort of the first m vals by the low bits of their keys
+	private void radixSort(int m, int bits) {
+		int passes = Math.max(1, (bits + DIGIT_BITS - 1) / DIGIT_BITS);
+		int digit = (bits + passes - 1) / passes;
+		int radix = 1 << digit;
+		int[][] offsets = new int[blocks(m)][radix];
+		for (int pass = 0; pass < passes; pass++) {
+			final int shift = pass * digit;
+			int blocks = forEachBlock(m, (b, lo, hi) -> {
+				int[] counts = offsets[b];
+				Arrays.fill(counts, 0);
+				for (int j = lo; j < hi; j++)
+					counts[(int) (keys[j] >>> shift) & (radix - 1)]++;
+			});
+			// digit-major, block-minor prefix sums make the scatter stable
+			int total = 0, used = 0;
+			for (int d = 0; d < radix; d++) {
+				int sum = 0;
+				for (int b = 0; b < blocks; b++) {
+					int c = offsets[b][d];
+					offsets[b][d] = total;
+					total += c;
+					sum += c;
+				}
+				if (sum > 0)
+					used++;
+			}
+			if (used <= 1)
+				continue; // every key has the same digit
+			forEachBlock(m, (b, lo, hi) -> {
+				int[] next = offsets[b];
+				for (int j = lo; j < hi; j++) {
+					long key = keys[j];
+					int x = next[(int) (key >>> shift) & (radix - 1)]++;
+					buffer[x] = vals[j];
+					keyBuffer[x] = key;
+				}
+			});
+			swap();
+		}
+	}
+
+}
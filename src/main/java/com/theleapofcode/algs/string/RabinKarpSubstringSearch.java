@@ -1,21 +1,55 @@
 package com.theleapofcode.algs.string;
 
-import java.math.BigInteger;
+import java.nio.CharBuffer;
+import java.util.Arrays;
 import java.util.Random;
 
 /**
- * The {@code RabinKarp} class finds the first occurrence of a pattern string in
- * a text string.
+ * The {@code RabinKarp} class finds the first occurrence, or every occurrence,
+ * of one or more pattern strings of the same length in a text string.
  * <p>
- * This implementation uses the Rabin-Karp algorithm.
+ * This implementation uses the Rabin-Karp algorithm, with a polynomial rolling
+ * hash modulo the Mersenne prime 2<sup>61</sup>-1 and a random base (see
+ * {@link RollingHash}), so each step takes a few multiplications and no
+ * division. The hashes of the patterns are kept in an open-addressing table of
+ * primitive {@code long}s, behind a bitset of at least 64 bits per pattern
+ * that rejects most text hashes with one predictable branch, so the text is
+ * scanned once whatever the number of patterns, in time proportional to
+ * <em>n</em> plus <em>m</em> per hash match. Every hash match is checked
+ * against the pattern (Las Vegas), so the matches are never wrong.
  */
 public class RabinKarpSubstringSearch {
-	private String pat; // the pattern // needed only for Las Vegas
-	private long patHash; // pattern hash value
-	private int m; // pattern length
-	private long q; // a large prime, small enough to avoid long overflow
-	private int R; // radix
-	private long RM; // R^(M-1) % Q
+
+	private static final int EMPTY = -1;
+
+	/**
+	 * The handler of the matches found by {@code searchAll}.
+	 */
+	public interface MatchHandler {
+
+		/**
+		 * Receives a match.
+		 *
+		 * @param pattern
+		 *            the index of the pattern, in the order given
+		 * @param offset
+		 *            the index in the text of the first character of the match
+		 */
+		void match(int pattern, int offset);
+	}
+
+	private final char[][] patterns; // the patterns, needed for Las Vegas
+	private final int m; // length of the patterns
+	private final long base; // base of the hash
+	private final long RM; // base^(m-1) % 2^61-1
+
+	private final long[] filter; // bit h of the filter is set for each pattern hash h
+	private final int filterMask;
+
+	// open-addressing table from pattern hash to the first pattern with it
+	private final long[] hashes;
+	private final int[] first;
+	private final int[] next; // next pattern with the same hash, or EMPTY
 
 	/**
 	 * Preprocesses the pattern string.
@@ -24,11 +58,11 @@ public class RabinKarpSubstringSearch {
 	 *            the pattern string
 	 * @param R
 	 *            the alphabet size
+	 * @throws IllegalArgumentException
+	 *             if a character of the pattern is not less than {@code R}
 	 */
 	public RabinKarpSubstringSearch(char[] pattern, int R) {
-		this.pat = String.valueOf(pattern);
-		this.R = R;
-		throw new UnsupportedOperationException("Operation not supported yet");
+		this(new char[][] { pattern.clone() }, R);
 	}
 
 	/**
@@ -38,78 +72,172 @@ public class RabinKarpSubstringSearch {
 	 *            the pattern string
 	 */
 	public RabinKarpSubstringSearch(String pat) {
-		this.pat = pat; // save pattern (needed only for Las Vegas)
-		R = 256;
-		m = pat.length();
-		q = longRandomPrime();
-
-		// precompute R^(m-1) % q for use in removing leading digit
-		RM = 1;
-		for (int i = 1; i <= m - 1; i++)
-			RM = (R * RM) % q;
-		patHash = hash(pat, m);
+		this(new char[][] { pat.toCharArray() }, Character.MAX_VALUE + 1);
 	}
 
-	// Compute hash for key[0..m-1].
-	private long hash(String key, int m) {
-		long h = 0;
-		for (int j = 0; j < m; j++)
-			h = (R * h + key.charAt(j)) % q;
-		return h;
+	/**
+	 * Preprocesses the pattern strings, which must all have the same length.
+	 *
+	 * @param patterns
+	 *            the pattern strings
+	 * @throws IllegalArgumentException
+	 *             if there are no patterns, or if they do not all have the
+	 *             same length
+	 */
+	public RabinKarpSubstringSearch(String[] patterns) {
+		this(toCharArrays(patterns), Character.MAX_VALUE + 1);
 	}
 
-	// Las Vegas version: does pat[] match txt[i..i-m+1] ?
-	private boolean check(String txt, int i) {
+	private RabinKarpSubstringSearch(char[][] patterns, int R) {
+		if (patterns.length == 0)
+			throw new IllegalArgumentException("no patterns");
+		this.patterns = patterns;
+		this.m = patterns[0].length;
+		for (char[] pattern : patterns) {
+			if (pattern.length != m)
+				throw new IllegalArgumentException("patterns of lengths " + m + " and " + pattern.length);
+			for (char c : pattern)
+				if (c >= R)
+					throw new IllegalArgumentException("character " + (int) c + " not less than " + R);
+		}
+		base = RollingHash.randomBase(new Random());
+		RM = RollingHash.pow(base, Math.max(m - 1, 0));
+
+		int capacity = Integer.highestOneBit(Math.max(2 * patterns.length - 1, 1)) << 1;
+		hashes = new long[capacity];
+		first = new int[capacity];
+		next = new int[patterns.length];
+		Arrays.fill(first, EMPTY);
+		filter = new long[capacity / 2];
+		filterMask = filter.length - 1;
+		for (int p = patterns.length - 1; p >= 0; p--) {
+			long h = RollingHash.hash(CharBuffer.wrap(patterns[p]), 0, m, base);
+			filter[(int) (h >>> 6) & filterMask] |= 1L << h;
+			int slot = slot(h);
+			next[p] = first[slot];
+			hashes[slot] = h;
+			first[slot] = p;
+		}
+	}
+
+	private static char[][] toCharArrays(String[] patterns) {
+		char[][] arrays = new char[patterns.length][];
+		for (int p = 0; p < patterns.length; p++)
+			arrays[p] = patterns[p].toCharArray();
+		return arrays;
+	}
+
+	// the slot of hash h: the slot holding it, or the empty slot it would take
+	private int slot(long h) {
+		int mask = hashes.length - 1;
+		int i = (int) (h ^ (h >>> 29)) & mask;
+		while (first[i] != EMPTY && hashes[i] != h)
+			i = (i + 1) & mask;
+		return i;
+	}
+
+	// Las Vegas version: does pattern p match txt[i..i+m-1] ?
+	private boolean check(CharSequence txt, int p, int i) {
+		char[] pattern = patterns[p];
 		for (int j = 0; j < m; j++)
-			if (pat.charAt(j) != txt.charAt(i + j))
+			if (pattern[j] != txt.charAt(i + j))
 				return false;
 		return true;
 	}
 
-	// Monte Carlo version: always return true
-	// private boolean check(int i) {
-	// return true;
-	// }
+	/**
+	 * Returns the length of the patterns.
+	 *
+	 * @return the length of the patterns
+	 */
+	public int length() {
+		return m;
+	}
 
 	/**
-	 * Returns the index of the first occurrrence of the pattern string in the
+	 * Returns the index of the first occurrrence of a pattern string in the
 	 * text string.
 	 *
 	 * @param txt
 	 *            the text string
-	 * @return the index of the first occurrence of the pattern string in the
+	 * @return the index of the first occurrence of a pattern string in the
 	 *         text string; n if no such match
 	 */
 	public int search(String txt) {
+		return search((CharSequence) txt);
+	}
+
+	/**
+	 * Returns the index of the first occurrrence of a pattern string in the
+	 * text string.
+	 *
+	 * @param text
+	 *            the text string
+	 * @return the index of the first occurrence of a pattern string in the
+	 *         text string; n if no such match
+	 */
+	public int search(char[] text) {
+		return search(CharBuffer.wrap(text));
+	}
+
+	/**
+	 * Returns the index of the first occurrrence of a pattern string in the
+	 * text.
+	 *
+	 * @param txt
+	 *            the text
+	 * @return the index of the first occurrence of a pattern string in the
+	 *         text; n if no such match
+	 */
+	public int search(CharSequence txt) {
 		int n = txt.length();
-		if (n < m)
-			return n;
-		long txtHash = hash(txt, m);
-
-		// check for match at offset 0
-		if ((patHash == txtHash) && check(txt, 0))
-			return 0;
-
-		// check for hash match; if hash match, check for exact match
-		for (int i = m; i < n; i++) {
-			// Remove leading digit, add trailing digit, check for match.
-			txtHash = (txtHash + q - RM * txt.charAt(i - m) % q) % q;
-			txtHash = (txtHash * R + txt.charAt(i)) % q;
-
-			// match
-			int offset = i - m + 1;
-			if ((patHash == txtHash) && check(txt, offset))
-				return offset;
-		}
+		int offset = scan(txt, null);
+		return offset < 0 ? n : offset;
+	}
 
-		// no match
-		return n;
+	/**
+	 * Sends every occurrence of a pattern string in the text to the handler,
+	 * in increasing order of offset and, at the same offset, of pattern.
+	 * Occurrences may overlap.
+	 *
+	 * @param txt
+	 *            the text
+	 * @param handler
+	 *            receives each occurrence
+	 * @return the number of occurrences
+	 */
+	public int searchAll(CharSequence txt, MatchHandler handler) {
+		return scan(txt, handler);
 	}
 
-	// a random 31-bit prime
-	private static long longRandomPrime() {
-		BigInteger prime = BigInteger.probablePrime(31, new Random());
-		return prime.longValue();
+	// without a handler, returns the offset of the first match, or -1; with a
+	// handler, sends it every match and returns their number
+	private int scan(CharSequence txt, MatchHandler handler) {
+		int n = txt.length();
+		if (n < m)
+			return handler == null ? -1 : 0;
+		int count = 0;
+		long txtHash = RollingHash.hash(txt, 0, m, base);
+		for (int offset = 0;; offset++) {
+			if ((filter[(int) (txtHash >>> 6) & filterMask] & (1L << txtHash)) != 0) {
+				for (int p = first[slot(txtHash)]; p != EMPTY; p = next[p]) {
+					if (check(txt, p, offset)) {
+						if (handler == null)
+							return offset;
+						handler.match(p, offset);
+						count++;
+					}
+				}
+			}
+			if (offset + m == n)
+				break;
+			if (m == 0)
+				continue;
+			// Remove leading digit, add trailing digit.
+			txtHash = RollingHash.remove(txtHash, RM, txt.charAt(offset));
+			txtHash = RollingHash.append(txtHash, base, txt.charAt(offset + m));
+		}
+		return handler == null ? -1 : count;
 	}
 
 }
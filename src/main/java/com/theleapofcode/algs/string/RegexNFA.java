@@ -0,0 +1,303 @@
+package com.theleapofcode.algs.string;
+
+import java.util.Arrays;
+
+import com.theleapofcode.algs.digraph.Digraph;
+import com.theleapofcode.algs.stacksandqueues.Stack;
+import com.theleapofcode.algs.stacksandqueues.StackLinkedListImpl;
+
+/**
+ * The {@code RegexNFA} class is the nondeterministic finite state automaton
+ * shared by {@link NFARegexMatch} and {@link RegexSetMatch}. It compiles one or
+ * more regular expressions into a single digraph of epsilon transitions,
+ * where the states of regular expression <em>k</em> are an entry state, the
+ * positions of its characters offset by a base, and its accept state.
+ * <p>
+ * Besides concatenation, closure ({@code *}), parentheses and or ({@code |}),
+ * it supports one-or-more ({@code +}), zero-or-one ({@code ?}), multiway or,
+ * character classes such as {@code [a-z_]} and {@code [^/]}, and escaping a
+ * metacharacter with a backslash.
+ * <p>
+ * The automaton is simulated on sorted arrays of states. The scratch arrays
+ * used by the simulation make instances unsafe for use by concurrent threads.
+ */
+final class RegexNFA {
+
+	private static final byte EPSILON = 0; // state does not read a character
+	private static final byte LITERAL = 1; // state reads one character
+	private static final byte ANY = 2; // state reads any character
+	private static final byte CLASS = 3; // state reads a character class
+
+	private final int V; // number of states
+	private final int[][] eps; // epsilon transitions, from the digraph
+	private final byte[] kind; // what each state reads
+	private final char[] literal; // character read by a LITERAL state
+	private final char[][] ranges; // inclusive ranges of a CLASS state
+	private final boolean[] negated; // whether a CLASS state is complemented
+	private final int[] next; // state reached after reading a character
+	private final int[] accept; // regular expression accepted at each state, -1 if none
+	private final int[] sources; // first state of each regular expression
+	private final int[] start; // epsilon closure of the first states
+
+	private final boolean[] marked; // scratch for closures
+	private final int[] stack; // scratch for closures
+	private final int[] reached; // scratch for closures
+	private final int[] moved; // scratch for steps
+
+	/**
+	 * Compiles the regular expressions into one automaton.
+	 *
+	 * @param regexps
+	 *            the regular expressions
+	 * @throws IllegalArgumentException
+	 *             if a regular expression is not valid
+	 */
+	RegexNFA(String... regexps) {
+		int n = 0;
+		for (String regexp : regexps)
+			n += regexp.length() + 2;
+		V = n;
+		kind = new byte[V];
+		literal = new char[V];
+		ranges = new char[V][];
+		negated = new boolean[V];
+		next = new int[V];
+		accept = new int[V];
+		sources = new int[regexps.length];
+		Arrays.fill(next, -1);
+		Arrays.fill(accept, -1);
+
+		Digraph graph = new Digraph(V);
+		int base = 0;
+		for (int k = 0; k < regexps.length; k++) {
+			sources[k] = base;
+			compile(regexps[k], base, graph);
+			base += regexps[k].length() + 1;
+			accept[base++] = k;
+		}
+
+		eps = new int[V][];
+		for (int v = 0; v < V; v++) {
+			eps[v] = new int[graph.outdegree(v)];
+			int i = 0;
+			for (int w : graph.adj(v))
+				eps[v][i++] = w;
+		}
+
+		marked = new boolean[V];
+		stack = new int[V];
+		reached = new int[V];
+		moved = new int[V + sources.length];
+		start = closure(sources, sources.length);
+	}
+
+	// adds the states of one regular expression: an entry state at entry, its
+	// characters and its accept state
+	private void compile(String regexp, int entry, Digraph graph) {
+		int m = regexp.length();
+		int base = entry + 1;
+		graph.addEdge(entry, base);
+		Stack<Integer> ops = new StackLinkedListImpl<>();
+		for (int i = 0; i < m; i++) {
+			int lp = i;
+			char c = regexp.charAt(i);
+			if (c == '(' || c == '|')
+				ops.push(i);
+			else if (c == ')') {
+				if (ops.isEmpty())
+					throw new IllegalArgumentException("Invalid regular expression");
+				// multiway or operator
+				Stack<Integer> ors = new StackLinkedListImpl<>();
+				int or = ops.pop();
+				while (regexp.charAt(or) == '|') {
+					ors.push(or);
+					if (ops.isEmpty())
+						throw new IllegalArgumentException("Invalid regular expression");
+					or = ops.pop();
+				}
+				lp = or;
+				for (int o : ors) {
+					graph.addEdge(base + lp, base + o + 1);
+					graph.addEdge(base + o, base + i);
+				}
+			} else if (c == '[') {
+				i = compileClass(regexp, i, base);
+			} else if (c == '\\') {
+				if (i == m - 1)
+					throw new IllegalArgumentException("Invalid regular expression");
+				kind[base + i] = LITERAL;
+				literal[base + i] = regexp.charAt(i + 1);
+				next[base + i] = base + i + 2;
+				i++;
+			} else if (c != '*' && c != '+' && c != '?') {
+				kind[base + i] = c == '.' ? ANY : LITERAL;
+				literal[base + i] = c;
+				next[base + i] = base + i + 1;
+			}
+
+			// closure operators (use 1-character lookahead)
+			if (i < m - 1) {
+				char op = regexp.charAt(i + 1);
+				if (op == '*' || op == '?')
+					graph.addEdge(base + lp, base + i + 1);
+				if (op == '*' || op == '+')
+					graph.addEdge(base + i + 1, base + lp);
+			}
+			if (c == '(' || c == ')' || c == '*' || c == '+' || c == '?')
+				graph.addEdge(base + i, base + i + 1);
+		}
+		// or operators outside parentheses span the whole regular expression
+		while (!ops.isEmpty()) {
+			int or = ops.pop();
+			if (regexp.charAt(or) != '|')
+				throw new IllegalArgumentException("Invalid regular expression");
+			graph.addEdge(entry, base + or + 1);
+			graph.addEdge(base + or, base + m);
+		}
+	}
+
+	// adds the class starting at regexp[i] == '[' and returns the index of its ']'
+	private int compileClass(String regexp, int i, int base) {
+		int m = regexp.length();
+		int v = base + i;
+		int j = i + 1;
+		if (j < m && regexp.charAt(j) == '^') {
+			negated[v] = true;
+			j++;
+		}
+		char[] r = new char[8];
+		int n = 0;
+		while (true) {
+			if (j >= m)
+				throw new IllegalArgumentException("Invalid regular expression");
+			if (regexp.charAt(j) == ']')
+				break;
+			char lo = classChar(regexp, j);
+			j += regexp.charAt(j) == '\\' ? 2 : 1;
+			char hi = lo;
+			if (j + 1 < m && regexp.charAt(j) == '-' && regexp.charAt(j + 1) != ']') {
+				hi = classChar(regexp, j + 1);
+				j += regexp.charAt(j + 1) == '\\' ? 3 : 2;
+				if (hi < lo)
+					throw new IllegalArgumentException("Invalid regular expression");
+			}
+			if (n == r.length)
+				r = Arrays.copyOf(r, 2 * n);
+			r[n++] = lo;
+			r[n++] = hi;
+		}
+		kind[v] = CLASS;
+		ranges[v] = Arrays.copyOf(r, n);
+		next[v] = base + j + 1;
+		return j;
+	}
+
+	// the character of a class at regexp[j], which may be escaped
+	private static char classChar(String regexp, int j) {
+		if (regexp.charAt(j) != '\\')
+			return regexp.charAt(j);
+		if (j + 1 >= regexp.length())
+			throw new IllegalArgumentException("Invalid regular expression");
+		return regexp.charAt(j + 1);
+	}
+
+	// does state v read c?
+	private boolean reads(int v, char c) {
+		switch (kind[v]) {
+		case LITERAL:
+			return literal[v] == c;
+		case ANY:
+			return true;
+		case CLASS:
+			char[] r = ranges[v];
+			for (int i = 0; i < r.length; i += 2)
+				if (r[i] <= c && c <= r[i + 1])
+					return !negated[v];
+			return negated[v];
+		default:
+			return false;
+		}
+	}
+
+	// sorted states reachable by epsilon transitions from from[0..n)
+	private int[] closure(int[] from, int n) {
+		int size = 0;
+		int top = 0;
+		for (int i = 0; i < n; i++) {
+			if (!marked[from[i]]) {
+				marked[from[i]] = true;
+				stack[top++] = from[i];
+			}
+		}
+		while (top > 0) {
+			int v = stack[--top];
+			reached[size++] = v;
+			for (int w : eps[v]) {
+				if (!marked[w]) {
+					marked[w] = true;
+					stack[top++] = w;
+				}
+			}
+		}
+		int[] set = Arrays.copyOf(reached, size);
+		for (int v : set)
+			marked[v] = false;
+		Arrays.sort(set);
+		return set;
+	}
+
+	/**
+	 * Returns the number of states.
+	 */
+	int size() {
+		return V;
+	}
+
+	/**
+	 * Returns the number of regular expressions.
+	 */
+	int patterns() {
+		return sources.length;
+	}
+
+	/**
+	 * Returns the sorted states the automaton is in before reading any input.
+	 */
+	int[] start() {
+		return start;
+	}
+
+	/**
+	 * Returns the sorted states the automaton is in after reading {@code c}
+	 * in {@code set}. When {@code unanchored} the first states are added
+	 * back, so that a match may begin after {@code c}.
+	 */
+	int[] step(int[] set, char c, boolean unanchored) {
+		int n = 0;
+		for (int v : set)
+			if (reads(v, c))
+				moved[n++] = next[v];
+		if (unanchored)
+			for (int s : sources)
+				moved[n++] = s;
+		return closure(moved, n);
+	}
+
+	/**
+	 * Returns the regular expressions accepted in {@code set}, in increasing
+	 * order.
+	 */
+	int[] accepts(int[] set) {
+		int n = 0;
+		for (int v : set)
+			if (accept[v] >= 0)
+				n++;
+		int[] ids = new int[n];
+		n = 0;
+		for (int v : set)
+			if (accept[v] >= 0)
+				ids[n++] = accept[v];
+		return ids;
+	}
+
+}
@@ -0,0 +1,170 @@
+package com.theleapofcode.algs.string;
+
+/**
+ * The {@code RegexSetMatch} class tests a string against a set of regular
+ * expressions at once, reporting which of them match. The regular expressions
+ * use the syntax of {@link NFARegexMatch}.
+ * <p>
+ * This implementation compiles all the regular expressions into one NFA, a
+ * single digraph of epsilon transitions with one accept state per regular
+ * expression, and runs it as a lazily built DFA. Each DFA state records which
+ * regular expressions accept in it, so a single pass over the text answers for
+ * every regular expression. Once the states a workload visits are cached,
+ * matching takes time proportional to the length of the text, whatever the
+ * number of regular expressions.
+ * <p>
+ * The DFA cache is not thread-safe; use one instance per thread.
+ */
+public class RegexSetMatch {
+
+	private final String[] regexps; // regular expressions
+	private final RegexNFA nfa; // the combined NFA
+	private final int maxStates; // bound on cached DFA states
+	private LazyDFA anchored; // DFA for matches
+	private LazyDFA unanchored; // DFA for find
+
+	/**
+	 * Initializes the set from the specified regular expressions. The DFA
+	 * cache holds {@link NFARegexMatch#DEFAULT_CACHE_STATES} states, or half
+	 * the number of NFA states if that is more, since the states a workload
+	 * visits grow with the number of regular expressions.
+	 *
+	 * @param regexps
+	 *            the regular expressions
+	 * @throws IllegalArgumentException
+	 *             if a regular expression is not valid
+	 */
+	public RegexSetMatch(String... regexps) {
+		this.regexps = regexps.clone();
+		this.nfa = new RegexNFA(this.regexps);
+		this.maxStates = Math.max(NFARegexMatch.DEFAULT_CACHE_STATES, nfa.size() / 2);
+	}
+
+	/**
+	 * Initializes the set from the specified regular expressions, caching at
+	 * most {@code maxStates} DFA states in each of the matches and find
+	 * modes.
+	 *
+	 * @param regexps
+	 *            the regular expressions
+	 * @param maxStates
+	 *            the maximum number of cached DFA states
+	 * @throws IllegalArgumentException
+	 *             if a regular expression is not valid, or if
+	 *             {@code maxStates < 2}
+	 */
+	public RegexSetMatch(String[] regexps, int maxStates) {
+		if (maxStates < 2)
+			throw new IllegalArgumentException("cache must hold at least 2 states");
+		this.regexps = regexps.clone();
+		this.nfa = new RegexNFA(this.regexps);
+		this.maxStates = maxStates;
+	}
+
+	/**
+	 * Returns the number of regular expressions in the set.
+	 *
+	 * @return the number of regular expressions in the set
+	 */
+	public int size() {
+		return regexps.length;
+	}
+
+	/**
+	 * Returns the regular expression at index {@code i}.
+	 *
+	 * @param i
+	 *            the index of the regular expression
+	 * @return the regular expression at index {@code i}
+	 */
+	public String regexp(int i) {
+		return regexps[i];
+	}
+
+	/**
+	 * Returns the indices of the regular expressions that match the whole
+	 * text.
+	 *
+	 * @param text
+	 *            the text
+	 * @return the indices of the regular expressions that match the text, in
+	 *         increasing order
+	 */
+	public int[] matches(CharSequence text) {
+		return matches(text, 0, text.length());
+	}
+
+	/**
+	 * Returns the indices of the regular expressions that match
+	 * {@code text[from..to)}.
+	 *
+	 * @param text
+	 *            the text
+	 * @param from
+	 *            the index of the first character of the substring
+	 * @param to
+	 *            one past the index of the last character of the substring
+	 * @return the indices of the regular expressions that match the
+	 *         substring, in increasing order
+	 * @throws IndexOutOfBoundsException
+	 *             unless {@code 0 <= from <= to <= text.length()}
+	 */
+	public int[] matches(CharSequence text, int from, int to) {
+		NFARegexMatch.checkRange(text, from, to);
+		if (anchored == null)
+			anchored = new LazyDFA(nfa, false, maxStates);
+		return anchored.run(text, from, to, false).clone();
+	}
+
+	/**
+	 * Returns true if some regular expression in the set matches the whole
+	 * text.
+	 *
+	 * @param text
+	 *            the text
+	 * @return {@code true} if some regular expression matches the text,
+	 *         {@code false} otherwise
+	 */
+	public boolean matchesAny(CharSequence text) {
+		NFARegexMatch.checkRange(text, 0, text.length());
+		if (anchored == null)
+			anchored = new LazyDFA(nfa, false, maxStates);
+		return anchored.run(text, 0, text.length(), false).length > 0;
+	}
+
+	/**
+	 * Returns the indices of the regular expressions that match some
+	 * substring of the text.
+	 *
+	 * @param text
+	 *            the text
+	 * @return the indices of the regular expressions that match some
+	 *         substring of the text, in increasing order
+	 */
+	public int[] find(CharSequence text) {
+		return find(text, 0, text.length());
+	}
+
+	/**
+	 * Returns the indices of the regular expressions that match some
+	 * substring of {@code text[from..to)}.
+	 *
+	 * @param text
+	 *            the text
+	 * @param from
+	 *            the index of the first character to search
+	 * @param to
+	 *            one past the index of the last character to search
+	 * @return the indices of the regular expressions that match some
+	 *         substring, in increasing order
+	 * @throws IndexOutOfBoundsException
+	 *             unless {@code 0 <= from <= to <= text.length()}
+	 */
+	public int[] find(CharSequence text, int from, int to) {
+		NFARegexMatch.checkRange(text, from, to);
+		if (unanchored == null)
+			unanchored = new LazyDFA(nfa, true, maxStates);
+		return unanchored.run(text, from, to, false);
+	}
+
+}
@@ -0,0 +1,96 @@
+package com.theleapofcode.algs.string;
+
+import java.util.Random;
+
+/**
+ * The {@code RollingHash} class holds the arithmetic of polynomial hashes
+ * modulo the Mersenne prime 2<sup>61</sup>-1. Reducing modulo a Mersenne prime
+ * takes a shift, a mask and an add instead of a division, and the 122-bit
+ * products are assembled from 31-bit halves, so no step overflows a
+ * {@code long}.
+ * <p>
+ * The hash of <em>s</em><sub>0</sub>..<em>s</em><sub><em>m</em>-1</sub> is
+ * the sum of <em>s</em><sub><em>i</em></sub>
+ * <em>B</em><sup><em>m</em>-1-<em>i</em></sup>, for a base <em>B</em>. Two
+ * distinct strings of length <em>m</em> collide with probability at most
+ * <em>m</em>/2<sup>61</sup> over a random choice of the base.
+ */
+final class RollingHash {
+
+	static final long MOD = (1L << 61) - 1;
+
+	private static final long MASK30 = (1L << 30) - 1;
+	private static final long MASK31 = (1L << 31) - 1;
+
+	private RollingHash() {
+	}
+
+	/**
+	 * Returns a base chosen at random from [2<sup>16</sup>,
+	 * 2<sup>61</sup>-1).
+	 */
+	static long randomBase(Random random) {
+		long bound = MOD - (1L << 16);
+		long r = random.nextLong() >>> 3; // uniform in [0, 2^61)
+		while (r >= bound)
+			r = random.nextLong() >>> 3;
+		return r + (1L << 16);
+	}
+
+	/**
+	 * Returns a * b mod 2<sup>61</sup>-1, for a and b less than the modulus.
+	 */
+	static long mul(long a, long b) {
+		long au = a >>> 31, ad = a & MASK31;
+		long bu = b >>> 31, bd = b & MASK31;
+		long mid = ad * bu + au * bd;
+		long midu = mid >>> 30, midd = mid & MASK30;
+		// 2^62 = 2 and mid * 2^31 = midu + midd * 2^31, modulo 2^61-1
+		return mod(au * bu * 2 + midu + (midd << 31) + ad * bd);
+	}
+
+	// reduces x, taken as an unsigned 64-bit value, modulo 2^61-1
+	private static long mod(long x) {
+		long r = (x >>> 61) + (x & MOD);
+		return r >= MOD ? r - MOD : r;
+	}
+
+	/**
+	 * Returns h * base + c mod 2<sup>61</sup>-1, appending c to the hash h.
+	 */
+	static long append(long h, long base, int c) {
+		long r = mul(h, base) + c;
+		return r >= MOD ? r - MOD : r;
+	}
+
+	/**
+	 * Returns h - c * pow mod 2<sup>61</sup>-1, removing the leading c from
+	 * the hash h, where pow is the base to the power of the length minus one.
+	 */
+	static long remove(long h, long pow, int c) {
+		long r = h - mul(pow, c);
+		return r < 0 ? r + MOD : r;
+	}
+
+	/**
+	 * Returns base<sup>e</sup> mod 2<sup>61</sup>-1.
+	 */
+	static long pow(long base, int e) {
+		long r = 1;
+		for (long b = base; e > 0; e >>>= 1, b = mul(b, b))
+			if ((e & 1) != 0)
+				r = mul(r, b);
+		return r;
+	}
+
+	/**
+	 * Returns the hash of {@code s[from..to)}.
+	 */
+	static long hash(CharSequence s, int from, int to, long base) {
+		long h = 0;
+		for (int i = from; i < to; i++)
+			h = append(h, base, s.charAt(i));
+		return h;
+	}
+
+}
@@ -1,6 +1,6 @@
 package com.theleapofcode.algs.string;
 
-import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The {@code SuffixArray} class represents a suffix array of a string of length
@@ -11,16 +11,22 @@ import java.util.Arrays;
  * determining the <em>rank</em> of a query string (which is the number of
  * suffixes strictly less than the query string).
  * <p>
- * This implementation uses a nested class {@code Suffix} to represent a suffix
- * of a string (using constant time and space) and {@code Arrays.sort()} to sort
- * the array of suffixes. The <em>index</em> and <em>length</em> operations
- * takes constant time in the worst case. The <em>lcp</em> operation takes time
- * proportional to the length of the longest common prefix. The <em>select</em>
- * operation takes time proportional to the length of the suffix and should be
- * used primarily for debugging.
+ * This implementation builds the suffix array as an {@code int[]} with the
+ * SA-IS algorithm (see {@link SuffixArrays}), in time proportional to
+ * <em>n</em> and 4<em>n</em> bytes of space. The <em>index</em> and
+ * <em>length</em> operations take constant time in the worst case. The
+ * <em>lcp</em> operation takes constant time, after the whole LCP array is
+ * built with Kasai's algorithm in time proportional to <em>n</em> on first
+ * use. The <em>select</em> operation takes time proportional to the length of
+ * the suffix and should be used primarily for debugging.
+ * <p>
+ * Instances are safe to share between threads: the LCP array is built in a
+ * local array and only then published, through a volatile field.
  */
 public class SuffixArray {
-	private Suffix[] suffixes;
+	private final String text;
+	private final int[] sa; // starting positions of the sorted suffixes
+	private volatile int[] lcp; // LCP array, built on first use and published whole
 
 	/**
 	 * Initializes a suffix array for the given {@code text} string.
@@ -29,64 +35,41 @@ public class SuffixArray {
 	 *            the input string
 	 */
 	public SuffixArray(String text) {
-		int n = text.length();
-		this.suffixes = new Suffix[n];
-		for (int i = 0; i < n; i++)
-			suffixes[i] = new Suffix(text, i);
-		Arrays.sort(suffixes);
+		this.text = text;
+		this.sa = SuffixArrays.build(text);
+	}
+
+	/**
+	 * Initializes a suffix array for the given {@code text} string, built in
+	 * parallel by the threads of {@code pool}. The result is the same as
+	 * that of {@link #SuffixArray(String)}.
+	 * 
+	 * @param text
+	 *            the input string
+	 * @param pool
+	 *            the pool whose threads build the suffix array
+	 */
+	public SuffixArray(String text, ForkJoinPool pool) {
+		this.text = text;
+		this.sa = SuffixArrays.build(text, pool);
 	}
 
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
-		for(Suffix suffix : suffixes) {
-			sb.append(suffix.toString()).append(System.lineSeparator());
+		for (int i = 0; i < sa.length; i++) {
+			sb.append(text.substring(sa[i])).append(System.lineSeparator());
 		}
 		return sb.toString();
 	}
 
-	private static class Suffix implements Comparable<Suffix> {
-		private final String text;
-		private final int index;
-
-		private Suffix(String text, int index) {
-			this.text = text;
-			this.index = index;
-		}
-
-		private int length() {
-			return text.length() - index;
-		}
-
-		private char charAt(int i) {
-			return text.charAt(index + i);
-		}
-
-		public int compareTo(Suffix that) {
-			if (this == that)
-				return 0; // optimization
-			int n = Math.min(this.length(), that.length());
-			for (int i = 0; i < n; i++) {
-				if (this.charAt(i) < that.charAt(i))
-					return -1;
-				if (this.charAt(i) > that.charAt(i))
-					return +1;
-			}
-			return this.length() - that.length();
-		}
-
-		public String toString() {
-			return text.substring(index);
-		}
-	}
-
 	/**
 	 * Returns the length of the input string.
 	 * 
 	 * @return the length of the input string
 	 */
 	public int length() {
-		return suffixes.length;
+		return sa.length;
 	}
 
 	/**
@@ -102,9 +85,9 @@ public class SuffixArray {
 	 *             unless {@code 0 <= i < n}
 	 */
 	public int index(int i) {
-		if (i < 0 || i >= suffixes.length)
+		if (i < 0 || i >= sa.length)
 			throw new IndexOutOfBoundsException();
-		return suffixes[i].index;
+		return sa[i];
 	}
 
 	/**
@@ -119,19 +102,14 @@ public class SuffixArray {
 	 *             unless {@code 1 <= i < n}
 	 */
 	public int lcp(int i) {
-		if (i < 1 || i >= suffixes.length)
+		if (i < 1 || i >= sa.length)
 			throw new IndexOutOfBoundsException();
-		return lcp(suffixes[i], suffixes[i - 1]);
-	}
-
-	// longest common prefix of s and t
-	private static int lcp(Suffix s, Suffix t) {
-		int n = Math.min(s.length(), t.length());
-		for (int i = 0; i < n; i++) {
-			if (s.charAt(i) != t.charAt(i))
-				return i;
-		}
-		return n;
+		// threads that race here each build the same array; any of them
+		// may be the one kept
+		int[] lcp = this.lcp;
+		if (lcp == null)
+			this.lcp = lcp = SuffixArrays.lcp(text, sa);
+		return lcp[i];
 	}
 
 	/**
@@ -144,9 +122,9 @@ public class SuffixArray {
 	 *             unless {@code 0 <= i < n}
 	 */
 	public String select(int i) {
-		if (i < 0 || i >= suffixes.length)
+		if (i < 0 || i >= sa.length)
 			throw new IndexOutOfBoundsException();
-		return suffixes[i].toString();
+		return text.substring(sa[i]);
 	}
 
 	/**
@@ -159,10 +137,10 @@ public class SuffixArray {
 	 * @return the number of suffixes strictly less than {@code query}
 	 */
 	public int rank(String query) {
-		int lo = 0, hi = suffixes.length - 1;
+		int lo = 0, hi = sa.length - 1;
 		while (lo <= hi) {
 			int mid = lo + (hi - lo) / 2;
-			int cmp = compare(query, suffixes[mid]);
+			int cmp = compare(query, text, sa[mid]);
 			if (cmp < 0)
 				hi = mid - 1;
 			else if (cmp > 0)
@@ -173,16 +151,16 @@ public class SuffixArray {
 		return lo;
 	}
 
-	// compare query string to suffix
-	private static int compare(String query, Suffix suffix) {
-		int n = Math.min(query.length(), suffix.length());
+	// compare query string to suffix text[index..]
+	private static int compare(String query, String text, int index) {
+		int n = Math.min(query.length(), text.length() - index);
 		for (int i = 0; i < n; i++) {
-			if (query.charAt(i) < suffix.charAt(i))
+			if (query.charAt(i) < text.charAt(index + i))
 				return -1;
-			if (query.charAt(i) > suffix.charAt(i))
+			if (query.charAt(i) > text.charAt(index + i))
 				return +1;
 		}
-		return query.length() - suffix.length();
+		return query.length() - (text.length() - index);
 	}
 
 }
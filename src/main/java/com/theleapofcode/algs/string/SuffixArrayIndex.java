@@ -0,0 +1,311 @@
+package com.theleapofcode.algs.string;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The {@code SuffixArrayIndex} class is a suffix array of a text file that is
+ * built once, written to an index file and memory-mapped by later queries. It
+ * supports the operations of {@link SuffixArray} over the bytes of the text:
+ * <em>index</em>, <em>lcp</em>, <em>select</em> and <em>rank</em>.
+ * <p>
+ * The index file holds a 16-byte header (magic number, text length and
+ * flags), the suffix array and, optionally, the LCP array, as little-endian
+ * 32-bit integers. The text itself stays in its own file. Opening an index
+ * maps both files and reads nothing else, so it takes constant time; the
+ * operating system pages in only the parts of the arrays and text a query
+ * touches. The arrays are mapped in 256 MB segments, so an index may be larger
+ * than a single mapping.
+ * <p>
+ * Suffixes are ordered by unsigned byte values. For UTF-8 text this is the
+ * order of the code points, so {@code String} queries are encoded as UTF-8.
+ * Positions and lengths are in bytes. Building the index holds the text and
+ * the arrays in memory; the text must be shorter than 2<sup>31</sup> bytes.
+ */
+public class SuffixArrayIndex {
+
+	private static final int MAGIC = 0x31584153; // "SAX1", little-endian
+	private static final int HEADER = 16;
+	private static final int HAS_LCP = 1;
+	private static final int SEGMENT_SHIFT = 26; // 2^26 ints per mapping
+	private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+	private final ByteBuffer text; // the mapped text
+	private final int n; // length of the text
+	private final ByteBuffer[] sa; // the mapped suffix array
+	private final ByteBuffer[] lcp; // the mapped LCP array, or null
+
+	private SuffixArrayIndex(ByteBuffer text, int n, ByteBuffer[] sa, ByteBuffer[] lcp) {
+		this.text = text;
+		this.n = n;
+		this.sa = sa;
+		this.lcp = lcp;
+	}
+
+	/**
+	 * Builds the suffix array of a text file and writes it to an index file.
+	 *
+	 * @param textFile
+	 *            the text
+	 * @param indexFile
+	 *            the index file to write
+	 * @param withLcp
+	 *            whether to write the LCP array too
+	 * @throws IOException
+	 *             if the text cannot be read or the index cannot be written
+	 */
+	public static void build(Path textFile, Path indexFile, boolean withLcp) throws IOException {
+		byte[] bytes = Files.readAllBytes(textFile);
+		int[] suffixes = SuffixArrays.build(bytes);
+		int[] prefixes = withLcp ? SuffixArrays.lcp(bytes, suffixes) : null;
+		bytes = null;
+
+		try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(suffixes.length).putInt(withLcp ? HAS_LCP : 0).putInt(0).flip();
+			write(channel, header);
+			ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+			write(channel, buffer, suffixes);
+			if (withLcp)
+				write(channel, buffer, prefixes);
+		}
+	}
+
+	private static void write(FileChannel channel, ByteBuffer buffer, int[] array) throws IOException {
+		buffer.clear();
+		for (int value : array) {
+			if (buffer.remaining() < 4) {
+				buffer.flip();
+				write(channel, buffer);
+				buffer.clear();
+			}
+			buffer.putInt(value);
+		}
+		buffer.flip();
+		write(channel, buffer);
+	}
+
+	private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+	}
+
+	/**
+	 * Memory-maps a text file and the index built from it by {@code build}.
+	 *
+	 * @param textFile
+	 *            the text
+	 * @param indexFile
+	 *            the index of the text
+	 * @return the mapped index
+	 * @throws IOException
+	 *             if a file cannot be read, or if the index file is not an
+	 *             index of a text of this length
+	 */
+	public static SuffixArrayIndex open(Path textFile, Path indexFile) throws IOException {
+		MappedByteBuffer text;
+		try (FileChannel channel = FileChannel.open(textFile, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("text too large: " + textFile);
+			text = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+			while (header.hasRemaining() && channel.read(header, header.position()) > 0)
+				;
+			if (header.hasRemaining() || header.getInt(0) != MAGIC)
+				throw new IOException("not a suffix array index: " + indexFile);
+			int n = header.getInt(4);
+			boolean withLcp = (header.getInt(8) & HAS_LCP) != 0;
+			if (n != text.capacity())
+				throw new IOException("index of a text of " + n + " bytes, not " + text.capacity() + ": " + indexFile);
+			if (channel.size() != HEADER + (withLcp ? 8L : 4L) * n)
+				throw new IOException("truncated suffix array index: " + indexFile);
+			ByteBuffer[] sa = map(channel, HEADER, n);
+			ByteBuffer[] lcp = withLcp ? map(channel, HEADER + 4L * n, n) : null;
+			return new SuffixArrayIndex(text, n, sa, lcp);
+		}
+	}
+
+	// maps n ints starting at offset, in segments
+	private static ByteBuffer[] map(FileChannel channel, long offset, int n) throws IOException {
+		ByteBuffer[] segments = new ByteBuffer[(int) (((long) n + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+		for (int k = 0; k < segments.length; k++) {
+			long first = (long) k << SEGMENT_SHIFT;
+			long size = 4 * Math.min(1L << SEGMENT_SHIFT, n - first);
+			segments[k] = channel.map(FileChannel.MapMode.READ_ONLY, offset + 4 * first, size)
+					.order(ByteOrder.LITTLE_ENDIAN);
+		}
+		return segments;
+	}
+
+	private static int get(ByteBuffer[] segments, int i) {
+		return segments[i >>> SEGMENT_SHIFT].getInt((i & SEGMENT_MASK) << 2);
+	}
+
+	/**
+	 * Returns the length of the text, in bytes.
+	 *
+	 * @return the length of the text
+	 */
+	public int length() {
+		return n;
+	}
+
+	/**
+	 * Returns whether the index holds the LCP array. Without it, {@code lcp}
+	 * compares the two suffixes.
+	 *
+	 * @return {@code true} if the index holds the LCP array
+	 */
+	public boolean hasLcp() {
+		return lcp != null;
+	}
+
+	/**
+	 * Returns the index into the text of the <em>i</em>th smallest suffix.
+	 *
+	 * @param i
+	 *            an integer between 0 and <em>n</em>-1
+	 * @return the index into the text of the <em>i</em>th smallest suffix
+	 * @throws java.lang.IndexOutOfBoundsException
+	 *             unless {@code 0 <= i < n}
+	 */
+	public int index(int i) {
+		if (i < 0 || i >= n)
+			throw new IndexOutOfBoundsException();
+		return get(sa, i);
+	}
+
+	/**
+	 * Returns the length of the longest common prefix of the <em>i</em>th
+	 * smallest suffix and the <em>i</em>-1st smallest suffix.
+	 *
+	 * @param i
+	 *            an integer between 1 and <em>n</em>-1
+	 * @return the length of the longest common prefix of the <em>i</em>th
+	 *         smallest suffix and the <em>i</em>-1st smallest suffix.
+	 * @throws java.lang.IndexOutOfBoundsException
+	 *             unless {@code 1 <= i < n}
+	 */
+	public int lcp(int i) {
+		if (i < 1 || i >= n)
+			throw new IndexOutOfBoundsException();
+		if (lcp != null)
+			return get(lcp, i);
+		int p = get(sa, i), q = get(sa, i - 1);
+		int h = 0;
+		while (p + h < n && q + h < n && text.get(p + h) == text.get(q + h))
+			h++;
+		return h;
+	}
+
+	/**
+	 * Returns the <em>i</em>th smallest suffix, decoded as UTF-8.
+	 *
+	 * @param i
+	 *            the index
+	 * @return the <em>i</em> smallest suffix as a string
+	 * @throws java.lang.IndexOutOfBoundsException
+	 *             unless {@code 0 <= i < n}
+	 */
+	public String select(int i) {
+		int from = index(i);
+		return substring(from, n);
+	}
+
+	/**
+	 * Returns the bytes {@code text[from..to)}, decoded as UTF-8.
+	 *
+	 * @param from
+	 *            the index of the first byte
+	 * @param to
+	 *            one past the index of the last byte
+	 * @return the decoded bytes
+	 * @throws java.lang.IndexOutOfBoundsException
+	 *             unless {@code 0 <= from <= to <= n}
+	 */
+	public String substring(int from, int to) {
+		if (from < 0 || to > n || from > to)
+			throw new IndexOutOfBoundsException();
+		byte[] bytes = new byte[to - from];
+		ByteBuffer view = text.duplicate();
+		view.position(from);
+		view.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns whether the suffix starting at byte {@code index} of the text
+	 * starts with {@code query}.
+	 *
+	 * @param index
+	 *            the index of the suffix
+	 * @param query
+	 *            the query bytes
+	 * @return {@code true} if the suffix starts with {@code query}
+	 */
+	public boolean startsWith(int index, byte[] query) {
+		if (n - index < query.length)
+			return false;
+		for (int i = 0; i < query.length; i++)
+			if (text.get(index + i) != query[i])
+				return false;
+		return true;
+	}
+
+	/**
+	 * Returns the number of suffixes strictly less than the {@code query}
+	 * string, encoded as UTF-8.
+	 *
+	 * @param query
+	 *            the query string
+	 * @return the number of suffixes strictly less than {@code query}
+	 */
+	public int rank(String query) {
+		return rank(query.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Returns the number of suffixes strictly less than the {@code query}
+	 * bytes.
+	 *
+	 * @param query
+	 *            the query bytes
+	 * @return the number of suffixes strictly less than {@code query}
+	 */
+	public int rank(byte[] query) {
+		int lo = 0, hi = n - 1;
+		while (lo <= hi) {
+			int mid = lo + (hi - lo) / 2;
+			int cmp = compare(query, get(sa, mid));
+			if (cmp < 0)
+				hi = mid - 1;
+			else if (cmp > 0)
+				lo = mid + 1;
+			else
+				return mid;
+		}
+		return lo;
+	}
+
+	// compare query bytes to suffix text[index..], as unsigned bytes
+	private int compare(byte[] query, int index) {
+		int m = Math.min(query.length, n - index);
+		for (int i = 0; i < m; i++) {
+			int a = query[i] & 0xff, b = text.get(index + i) & 0xff;
+			if (a != b)
+				return a - b;
+		}
+		return query.length - (n - index);
+	}
+
+}
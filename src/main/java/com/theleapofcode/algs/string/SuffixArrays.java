@@ -0,0 +1,397 @@
+package com.theleapofcode.algs.string;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The {@code SuffixArrays} class provides static methods for building the
+ * suffix array and the longest common prefix (LCP) array of a text, as
+ * primitive {@code int[]} arrays.
+ * <p>
+ * The suffix array is built with the SA-IS algorithm of Nong, Zhang and Chan,
+ * which classifies each suffix as S-type or L-type, sorts the leftmost S-type
+ * (LMS) substrings by induced sorting, recursively sorts the reduced string of
+ * LMS substring names, and induces the order of all the suffixes from the
+ * order of the LMS suffixes. It takes time and extra space proportional to
+ * <em>n</em> + <em>R</em>, where <em>n</em> is the length of the text and
+ * <em>R</em> is the alphabet size. The text needs no sentinel.
+ * <p>
+ * The builders that take a {@link ForkJoinPool} use all the threads of the
+ * pool, by prefix doubling with radix sorts (see {@link ParallelSuffixSort}).
+ * They return the same suffix array as the sequential builders, after more
+ * total work on texts with long repeats.
+ * <p>
+ * The LCP array is built with the algorithm of Kasai et al., in time
+ * proportional to <em>n</em>.
+ */
+public final class SuffixArrays {
+
+	private SuffixArrays() {
+	}
+
+	/**
+	 * Returns the suffix array of the text.
+	 *
+	 * @param text
+	 *            the text
+	 * @return the starting positions of the suffixes of {@code text}, in
+	 *         sorted order
+	 */
+	public static int[] build(CharSequence text) {
+		int n = text.length();
+		int[] s = new int[n];
+		int upper = 0;
+		for (int i = 0; i < n; i++) {
+			s[i] = text.charAt(i);
+			upper = Math.max(upper, s[i]);
+		}
+		return sais(s, upper);
+	}
+
+	/**
+	 * Returns the suffix array of the text.
+	 *
+	 * @param text
+	 *            the text
+	 * @return the starting positions of the suffixes of {@code text}, in
+	 *         sorted order
+	 */
+	public static int[] build(char[] text) {
+		int n = text.length;
+		int[] s = new int[n];
+		int upper = 0;
+		for (int i = 0; i < n; i++) {
+			s[i] = text[i];
+			upper = Math.max(upper, s[i]);
+		}
+		return sais(s, upper);
+	}
+
+	/**
+	 * Returns the suffix array of the text, comparing bytes as unsigned
+	 * values.
+	 *
+	 * @param text
+	 *            the text
+	 * @return the starting positions of the suffixes of {@code text}, in
+	 *         sorted order
+	 */
+	public static int[] build(byte[] text) {
+		int n = text.length;
+		int[] s = new int[n];
+		for (int i = 0; i < n; i++)
+			s[i] = text[i] & 0xff;
+		return sais(s, 255);
+	}
+
+	/**
+	 * Returns the suffix array of a text over the integer alphabet 0 to
+	 * {@code upper}.
+	 *
+	 * @param text
+	 *            the text
+	 * @param upper
+	 *            the largest value that may appear in the text
+	 * @return the starting positions of the suffixes of {@code text}, in
+	 *         sorted order
+	 * @throws IllegalArgumentException
+	 *             if a value of the text is not between 0 and {@code upper}
+	 */
+	public static int[] build(int[] text, int upper) {
+		for (int c : text)
+			if (c < 0 || c > upper)
+				throw new IllegalArgumentException("value " + c + " is not between 0 and " + upper);
+		return sais(text, upper);
+	}
+
+	/**
+	 * Returns the suffix array of the text, built in parallel on the given
+	 * pool.
+	 *
+	 * @param text
+	 *            the text
+	 * @param pool
+	 *            the pool whose threads build the suffix array
+	 * @return the starting positions of the suffixes of {@code text}, in
+	 *         sorted order
+	 */
+	public static int[] build(CharSequence text, ForkJoinPool pool) {
+		int n = text.length();
+		int[] s = new int[n];
+		for (int i = 0; i < n; i++)
+			s[i] = text.charAt(i);
+		return ParallelSuffixSort.sort(s, pool);
+	}
+
+	/**
+	 * Returns the suffix array of the text, comparing bytes as unsigned
+	 * values, built in parallel on the given pool.
+	 *
+	 * @param text
+	 *            the text
+	 * @param pool
+	 *            the pool whose threads build the suffix array
+	 * @return the starting positions of the suffixes of {@code text}, in
+	 *         sorted order
+	 */
+	public static int[] build(byte[] text, ForkJoinPool pool) {
+		int n = text.length;
+		int[] s = new int[n];
+		for (int i = 0; i < n; i++)
+			s[i] = text[i] & 0xff;
+		return ParallelSuffixSort.sort(s, pool);
+	}
+
+	/**
+	 * Returns the suffix array of a text over the non-negative integers, built
+	 * in parallel on the given pool.
+	 *
+	 * @param text
+	 *            the text
+	 * @param pool
+	 *            the pool whose threads build the suffix array
+	 * @return the starting positions of the suffixes of {@code text}, in
+	 *         sorted order
+	 * @throws IllegalArgumentException
+	 *             if a value of the text is negative
+	 */
+	public static int[] build(int[] text, ForkJoinPool pool) {
+		for (int c : text)
+			if (c < 0)
+				throw new IllegalArgumentException("value " + c + " is negative");
+		return ParallelSuffixSort.sort(text, pool);
+	}
+
+	// SA-IS over s, whose values are between 0 and upper
+	private static int[] sais(int[] s, int upper) {
+		int n = s.length;
+		if (n == 0)
+			return new int[0];
+		if (n == 1)
+			return new int[] { 0 };
+		if (n == 2)
+			return s[0] < s[1] ? new int[] { 0, 1 } : new int[] { 1, 0 };
+
+		// ls[i] is true if suffix i is S-type (smaller than suffix i + 1)
+		boolean[] ls = new boolean[n];
+		for (int i = n - 2; i >= 0; i--)
+			ls[i] = s[i] == s[i + 1] ? ls[i + 1] : s[i] < s[i + 1];
+
+		// sumL[c] and sumS[c] are the start of the L-type and of the S-type
+		// suffixes beginning with c
+		int[] sumL = new int[upper + 2];
+		int[] sumS = new int[upper + 2];
+		for (int i = 0; i < n; i++) {
+			if (!ls[i])
+				sumS[s[i]]++;
+			else
+				sumL[s[i] + 1]++;
+		}
+		for (int c = 0; c <= upper; c++) {
+			sumS[c] += sumL[c];
+			sumL[c + 1] += sumS[c];
+		}
+
+		// LMS positions, in text order, and their index among them
+		int[] lmsMap = new int[n];
+		Arrays.fill(lmsMap, -1);
+		int m = 0;
+		for (int i = 1; i < n; i++)
+			if (!ls[i - 1] && ls[i])
+				lmsMap[i] = m++;
+		int[] lms = new int[m];
+		for (int i = 1, j = 0; i < n; i++)
+			if (!ls[i - 1] && ls[i])
+				lms[j++] = i;
+
+		int[] sa = new int[n];
+		int[] buf = new int[upper + 2];
+		induce(s, ls, sumL, sumS, buf, lms, sa);
+
+		if (m > 0) {
+			// name the LMS substrings in sorted order
+			int[] sortedLms = new int[m];
+			for (int i = 0, j = 0; i < n; i++)
+				if (lmsMap[sa[i]] >= 0)
+					sortedLms[j++] = sa[i];
+			int[] reduced = new int[m];
+			int name = 0;
+			reduced[lmsMap[sortedLms[0]]] = 0;
+			for (int i = 1; i < m; i++) {
+				int l = sortedLms[i - 1], r = sortedLms[i];
+				int endL = lmsMap[l] + 1 < m ? lms[lmsMap[l] + 1] : n;
+				int endR = lmsMap[r] + 1 < m ? lms[lmsMap[r] + 1] : n;
+				boolean same = endL - l == endR - r;
+				if (same) {
+					while (l < endL && s[l] == s[r]) {
+						l++;
+						r++;
+					}
+					if (l == n || s[l] != s[r])
+						same = false;
+				}
+				if (!same)
+					name++;
+				reduced[lmsMap[sortedLms[i]]] = name;
+			}
+
+			// sort the LMS suffixes and induce the rest from them
+			int[] reducedSa = sais(reduced, name);
+			for (int i = 0; i < m; i++)
+				sortedLms[i] = lms[reducedSa[i]];
+			induce(s, ls, sumL, sumS, buf, sortedLms, sa);
+		}
+		return sa;
+	}
+
+	// induced sorting from the LMS positions in lms
+	private static void induce(int[] s, boolean[] ls, int[] sumL, int[] sumS, int[] buf, int[] lms, int[] sa) {
+		int n = s.length;
+		Arrays.fill(sa, -1);
+		System.arraycopy(sumS, 0, buf, 0, buf.length);
+		for (int d : lms)
+			sa[buf[s[d]]++] = d;
+		System.arraycopy(sumL, 0, buf, 0, buf.length);
+		sa[buf[s[n - 1]]++] = n - 1;
+		for (int i = 0; i < n; i++) {
+			int v = sa[i];
+			if (v >= 1 && !ls[v - 1])
+				sa[buf[s[v - 1]]++] = v - 1;
+		}
+		System.arraycopy(sumL, 0, buf, 0, buf.length);
+		for (int i = n - 1; i >= 0; i--) {
+			int v = sa[i];
+			if (v >= 1 && ls[v - 1])
+				sa[--buf[s[v - 1] + 1]] = v - 1;
+		}
+	}
+
+	// inverse of the suffix array
+	private static int[] inverse(int[] sa) {
+		int[] rank = new int[sa.length];
+		for (int i = 0; i < sa.length; i++)
+			rank[sa[i]] = i;
+		return rank;
+	}
+
+	/**
+	 * Returns the LCP array of the text: entry <em>i</em> is the length of the
+	 * longest common prefix of the <em>i</em>th smallest suffix and the
+	 * <em>i</em>-1st smallest suffix, and entry 0 is 0.
+	 *
+	 * @param text
+	 *            the text
+	 * @param sa
+	 *            the suffix array of {@code text}
+	 * @return the LCP array of {@code text}
+	 */
+	public static int[] lcp(CharSequence text, int[] sa) {
+		int n = sa.length;
+		int[] rank = inverse(sa);
+		int[] lcp = new int[n];
+		for (int i = 0, h = 0; i < n; i++) {
+			if (rank[i] == 0) {
+				h = 0;
+				continue;
+			}
+			int j = sa[rank[i] - 1];
+			while (i + h < n && j + h < n && text.charAt(i + h) == text.charAt(j + h))
+				h++;
+			lcp[rank[i]] = h;
+			if (h > 0)
+				h--;
+		}
+		return lcp;
+	}
+
+	/**
+	 * Returns the LCP array of the text: entry <em>i</em> is the length of the
+	 * longest common prefix of the <em>i</em>th smallest suffix and the
+	 * <em>i</em>-1st smallest suffix, and entry 0 is 0.
+	 *
+	 * @param text
+	 *            the text
+	 * @param sa
+	 *            the suffix array of {@code text}
+	 * @return the LCP array of {@code text}
+	 */
+	public static int[] lcp(char[] text, int[] sa) {
+		int n = sa.length;
+		int[] rank = inverse(sa);
+		int[] lcp = new int[n];
+		for (int i = 0, h = 0; i < n; i++) {
+			if (rank[i] == 0) {
+				h = 0;
+				continue;
+			}
+			int j = sa[rank[i] - 1];
+			while (i + h < n && j + h < n && text[i + h] == text[j + h])
+				h++;
+			lcp[rank[i]] = h;
+			if (h > 0)
+				h--;
+		}
+		return lcp;
+	}
+
+	/**
+	 * Returns the LCP array of the text: entry <em>i</em> is the length of the
+	 * longest common prefix of the <em>i</em>th smallest suffix and the
+	 * <em>i</em>-1st smallest suffix, and entry 0 is 0.
+	 *
+	 * @param text
+	 *            the text
+	 * @param sa
+	 *            the suffix array of {@code text}
+	 * @return the LCP array of {@code text}
+	 */
+	public static int[] lcp(byte[] text, int[] sa) {
+		int n = sa.length;
+		int[] rank = inverse(sa);
+		int[] lcp = new int[n];
+		for (int i = 0, h = 0; i < n; i++) {
+			if (rank[i] == 0) {
+				h = 0;
+				continue;
+			}
+			int j = sa[rank[i] - 1];
+			while (i + h < n && j + h < n && text[i + h] == text[j + h])
+				h++;
+			lcp[rank[i]] = h;
+			if (h > 0)
+				h--;
+		}
+		return lcp;
+	}
+
+	/**
+	 * Returns the LCP array of the text: entry <em>i</em> is the length of the
+	 * longest common prefix of the <em>i</em>th smallest suffix and the
+	 * <em>i</em>-1st smallest suffix, and entry 0 is 0.
+	 *
+	 * @param text
+	 *            the text
+	 * @param sa
+	 *            the suffix array of {@code text}
+	 * @return the LCP array of {@code text}
+	 */
+	public static int[] lcp(int[] text, int[] sa) {
+		int n = sa.length;
+		int[] rank = inverse(sa);
+		int[] lcp = new int[n];
+		for (int i = 0, h = 0; i < n; i++) {
+			if (rank[i] == 0) {
+				h = 0;
+				continue;
+			}
+			int j = sa[rank[i] - 1];
+			while (i + h < n && j + h < n && text[i + h] == text[j + h])
+				h++;
+			lcp[rank[i]] = h;
+			if (h > 0)
+				h--;
+		}
+		return lcp;
+	}
+
+}
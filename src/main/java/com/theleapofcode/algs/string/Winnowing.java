@@ -0,0 +1,202 @@
+package com.theleapofcode.algs.string;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The {@code Winnowing} class selects fingerprints of documents for
+ * near-duplicate detection, with the winnowing algorithm of Schleimer, Wilkerson
+ * and Aiken.
+ * <p>
+ * Every <em>k</em>-gram of the text is hashed with a rolling hash modulo
+ * 2<sup>61</sup>-1 (see {@link RollingHash}). In each window of <em>w</em>
+ * consecutive <em>k</em>-gram hashes, the minimum (the rightmost one on ties)
+ * is selected, and the selected hashes are the fingerprints of the text. Two
+ * texts that share a substring of length at least <em>w</em> + <em>k</em> - 1
+ * share a fingerprint, and matches shorter than <em>k</em> are ignored. About
+ * 2/(<em>w</em> + 1) of the <em>k</em>-grams are selected on random text. The
+ * text is scanned once; the minimum is found again only when it leaves the
+ * window, which takes expected constant time per <em>k</em>-gram on random
+ * hashes.
+ * <p>
+ * The base of the hash is drawn from a seed, so fingerprints computed with the
+ * same parameters and seed can be compared across runs.
+ */
+public class Winnowing {
+
+	/**
+	 * The seed of the hash base used when none is given.
+	 */
+	public static final long DEFAULT_SEED = 0x5eed5eedL;
+
+	/**
+	 * The handler of the fingerprints selected by {@code winnow}.
+	 */
+	public interface FingerprintHandler {
+
+		/**
+		 * Receives a fingerprint.
+		 *
+		 * @param hash
+		 *            the hash of the <em>k</em>-gram
+		 * @param position
+		 *            the index in the text of the first character of the
+		 *            <em>k</em>-gram
+		 */
+		void fingerprint(long hash, int position);
+	}
+
+	// collects the hashes of the fingerprints
+	private static class Collector implements FingerprintHandler {
+		private long[] hashes = new long[16];
+		private int n;
+
+		public void fingerprint(long hash, int position) {
+			if (n == hashes.length)
+				hashes = Arrays.copyOf(hashes, 2 * n);
+			hashes[n++] = hash;
+		}
+	}
+
+	private final int k; // length of the k-grams
+	private final int w; // number of k-grams per window
+	private final long base; // base of the hash
+	private final long RM; // base^(k-1) % 2^61-1
+
+	/**
+	 * Initializes winnowing with windows of {@code w} {@code k}-grams, hashed
+	 * with the default seed.
+	 *
+	 * @param k
+	 *            the length of the <em>k</em>-grams
+	 * @param w
+	 *            the number of <em>k</em>-grams per window
+	 * @throws IllegalArgumentException
+	 *             if {@code k < 1} or {@code w < 1}
+	 */
+	public Winnowing(int k, int w) {
+		this(k, w, DEFAULT_SEED);
+	}
+
+	/**
+	 * Initializes winnowing with windows of {@code w} {@code k}-grams.
+	 *
+	 * @param k
+	 *            the length of the <em>k</em>-grams
+	 * @param w
+	 *            the number of <em>k</em>-grams per window
+	 * @param seed
+	 *            the seed of the hash base
+	 * @throws IllegalArgumentException
+	 *             if {@code k < 1} or {@code w < 1}
+	 */
+	public Winnowing(int k, int w, long seed) {
+		if (k < 1)
+			throw new IllegalArgumentException("k must be positive");
+		if (w < 1)
+			throw new IllegalArgumentException("window must be positive");
+		this.k = k;
+		this.w = w;
+		this.base = RollingHash.randomBase(new Random(seed));
+		this.RM = RollingHash.pow(base, k - 1);
+	}
+
+	/**
+	 * Sends the fingerprints of the text to the handler, in increasing order of
+	 * position. A text with fewer than <em>w</em> <em>k</em>-grams gets the
+	 * minimum of its <em>k</em>-gram hashes as its only fingerprint; a text
+	 * shorter than <em>k</em> gets none.
+	 *
+	 * @param text
+	 *            the text
+	 * @param handler
+	 *            receives each fingerprint
+	 * @return the number of fingerprints
+	 */
+	public int winnow(CharSequence text, FingerprintHandler handler) {
+		int grams = text.length() - k + 1;
+		if (grams <= 0)
+			return 0;
+		int mask = Integer.highestOneBit(2 * w - 1) - 1; // at least w slots
+		long[] window = new long[mask + 1]; // hash of k-gram i at i & mask
+		int min = -1; // the rightmost minimum of the window
+		int selected = -1;
+		int count = 0;
+
+		long h = RollingHash.hash(text, 0, k, base);
+		for (int i = 0; i < grams; i++) {
+			if (i > 0) {
+				h = RollingHash.remove(h, RM, text.charAt(i - 1));
+				h = RollingHash.append(h, base, text.charAt(i + k - 1));
+			}
+			window[i & mask] = h;
+			if (min >= 0 && min <= i - w) {
+				// the minimum left the window: scan it again
+				min = i - w + 1;
+				for (int j = min + 1; j <= i; j++)
+					if (window[j & mask] <= window[min & mask])
+						min = j;
+			} else if (min < 0 || h <= window[min & mask]) {
+				min = i;
+			}
+			if (i >= w - 1 && min != selected) {
+				selected = min;
+				handler.fingerprint(window[min & mask], min);
+				count++;
+			}
+		}
+		if (grams < w) {
+			handler.fingerprint(window[min & mask], min);
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the distinct fingerprints of the text, in increasing order.
+	 *
+	 * @param text
+	 *            the text
+	 * @return the distinct fingerprints of {@code text}, sorted
+	 */
+	public long[] fingerprints(CharSequence text) {
+		Collector collector = new Collector();
+		winnow(text, collector);
+		long[] hashes = collector.hashes;
+		Arrays.sort(hashes, 0, collector.n);
+		int distinct = 0;
+		for (int i = 0; i < collector.n; i++)
+			if (distinct == 0 || hashes[distinct - 1] != hashes[i])
+				hashes[distinct++] = hashes[i];
+		return Arrays.copyOf(hashes, distinct);
+	}
+
+	/**
+	 * Returns the resemblance of two sets of fingerprints: the size of their
+	 * intersection over the size of their union.
+	 *
+	 * @param a
+	 *            distinct fingerprints, in increasing order
+	 * @param b
+	 *            distinct fingerprints, in increasing order
+	 * @return the resemblance of {@code a} and {@code b}, between 0 and 1; 1
+	 *         if both are empty
+	 */
+	public static double resemblance(long[] a, long[] b) {
+		int common = 0;
+		for (int i = 0, j = 0; i < a.length && j < b.length;) {
+			if (a[i] < b[j])
+				i++;
+			else if (a[i] > b[j])
+				j++;
+			else {
+				common++;
+				i++;
+				j++;
+			}
+		}
+		int union = a.length + b.length - common;
+		return union == 0 ? 1.0 : (double) common / union;
+	}
+
+}
@@ -0,0 +1,671 @@
+package com.theleapofcode.algs.symboltable;
+
+import java.util.NoSuchElementException;
+
+import com.theleapofcode.algs.stacksandqueues.Queue;
+import com.theleapofcode.algs.stacksandqueues.QueueArrayImpl;
+
+/**
+ * In-memory B+-tree. Keys and values are kept in wide leaves (up to
+ * {@code order} entries each) that are linked together in key order, so point
+ * lookups touch only O(log<sub>order</sub> n) nodes and range scans walk
+ * contiguous arrays instead of chasing one node per key. Internal nodes keep
+ * the number of keys below each child, which gives {@code rank} and
+ * {@code select} in logarithmic time.
+ */
+public class BPlusTreeSymbolTable<K extends Comparable<K>, V> implements OrderedSymbolTable<K, V> {
+
+	private static final int DEFAULT_ORDER = 128;
+
+	private abstract class Node {
+		// For a leaf keys[i] is the ith key. For an internal node keys[i] is a
+		// lower bound of every key in children[i] (keys[0] is not used).
+		K[] keys;
+		int n; // number of keys in a leaf, number of children in an internal
+				// node
+
+		Node(int capacity) {
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			K[] keys = (K[]) new Comparable[capacity];
+			this.keys = keys;
+		}
+
+		abstract int size();
+	}
+
+	private class Leaf extends Node {
+		V[] values;
+		Leaf prev, next; // neighbouring leaves in key order
+
+		@SuppressWarnings("unchecked")
+		Leaf(int capacity) {
+			super(capacity);
+			this.values = (V[]) new Object[capacity];
+		}
+
+		@Override
+		int size() {
+			return n;
+		}
+	}
+
+	private class Internal extends Node {
+		Node[] children;
+		int[] counts; // counts[i] is the number of keys in children[i]
+		int size; // number of keys in subtree
+
+		Internal(int capacity) {
+			super(capacity);
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			Node[] children = (Node[]) new BPlusTreeSymbolTable.Node[capacity];
+			this.children = children;
+			this.counts = new int[capacity];
+		}
+
+		@Override
+		int size() {
+			return size;
+		}
+	}
+
+	private final int order; // maximum number of keys per leaf and children per
+								// internal node
+	private final int minFill; // minimum for every node but the root
+	private Node root;
+	private Leaf head; // leftmost leaf
+
+	public BPlusTreeSymbolTable() {
+		this(DEFAULT_ORDER);
+	}
+
+	public BPlusTreeSymbolTable(int order) {
+		if (order < 4 || order % 2 != 0)
+			throw new IllegalArgumentException("order must be an even number >= 4");
+		this.order = order;
+		this.minFill = order / 2;
+		this.head = new Leaf(order + 1);
+		this.root = head;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (Leaf leaf = head; leaf != null; leaf = leaf.next) {
+			for (int i = 0; i < leaf.n; i++) {
+				sb.append("(").append(leaf.keys[i]).append(" = ").append(leaf.values[i]).append(")");
+			}
+		}
+		sb.append("]");
+
+		return sb.toString();
+	}
+
+	// Index of the first key in leaf that is greater than or equal to key.
+	private int lowerBound(Leaf leaf, K key) {
+		int lo = 0, hi = leaf.n - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int cmp = key.compareTo(leaf.keys[mid]);
+			if (cmp < 0)
+				hi = mid - 1;
+			else if (cmp > 0)
+				lo = mid + 1;
+			else
+				return mid;
+		}
+		return lo;
+	}
+
+	// Index of the child of node whose range contains key.
+	private int childIndex(Internal node, K key) {
+		int lo = 1, hi = node.n - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (key.compareTo(node.keys[mid]) < 0)
+				hi = mid - 1;
+			else
+				lo = mid + 1;
+		}
+		return lo - 1;
+	}
+
+	// Leaf whose range contains key.
+	private Leaf leaf(K key) {
+		Node node = root;
+		while (node instanceof BPlusTreeSymbolTable.Internal) {
+			@SuppressWarnings("unchecked")
+			Internal internal = (Internal) node;
+			node = internal.children[childIndex(internal, key)];
+		}
+		@SuppressWarnings("unchecked")
+		Leaf leaf = (Leaf) node;
+		return leaf;
+	}
+
+	public int rank(K key) {
+		if (key == null)
+			throw new IllegalArgumentException("argument to rank() is null");
+
+		int rank = 0;
+		Node node = root;
+		while (node instanceof BPlusTreeSymbolTable.Internal) {
+			@SuppressWarnings("unchecked")
+			Internal internal = (Internal) node;
+			int i = childIndex(internal, key);
+			for (int j = 0; j < i; j++)
+				rank += internal.counts[j];
+			node = internal.children[i];
+		}
+		@SuppressWarnings("unchecked")
+		Leaf leaf = (Leaf) node;
+		return rank + lowerBound(leaf, key);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#put(java.lang.Object,
+	 * java.lang.Object)
+	 */
+	@Override
+	public void put(K key, V value) {
+		if (key == null)
+			throw new IllegalArgumentException("key is null");
+		if (value == null) {
+			delete(key);
+			return;
+		}
+
+		Node sibling = put(root, key, value);
+		if (sibling == null)
+			return;
+
+		// root was split, so grow the tree by one level
+		Internal newRoot = new Internal(order + 1);
+		newRoot.children[0] = root;
+		newRoot.counts[0] = root.size();
+		newRoot.keys[1] = sibling.keys[0];
+		newRoot.children[1] = sibling;
+		newRoot.counts[1] = sibling.size();
+		newRoot.n = 2;
+		newRoot.size = newRoot.counts[0] + newRoot.counts[1];
+		root = newRoot;
+	}
+
+	// Put in subtree of node. Returns the new right sibling if node was split.
+	@SuppressWarnings("unchecked")
+	private Node put(Node node, K key, V value) {
+		if (node instanceof BPlusTreeSymbolTable.Leaf) {
+			Leaf leaf = (Leaf) node;
+			int i = lowerBound(leaf, key);
+			if (i < leaf.n && key.compareTo(leaf.keys[i]) == 0) {
+				leaf.values[i] = value;
+				return null;
+			}
+			System.arraycopy(leaf.keys, i, leaf.keys, i + 1, leaf.n - i);
+			System.arraycopy(leaf.values, i, leaf.values, i + 1, leaf.n - i);
+			leaf.keys[i] = key;
+			leaf.values[i] = value;
+			leaf.n++;
+			return leaf.n > order ? split(leaf) : null;
+		}
+
+		Internal internal = (Internal) node;
+		int i = childIndex(internal, key);
+		Node child = internal.children[i];
+		int before = internal.counts[i];
+		Node sibling = put(child, key, value);
+		internal.counts[i] = child.size();
+		internal.size += internal.counts[i] - before;
+		if (sibling == null)
+			return null;
+
+		int j = i + 1;
+		System.arraycopy(internal.keys, j, internal.keys, j + 1, internal.n - j);
+		System.arraycopy(internal.children, j, internal.children, j + 1, internal.n - j);
+		System.arraycopy(internal.counts, j, internal.counts, j + 1, internal.n - j);
+		internal.keys[j] = sibling.keys[0];
+		internal.children[j] = sibling;
+		internal.counts[j] = sibling.size();
+		internal.n++;
+		internal.size += internal.counts[j];
+		return internal.n > order ? split(internal) : null;
+	}
+
+	// Move the upper half of an overfull leaf into a new right sibling.
+	private Leaf split(Leaf leaf) {
+		int mid = leaf.n / 2;
+		Leaf right = new Leaf(order + 1);
+		right.n = leaf.n - mid;
+		System.arraycopy(leaf.keys, mid, right.keys, 0, right.n);
+		System.arraycopy(leaf.values, mid, right.values, 0, right.n);
+		for (int i = mid; i < leaf.n; i++) { // to avoid loitering
+			leaf.keys[i] = null;
+			leaf.values[i] = null;
+		}
+		leaf.n = mid;
+
+		right.next = leaf.next;
+		right.prev = leaf;
+		if (leaf.next != null)
+			leaf.next.prev = right;
+		leaf.next = right;
+		return right;
+	}
+
+	// Move the upper half of an overfull internal node into a new right
+	// sibling. The sibling's keys[0] is the separator to push up.
+	private Internal split(Internal node) {
+		int mid = node.n / 2;
+		Internal right = new Internal(order + 1);
+		right.n = node.n - mid;
+		System.arraycopy(node.keys, mid, right.keys, 0, right.n);
+		System.arraycopy(node.children, mid, right.children, 0, right.n);
+		System.arraycopy(node.counts, mid, right.counts, 0, right.n);
+		for (int i = mid; i < node.n; i++) {
+			right.size += node.counts[i];
+			node.keys[i] = null;
+			node.children[i] = null;
+		}
+		node.size -= right.size;
+		node.n = mid;
+		return right;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#get(java.lang.Object)
+	 */
+	@Override
+	public V get(K key) {
+		if (key == null)
+			throw new IllegalArgumentException("key is null");
+		Leaf leaf = leaf(key);
+		int i = lowerBound(leaf, key);
+		if (i < leaf.n && key.compareTo(leaf.keys[i]) == 0)
+			return leaf.values[i];
+		return null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.symboltable.SymbolTable#delete(java.lang.Object)
+	 */
+	@Override
+	public void delete(K key) {
+		if (key == null)
+			throw new IllegalArgumentException("key is null");
+		if (isEmpty())
+			return;
+
+		delete(root, key);
+
+		// shrink the tree by one level if root is left with a single child
+		if (root instanceof BPlusTreeSymbolTable.Internal && root.n == 1) {
+			@SuppressWarnings("unchecked")
+			Internal internal = (Internal) root;
+			root = internal.children[0];
+		}
+	}
+
+	// Delete from subtree of node. Returns true if a key was removed.
+	@SuppressWarnings("unchecked")
+	private boolean delete(Node node, K key) {
+		if (node instanceof BPlusTreeSymbolTable.Leaf) {
+			Leaf leaf = (Leaf) node;
+			int i = lowerBound(leaf, key);
+			if (i == leaf.n || key.compareTo(leaf.keys[i]) != 0)
+				return false;
+			System.arraycopy(leaf.keys, i + 1, leaf.keys, i, leaf.n - i - 1);
+			System.arraycopy(leaf.values, i + 1, leaf.values, i, leaf.n - i - 1);
+			leaf.n--;
+			leaf.keys[leaf.n] = null; // to avoid loitering
+			leaf.values[leaf.n] = null;
+			return true;
+		}
+
+		Internal internal = (Internal) node;
+		int i = childIndex(internal, key);
+		if (!delete(internal.children[i], key))
+			return false;
+		internal.counts[i]--;
+		internal.size--;
+		if (internal.children[i].n < minFill)
+			rebalance(internal, i);
+		return true;
+	}
+
+	// Restore the minimum fill of parent.children[i] by borrowing from or
+	// merging with a sibling.
+	@SuppressWarnings("unchecked")
+	private void rebalance(Internal parent, int i) {
+		if (i > 0 && parent.children[i - 1].n > minFill) {
+			if (parent.children[i] instanceof BPlusTreeSymbolTable.Leaf)
+				borrowFromLeft(parent, i, (Leaf) parent.children[i - 1], (Leaf) parent.children[i]);
+			else
+				borrowFromLeft(parent, i, (Internal) parent.children[i - 1], (Internal) parent.children[i]);
+		} else if (i < parent.n - 1 && parent.children[i + 1].n > minFill) {
+			if (parent.children[i] instanceof BPlusTreeSymbolTable.Leaf)
+				borrowFromRight(parent, i, (Leaf) parent.children[i], (Leaf) parent.children[i + 1]);
+			else
+				borrowFromRight(parent, i, (Internal) parent.children[i], (Internal) parent.children[i + 1]);
+		} else {
+			int left = i > 0 ? i - 1 : i; // merge children[left + 1] into
+											// children[left]
+			if (parent.children[left] instanceof BPlusTreeSymbolTable.Leaf)
+				merge((Leaf) parent.children[left], (Leaf) parent.children[left + 1]);
+			else
+				merge(parent, left, (Internal) parent.children[left], (Internal) parent.children[left + 1]);
+			parent.counts[left] += parent.counts[left + 1];
+			int j = left + 1;
+			System.arraycopy(parent.keys, j + 1, parent.keys, j, parent.n - j - 1);
+			System.arraycopy(parent.children, j + 1, parent.children, j, parent.n - j - 1);
+			System.arraycopy(parent.counts, j + 1, parent.counts, j, parent.n - j - 1);
+			parent.n--;
+			parent.keys[parent.n] = null;
+			parent.children[parent.n] = null;
+		}
+	}
+
+	private void borrowFromLeft(Internal parent, int i, Leaf left, Leaf node) {
+		System.arraycopy(node.keys, 0, node.keys, 1, node.n);
+		System.arraycopy(node.values, 0, node.values, 1, node.n);
+		left.n--;
+		node.keys[0] = left.keys[left.n];
+		node.values[0] = left.values[left.n];
+		left.keys[left.n] = null;
+		left.values[left.n] = null;
+		node.n++;
+		parent.keys[i] = node.keys[0];
+		parent.counts[i - 1]--;
+		parent.counts[i]++;
+	}
+
+	private void borrowFromRight(Internal parent, int i, Leaf node, Leaf right) {
+		node.keys[node.n] = right.keys[0];
+		node.values[node.n] = right.values[0];
+		node.n++;
+		right.n--;
+		System.arraycopy(right.keys, 1, right.keys, 0, right.n);
+		System.arraycopy(right.values, 1, right.values, 0, right.n);
+		right.keys[right.n] = null;
+		right.values[right.n] = null;
+		parent.keys[i + 1] = right.keys[0];
+		parent.counts[i]++;
+		parent.counts[i + 1]--;
+	}
+
+	private void borrowFromLeft(Internal parent, int i, Internal left, Internal node) {
+		System.arraycopy(node.keys, 0, node.keys, 1, node.n);
+		System.arraycopy(node.children, 0, node.children, 1, node.n);
+		System.arraycopy(node.counts, 0, node.counts, 1, node.n);
+		node.keys[1] = parent.keys[i];
+		left.n--;
+		node.children[0] = left.children[left.n];
+		node.counts[0] = left.counts[left.n];
+		node.n++;
+		parent.keys[i] = left.keys[left.n];
+		left.keys[left.n] = null;
+		left.children[left.n] = null;
+		left.size -= node.counts[0];
+		node.size += node.counts[0];
+		parent.counts[i - 1] -= node.counts[0];
+		parent.counts[i] += node.counts[0];
+	}
+
+	private void borrowFromRight(Internal parent, int i, Internal node, Internal right) {
+		node.keys[node.n] = parent.keys[i + 1];
+		node.children[node.n] = right.children[0];
+		node.counts[node.n] = right.counts[0];
+		int moved = right.counts[0];
+		node.n++;
+		parent.keys[i + 1] = right.keys[1];
+		right.n--;
+		System.arraycopy(right.keys, 1, right.keys, 0, right.n);
+		System.arraycopy(right.children, 1, right.children, 0, right.n);
+		System.arraycopy(right.counts, 1, right.counts, 0, right.n);
+		right.keys[right.n] = null;
+		right.children[right.n] = null;
+		node.size += moved;
+		right.size -= moved;
+		parent.counts[i] += moved;
+		parent.counts[i + 1] -= moved;
+	}
+
+	private void merge(Leaf left, Leaf right) {
+		System.arraycopy(right.keys, 0, left.keys, left.n, right.n);
+		System.arraycopy(right.values, 0, left.values, left.n, right.n);
+		left.n += right.n;
+		left.next = right.next;
+		if (right.next != null)
+			right.next.prev = left;
+	}
+
+	private void merge(Internal parent, int i, Internal left, Internal right) {
+		System.arraycopy(right.keys, 0, left.keys, left.n, right.n);
+		System.arraycopy(right.children, 0, left.children, left.n, right.n);
+		System.arraycopy(right.counts, 0, left.counts, left.n, right.n);
+		left.keys[left.n] = parent.keys[i + 1];
+		left.n += right.n;
+		left.size += right.size;
+	}
+
+	public void deleteMinimum() {
+		if (isEmpty())
+			throw new NoSuchElementException("B+-tree underflow");
+		delete(minimum());
+	}
+
+	public void deleteMaximum() {
+		if (isEmpty())
+			throw new NoSuchElementException("B+-tree underflow");
+		delete(maximum());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.symboltable.SymbolTable#contains(java.lang.Object)
+	 */
+	@Override
+	public boolean contains(K key) {
+		return get(key) != null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#size()
+	 */
+	@Override
+	public int size() {
+		return root.size();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#keys()
+	 */
+	@Override
+	public Iterable<K> keys() {
+		Queue<K> queue = new QueueArrayImpl<>();
+		for (Leaf leaf = head; leaf != null; leaf = leaf.next) {
+			for (int i = 0; i < leaf.n; i++)
+				queue.enque(leaf.keys[i]);
+		}
+		return queue;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.symboltable.OrderedSymbolTable#keys(java.lang.
+	 * Comparable, java.lang.Comparable)
+	 */
+	@Override
+	public Iterable<K> keys(K lo, K hi) {
+		if (lo == null)
+			throw new IllegalArgumentException("lo key is null");
+		if (hi == null)
+			throw new IllegalArgumentException("high key is null");
+
+		Queue<K> queue = new QueueArrayImpl<>();
+		if (lo.compareTo(hi) > 0)
+			return queue;
+
+		// scan the linked leaves from the leaf of lo until a key exceeds hi
+		Leaf leaf = leaf(lo);
+		int i = lowerBound(leaf, lo);
+		while (leaf != null) {
+			for (; i < leaf.n; i++) {
+				if (hi.compareTo(leaf.keys[i]) < 0)
+					return queue;
+				queue.enque(leaf.keys[i]);
+			}
+			leaf = leaf.next;
+			i = 0;
+		}
+		return queue;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.OrderedSymbolTable#minimum()
+	 */
+	@Override
+	public K minimum() {
+		if (isEmpty())
+			throw new NoSuchElementException("Empty symbol table");
+		return head.keys[0];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.OrderedSymbolTable#maximum()
+	 */
+	@Override
+	public K maximum() {
+		if (isEmpty())
+			throw new NoSuchElementException("Empty symbol table");
+		Node node = root;
+		while (node instanceof BPlusTreeSymbolTable.Internal) {
+			@SuppressWarnings("unchecked")
+			Internal internal = (Internal) node;
+			node = internal.children[internal.n - 1];
+		}
+		return node.keys[node.n - 1];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.symboltable.OrderedSymbolTable#floor(java.lang.
+	 * Comparable)
+	 */
+	@Override
+	public K floor(K key) {
+		if (key == null)
+			throw new IllegalArgumentException("key is null");
+		Leaf leaf = leaf(key);
+		int i = lowerBound(leaf, key);
+		if (i < leaf.n && key.compareTo(leaf.keys[i]) == 0)
+			return leaf.keys[i];
+		if (i > 0)
+			return leaf.keys[i - 1];
+		// every key of this leaf is greater, so the floor ends the previous one
+		if (leaf.prev == null)
+			return null;
+		return leaf.prev.keys[leaf.prev.n - 1];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.symboltable.OrderedSymbolTable#ceiling(java.lang.
+	 * Comparable)
+	 */
+	@Override
+	public K ceiling(K key) {
+		if (key == null)
+			throw new IllegalArgumentException("key is null");
+		Leaf leaf = leaf(key);
+		int i = lowerBound(leaf, key);
+		if (i < leaf.n)
+			return leaf.keys[i];
+		// every key of this leaf is smaller, so the ceiling starts the next one
+		if (leaf.next == null)
+			return null;
+		return leaf.next.keys[0];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.OrderedSymbolTable#select(int)
+	 */
+	@Override
+	public K select(int index) {
+		if (index < 0 || index >= size()) {
+			throw new IllegalArgumentException("Invalid Index");
+		}
+
+		Node node = root;
+		while (node instanceof BPlusTreeSymbolTable.Internal) {
+			@SuppressWarnings("unchecked")
+			Internal internal = (Internal) node;
+			int i = 0;
+			while (index >= internal.counts[i]) {
+				index -= internal.counts[i];
+				i++;
+			}
+			node = internal.children[i];
+		}
+		return node.keys[index];
+	}
+
+	// does every leaf sit at the same depth and every non-root node hold at
+	// least the minimum fill?
+	public boolean isBalanced() {
+		return isBalanced(root, true) >= 0;
+	}
+
+	// Depth of leaves below node, or -1 if the subtree violates the invariants.
+	@SuppressWarnings("unchecked")
+	private int isBalanced(Node node, boolean isRoot) {
+		if (!isRoot && node.n < minFill)
+			return -1;
+		if (node instanceof BPlusTreeSymbolTable.Leaf)
+			return 0;
+		Internal internal = (Internal) node;
+		int depth = -1, size = 0;
+		for (int i = 0; i < internal.n; i++) {
+			int d = isBalanced(internal.children[i], false);
+			if (d < 0 || (depth >= 0 && d != depth) || internal.counts[i] != internal.children[i].size())
+				return -1;
+			depth = d;
+			size += internal.counts[i];
+		}
+		return size == internal.size ? depth + 1 : -1;
+	}
+
+}
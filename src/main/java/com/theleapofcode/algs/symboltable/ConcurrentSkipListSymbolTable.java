@@ -0,0 +1,451 @@
+package com.theleapofcode.algs.symboltable;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+
+/**
+ * Lock-free skip list that many threads can read and update concurrently.
+ * Every link is an {@code AtomicMarkableReference}: a key is inserted by a CAS
+ * on the bottom level followed by best-effort CASes on the index levels, and
+ * deleted by marking its links top down and letting later traversals unlink
+ * it. The bottom-level mark is the linearization point of a delete.
+ * <p>
+ * Lookups ({@code get}, {@code floor}, {@code ceiling}) never write and never
+ * retry. Range iterators are weakly consistent: they reflect every key present
+ * for the whole iteration and may or may not reflect concurrent updates.
+ * {@code size} is exact only when the table is quiescent.
+ * <p>
+ * The links carry no span counts, so {@code rank} and {@code select} walk the
+ * bottom level from the head: they take time proportional to the rank, O(n)
+ * in the worst case, not the O(log n) of the other ordered tables. Callers
+ * that need many ranks should iterate over a range instead.
+ */
+public class ConcurrentSkipListSymbolTable<K extends Comparable<K>, V> implements OrderedSymbolTable<K, V> {
+
+	private static final int MAX_LEVEL = 32;
+
+	private static class Node<K, V> {
+		final K key; // null only for the head sentinel
+		volatile V value;
+		final AtomicMarkableReference<Node<K, V>>[] next; // marked when this
+															// node is deleted
+
+		Node(K key, V value, int height) {
+			this.key = key;
+			this.value = value;
+			this.next = newLinks(height);
+			for (int i = 0; i < height; i++)
+				next[i] = new AtomicMarkableReference<>(null, false);
+		}
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private static <K, V> AtomicMarkableReference<Node<K, V>>[] newLinks(int height) {
+			return new AtomicMarkableReference[height];
+		}
+
+		boolean isDeleted() {
+			return next[0].isMarked();
+		}
+	}
+
+	private final Node<K, V> head = new Node<>(null, null, MAX_LEVEL);
+	private final AtomicInteger size = new AtomicInteger();
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (Node<K, V> node = first(head); node != null; node = first(node)) {
+			sb.append("(").append(node.key).append(" = ").append(node.value).append(")");
+		}
+		sb.append("]");
+
+		return sb.toString();
+	}
+
+	// Height of a new node: geometric with p = 1/2, capped at MAX_LEVEL.
+	private int randomHeight() {
+		int bits = ThreadLocalRandom.current().nextInt();
+		int height = 1 + Integer.numberOfTrailingZeros(bits);
+		return Math.min(height, MAX_LEVEL);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static <K, V> Node<K, V>[] newNodes(int length) {
+		return new Node[length];
+	}
+
+	// First node after node on the bottom level that is not deleted.
+	private Node<K, V> first(Node<K, V> node) {
+		Node<K, V> x = node.next[0].getReference();
+		while (x != null && x.isDeleted())
+			x = x.next[0].getReference();
+		return x;
+	}
+
+	// Last node on the bottom level whose key is less than key (or equal to it
+	// if inclusive), or head if there is none. A null key stands for a key
+	// greater than all others. Skips deleted nodes without unlinking them.
+	private Node<K, V> predecessor(K key, boolean inclusive) {
+		boolean[] marked = { false };
+		Node<K, V> pred = head;
+		for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+			Node<K, V> curr = pred.next[level].getReference();
+			while (curr != null) {
+				Node<K, V> succ = curr.next[level].get(marked);
+				if (marked[0]) { // curr is deleted, step over it
+					curr = succ;
+					continue;
+				}
+				int cmp = key == null ? 1 : key.compareTo(curr.key);
+				if (cmp > 0 || (inclusive && cmp == 0)) {
+					pred = curr;
+					curr = succ;
+				} else {
+					break;
+				}
+			}
+		}
+		return pred;
+	}
+
+	// Fill preds and succs with the neighbours of key at every level,
+	// unlinking deleted nodes on the way. Returns true if key is present.
+	private boolean find(K key, Node<K, V>[] preds, Node<K, V>[] succs) {
+		boolean[] marked = { false };
+		retry: while (true) {
+			Node<K, V> pred = head;
+			for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+				Node<K, V> curr = pred.next[level].getReference();
+				while (curr != null) {
+					Node<K, V> succ = curr.next[level].get(marked);
+					if (marked[0]) { // curr is deleted, unlink it
+						if (!pred.next[level].compareAndSet(curr, succ, false, false))
+							continue retry;
+						curr = succ;
+						continue;
+					}
+					if (key.compareTo(curr.key) > 0) {
+						pred = curr;
+						curr = succ;
+					} else {
+						break;
+					}
+				}
+				preds[level] = pred;
+				succs[level] = curr;
+			}
+			return succs[0] != null && key.compareTo(succs[0].key) == 0;
+		}
+	}
+
+	/**
+	 * Returns the number of keys less than the given key. It walks the bottom
+	 * level, in time proportional to the rank, not O(log n).
+	 *
+	 * @param key
+	 *            the key
+	 * @return the number of keys less than {@code key}
+	 * @throws IllegalArgumentException
+	 *             if {@code key} is null
+	 */
+	public int rank(K key) {
+		if (key == null)
+			throw new IllegalArgumentException("argument to rank() is null");
+
+		int rank = 0;
+		for (Node<K, V> node = first(head); node != null && key.compareTo(node.key) > 0; node = first(node))
+			rank++;
+		return rank;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#put(java.lang.Object,
+	 * java.lang.Object)
+	 */
+	@Override
+	public void put(K key, V value) {
+		if (key == null)
+			throw new IllegalArgumentException("key is null");
+		if (value == null) {
+			delete(key);
+			return;
+		}
+
+		Node<K, V>[] preds = newNodes(MAX_LEVEL);
+		Node<K, V>[] succs = newNodes(MAX_LEVEL);
+		int height = randomHeight();
+		while (true) {
+			if (find(key, preds, succs)) { // key is already in table. So update
+											// value
+				succs[0].value = value;
+				return;
+			}
+
+			Node<K, V> node = new Node<>(key, value, height);
+			for (int level = 0; level < height; level++)
+				node.next[level].set(succs[level], false);
+
+			// the bottom-level CAS makes the key visible
+			if (!preds[0].next[0].compareAndSet(succs[0], node, false, false))
+				continue;
+			size.incrementAndGet();
+
+			// then link the index levels, giving up if node is deleted meanwhile
+			for (int level = 1; level < height; level++) {
+				while (!preds[level].next[level].compareAndSet(succs[level], node, false, false)) {
+					if (!find(key, preds, succs) || succs[0] != node)
+						return;
+					Node<K, V> succ = node.next[level].getReference();
+					if (succ != succs[level] && !node.next[level].compareAndSet(succ, succs[level], false, false))
+						return;
+				}
+			}
+			return;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#get(java.lang.Object)
+	 */
+	@Override
+	public V get(K key) {
+		if (key == null)
+			throw new IllegalArgumentException("key is null");
+		Node<K, V> node = first(predecessor(key, false));
+		if (node != null && key.compareTo(node.key) == 0)
+			return node.value;
+		return null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.symboltable.SymbolTable#delete(java.lang.Object)
+	 */
+	@Override
+	public void delete(K key) {
+		if (key == null)
+			throw new IllegalArgumentException("key is null");
+
+		Node<K, V>[] preds = newNodes(MAX_LEVEL);
+		Node<K, V>[] succs = newNodes(MAX_LEVEL);
+		if (!find(key, preds, succs))
+			return;
+		Node<K, V> node = succs[0];
+
+		// mark the index levels top down so that no new links reach node
+		boolean[] marked = { false };
+		for (int level = node.next.length - 1; level > 0; level--) {
+			Node<K, V> succ = node.next[level].get(marked);
+			while (!marked[0]) {
+				node.next[level].attemptMark(succ, true);
+				succ = node.next[level].get(marked);
+			}
+		}
+
+		// whoever marks the bottom level owns the delete
+		Node<K, V> succ = node.next[0].get(marked);
+		while (!marked[0]) {
+			if (node.next[0].compareAndSet(succ, succ, false, true)) {
+				size.decrementAndGet();
+				find(key, preds, succs); // unlink node physically
+				return;
+			}
+			succ = node.next[0].get(marked);
+		}
+	}
+
+	public void deleteMinimum() {
+		if (isEmpty())
+			throw new NoSuchElementException("Skip list underflow");
+		delete(minimum());
+	}
+
+	public void deleteMaximum() {
+		if (isEmpty())
+			throw new NoSuchElementException("Skip list underflow");
+		delete(maximum());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.symboltable.SymbolTable#contains(java.lang.Object)
+	 */
+	@Override
+	public boolean contains(K key) {
+		return get(key) != null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#size()
+	 */
+	@Override
+	public int size() {
+		return size.get();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+		return first(head) == null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#keys()
+	 */
+	@Override
+	public Iterable<K> keys() {
+		return () -> new KeyIterator(first(head), null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.symboltable.OrderedSymbolTable#keys(java.lang.
+	 * Comparable, java.lang.Comparable)
+	 */
+	@Override
+	public Iterable<K> keys(K lo, K hi) {
+		if (lo == null)
+			throw new IllegalArgumentException("lo key is null");
+		if (hi == null)
+			throw new IllegalArgumentException("high key is null");
+
+		return () -> new KeyIterator(first(predecessor(lo, false)), hi);
+	}
+
+	// Weakly consistent iterator over the bottom level up to hi (inclusive).
+	private class KeyIterator implements Iterator<K> {
+		private Node<K, V> current;
+		private final K hi; // null for no upper bound
+
+		public KeyIterator(Node<K, V> first, K hi) {
+			this.hi = hi;
+			this.current = inRange(first) ? first : null;
+		}
+
+		private boolean inRange(Node<K, V> node) {
+			return node != null && (hi == null || hi.compareTo(node.key) >= 0);
+		}
+
+		public boolean hasNext() {
+			return current != null;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		public K next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			K key = current.key;
+			Node<K, V> next = first(current);
+			current = inRange(next) ? next : null;
+			return key;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.OrderedSymbolTable#minimum()
+	 */
+	@Override
+	public K minimum() {
+		Node<K, V> node = first(head);
+		if (node == null)
+			throw new NoSuchElementException("Empty symbol table");
+		return node.key;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.OrderedSymbolTable#maximum()
+	 */
+	@Override
+	public K maximum() {
+		Node<K, V> node = predecessor(null, false);
+		if (node == head)
+			throw new NoSuchElementException("Empty symbol table");
+		return node.key;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.symboltable.OrderedSymbolTable#floor(java.lang.
+	 * Comparable)
+	 */
+	@Override
+	public K floor(K key) {
+		if (key == null)
+			throw new IllegalArgumentException("key is null");
+		Node<K, V> node = predecessor(key, true);
+		if (node == head)
+			return null;
+		return node.key;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.symboltable.OrderedSymbolTable#ceiling(java.lang.
+	 * Comparable)
+	 */
+	@Override
+	public K ceiling(K key) {
+		if (key == null)
+			throw new IllegalArgumentException("key is null");
+		Node<K, V> node = first(predecessor(key, false));
+		if (node == null)
+			return null;
+		return node.key;
+	}
+
+	/**
+	 * Returns the key of the given rank. It walks the bottom level, in time
+	 * proportional to {@code index}, not O(log n).
+	 *
+	 * @param index
+	 *            the rank
+	 * @return the key with {@code index} keys less than it
+	 * @throws IllegalArgumentException
+	 *             unless {@code 0 <= index < size()}
+	 */
+	@Override
+	public K select(int index) {
+		if (index < 0)
+			throw new IllegalArgumentException("Invalid Index");
+
+		Node<K, V> node = first(head);
+		for (int i = 0; i < index && node != null; i++)
+			node = first(node);
+		if (node == null)
+			throw new IllegalArgumentException("Invalid Index");
+		return node.key;
+	}
+
+}
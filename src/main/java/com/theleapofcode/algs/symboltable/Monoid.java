@@ -0,0 +1,24 @@
+package com.theleapofcode.algs.symboltable;
+
+public interface Monoid<T> {
+
+	/**
+	 * Returns the identity element, the aggregate of no values.
+	 *
+	 * @return the identity element
+	 */
+	public T identity();
+
+	/**
+	 * Combines two aggregates. Must be associative; {@code a} covers the
+	 * smaller keys and {@code b} the larger ones.
+	 *
+	 * @param a
+	 *            the aggregate of the smaller keys
+	 * @param b
+	 *            the aggregate of the larger keys
+	 * @return the aggregate of both
+	 */
+	public T combine(T a, T b);
+
+}
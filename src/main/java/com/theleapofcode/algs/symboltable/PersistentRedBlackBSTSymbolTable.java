@@ -0,0 +1,643 @@
+package com.theleapofcode.algs.symboltable;
+
+import java.util.NoSuchElementException;
+
+import com.theleapofcode.algs.stacksandqueues.Queue;
+import com.theleapofcode.algs.stacksandqueues.QueueArrayImpl;
+
+/**
+ * Persistent left-leaning red-black BST. {@code put} and {@code delete} never
+ * modify a published node: they copy the nodes on the search path and install
+ * a new root that shares every untouched subtree with the old one. A
+ * {@code snapshot} is therefore O(1) and stays readable, without locks, by any
+ * thread no matter how the table changes afterwards.
+ * <p>
+ * Writes must come from one thread at a time. Between {@code beginBatch} and
+ * {@code endBatch} nodes copied by the batch are updated in place instead of
+ * being copied again, which makes bulk edits almost as cheap as on
+ * {@link RedBlackBSTSymbolTable}; during a batch the table itself must not be
+ * shared, but snapshots taken before or during it are unaffected.
+ */
+public class PersistentRedBlackBSTSymbolTable<K extends Comparable<K>, V> implements OrderedSymbolTable<K, V> {
+
+	private static final boolean RED = true;
+	private static final boolean BLACK = false;
+
+	private class Node {
+		K key; // sorted by key
+		V value; // associated data
+		Node left, right; // left and right subtrees
+		boolean color; // color of parent link
+		int size; // number of nodes in subtree
+		final Object edit; // the edit that created this node and may still
+							// change it in place
+
+		public Node(K key, V value, boolean color, int size, Object edit) {
+			this.key = key;
+			this.value = value;
+			this.color = color;
+			this.size = size;
+			this.edit = edit;
+		}
+
+		@Override
+		public String toString() {
+			return key.toString();
+		}
+	}
+
+	private volatile Node root; // root of BST
+	private Object edit; // owner token of the current operation or batch
+	private boolean batch; // is a batch in progress?
+
+	public PersistentRedBlackBSTSymbolTable() {
+	}
+
+	private PersistentRedBlackBSTSymbolTable(Node root) {
+		this.root = root;
+	}
+
+	/**
+	 * Returns an independent version of this symbol table in O(1) time. Later
+	 * changes to either table are not visible in the other.
+	 *
+	 * @return a snapshot of this symbol table
+	 */
+	public PersistentRedBlackBSTSymbolTable<K, V> snapshot() {
+		if (batch) // nodes shared with the snapshot must not change in place
+			edit = new Object();
+		return new PersistentRedBlackBSTSymbolTable<>(root);
+	}
+
+	/**
+	 * Starts a batch of updates in which copied nodes are reused in place.
+	 */
+	public void beginBatch() {
+		if (batch)
+			throw new IllegalStateException("batch already in progress");
+		batch = true;
+		edit = new Object();
+	}
+
+	/**
+	 * Ends the current batch. Nodes written by the batch are frozen.
+	 */
+	public void endBatch() {
+		if (!batch)
+			throw new IllegalStateException("no batch in progress");
+		batch = false;
+		edit = null;
+	}
+
+	// Every update runs under an edit token. Outside a batch each operation
+	// gets a fresh one, so only the nodes it copied itself are changed in
+	// place.
+	private void beginEdit() {
+		if (!batch)
+			edit = new Object();
+	}
+
+	private void endEdit() {
+		if (!batch)
+			edit = null;
+	}
+
+	// Node h itself if this edit owns it, a copy owned by this edit otherwise.
+	private Node editable(Node h) {
+		if (h.edit == edit)
+			return h;
+		Node x = new Node(h.key, h.value, h.color, h.size, edit);
+		x.left = h.left;
+		x.right = h.right;
+		return x;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		return treeStringBuilder(sb, this.root, this.root).toString();
+	}
+
+	private StringBuilder treeStringBuilder(StringBuilder sb, Node node, Node root) {
+		if (node != null) {
+			if (node.color == RED)
+				sb.append(" RED - (");
+			else if (node.color == BLACK && node != root)
+				sb.append(" BLACK - (");
+			else
+				sb.append("(");
+			sb.append(node.key).append(" = ").append(node.value).append(")").append(" [");
+			if (node.left != null) {
+				treeStringBuilder(sb, node.left, root);
+			}
+			sb.append(",");
+
+			if (node.right != null) {
+				sb.append(" ");
+				treeStringBuilder(sb, node.right, root);
+			}
+			sb.append("]");
+		}
+		return sb;
+	}
+
+	private boolean isRed(Node x) {
+		if (x == null) // null links are BLACK
+			return false;
+		return x.color == RED;
+	}
+
+	public int rank(K key) {
+		if (key == null)
+			throw new IllegalArgumentException("argument to rank() is null");
+		return rank(key, root);
+	}
+
+	// Number of keys in the subtree less than key.
+	private int rank(K key, Node node) {
+		if (node == null)
+			return 0;
+		int cmp = key.compareTo(node.key);
+		if (cmp < 0)
+			return rank(key, node.left);
+		else if (cmp > 0)
+			return 1 + size(node.left) + rank(key, node.right);
+		else
+			return size(node.left);
+	}
+
+	// make a left-leaning link lean to the right
+	private Node rotateRight(Node h) {
+		h = editable(h);
+		Node x = editable(h.left);
+		h.left = x.right;
+		x.right = h;
+		x.color = h.color;
+		h.color = RED;
+		x.size = h.size;
+		h.size = size(h.left) + size(h.right) + 1;
+		return x;
+	}
+
+	// make a right-leaning link lean to the left
+	private Node rotateLeft(Node h) {
+		h = editable(h);
+		Node x = editable(h.right);
+		h.right = x.left;
+		x.left = h;
+		x.color = h.color;
+		h.color = RED;
+		x.size = h.size;
+		h.size = size(h.left) + size(h.right) + 1;
+		return x;
+	}
+
+	// flip the colors of a node and its two children. h must have opposite
+	// color of its two children and be owned by this edit
+	private void flipColors(Node h) {
+		h.left = editable(h.left);
+		h.right = editable(h.right);
+		h.color = !h.color;
+		h.left.color = !h.left.color;
+		h.right.color = !h.right.color;
+	}
+
+	// Assuming that h is red and both h.left and h.left.left
+	// are black, make h.left or one of its children red.
+	private Node moveRedLeft(Node h) {
+		h = editable(h);
+		flipColors(h);
+		if (isRed(h.right.left)) {
+			h.right = rotateRight(h.right);
+			h = rotateLeft(h);
+			flipColors(h);
+		}
+		return h;
+	}
+
+	// Assuming that h is red and both h.right and h.right.left
+	// are black, make h.right or one of its children red.
+	private Node moveRedRight(Node h) {
+		h = editable(h);
+		flipColors(h);
+		if (isRed(h.left.left)) {
+			h = rotateRight(h);
+			flipColors(h);
+		}
+		return h;
+	}
+
+	// restore red-black tree invariant. h must be owned by this edit
+	private Node balance(Node h) {
+		if (isRed(h.right) && !isRed(h.left))
+			h = rotateLeft(h);
+		if (isRed(h.left) && isRed(h.left.left))
+			h = rotateRight(h);
+		if (isRed(h.left) && isRed(h.right))
+			flipColors(h);
+
+		h.size = size(h.left) + size(h.right) + 1;
+		return h;
+	}
+
+	// Node h with the given color, copied if the color changes. Used on the
+	// root so that a new root is published only once per operation.
+	private Node withColor(Node h, boolean color) {
+		if (h == null || h.color == color)
+			return h;
+		h = editable(h);
+		h.color = color;
+		return h;
+	}
+
+	public void deleteMinimum() {
+		if (isEmpty())
+			throw new NoSuchElementException("BST underflow");
+
+		beginEdit();
+		Node h = root;
+		// if both children of root are black, set root to red
+		if (!isRed(h.left) && !isRed(h.right))
+			h = withColor(h, RED);
+
+		root = withColor(deleteMinimum(h), BLACK);
+		endEdit();
+	}
+
+	private Node deleteMinimum(Node node) {
+		if (node.left == null)
+			return null;
+
+		node = editable(node);
+		if (!isRed(node.left) && node.left != null && !isRed(node.left.left))
+			node = moveRedLeft(node);
+
+		node.left = deleteMinimum(node.left);
+		return balance(node);
+	}
+
+	public void deleteMaximum() {
+		if (isEmpty())
+			throw new NoSuchElementException("BST underflow");
+
+		beginEdit();
+		Node h = root;
+		// if both children of root are black, set root to red
+		if (!isRed(h.left) && !isRed(h.right))
+			h = withColor(h, RED);
+
+		root = withColor(deleteMaximum(h), BLACK);
+		endEdit();
+	}
+
+	private Node deleteMaximum(Node node) {
+		if (isRed(node.left))
+			node = rotateRight(node);
+
+		if (node.right == null)
+			return null;
+
+		node = editable(node);
+		if (!isRed(node.right) && node.right != null && !isRed(node.right.left))
+			node = moveRedRight(node);
+
+		node.right = deleteMaximum(node.right);
+
+		return balance(node);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#put(java.lang.Object,
+	 * java.lang.Object)
+	 */
+	@Override
+	public void put(K key, V value) {
+		if (key == null)
+			throw new IllegalArgumentException("key is null");
+		if (value == null) {
+			delete(key);
+			return;
+		}
+
+		beginEdit();
+		root = withColor(put(root, key, value), BLACK);
+		endEdit();
+	}
+
+	// Put in subtree of a Node, copying the nodes on the path
+	private Node put(Node node, K key, V value) {
+		if (node == null)
+			return new Node(key, value, RED, 1, edit);
+
+		node = editable(node);
+		int cmp = key.compareTo(node.key);
+		if (cmp < 0)
+			node.left = put(node.left, key, value);
+		else if (cmp > 0)
+			node.right = put(node.right, key, value);
+		else
+			node.value = value;
+
+		return balance(node);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#get(java.lang.Object)
+	 */
+	@Override
+	public V get(K key) {
+		if (key == null)
+			throw new IllegalArgumentException("key is null");
+		Node node = root;
+		while (node != null) {
+			int cmp = key.compareTo(node.key);
+			if (cmp < 0)
+				node = node.left;
+			else if (cmp > 0)
+				node = node.right;
+			else
+				return node.value;
+		}
+		return null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.symboltable.SymbolTable#delete(java.lang.Object)
+	 */
+	@Override
+	public void delete(K key) {
+		if (key == null)
+			throw new IllegalArgumentException("key is null");
+		if (!contains(key)) // avoid copying a path for nothing
+			return;
+
+		beginEdit();
+		Node h = root;
+		// if both children of root are black, set root to red
+		if (!isRed(h.left) && !isRed(h.right))
+			h = withColor(h, RED);
+
+		root = withColor(delete(h, key), BLACK);
+		endEdit();
+	}
+
+	private Node delete(Node node, K key) {
+		if (node == null)
+			return null;
+
+		node = editable(node);
+		if (key.compareTo(node.key) < 0) {
+			if (!isRed(node.left) && node.left != null && !isRed(node.left.left))
+				node = moveRedLeft(node);
+			node.left = delete(node.left, key);
+		} else {
+			if (isRed(node.left))
+				node = rotateRight(node);
+			if (key.compareTo(node.key) == 0 && (node.right == null))
+				return null;
+			if (!isRed(node.right) && node.right != null && !isRed(node.right.left))
+				node = moveRedRight(node);
+			if (key.compareTo(node.key) == 0) {
+				Node x = minimum(node.right);
+				node.key = x.key;
+				node.value = x.value;
+				node.right = deleteMinimum(node.right);
+			} else
+				node.right = delete(node.right, key);
+		}
+		return balance(node);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.symboltable.SymbolTable#contains(java.lang.Object)
+	 */
+	@Override
+	public boolean contains(K key) {
+		return get(key) != null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#size()
+	 */
+	@Override
+	public int size() {
+		return size(root);
+	}
+
+	private int size(Node node) {
+		if (node == null)
+			return 0;
+		else
+			return node.size;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#keys()
+	 */
+	@Override
+	public Iterable<K> keys() {
+		Queue<K> queue = new QueueArrayImpl<>();
+		Node node = root; // read once so that the keys come from one version
+		if (node != null)
+			keys(node, queue, minimum(node).key, maximum(node).key);
+		return queue;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.symboltable.OrderedSymbolTable#keys(java.lang.
+	 * Comparable, java.lang.Comparable)
+	 */
+	@Override
+	public Iterable<K> keys(K lo, K hi) {
+		if (lo == null)
+			throw new IllegalArgumentException("lo key is null");
+		if (hi == null)
+			throw new IllegalArgumentException("high key is null");
+
+		Queue<K> queue = new QueueArrayImpl<>();
+		keys(root, queue, lo, hi);
+		return queue;
+	}
+
+	private void keys(Node node, Queue<K> queue, K lo, K hi) {
+		if (node == null)
+			return;
+		int cmplo = lo.compareTo(node.key);
+		int cmphi = hi.compareTo(node.key);
+		if (cmplo < 0)
+			keys(node.left, queue, lo, hi);
+		if (cmplo <= 0 && cmphi >= 0)
+			queue.enque(node.key);
+		if (cmphi > 0)
+			keys(node.right, queue, lo, hi);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.OrderedSymbolTable#minimum()
+	 */
+	@Override
+	public K minimum() {
+		Node node = root;
+		if (node == null)
+			throw new NoSuchElementException("Empty symbol table");
+		return minimum(node).key;
+	}
+
+	private Node minimum(Node node) {
+		while (node.left != null)
+			node = node.left;
+		return node;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.OrderedSymbolTable#maximum()
+	 */
+	@Override
+	public K maximum() {
+		Node node = root;
+		if (node == null)
+			throw new NoSuchElementException("Empty symbol table");
+		return maximum(node).key;
+	}
+
+	private Node maximum(Node node) {
+		while (node.right != null)
+			node = node.right;
+		return node;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.symboltable.OrderedSymbolTable#floor(java.lang.
+	 * Comparable)
+	 */
+	@Override
+	public K floor(K key) {
+		if (key == null)
+			throw new IllegalArgumentException("key is null");
+
+		K floor = null;
+		Node node = root;
+		while (node != null) {
+			int cmp = key.compareTo(node.key);
+			if (cmp == 0)
+				return node.key;
+			if (cmp < 0) {
+				node = node.left;
+			} else {
+				floor = node.key;
+				node = node.right;
+			}
+		}
+		return floor;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.symboltable.OrderedSymbolTable#ceiling(java.lang.
+	 * Comparable)
+	 */
+	@Override
+	public K ceiling(K key) {
+		if (key == null)
+			throw new IllegalArgumentException("key is null");
+
+		K ceiling = null;
+		Node node = root;
+		while (node != null) {
+			int cmp = key.compareTo(node.key);
+			if (cmp == 0)
+				return node.key;
+			if (cmp > 0) {
+				node = node.right;
+			} else {
+				ceiling = node.key;
+				node = node.left;
+			}
+		}
+		return ceiling;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.OrderedSymbolTable#select(int)
+	 */
+	@Override
+	public K select(int index) {
+		Node node = root;
+		if (index < 0 || index >= size(node)) {
+			throw new IllegalArgumentException("Invalid Index");
+		}
+
+		while (true) {
+			int t = size(node.left);
+			if (t > index) {
+				node = node.left;
+			} else if (t < index) {
+				index -= t + 1;
+				node = node.right;
+			} else {
+				return node.key;
+			}
+		}
+	}
+
+	// do all paths from root to leaf have same number of black edges?
+	public boolean isBalanced() {
+		int black = 0; // number of black links on path from root to min
+		Node x = root;
+		while (x != null) {
+			if (!isRed(x))
+				black++;
+			x = x.left;
+		}
+		return isBalanced(root, black);
+	}
+
+	// does every path from the root to a leaf have the given number of black
+	// links?
+	private boolean isBalanced(Node x, int black) {
+		if (x == null)
+			return black == 0;
+		if (!isRed(x))
+			black--;
+		return isBalanced(x.left, black) && isBalanced(x.right, black);
+	}
+
+}
@@ -16,12 +16,14 @@ public class RedBlackBSTSymbolTable<K extends Comparable<K>, V> implements Order
 		Node left, right; // left and right subtrees
 		boolean color; // color of parent link
 		int size; // number of nodes in subtree
+		V aggregate; // values of subtree combined by the monoid
 
 		public Node(K key, V value, boolean color, int size) {
 			this.key = key;
 			this.value = value;
 			this.color = color;
 			this.size = size;
+			this.aggregate = value;
 		}
 
 		@Override
@@ -31,6 +33,23 @@ public class RedBlackBSTSymbolTable<K extends Comparable<K>, V> implements Order
 	}
 
 	private Node root; // root of BST
+	private final Monoid<V> monoid; // null if values are not aggregated
+
+	public RedBlackBSTSymbolTable() {
+		this(null);
+	}
+
+	/**
+	 * Initializes an empty symbol table that keeps, in every node, the values
+	 * of its subtree combined by {@code monoid}, so that {@code aggregate(lo,
+	 * hi)} takes logarithmic time.
+	 *
+	 * @param monoid
+	 *            the monoid over values
+	 */
+	public RedBlackBSTSymbolTable(Monoid<V> monoid) {
+		this.monoid = monoid;
+	}
 
 	@Override
 	public String toString() {
@@ -96,7 +115,8 @@ public class RedBlackBSTSymbolTable<K extends Comparable<K>, V> implements Order
 		x.color = x.right.color;
 		x.right.color = RED;
 		x.size = h.size;
-		h.size = size(h.left) + size(h.right) + 1;
+		x.aggregate = h.aggregate;
+		update(h);
 		return x;
 	}
 
@@ -108,12 +128,13 @@ public class RedBlackBSTSymbolTable<K extends Comparable<K>, V> implements Order
 		x.color = x.left.color;
 		x.left.color = RED;
 		x.size = h.size;
-		h.size = size(h.left) + size(h.right) + 1;
+		x.aggregate = h.aggregate;
+		update(h);
 		return x;
 	}
 
 	// flip the colors of a node and its two children. h must have opposite
-	// color of its two children
+	// color of its two children. Sizes and aggregates are unchanged
 	private void flipColors(Node h) {
 		h.color = !h.color;
 		h.left.color = !h.left.color;
@@ -152,10 +173,24 @@ public class RedBlackBSTSymbolTable<K extends Comparable<K>, V> implements Order
 		if (isRed(h.left) && isRed(h.right))
 			flipColors(h);
 
-		h.size = size(h.left) + size(h.right) + 1;
+		update(h);
 		return h;
 	}
 
+	// recompute size and aggregate of h from its children
+	private void update(Node h) {
+		h.size = size(h.left) + size(h.right) + 1;
+		if (monoid != null)
+			h.aggregate = monoid.combine(monoid.combine(aggregate(h.left), h.value), aggregate(h.right));
+	}
+
+	private V aggregate(Node node) {
+		if (node == null)
+			return monoid.identity();
+		else
+			return node.aggregate;
+	}
+
 	public void deleteMinimum() {
 		if (isEmpty())
 			throw new NoSuchElementException("BST underflow");
@@ -530,6 +565,80 @@ public class RedBlackBSTSymbolTable<K extends Comparable<K>, V> implements Order
 			return node;
 	}
 
+	/**
+	 * Returns the values of all keys in this symbol table combined by the
+	 * monoid, in key order.
+	 *
+	 * @return the aggregate of all values
+	 * @throws IllegalStateException
+	 *             if this symbol table was created without a monoid
+	 */
+	public V aggregate() {
+		if (monoid == null)
+			throw new IllegalStateException("no monoid to aggregate values");
+		return aggregate(root);
+	}
+
+	/**
+	 * Returns the values of the keys between {@code lo} and {@code hi} combined
+	 * by the monoid, in key order, in logarithmic time.
+	 *
+	 * @param lo
+	 *            minimum endpoint
+	 * @param hi
+	 *            maximum endpoint
+	 * @return the aggregate of the values of all keys between {@code lo}
+	 *         (inclusive) and {@code hi} (inclusive)
+	 * @throws IllegalArgumentException
+	 *             if either {@code lo} or {@code hi} is {@code null}
+	 * @throws IllegalStateException
+	 *             if this symbol table was created without a monoid
+	 */
+	public V aggregate(K lo, K hi) {
+		if (lo == null)
+			throw new IllegalArgumentException("lo key is null");
+		if (hi == null)
+			throw new IllegalArgumentException("high key is null");
+		if (monoid == null)
+			throw new IllegalStateException("no monoid to aggregate values");
+		if (lo.compareTo(hi) > 0)
+			return monoid.identity();
+		return aggregate(root, lo, hi);
+	}
+
+	// Aggregate of keys between lo and hi in the subtree. Descends to the node
+	// where the paths to lo and hi split, then follows each path taking whole
+	// subtrees that lie inside the range.
+	private V aggregate(Node node, K lo, K hi) {
+		if (node == null)
+			return monoid.identity();
+		if (lo.compareTo(node.key) > 0)
+			return aggregate(node.right, lo, hi);
+		if (hi.compareTo(node.key) < 0)
+			return aggregate(node.left, lo, hi);
+		V left = aggregateFrom(node.left, lo);
+		V right = aggregateTo(node.right, hi);
+		return monoid.combine(monoid.combine(left, node.value), right);
+	}
+
+	// Aggregate of keys greater than or equal to lo in the subtree.
+	private V aggregateFrom(Node node, K lo) {
+		if (node == null)
+			return monoid.identity();
+		if (lo.compareTo(node.key) > 0)
+			return aggregateFrom(node.right, lo);
+		return monoid.combine(monoid.combine(aggregateFrom(node.left, lo), node.value), aggregate(node.right));
+	}
+
+	// Aggregate of keys less than or equal to hi in the subtree.
+	private V aggregateTo(Node node, K hi) {
+		if (node == null)
+			return monoid.identity();
+		if (hi.compareTo(node.key) < 0)
+			return aggregateTo(node.left, hi);
+		return monoid.combine(monoid.combine(aggregate(node.left), node.value), aggregateTo(node.right, hi));
+	}
+
 	// do all paths from root to leaf have same number of black edges?
 	public boolean isBalanced() {
 		int black = 0; // number of black links on path from root to min
@@ -0,0 +1,637 @@
+package com.theleapofcode.algs.trie;
+
+import java.util.Arrays;
+
+import com.theleapofcode.algs.stacksandqueues.Queue;
+import com.theleapofcode.algs.stacksandqueues.QueueLinkedListImpl;
+
+/**
+ * Symbol table with string keys over the extended ASCII alphabet, like
+ * {@link RWayTrieSymbolTable}, implemented as an adaptive radix tree.
+ * <p>
+ * Instead of giving every node an array of 256 links, a node grows through
+ * four layouts as children are added: up to 4 and up to 16 children are kept
+ * in small sorted arrays, up to 48 in a 256-entry byte index over a
+ * 48-entry child array, and only beyond that in a full 256-entry array. Nodes
+ * shrink back as children are removed. Chains of single-child nodes are
+ * collapsed into the {@code prefix} of the next node (path compression), so
+ * a key costs at most one node more than the keys it branches away from.
+ * <p>
+ * The <em>put</em>, <em>get</em>, <em>delete</em>, and <em>longest prefix</em>
+ * operations take time proportional to the length of the key.
+ */
+public class AdaptiveRadixTreeSymbolTable<V> implements StringSymbolTable<V> {
+	private static final int R = 256; // extended ASCII
+	private static final char[] EMPTY = new char[0];
+
+	private Node root; // root of tree
+	private int n; // number of keys in tree
+
+	// A node is reached through one child character and then matches all of
+	// prefix before it branches.
+	private static abstract class Node {
+		char[] prefix = EMPTY; // compressed path below the parent link
+		Object val;
+		int count; // number of children
+
+		// child for character c, or null
+		abstract Node child(char c);
+
+		// replace the existing child for character c
+		abstract void setChild(char c, Node child);
+
+		// add a child for a new character c, returning this node or a larger
+		// node that replaces it
+		abstract Node addChild(char c, Node child);
+
+		// remove the child for character c, returning this node or a smaller
+		// node that replaces it
+		abstract Node removeChild(char c);
+
+		// smallest child character >= c, or -1 if there is none
+		abstract int next(int c);
+
+		<T extends Node> T copyHeader(T to) {
+			to.prefix = prefix;
+			to.val = val;
+			return to;
+		}
+	}
+
+	// Node without children.
+	private static class Leaf extends Node {
+		Node child(char c) {
+			return null;
+		}
+
+		void setChild(char c, Node child) {
+			throw new IllegalStateException();
+		}
+
+		Node addChild(char c, Node child) {
+			return copyHeader(new Node4()).addChild(c, child);
+		}
+
+		Node removeChild(char c) {
+			return this;
+		}
+
+		int next(int c) {
+			return -1;
+		}
+	}
+
+	// Up to 4 children, sorted by character.
+	private static class Node4 extends Node {
+		final char[] keys = new char[4];
+		final Node[] children = new Node[4];
+
+		Node child(char c) {
+			for (int i = 0; i < count; i++)
+				if (keys[i] == c)
+					return children[i];
+			return null;
+		}
+
+		void setChild(char c, Node child) {
+			for (int i = 0; i < count; i++)
+				if (keys[i] == c)
+					children[i] = child;
+		}
+
+		Node addChild(char c, Node child) {
+			if (count == 4) {
+				Node16 bigger = copyHeader(new Node16());
+				System.arraycopy(keys, 0, bigger.keys, 0, count);
+				System.arraycopy(children, 0, bigger.children, 0, count);
+				bigger.count = count;
+				return bigger.addChild(c, child);
+			}
+			int i = count;
+			while (i > 0 && keys[i - 1] > c) {
+				keys[i] = keys[i - 1];
+				children[i] = children[i - 1];
+				i--;
+			}
+			keys[i] = c;
+			children[i] = child;
+			count++;
+			return this;
+		}
+
+		Node removeChild(char c) {
+			for (int i = 0; i < count; i++) {
+				if (keys[i] == c) {
+					System.arraycopy(keys, i + 1, keys, i, count - i - 1);
+					System.arraycopy(children, i + 1, children, i, count - i - 1);
+					count--;
+					children[count] = null;
+					break;
+				}
+			}
+			if (count == 0)
+				return copyHeader(new Leaf());
+			return this;
+		}
+
+		int next(int c) {
+			for (int i = 0; i < count; i++)
+				if (keys[i] >= c)
+					return keys[i];
+			return -1;
+		}
+	}
+
+	// Up to 16 children, sorted by character.
+	private static class Node16 extends Node {
+		final char[] keys = new char[16];
+		final Node[] children = new Node[16];
+
+		// index of character c in keys, or -(insertion point) - 1
+		private int indexOf(char c) {
+			int lo = 0, hi = count - 1;
+			while (lo <= hi) {
+				int mid = (lo + hi) >>> 1;
+				if (keys[mid] < c)
+					lo = mid + 1;
+				else if (keys[mid] > c)
+					hi = mid - 1;
+				else
+					return mid;
+			}
+			return -(lo + 1);
+		}
+
+		Node child(char c) {
+			int i = indexOf(c);
+			return i >= 0 ? children[i] : null;
+		}
+
+		void setChild(char c, Node child) {
+			children[indexOf(c)] = child;
+		}
+
+		Node addChild(char c, Node child) {
+			if (count == 16) {
+				Node48 bigger = copyHeader(new Node48());
+				for (int i = 0; i < count; i++)
+					bigger.addChild(keys[i], children[i]);
+				return bigger.addChild(c, child);
+			}
+			int i = -indexOf(c) - 1;
+			System.arraycopy(keys, i, keys, i + 1, count - i);
+			System.arraycopy(children, i, children, i + 1, count - i);
+			keys[i] = c;
+			children[i] = child;
+			count++;
+			return this;
+		}
+
+		Node removeChild(char c) {
+			int i = indexOf(c);
+			System.arraycopy(keys, i + 1, keys, i, count - i - 1);
+			System.arraycopy(children, i + 1, children, i, count - i - 1);
+			count--;
+			children[count] = null;
+			if (count <= 3) {
+				Node4 smaller = copyHeader(new Node4());
+				System.arraycopy(keys, 0, smaller.keys, 0, count);
+				System.arraycopy(children, 0, smaller.children, 0, count);
+				smaller.count = count;
+				return smaller;
+			}
+			return this;
+		}
+
+		int next(int c) {
+			int i = indexOf((char) c);
+			if (i < 0)
+				i = -i - 1;
+			return i < count ? keys[i] : -1;
+		}
+	}
+
+	// Up to 48 children, found through a 256-entry index of slot + 1.
+	private static class Node48 extends Node {
+		final byte[] index = new byte[R];
+		final Node[] children = new Node[48];
+
+		Node child(char c) {
+			if (c >= R || index[c] == 0)
+				return null;
+			return children[index[c] - 1];
+		}
+
+		void setChild(char c, Node child) {
+			children[index[c] - 1] = child;
+		}
+
+		Node addChild(char c, Node child) {
+			if (count == 48) {
+				Node256 bigger = copyHeader(new Node256());
+				for (int ch = 0; ch < R; ch++)
+					if (index[ch] != 0)
+						bigger.addChild((char) ch, children[index[ch] - 1]);
+				return bigger.addChild(c, child);
+			}
+			int slot = 0;
+			while (children[slot] != null)
+				slot++;
+			children[slot] = child;
+			index[c] = (byte) (slot + 1);
+			count++;
+			return this;
+		}
+
+		Node removeChild(char c) {
+			children[index[c] - 1] = null;
+			index[c] = 0;
+			count--;
+			if (count <= 12) {
+				Node16 smaller = copyHeader(new Node16());
+				for (int ch = 0; ch < R; ch++)
+					if (index[ch] != 0)
+						smaller.addChild((char) ch, children[index[ch] - 1]);
+				return smaller;
+			}
+			return this;
+		}
+
+		int next(int c) {
+			for (; c < R; c++)
+				if (index[c] != 0)
+					return c;
+			return -1;
+		}
+	}
+
+	// Up to 256 children, indexed directly by character.
+	private static class Node256 extends Node {
+		final Node[] children = new Node[R];
+
+		Node child(char c) {
+			return c < R ? children[c] : null;
+		}
+
+		void setChild(char c, Node child) {
+			children[c] = child;
+		}
+
+		Node addChild(char c, Node child) {
+			children[c] = child;
+			count++;
+			return this;
+		}
+
+		Node removeChild(char c) {
+			children[c] = null;
+			count--;
+			if (count <= 36) {
+				Node48 smaller = copyHeader(new Node48());
+				for (int ch = 0; ch < R; ch++)
+					if (children[ch] != null)
+						smaller.addChild((char) ch, children[ch]);
+				return smaller;
+			}
+			return this;
+		}
+
+		int next(int c) {
+			for (; c < R; c++)
+				if (children[c] != null)
+					return c;
+			return -1;
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (String key : keys()) {
+			sb.append("(").append(key).append(" = ").append(get(key)).append(")");
+		}
+		sb.append("]");
+
+		return sb.toString();
+	}
+
+	// Number of characters of x.prefix that match key from position d.
+	private static int matchPrefix(Node x, String key, int d) {
+		int i = 0;
+		while (i < x.prefix.length && d + i < key.length() && x.prefix[i] == key.charAt(d + i))
+			i++;
+		return i;
+	}
+
+	private static Leaf leaf(String key, int d, Object val) {
+		Leaf leaf = new Leaf();
+		if (d < key.length())
+			leaf.prefix = key.substring(d).toCharArray();
+		leaf.val = val;
+		return leaf;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#get(java.lang.Object)
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public V get(String key) {
+		if (key == null)
+			throw new IllegalArgumentException("key is null");
+		Node x = root;
+		int d = 0;
+		while (x != null) {
+			int p = matchPrefix(x, key, d);
+			if (p < x.prefix.length)
+				return null;
+			d += p;
+			if (d == key.length())
+				return (V) x.val;
+			x = x.child(key.charAt(d++));
+		}
+		return null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.symboltable.SymbolTable#contains(java.lang.Object)
+	 */
+	@Override
+	public boolean contains(String key) {
+		return get(key) != null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#put(java.lang.Object,
+	 * java.lang.Object)
+	 */
+	@Override
+	public void put(String key, V val) {
+		if (key == null)
+			throw new IllegalArgumentException("key is null");
+		for (int i = 0; i < key.length(); i++)
+			if (key.charAt(i) >= R)
+				throw new IllegalArgumentException("character out of range: " + key.charAt(i));
+		if (val == null)
+			delete(key);
+		else
+			root = put(root, key, val, 0);
+	}
+
+	private Node put(Node x, String key, V val, int d) {
+		if (x == null) {
+			n++;
+			return leaf(key, d, val);
+		}
+
+		int p = matchPrefix(x, key, d);
+		if (p < x.prefix.length) {
+			// key leaves the compressed path: split it at the mismatch
+			Node split = new Node4();
+			split.prefix = p == 0 ? EMPTY : Arrays.copyOf(x.prefix, p);
+			char c = x.prefix[p];
+			x.prefix = p + 1 == x.prefix.length ? EMPTY
+					: Arrays.copyOfRange(x.prefix, p + 1, x.prefix.length);
+			split = split.addChild(c, x);
+			if (d + p == key.length()) {
+				split.val = val;
+				n++;
+			} else {
+				split = put(split, key, val, d);
+			}
+			return split;
+		}
+
+		d += p;
+		if (d == key.length()) {
+			if (x.val == null)
+				n++;
+			x.val = val;
+			return x;
+		}
+
+		char c = key.charAt(d);
+		Node child = x.child(c);
+		if (child == null) {
+			n++;
+			return x.addChild(c, leaf(key, d + 1, val));
+		}
+		Node updated = put(child, key, val, d + 1);
+		if (updated != child)
+			x.setChild(c, updated);
+		return x;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#size()
+	 */
+	@Override
+	public int size() {
+		return n;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#keys()
+	 */
+	@Override
+	public Iterable<String> keys() {
+		return keysWithPrefix("");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.trie.StringSymbolTable#keysWithPrefix(java.lang.
+	 * String)
+	 */
+	@Override
+	public Iterable<String> keysWithPrefix(String prefix) {
+		if (prefix == null)
+			throw new IllegalArgumentException("prefix is null");
+		Queue<String> results = new QueueLinkedListImpl<>();
+		Node x = root;
+		int d = 0;
+		while (x != null) {
+			int p = matchPrefix(x, prefix, d);
+			if (d + p == prefix.length()) { // prefix ends at or inside x
+				collect(x, new StringBuilder(prefix.substring(0, d)), results);
+				break;
+			}
+			if (p < x.prefix.length)
+				break;
+			d += p;
+			x = x.child(prefix.charAt(d++));
+		}
+		return results;
+	}
+
+	// all keys in the subtree of x, where sb holds the path up to x.prefix
+	private void collect(Node x, StringBuilder sb, Queue<String> results) {
+		int length = sb.length();
+		sb.append(x.prefix);
+		if (x.val != null)
+			results.enque(sb.toString());
+		for (int c = x.next(0); c >= 0; c = x.next(c + 1)) {
+			sb.append((char) c);
+			collect(x.child((char) c), sb, results);
+			sb.setLength(sb.length() - 1);
+		}
+		sb.setLength(length);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.trie.StringSymbolTable#keysThatMatch(java.lang.
+	 * String)
+	 */
+	@Override
+	public Iterable<String> keysThatMatch(String pattern) {
+		if (pattern == null)
+			throw new IllegalArgumentException("pattern is null");
+		Queue<String> results = new QueueLinkedListImpl<>();
+		if (root != null)
+			collect(root, new StringBuilder(), pattern, results);
+		return results;
+	}
+
+	private void collect(Node x, StringBuilder sb, String pattern, Queue<String> results) {
+		int d = sb.length();
+		if (d + x.prefix.length > pattern.length())
+			return;
+		for (int i = 0; i < x.prefix.length; i++) {
+			char c = pattern.charAt(d + i);
+			if (c != '.' && c != x.prefix[i])
+				return;
+		}
+		sb.append(x.prefix);
+		d = sb.length();
+		if (d == pattern.length()) {
+			if (x.val != null)
+				results.enque(sb.toString());
+		} else {
+			char c = pattern.charAt(d);
+			if (c == '.') {
+				for (int ch = x.next(0); ch >= 0; ch = x.next(ch + 1)) {
+					sb.append((char) ch);
+					collect(x.child((char) ch), sb, pattern, results);
+					sb.setLength(d);
+				}
+			} else {
+				Node child = x.child(c);
+				if (child != null) {
+					sb.append(c);
+					collect(child, sb, pattern, results);
+					sb.setLength(d);
+				}
+			}
+		}
+		sb.setLength(d - x.prefix.length);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.trie.StringSymbolTable#longestPrefixOf(java.lang.
+	 * String)
+	 */
+	@Override
+	public String longestPrefixOf(String query) {
+		if (query == null)
+			throw new IllegalArgumentException("query is null");
+		int length = -1;
+		Node x = root;
+		int d = 0;
+		while (x != null) {
+			int p = matchPrefix(x, query, d);
+			if (p < x.prefix.length)
+				break;
+			d += p;
+			if (x.val != null)
+				length = d;
+			if (d == query.length())
+				break;
+			x = x.child(query.charAt(d++));
+		}
+		if (length == -1)
+			return null;
+		else
+			return query.substring(0, length);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.symboltable.SymbolTable#delete(java.lang.Object)
+	 */
+	@Override
+	public void delete(String key) {
+		if (key == null)
+			throw new IllegalArgumentException("key is null");
+		root = delete(root, key, 0);
+	}
+
+	private Node delete(Node x, String key, int d) {
+		if (x == null)
+			return null;
+		int p = matchPrefix(x, key, d);
+		if (p < x.prefix.length)
+			return x;
+		d += p;
+		if (d == key.length()) {
+			if (x.val != null)
+				n--;
+			x.val = null;
+		} else {
+			char c = key.charAt(d);
+			Node child = x.child(c);
+			if (child == null)
+				return x;
+			Node updated = delete(child, key, d + 1);
+			if (updated == null)
+				x = x.removeChild(c);
+			else if (updated != child)
+				x.setChild(c, updated);
+		}
+
+		// remove x if it is empty, merge it into its child if it only routes
+		if (x.val != null || x.count > 1)
+			return x;
+		if (x.count == 0)
+			return null;
+		char c = (char) x.next(0);
+		Node child = x.child(c);
+		char[] merged = new char[x.prefix.length + 1 + child.prefix.length];
+		System.arraycopy(x.prefix, 0, merged, 0, x.prefix.length);
+		merged[x.prefix.length] = c;
+		System.arraycopy(child.prefix, 0, merged, x.prefix.length + 1, child.prefix.length);
+		child.prefix = merged;
+		return child;
+	}
+
+}
@@ -0,0 +1,448 @@
+package com.theleapofcode.algs.trie;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.theleapofcode.algs.stacksandqueues.Queue;
+import com.theleapofcode.algs.stacksandqueues.QueueLinkedListImpl;
+
+/**
+ * Immutable symbol table with string keys over the extended ASCII alphabet,
+ * built once from sorted keys and stored as a double-array trie.
+ * <p>
+ * The whole trie lives in two flat {@code int} arrays. State {@code s} moves
+ * on character {@code c} to state {@code t = base[s] + c + 1} if
+ * {@code check[t] == s}; code 0 marks the end of a key, and the slot it leads
+ * to holds {@code -(i + 1)} in {@code base}, where {@code i} is the position of
+ * the key in sorted order. Lookups are therefore a few array reads per
+ * character with no per-node objects.
+ * <p>
+ * The arrays can be written with {@code save} and memory-mapped back with
+ * {@code load}, which opens a dictionary of any size almost instantly. A
+ * loaded trie has no values of its own: it maps each key to its position in
+ * sorted order, to be used as an index into the caller's value arrays.
+ * <p>
+ * {@code put} and {@code delete} throw {@code UnsupportedOperationException}.
+ */
+public class DoubleArrayTrieSymbolTable<V> implements StringSymbolTable<V> {
+	private static final int R = 256; // extended ASCII
+	private static final int FREE = -1; // check of an unused slot
+	private static final int MAGIC = 0x44415431; // "DAT1"
+
+	private final IntBuffer base;
+	private final IntBuffer check;
+	private final int n; // number of keys
+	private final Object[] values; // null for a loaded trie
+
+	/**
+	 * Builds the trie from keys in ascending order and their values.
+	 *
+	 * @param keys
+	 *            the keys, sorted and distinct
+	 * @param values
+	 *            the value of each key
+	 * @throws IllegalArgumentException
+	 *             if the keys are not sorted and distinct, contain a character
+	 *             outside extended ASCII, or a value is {@code null}
+	 */
+	public DoubleArrayTrieSymbolTable(String[] keys, V[] values) {
+		if (keys.length != values.length)
+			throw new IllegalArgumentException("keys and values differ in length");
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] == null || values[i] == null)
+				throw new IllegalArgumentException("null key or value at " + i);
+			if (i > 0 && keys[i - 1].compareTo(keys[i]) >= 0)
+				throw new IllegalArgumentException("keys are not sorted and distinct at " + i);
+			for (int j = 0; j < keys[i].length(); j++)
+				if (keys[i].charAt(j) >= R)
+					throw new IllegalArgumentException("character out of range: " + keys[i].charAt(j));
+		}
+
+		Builder builder = new Builder(keys);
+		this.base = IntBuffer.wrap(Arrays.copyOf(builder.base, builder.size));
+		this.check = IntBuffer.wrap(Arrays.copyOf(builder.check, builder.size));
+		this.n = keys.length;
+		this.values = values.clone();
+	}
+
+	private DoubleArrayTrieSymbolTable(IntBuffer base, IntBuffer check, int n) {
+		this.base = base;
+		this.check = check;
+		this.n = n;
+		this.values = null;
+	}
+
+	// Places the states of a trie over sorted keys into the two arrays.
+	private static class Builder {
+		private final String[] keys;
+		private int[] base = new int[1024];
+		private int[] check = new int[1024];
+		private int size = 1; // one past the largest slot in use
+		private int nextCheckPos = 1; // first slot worth trying for a base
+
+		Builder(String[] keys) {
+			this.keys = keys;
+			Arrays.fill(check, FREE);
+			check[0] = 0; // root
+			if (keys.length > 0)
+				place(0, 0, keys.length, 0);
+		}
+
+		private void ensure(int capacity) {
+			if (capacity <= base.length)
+				return;
+			int length = Math.max(capacity, 2 * base.length);
+			int old = check.length;
+			base = Arrays.copyOf(base, length);
+			check = Arrays.copyOf(check, length);
+			Arrays.fill(check, old, length, FREE);
+		}
+
+		// code of the character of key at depth d, 0 for the end of the key
+		private int code(String key, int d) {
+			return d == key.length() ? 0 : key.charAt(d) + 1;
+		}
+
+		// Give state s, which covers keys[lo..hi) sharing their first d
+		// characters, a base and recurse into its children.
+		private void place(int s, int lo, int hi, int d) {
+			int[] codes = new int[R + 1];
+			int[] starts = new int[R + 2];
+			int m = 0;
+			for (int i = lo; i < hi; i++) {
+				int c = code(keys[i], d);
+				if (m == 0 || codes[m - 1] != c) {
+					codes[m] = c;
+					starts[m] = i;
+					m++;
+				}
+			}
+			starts[m] = hi;
+
+			int b = findBase(codes, m);
+			base[s] = b;
+			for (int j = 0; j < m; j++)
+				check[b + codes[j]] = s;
+			size = Math.max(size, b + codes[m - 1] + 1);
+
+			for (int j = 0; j < m; j++) {
+				int t = b + codes[j];
+				if (codes[j] == 0)
+					base[t] = -(starts[j] + 1); // end of key: its sorted index
+				else
+					place(t, starts[j], starts[j + 1], d + 1);
+			}
+		}
+
+		// Smallest base b >= 1 such that every b + code is free.
+		private int findBase(int[] codes, int m) {
+			int pos = Math.max(nextCheckPos, codes[0] + 1);
+			int occupied = 0;
+			boolean first = true;
+			while (true) {
+				ensure(pos + R + 2);
+				if (check[pos] != FREE) {
+					pos++;
+					occupied++;
+					continue;
+				}
+				if (first) { // skip the densely packed region next time
+					if (occupied * 20 > (pos - nextCheckPos + 1) * 19)
+						nextCheckPos = pos;
+					first = false;
+				}
+				int b = pos - codes[0];
+				boolean fits = true;
+				for (int j = 1; j < m && fits; j++)
+					fits = check[b + codes[j]] == FREE;
+				if (fits)
+					return b;
+				pos++;
+			}
+		}
+	}
+
+	/**
+	 * Writes the trie to a file that {@code load} can map. Values are not
+	 * saved.
+	 *
+	 * @param path
+	 *            the file to write
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public void save(Path path) throws IOException {
+		int slots = base.limit();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(n).putInt(slots).flip();
+			write(channel, header);
+			ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+			for (IntBuffer array : new IntBuffer[] { base, check }) {
+				for (int i = 0; i < slots; i++) {
+					if (buffer.remaining() < 4) {
+						buffer.flip();
+						write(channel, buffer);
+						buffer.clear();
+					}
+					buffer.putInt(array.get(i));
+				}
+			}
+			buffer.flip();
+			write(channel, buffer);
+		}
+	}
+
+	private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+	}
+
+	/**
+	 * Memory-maps a trie written by {@code save}. The value of each key is its
+	 * position in sorted order.
+	 *
+	 * @param path
+	 *            the file to map
+	 * @return the mapped trie
+	 * @throws IOException
+	 *             if the file cannot be read or is not a saved trie
+	 */
+	public static DoubleArrayTrieSymbolTable<Integer> load(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			mapped.order(ByteOrder.LITTLE_ENDIAN);
+			if (channel.size() < 12 || mapped.getInt(0) != MAGIC)
+				throw new IOException("not a double-array trie: " + path);
+			int n = mapped.getInt(4);
+			int slots = mapped.getInt(8);
+			if (channel.size() != 12 + 8L * slots)
+				throw new IOException("truncated double-array trie: " + path);
+
+			mapped.position(12);
+			IntBuffer base = mapped.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			base.limit(slots);
+			mapped.position(12 + 4 * slots);
+			IntBuffer check = mapped.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			check.limit(slots);
+			return new DoubleArrayTrieSymbolTable<>(base, check, n);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (String key : keys()) {
+			sb.append("(").append(key).append(" = ").append(get(key)).append(")");
+		}
+		sb.append("]");
+
+		return sb.toString();
+	}
+
+	// State reached from s on code c, or -1.
+	private int next(int s, int c) {
+		int t = base.get(s) + c;
+		if (t < 0 || t >= check.limit() || check.get(t) != s)
+			return -1;
+		return t;
+	}
+
+	// State reached from the root by key, or -1.
+	private int state(String key) {
+		int s = 0;
+		for (int i = 0; i < key.length() && s >= 0; i++) {
+			char c = key.charAt(i);
+			s = c < R ? next(s, c + 1) : -1;
+		}
+		return s;
+	}
+
+	// Sorted index of the key ending at state s, or -1.
+	private int index(int s) {
+		int t = next(s, 0);
+		return t < 0 ? -1 : -base.get(t) - 1;
+	}
+
+	@SuppressWarnings("unchecked")
+	private V value(int index) {
+		if (values == null)
+			return (V) Integer.valueOf(index);
+		return (V) values[index];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#get(java.lang.Object)
+	 */
+	@Override
+	public V get(String key) {
+		if (key == null)
+			throw new IllegalArgumentException("key is null");
+		if (n == 0)
+			return null;
+		int s = state(key);
+		if (s < 0)
+			return null;
+		int index = index(s);
+		return index < 0 ? null : value(index);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.symboltable.SymbolTable#contains(java.lang.Object)
+	 */
+	@Override
+	public boolean contains(String key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public void put(String key, V value) {
+		throw new UnsupportedOperationException("DoubleArrayTrieSymbolTable is immutable");
+	}
+
+	@Override
+	public void delete(String key) {
+		throw new UnsupportedOperationException("DoubleArrayTrieSymbolTable is immutable");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#size()
+	 */
+	@Override
+	public int size() {
+		return n;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+		return n == 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.theleapofcode.algs.symboltable.SymbolTable#keys()
+	 */
+	@Override
+	public Iterable<String> keys() {
+		return keysWithPrefix("");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.trie.StringSymbolTable#keysWithPrefix(java.lang.
+	 * String)
+	 */
+	@Override
+	public Iterable<String> keysWithPrefix(String prefix) {
+		if (prefix == null)
+			throw new IllegalArgumentException("prefix is null");
+		Queue<String> results = new QueueLinkedListImpl<>();
+		if (n == 0)
+			return results;
+		int s = state(prefix);
+		if (s >= 0)
+			collect(s, new StringBuilder(prefix), results);
+		return results;
+	}
+
+	private void collect(int s, StringBuilder prefix, Queue<String> results) {
+		if (index(s) >= 0)
+			results.enque(prefix.toString());
+		for (int c = 0; c < R; c++) {
+			int t = next(s, c + 1);
+			if (t < 0)
+				continue;
+			prefix.append((char) c);
+			collect(t, prefix, results);
+			prefix.deleteCharAt(prefix.length() - 1);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.trie.StringSymbolTable#keysThatMatch(java.lang.
+	 * String)
+	 */
+	@Override
+	public Iterable<String> keysThatMatch(String pattern) {
+		if (pattern == null)
+			throw new IllegalArgumentException("pattern is null");
+		Queue<String> results = new QueueLinkedListImpl<>();
+		if (n > 0)
+			collect(0, new StringBuilder(), pattern, results);
+		return results;
+	}
+
+	private void collect(int s, StringBuilder prefix, String pattern, Queue<String> results) {
+		int d = prefix.length();
+		if (d == pattern.length()) {
+			if (index(s) >= 0)
+				results.enque(prefix.toString());
+			return;
+		}
+		char c = pattern.charAt(d);
+		for (int ch = (c == '.' ? 0 : c); ch < R && (c == '.' || ch == c); ch++) {
+			int t = next(s, ch + 1);
+			if (t < 0)
+				continue;
+			prefix.append((char) ch);
+			collect(t, prefix, pattern, results);
+			prefix.deleteCharAt(prefix.length() - 1);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * com.theleapofcode.algs.trie.StringSymbolTable#longestPrefixOf(java.lang.
+	 * String)
+	 */
+	@Override
+	public String longestPrefixOf(String query) {
+		if (query == null)
+			throw new IllegalArgumentException("query is null");
+		if (n == 0)
+			return null;
+		int length = -1;
+		int s = 0;
+		for (int i = 0; s >= 0; i++) {
+			if (index(s) >= 0)
+				length = i;
+			if (i == query.length())
+				break;
+			char c = query.charAt(i);
+			s = c < R ? next(s, c + 1) : -1;
+		}
+		if (length == -1)
+			return null;
+		else
+			return query.substring(0, length);
+	}
+
+}
@@ -1,7 +1,8 @@
 package com.theleapofcode.algs.trie;
 
-import com.theleapofcode.algs.stacksandqueues.Queue;
-import com.theleapofcode.algs.stacksandqueues.QueueLinkedListImpl;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * The {@code TrieST} class represents an symbol table of key-value pairs, with
@@ -24,6 +25,9 @@ import com.theleapofcode.algs.stacksandqueues.QueueLinkedListImpl;
  * constant time. The <em>size</em>, and <em>is-empty</em> operations take
  * constant time. Construction takes constant time.
  * It can be used for spell checking (26-way trie)
+ * <p>
+ * The prefix and pattern queries walk the trie lazily as their keys are
+ * iterated, so the trie must not be modified during the iteration.
  */
 public class RWayTrieSymbolTable<V> implements StringSymbolTable<V> {
 	private static final int R = 256; // extended ASCII
@@ -147,22 +151,25 @@ public class RWayTrieSymbolTable<V> implements StringSymbolTable<V> {
 	 */
 	@Override
 	public Iterable<String> keysWithPrefix(String prefix) {
-		Queue<String> results = new QueueLinkedListImpl<>();
-		Node x = get(root, prefix, 0);
-		collect(x, new StringBuilder(prefix), results);
-		return results;
+		return keysWithPrefix(prefix, Integer.MAX_VALUE);
 	}
 
-	private void collect(Node x, StringBuilder prefix, Queue<String> results) {
-		if (x == null)
-			return;
-		if (x.val != null)
-			results.enque(prefix.toString());
-		for (char c = 0; c < R; c++) {
-			prefix.append(c);
-			collect(x.next[c], prefix, results);
-			prefix.deleteCharAt(prefix.length() - 1);
-		}
+	/**
+	 * Returns at most {@code limit} of the keys that start with {@code prefix},
+	 * in sorted order. The trie is walked as the keys are iterated, so the
+	 * cost depends on the number of keys taken, not on the size of the
+	 * subtrie; stopping early cancels the rest of the walk.
+	 *
+	 * @param prefix
+	 *            the prefix
+	 * @param limit
+	 *            the maximum number of keys to return
+	 * @return the first {@code limit} keys that start with {@code prefix}
+	 */
+	public Iterable<String> keysWithPrefix(String prefix, int limit) {
+		if (limit < 0)
+			throw new IllegalArgumentException("limit is negative");
+		return () -> new KeyIterator(get(root, prefix, 0), prefix, null, limit);
 	}
 
 	/*
@@ -174,30 +181,99 @@ public class RWayTrieSymbolTable<V> implements StringSymbolTable<V> {
 	 */
 	@Override
 	public Iterable<String> keysThatMatch(String pattern) {
-		Queue<String> results = new QueueLinkedListImpl<>();
-		collect(root, new StringBuilder(), pattern, results);
-		return results;
+		return () -> new KeyIterator(root, "", pattern, Integer.MAX_VALUE);
 	}
 
-	private void collect(Node x, StringBuilder prefix, String pattern, Queue<String> results) {
-		if (x == null)
-			return;
-		int d = prefix.length();
-		if (d == pattern.length() && x.val != null)
-			results.enque(prefix.toString());
-		if (d == pattern.length())
-			return;
-		char c = pattern.charAt(d);
-		if (c == '.') {
-			for (char ch = 0; ch < R; ch++) {
-				prefix.append(ch);
-				collect(x.next[ch], prefix, pattern, results);
-				prefix.deleteCharAt(prefix.length() - 1);
+	// Depth-first walk of the subtrie below start with an explicit stack,
+	// producing one key per call to next(). With a pattern, only characters
+	// allowed by the pattern are followed and only keys of its length match.
+	private class KeyIterator implements Iterator<String> {
+		private final String pattern; // null to return every key
+		private final StringBuilder path; // key of the node on top of stack
+		private Node[] nodes = new Node[16]; // stack of nodes on the path
+		private int[] chars = new int[16]; // next character to try at each
+											// node, -1 before its own value
+		private int depth; // size of stack
+		private int remaining; // keys left before the limit
+		private String next; // next key to return, null when done
+
+		public KeyIterator(Node start, String prefix, String pattern, int limit) {
+			this.pattern = pattern;
+			this.path = new StringBuilder(prefix);
+			this.remaining = limit;
+			if (start != null)
+				push(start);
+			advance();
+		}
+
+		private void push(Node x) {
+			if (depth == nodes.length) {
+				nodes = Arrays.copyOf(nodes, 2 * depth);
+				chars = Arrays.copyOf(chars, 2 * depth);
 			}
-		} else {
-			prefix.append(c);
-			collect(x.next[c], prefix, pattern, results);
-			prefix.deleteCharAt(prefix.length() - 1);
+			nodes[depth] = x;
+			chars[depth] = -1;
+			depth++;
+		}
+
+		private void advance() {
+			next = null;
+			while (depth > 0 && remaining > 0) {
+				Node x = nodes[depth - 1];
+				int c = chars[depth - 1];
+				int d = path.length();
+				if (c == -1) {
+					chars[depth - 1] = 0;
+					if (x.val != null && (pattern == null || d == pattern.length())) {
+						next = path.toString();
+						remaining--;
+						return;
+					}
+					continue;
+				}
+
+				int hi = R;
+				if (pattern != null) {
+					if (d == pattern.length()) {
+						c = R;
+					} else if (pattern.charAt(d) != '.') {
+						char p = pattern.charAt(d);
+						if (c <= p && p < R) {
+							c = p;
+							hi = p + 1;
+						} else {
+							c = R;
+						}
+					}
+				}
+				while (c < hi && x.next[c] == null)
+					c++;
+				if (c >= hi) { // no more children, go back up
+					nodes[--depth] = null;
+					if (depth > 0)
+						path.setLength(d - 1);
+					continue;
+				}
+				chars[depth - 1] = c + 1;
+				path.append((char) c);
+				push(x.next[c]);
+			}
+		}
+
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		public String next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			String key = next;
+			advance();
+			return key;
 		}
 	}
 
@@ -1,5 +1,11 @@
 package com.theleapofcode.algs.trie;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.theleapofcode.algs.stacksandqueues.MaxPriorityQueue;
 import com.theleapofcode.algs.stacksandqueues.Queue;
 import com.theleapofcode.algs.stacksandqueues.QueueLinkedListImpl;
 
@@ -18,17 +24,40 @@ import com.theleapofcode.algs.stacksandqueues.QueueLinkedListImpl;
  * values cannot be {@code null}—setting the value associated with a key to
  * {@code null} is equivalent to deleting the key from the symbol table.
  * <p>
- * This implementation uses a ternary search trie.
+ * This implementation uses a ternary search trie. The prefix and pattern
+ * queries walk the trie lazily as their keys are iterated, so the trie must not
+ * be modified during the iteration. A trie created with a {@code Comparator}
+ * over values also keeps the largest value of every subtrie, which lets
+ * {@code topKeysWithPrefix} return the highest-valued completions of a prefix
+ * without visiting the rest of its subtrie.
  */
 public class TernarySearchTrieSymbolTable<V> implements StringSymbolTable<V> {
 	private int n; // size
 	private Node<V> root; // root of TST
+	private final Comparator<? super V> comparator; // null if values are not
+													// ranked
 
 	private static class Node<Value> {
 		private char c; // character
 		private Node<Value> left, mid, right; // left, middle, and right
 												// subtries
 		private Value val; // value associated with string
+		private Value max; // largest value in subtrie, if values are ranked
+	}
+
+	public TernarySearchTrieSymbolTable() {
+		this(null);
+	}
+
+	/**
+	 * Initializes an empty symbol table that ranks values with
+	 * {@code comparator}, enabling {@code topKeysWithPrefix}.
+	 *
+	 * @param comparator
+	 *            the order of values
+	 */
+	public TernarySearchTrieSymbolTable(Comparator<? super V> comparator) {
+		this.comparator = comparator;
 	}
 
 	/*
@@ -111,6 +140,10 @@ public class TernarySearchTrieSymbolTable<V> implements StringSymbolTable<V> {
 		if (key == null) {
 			throw new IllegalArgumentException("calls put() with null key");
 		}
+		if (val == null) {
+			delete(key);
+			return;
+		}
 		if (!contains(key))
 			n++;
 		root = put(root, key, val, 0);
@@ -130,9 +163,29 @@ public class TernarySearchTrieSymbolTable<V> implements StringSymbolTable<V> {
 			x.mid = put(x.mid, key, val, d + 1);
 		else
 			x.val = val;
+		updateMax(x);
 		return x;
 	}
 
+	// recompute the largest value in the subtrie of x from its children
+	private void updateMax(Node<V> x) {
+		if (comparator == null)
+			return;
+		V max = x.val;
+		max = larger(max, x.left == null ? null : x.left.max);
+		max = larger(max, x.mid == null ? null : x.mid.max);
+		max = larger(max, x.right == null ? null : x.right.max);
+		x.max = max;
+	}
+
+	private V larger(V a, V b) {
+		if (a == null)
+			return b;
+		if (b == null)
+			return a;
+		return comparator.compare(a, b) >= 0 ? a : b;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -173,9 +226,7 @@ public class TernarySearchTrieSymbolTable<V> implements StringSymbolTable<V> {
 	 */
 	@Override
 	public Iterable<String> keys() {
-		Queue<String> queue = new QueueLinkedListImpl<>();
-		collect(root, new StringBuilder(), queue);
-		return queue;
+		return () -> new KeyIterator(root, "", null, Integer.MAX_VALUE);
 	}
 
 	/*
@@ -187,29 +238,33 @@ public class TernarySearchTrieSymbolTable<V> implements StringSymbolTable<V> {
 	 */
 	@Override
 	public Iterable<String> keysWithPrefix(String prefix) {
+		return keysWithPrefix(prefix, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns at most {@code limit} of the keys that start with {@code prefix},
+	 * in sorted order. The trie is walked as the keys are iterated, so the
+	 * cost depends on the number of keys taken, not on the size of the
+	 * subtrie; stopping early cancels the rest of the walk.
+	 *
+	 * @param prefix
+	 *            the prefix
+	 * @param limit
+	 *            the maximum number of keys to return
+	 * @return the first {@code limit} keys that start with {@code prefix}
+	 */
+	public Iterable<String> keysWithPrefix(String prefix, int limit) {
 		if (prefix == null) {
 			throw new IllegalArgumentException("calls keysWithPrefix() with null argument");
 		}
-		Queue<String> queue = new QueueLinkedListImpl<>();
-		Node<V> x = get(root, prefix, 0);
-		if (x == null)
-			return queue;
-		if (x.val != null)
-			queue.enque(prefix);
-		collect(x.mid, new StringBuilder(prefix), queue);
-		return queue;
-	}
-
-	// all keys in subtrie rooted at x with given prefix
-	private void collect(Node<V> x, StringBuilder prefix, Queue<String> queue) {
-		if (x == null)
-			return;
-		collect(x.left, prefix, queue);
-		if (x.val != null)
-			queue.enque(prefix.toString() + x.c);
-		collect(x.mid, prefix.append(x.c), queue);
-		prefix.deleteCharAt(prefix.length() - 1);
-		collect(x.right, prefix, queue);
+		if (limit < 0)
+			throw new IllegalArgumentException("limit is negative");
+		if (prefix.length() == 0)
+			return () -> new KeyIterator(root, "", null, limit);
+		return () -> {
+			Node<V> x = get(root, prefix, 0);
+			return new KeyIterator(x, prefix, x != null && x.val != null ? prefix : null, limit);
+		};
 	}
 
 	/*
@@ -221,32 +276,295 @@ public class TernarySearchTrieSymbolTable<V> implements StringSymbolTable<V> {
 	 */
 	@Override
 	public Iterable<String> keysThatMatch(String pattern) {
-		Queue<String> queue = new QueueLinkedListImpl<>();
-		collect(root, new StringBuilder(), 0, pattern, queue);
-		return queue;
+		if (pattern == null) {
+			throw new IllegalArgumentException("calls keysThatMatch() with null argument");
+		}
+		return () -> new PatternIterator(pattern);
 	}
 
-	private void collect(Node<V> x, StringBuilder prefix, int i, String pattern, Queue<String> queue) {
-		if (x == null)
-			return;
-		char c = pattern.charAt(i);
-		if (c == '.' || c < x.c)
-			collect(x.left, prefix, i, pattern, queue);
-		if (c == '.' || c == x.c) {
-			if (i == pattern.length() - 1 && x.val != null)
-				queue.enque(prefix.toString() + x.c);
-			if (i < pattern.length() - 1) {
-				collect(x.mid, prefix.append(x.c), i + 1, pattern, queue);
-				prefix.deleteCharAt(prefix.length() - 1);
+	// In-order walk of a subtrie with an explicit stack. Each frame moves
+	// through the steps of its node in order; the path holds the characters
+	// of the mid links taken above the top frame.
+	private abstract class TrieIterator implements Iterator<String> {
+		static final int LEFT = 0, SELF = 1, MID = 2, AFTER_MID = 3, RIGHT = 4;
+
+		private Node<V>[] nodes;
+		private int[] steps;
+		private int depth; // size of stack
+		final StringBuilder path;
+		private int remaining; // keys left before the limit
+		private String next; // next key to return, null when done
+
+		TrieIterator(String prefix, int limit) {
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			Node<V>[] nodes = (Node<V>[]) new Node[16];
+			this.nodes = nodes;
+			this.steps = new int[16];
+			this.path = new StringBuilder(prefix);
+			this.remaining = limit;
+		}
+
+		void push(Node<V> x) {
+			if (x == null)
+				return;
+			if (depth == nodes.length) {
+				nodes = Arrays.copyOf(nodes, 2 * depth);
+				steps = Arrays.copyOf(steps, 2 * depth);
+			}
+			nodes[depth] = x;
+			steps[depth] = LEFT;
+			depth++;
+		}
+
+		abstract boolean followLeft(Node<V> x);
+
+		abstract boolean followRight(Node<V> x);
+
+		abstract boolean followMid(Node<V> x);
+
+		// Is the key ending at x (the path plus x.c) wanted?
+		abstract boolean accept(Node<V> x);
+
+		void emit(String key) {
+			next = key;
+			remaining--;
+		}
+
+		void advance() {
+			next = null;
+			while (depth > 0 && remaining > 0 && next == null) {
+				Node<V> x = nodes[depth - 1];
+				switch (steps[depth - 1]++) {
+				case LEFT:
+					if (followLeft(x))
+						push(x.left);
+					break;
+				case SELF:
+					if (x.val != null && accept(x))
+						emit(path.toString() + x.c);
+					break;
+				case MID:
+					if (x.mid != null && followMid(x)) {
+						path.append(x.c);
+						push(x.mid);
+					} else {
+						steps[depth - 1] = RIGHT;
+					}
+					break;
+				case AFTER_MID:
+					path.setLength(path.length() - 1);
+					break;
+				default: // RIGHT: replace x by its right subtrie
+					nodes[--depth] = null;
+					if (followRight(x))
+						push(x.right);
+					break;
+				}
+			}
+		}
+
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		public String next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			String key = next;
+			advance();
+			return key;
+		}
+	}
+
+	// Every key in the mid subtrie below a prefix, and the prefix itself.
+	private class KeyIterator extends TrieIterator {
+		KeyIterator(Node<V> x, String prefix, String self, int limit) {
+			super(prefix, limit);
+			if (x == null)
+				return;
+			if (prefix.length() == 0) {
+				push(x);
+			} else {
+				push(x.mid);
+				if (self != null && limit > 0) {
+					emit(self);
+					return;
+				}
+			}
+			advance();
+		}
+
+		boolean followLeft(Node<V> x) {
+			return true;
+		}
+
+		boolean followRight(Node<V> x) {
+			return true;
+		}
+
+		boolean followMid(Node<V> x) {
+			return true;
+		}
+
+		boolean accept(Node<V> x) {
+			return true;
+		}
+	}
+
+	// Keys of the same length as a pattern with . as a wildcard.
+	private class PatternIterator extends TrieIterator {
+		private final String pattern;
+
+		PatternIterator(String pattern) {
+			super("", Integer.MAX_VALUE);
+			this.pattern = pattern;
+			if (pattern.length() > 0)
+				push(root);
+			advance();
+		}
+
+		// Number of mid links taken above the top frame.
+		private int index() {
+			return path.length();
+		}
+
+		private char c() {
+			return pattern.charAt(index());
+		}
+
+		boolean followLeft(Node<V> x) {
+			return c() == '.' || c() < x.c;
+		}
+
+		boolean followRight(Node<V> x) {
+			return c() == '.' || c() > x.c;
+		}
+
+		boolean followMid(Node<V> x) {
+			return (c() == '.' || c() == x.c) && index() < pattern.length() - 1;
+		}
+
+		boolean accept(Node<V> x) {
+			return (c() == '.' || c() == x.c) && index() == pattern.length() - 1;
+		}
+	}
+
+	/**
+	 * Returns the {@code k} keys that start with {@code prefix} and have the
+	 * largest values, largest first. Subtries are explored best first by their
+	 * largest value, so only the paths leading to the answers are visited.
+	 *
+	 * @param prefix
+	 *            the prefix
+	 * @param k
+	 *            the number of keys to return
+	 * @return the {@code k} highest-valued keys that start with {@code prefix}
+	 * @throws IllegalStateException
+	 *             if this symbol table was created without a comparator
+	 */
+	public Iterable<String> topKeysWithPrefix(String prefix, int k) {
+		if (prefix == null) {
+			throw new IllegalArgumentException("calls topKeysWithPrefix() with null argument");
+		}
+		if (comparator == null)
+			throw new IllegalStateException("no comparator to rank values");
+
+		Queue<String> results = new QueueLinkedListImpl<>();
+		MaxPriorityQueue<Candidate> pq = new MaxPriorityQueue<>();
+		if (prefix.length() == 0) {
+			if (root != null)
+				pq.enque(new Candidate(root, "", false));
+		} else {
+			Node<V> x = get(root, prefix, 0);
+			if (x == null)
+				return results;
+			if (x.val != null)
+				pq.enque(new Candidate(x, prefix, true));
+			if (x.mid != null)
+				pq.enque(new Candidate(x.mid, prefix, false));
+		}
+
+		while (results.size() < k && !pq.isEmpty()) {
+			Candidate candidate = pq.deque();
+			Node<V> x = candidate.node;
+			if (candidate.isKey) {
+				results.enque(candidate.path);
+				continue;
 			}
+			String path = candidate.path + x.c;
+			if (x.val != null)
+				pq.enque(new Candidate(x, path, true));
+			if (x.left != null)
+				pq.enque(new Candidate(x.left, candidate.path, false));
+			if (x.mid != null)
+				pq.enque(new Candidate(x.mid, path, false));
+			if (x.right != null)
+				pq.enque(new Candidate(x.right, candidate.path, false));
+		}
+		return results;
+	}
+
+	// A key, or a subtrie ranked by its largest value.
+	private class Candidate implements Comparable<Candidate> {
+		private final Node<V> node;
+		private final String path; // key, or the path above the subtrie
+		private final boolean isKey;
+
+		Candidate(Node<V> node, String path, boolean isKey) {
+			this.node = node;
+			this.path = path;
+			this.isKey = isKey;
+		}
+
+		V weight() {
+			return isKey ? node.val : node.max;
+		}
+
+		@Override
+		public int compareTo(Candidate that) {
+			int cmp = comparator.compare(weight(), that.weight());
+			if (cmp != 0)
+				return cmp;
+			// among equal values a key comes before the subtrie that holds it
+			return Boolean.compare(isKey, that.isKey);
 		}
-		if (c == '.' || c > x.c)
-			collect(x.right, prefix, i, pattern, queue);
 	}
 
 	@Override
 	public void delete(String key) {
+		if (key == null) {
+			throw new IllegalArgumentException("key is null");
+		}
+		if (key.length() == 0 || !contains(key))
+			return;
+		n--;
+		root = delete(root, key, 0);
+	}
+
+	private Node<V> delete(Node<V> x, String key, int d) {
+		char c = key.charAt(d);
+		if (c < x.c)
+			x.left = delete(x.left, key, d);
+		else if (c > x.c)
+			x.right = delete(x.right, key, d);
+		else if (d < key.length() - 1)
+			x.mid = delete(x.mid, key, d + 1);
+		else
+			x.val = null;
 
+		// remove x if it holds nothing
+		if (x.val == null && x.mid == null) {
+			if (x.left == null)
+				return x.right;
+			if (x.right == null)
+				return x.left;
+		}
+		updateMax(x);
+		return x;
 	}
 
 }
@@ -0,0 +1,194 @@
+package com.theleapofcode.algs.util;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code BitInput} class reads sequences of bits, most significant bit
+ * first, from an {@link InputStream} or a {@link ByteBuffer}.
+ * <p>
+ * Bits are taken from the source a buffer of bytes at a time into a 64-bit
+ * accumulator, so reading a field of up to 64 bits takes a few shifts. Each
+ * instance has its own state: separate instances can read separate streams
+ * from separate threads, but an instance is not safe for use by several
+ * threads at once.
+ * <p>
+ * A stream may end with the zeros that pad the bits written by a
+ * {@link BitOutput} to a whole number of bytes; they read like any other bits.
+ */
+public class BitInput implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 13;
+
+	private final InputStream in; // source, or null
+	private final ByteBuffer source; // source, or null
+	private final byte[] bytes; // bytes read ahead from the stream
+	private int position, size; // bytes[position..size) are not yet used
+	private long buffer; // the low count bits of buffer are next
+	private int count;
+
+	/**
+	 * Initializes a bit input that reads from the given stream. It may read
+	 * ahead of the bits it returns.
+	 *
+	 * @param in
+	 *            the stream
+	 */
+	public BitInput(InputStream in) {
+		if (in == null)
+			throw new IllegalArgumentException("stream is null");
+		this.in = in;
+		this.source = null;
+		this.bytes = new byte[BUFFER_SIZE];
+	}
+
+	/**
+	 * Initializes a bit input that reads from the given buffer, from its
+	 * position to its limit.
+	 *
+	 * @param source
+	 *            the buffer
+	 */
+	public BitInput(ByteBuffer source) {
+		if (source == null)
+			throw new IllegalArgumentException("buffer is null");
+		this.in = null;
+		this.source = source;
+		this.bytes = null;
+	}
+
+	/**
+	 * Returns true if there are no more bits to read.
+	 *
+	 * @return true if there are no more bits to read
+	 * @throws IOException
+	 *             if the stream cannot be read
+	 */
+	public boolean isEmpty() throws IOException {
+		if (count == 0)
+			fill();
+		return count == 0;
+	}
+
+	/**
+	 * Reads a bit.
+	 *
+	 * @return the bit
+	 * @throws IOException
+	 *             if the stream cannot be read
+	 * @throws EOFException
+	 *             if there are no more bits
+	 */
+	public boolean readBit() throws IOException {
+		return readBits(1) != 0;
+	}
+
+	/**
+	 * Reads {@code width} bits, most significant first, into the low bits of
+	 * a value.
+	 *
+	 * @param width
+	 *            the number of bits
+	 * @return the value
+	 * @throws IOException
+	 *             if the stream cannot be read
+	 * @throws EOFException
+	 *             if there are fewer than {@code width} more bits
+	 * @throws IllegalArgumentException
+	 *             unless {@code 0 <= width <= 64}
+	 */
+	public long readBits(int width) throws IOException {
+		if (width < 0 || width > 64)
+			throw new IllegalArgumentException("width must be between 0 and 64");
+		if (width > 56)
+			return readBits(width - 32) << 32 | readBits(32);
+		if (width == 0)
+			return 0;
+		if (count < width) {
+			fill();
+			if (count < width)
+				throw new EOFException("no more bits");
+		}
+		count -= width;
+		return buffer >>> count & (-1L >>> (64 - width));
+	}
+
+	/**
+	 * Reads 8 bits.
+	 *
+	 * @return the value, between 0 and 255
+	 * @throws IOException
+	 *             if the stream cannot be read
+	 * @throws EOFException
+	 *             if there are fewer than 8 more bits
+	 */
+	public int readByte() throws IOException {
+		return (int) readBits(8);
+	}
+
+	/**
+	 * Reads 32 bits.
+	 *
+	 * @return the value
+	 * @throws IOException
+	 *             if the stream cannot be read
+	 * @throws EOFException
+	 *             if there are fewer than 32 more bits
+	 */
+	public int readInt() throws IOException {
+		return (int) readBits(32);
+	}
+
+	/**
+	 * Reads 64 bits.
+	 *
+	 * @return the value
+	 * @throws IOException
+	 *             if the stream cannot be read
+	 * @throws EOFException
+	 *             if there are fewer than 64 more bits
+	 */
+	public long readLong() throws IOException {
+		return readBits(64);
+	}
+
+	/**
+	 * Closes the stream.
+	 *
+	 * @throws IOException
+	 *             if the stream cannot be closed
+	 */
+	public void close() throws IOException {
+		if (in != null)
+			in.close();
+	}
+
+	// moves bytes into the accumulator until it holds more than 56 bits or
+	// the source ends
+	private void fill() throws IOException {
+		while (count <= 56) {
+			int b;
+			if (source != null) {
+				if (!source.hasRemaining())
+					return;
+				b = source.get() & 0xff;
+			} else {
+				if (position == size) {
+					int n = in.read(bytes);
+					if (n < 0)
+						return;
+					position = 0;
+					size = n;
+					continue;
+				}
+				b = bytes[position++] & 0xff;
+			}
+			buffer = buffer << 8 | b;
+			count += 8;
+		}
+	}
+
+}
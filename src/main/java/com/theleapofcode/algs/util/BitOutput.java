@@ -0,0 +1,184 @@
+package com.theleapofcode.algs.util;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code BitOutput} class writes sequences of bits, most significant bit
+ * first, to an {@link OutputStream} or a {@link ByteBuffer}.
+ * <p>
+ * Bits collect in a 64-bit accumulator and go to the target a buffer of bytes
+ * at a time, so writing a field of up to 64 bits takes a few shifts. Each
+ * instance has its own state: separate instances can write separate streams
+ * from separate threads, but an instance is not safe for use by several
+ * threads at once.
+ * <p>
+ * {@link #flush()} pads the bits written so far with zeros to a whole number
+ * of bytes, so a flush in the middle of a stream is visible to the reader.
+ */
+public class BitOutput implements Flushable, Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 13;
+
+	private final OutputStream out; // target, or null
+	private final ByteBuffer target; // target, or null
+	private final byte[] bytes = new byte[BUFFER_SIZE]; // bytes not yet sent
+	private int size; // number of bytes in bytes
+	private long buffer; // the low count bits of buffer are pending
+	private int count;
+
+	/**
+	 * Initializes a bit output that writes to the given stream.
+	 *
+	 * @param out
+	 *            the stream
+	 */
+	public BitOutput(OutputStream out) {
+		if (out == null)
+			throw new IllegalArgumentException("stream is null");
+		this.out = out;
+		this.target = null;
+	}
+
+	/**
+	 * Initializes a bit output that writes to the given buffer, from its
+	 * position.
+	 *
+	 * @param target
+	 *            the buffer
+	 */
+	public BitOutput(ByteBuffer target) {
+		if (target == null)
+			throw new IllegalArgumentException("buffer is null");
+		this.out = null;
+		this.target = target;
+	}
+
+	/**
+	 * Writes the given bit.
+	 *
+	 * @param bit
+	 *            the bit
+	 * @throws IOException
+	 *             if the stream cannot be written
+	 */
+	public void writeBit(boolean bit) throws IOException {
+		writeBits(bit ? 1 : 0, 1);
+	}
+
+	/**
+	 * Writes the low {@code width} bits of the given value, most significant
+	 * first.
+	 *
+	 * @param value
+	 *            the value
+	 * @param width
+	 *            the number of bits
+	 * @throws IOException
+	 *             if the stream cannot be written
+	 * @throws IllegalArgumentException
+	 *             unless {@code 0 <= width <= 64}
+	 */
+	public void writeBits(long value, int width) throws IOException {
+		if (width < 0 || width > 64)
+			throw new IllegalArgumentException("width must be between 0 and 64");
+		if (width > 56) {
+			writeBits(value >>> 32, width - 32);
+			width = 32;
+		}
+		if (width == 0)
+			return;
+		if (count + width > 64)
+			drain();
+		buffer = buffer << width | value & (-1L >>> (64 - width));
+		count += width;
+	}
+
+	/**
+	 * Writes the low 8 bits of the given value.
+	 *
+	 * @param x
+	 *            the value
+	 * @throws IOException
+	 *             if the stream cannot be written
+	 */
+	public void writeByte(int x) throws IOException {
+		writeBits(x, 8);
+	}
+
+	/**
+	 * Writes the given value as 32 bits.
+	 *
+	 * @param x
+	 *            the value
+	 * @throws IOException
+	 *             if the stream cannot be written
+	 */
+	public void writeInt(int x) throws IOException {
+		writeBits(x, 32);
+	}
+
+	/**
+	 * Writes the given value as 64 bits.
+	 *
+	 * @param x
+	 *            the value
+	 * @throws IOException
+	 *             if the stream cannot be written
+	 */
+	public void writeLong(long x) throws IOException {
+		writeBits(x, 64);
+	}
+
+	/**
+	 * Pads the bits written so far with zeros to a whole number of bytes, and
+	 * sends them to the target; a stream is flushed too.
+	 *
+	 * @throws IOException
+	 *             if the stream cannot be written
+	 * @throws java.nio.BufferOverflowException
+	 *             if the buffer has no room for the bytes
+	 */
+	public void flush() throws IOException {
+		if (count % 8 != 0)
+			writeBits(0, 8 - count % 8);
+		drain();
+		send();
+		if (out != null)
+			out.flush();
+	}
+
+	/**
+	 * Flushes the bits written so far, and closes the stream.
+	 *
+	 * @throws IOException
+	 *             if the stream cannot be written or closed
+	 */
+	public void close() throws IOException {
+		flush();
+		if (out != null)
+			out.close();
+	}
+
+	// moves the whole bytes of the accumulator to bytes
+	private void drain() throws IOException {
+		while (count >= 8) {
+			if (size == bytes.length)
+				send();
+			count -= 8;
+			bytes[size++] = (byte) (buffer >>> count);
+		}
+	}
+
+	private void send() throws IOException {
+		if (out != null)
+			out.write(bytes, 0, size);
+		else
+			target.put(bytes, 0, size);
+		size = 0;
+	}
+
+}
@@ -0,0 +1,194 @@
+package com.theleapofcode.algs.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Reports the ratio and the speed of the codecs of the package on a fixed
+ * corpus: the two novels among the resources, and JSON and log lines generated
+ * from a fixed seed. Files given as arguments replace the corpus.
+ * <p>
+ * The codecs are the whole-stream {@link HuffmanCompression} and
+ * {@link LZWCompression}, whose dictionary fills up once and is then fixed,
+ * their block counterparts, the variable-width LZW, LZ77 at a few levels and
+ * windows, and the Burrows-Wheeler transform.
+ * <p>
+ * Each codec compresses and expands the whole corpus for a few seconds to let
+ * the JIT compile it, then several more times, and the best time of each
+ * direction is reported, in MB/s of uncompressed bytes.
+ */
+public class CompressionBenchmark {
+
+	private static final int RUNS = 5;
+	private static final long WARMUP_NANOS = 3000000000L;
+
+	private interface Codec {
+		void compress(InputStream in, OutputStream out) throws IOException;
+
+		void expand(InputStream in, OutputStream out) throws IOException;
+	}
+
+	public static void main(String[] args) throws IOException {
+		byte[] corpus = args.length == 0 ? corpus() : files(args);
+		ForkJoinPool pool = new ForkJoinPool(1);
+		ParallelBlockCompression blockLZW = new ParallelBlockCompression(ParallelBlockCompression.Codec.LZW, pool);
+
+		System.out.printf("corpus: %d bytes%n", corpus.length);
+		System.out.printf("%-22s %8s %14s %14s%n", "codec", "ratio", "compress MB/s", "expand MB/s");
+		run("huffman", corpus, new Codec() {
+			public void compress(InputStream in, OutputStream out) throws IOException {
+				HuffmanCompression.compress(in, out);
+			}
+
+			public void expand(InputStream in, OutputStream out) throws IOException {
+				HuffmanCompression.expand(in, out);
+			}
+		});
+		run("huffman (blocks)", corpus, new Codec() {
+			public void compress(InputStream in, OutputStream out) throws IOException {
+				BlockHuffmanCompression.compress(in, out);
+			}
+
+			public void expand(InputStream in, OutputStream out) throws IOException {
+				BlockHuffmanCompression.expand(in, out);
+			}
+		});
+		run("lzw 12-bit", corpus, new Codec() {
+			public void compress(InputStream in, OutputStream out) throws IOException {
+				LZWCompression.compress(in, out);
+			}
+
+			public void expand(InputStream in, OutputStream out) throws IOException {
+				LZWCompression.expand(in, out);
+			}
+		});
+		run("lzw 12-bit (blocks)", corpus, new Codec() {
+			public void compress(InputStream in, OutputStream out) throws IOException {
+				blockLZW.compress(in, out);
+			}
+
+			public void expand(InputStream in, OutputStream out) throws IOException {
+				blockLZW.expand(in, out);
+			}
+		});
+		for (int width : new int[] { 12, 16 }) {
+			run("lzw " + width + "-bit max", corpus, new Codec() {
+				public void compress(InputStream in, OutputStream out) throws IOException {
+					VariableWidthLZWCompression.compress(in, out, width);
+				}
+
+				public void expand(InputStream in, OutputStream out) throws IOException {
+					VariableWidthLZWCompression.expand(in, out);
+				}
+			});
+		}
+		for (int level : new int[] { 1, 6, 9 }) {
+			for (int window : new int[] { LZ77Compression.MIN_WINDOW, LZ77Compression.MAX_WINDOW }) {
+				run("lz77 -" + level + " " + (window >> 10) + "K", corpus, new Codec() {
+					public void compress(InputStream in, OutputStream out) throws IOException {
+						LZ77Compression.compress(in, out, level, window);
+					}
+
+					public void expand(InputStream in, OutputStream out) throws IOException {
+						LZ77Compression.expand(in, out);
+					}
+				});
+			}
+		}
+		run("bwt 1M", corpus, new Codec() {
+			public void compress(InputStream in, OutputStream out) throws IOException {
+				BurrowsWheelerCompression.compress(in, out);
+			}
+
+			public void expand(InputStream in, OutputStream out) throws IOException {
+				BurrowsWheelerCompression.expand(in, out);
+			}
+		});
+		pool.shutdown();
+	}
+
+	private static void run(String name, byte[] corpus, Codec codec) throws IOException {
+		long[] best = { Long.MAX_VALUE, Long.MAX_VALUE };
+		for (long warmup = System.nanoTime() + WARMUP_NANOS; System.nanoTime() < warmup;)
+			roundTrip(name, corpus, codec, new long[2]);
+		byte[] compressed = null;
+		for (int run = 0; run < RUNS; run++)
+			compressed = roundTrip(name, corpus, codec, best);
+		System.out.printf("%-22s %8.3f %14.1f %14.1f%n", name, (double) compressed.length / corpus.length,
+				corpus.length / (best[0] / 1e3), corpus.length / (best[1] / 1e3));
+	}
+
+	// compresses and expands the corpus, keeping the best times in best, and
+	// returns the compressed bytes
+	private static byte[] roundTrip(String name, byte[] corpus, Codec codec, long[] best) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(corpus.length);
+		long start = System.nanoTime();
+		codec.compress(new ByteArrayInputStream(corpus), out);
+		best[0] = Math.min(best[0], System.nanoTime() - start);
+		byte[] compressed = out.toByteArray();
+
+		out = new ByteArrayOutputStream(corpus.length);
+		start = System.nanoTime();
+		codec.expand(new ByteArrayInputStream(compressed), out);
+		best[1] = Math.min(best[1], System.nanoTime() - start);
+		if (!Arrays.equals(corpus, out.toByteArray()))
+			throw new IllegalStateException(name + " does not round-trip");
+		return compressed;
+	}
+
+	private static byte[] files(String[] names) throws IOException {
+		ByteArrayOutputStream corpus = new ByteArrayOutputStream();
+		for (String name : names)
+			corpus.write(Files.readAllBytes(Paths.get(name)));
+		return corpus.toByteArray();
+	}
+
+	private static byte[] corpus() throws IOException {
+		ByteArrayOutputStream corpus = new ByteArrayOutputStream();
+		for (String resource : new String[] { "tale.txt", "mobydick.txt" }) {
+			try (InputStream in = CompressionBenchmark.class.getClassLoader().getResourceAsStream(resource)) {
+				byte[] buffer = new byte[1 << 16];
+				for (int n; (n = in.read(buffer)) > 0;)
+					corpus.write(buffer, 0, n);
+			}
+		}
+
+		Random random = new Random(2017);
+		String[] levels = { "INFO", "INFO", "INFO", "DEBUG", "WARN", "ERROR" };
+		String[] services = { "auth", "billing", "search", "gateway", "inventory" };
+		String[] paths = { "/api/v1/users", "/api/v1/orders", "/api/v2/search", "/health", "/api/v1/cart" };
+		StringBuilder text = new StringBuilder();
+		long time = 1497000000000L;
+		for (int i = 0; i < 20000; i++) {
+			time += random.nextInt(2000);
+			text.append(String.format(Locale.ROOT, "{\"ts\":%d,\"level\":\"%s\",\"service\":\"%s\",\"path\":\"%s\","
+					+ "\"status\":%d,\"latency_ms\":%d,\"user\":\"u%06d\"}\n", time,
+					levels[random.nextInt(levels.length)], services[random.nextInt(services.length)],
+					paths[random.nextInt(paths.length)], random.nextInt(10) == 0 ? 500 : 200,
+					random.nextInt(1000), random.nextInt(50000)));
+		}
+		for (int i = 0; i < 20000; i++) {
+			time += random.nextInt(2000);
+			long seconds = time / 1000;
+			text.append(String.format(Locale.ROOT,
+					"2017-06-%02d %02d:%02d:%02d.%03d %-5s [%s] request %s took %d ms from 10.0.%d.%d\n",
+					1 + seconds / 86400 % 28, seconds / 3600 % 24, seconds / 60 % 60, seconds % 60, time % 1000,
+					levels[random.nextInt(levels.length)],
+					services[random.nextInt(services.length)], paths[random.nextInt(paths.length)],
+					random.nextInt(1000), random.nextInt(256), random.nextInt(256)));
+		}
+		corpus.write(text.toString().getBytes(StandardCharsets.US_ASCII));
+		return corpus.toByteArray();
+	}
+
+}
@@ -0,0 +1,119 @@
+package com.theleapofcode.algs.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.theleapofcode.algs.util.FileUtil;
+
+public class TestBlockHuffmanCompression {
+
+	@Test
+	public void testText() throws IOException {
+		byte[] text = FileUtil.getFileContent("tale.txt").getBytes(StandardCharsets.ISO_8859_1);
+		byte[] compressed = compress(text, BlockHuffmanCompression.DEFAULT_BLOCK_SIZE);
+		Assert.assertTrue(compressed.length < text.length * 0.6);
+		Assert.assertArrayEquals(text, expand(compressed));
+	}
+
+	@Test
+	public void testRandom() throws IOException {
+		Random random = new Random(31);
+		for (int trial = 0; trial < 200; trial++) {
+			// skewed alphabets of various sizes, in blocks of various sizes
+			int n = random.nextInt(5000);
+			int alphabet = 1 + random.nextInt(256);
+			byte[] data = new byte[n];
+			for (int i = 0; i < n; i++)
+				data[i] = (byte) (random.nextInt(1 + random.nextInt(alphabet)));
+			int blockSize = 1 + random.nextInt(2000);
+			Assert.assertArrayEquals(data, expand(compress(data, blockSize)));
+		}
+	}
+
+	@Test
+	public void testLongCodes() throws IOException {
+		// Fibonacci frequencies make a trie far deeper than the code length limit
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		for (int c = 0, a = 1, b = 1; c < 25; c++, b = a + b, a = b - a)
+			for (int i = 0; i < a; i++)
+				data.write(c);
+		byte[] bytes = data.toByteArray();
+		byte[] compressed = compress(bytes, bytes.length);
+		Assert.assertTrue(compressed.length < bytes.length / 3);
+		Assert.assertArrayEquals(bytes, expand(compressed));
+	}
+
+	@Test
+	public void testEdgeCases() throws IOException {
+		Assert.assertArrayEquals(new byte[0], expand(compress(new byte[0], 16)));
+		byte[] same = new byte[1000];
+		byte[] compressed = compress(same, 1000);
+		Assert.assertTrue(compressed.length < 300);
+		Assert.assertArrayEquals(same, expand(compressed));
+
+		// incompressible blocks are stored
+		byte[] random = new byte[10000];
+		new Random(37).nextBytes(random);
+		Assert.assertTrue(compress(random, 1000).length <= random.length + 4 + 10 * 9 + 4);
+		Assert.assertArrayEquals(random, expand(compress(random, 1000)));
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotCompressed() throws IOException {
+		expand("not a compressed stream".getBytes(StandardCharsets.US_ASCII));
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncated() throws IOException {
+		byte[] text = FileUtil.getFileContent("tale.txt").getBytes(StandardCharsets.ISO_8859_1);
+		byte[] compressed = compress(text, 1 << 16);
+		byte[] truncated = new byte[compressed.length / 2];
+		System.arraycopy(compressed, 0, truncated, 0, truncated.length);
+		expand(truncated);
+	}
+
+	@Test
+	public void testTruncatedBlock() throws IOException {
+		// blocks cut short decode into padding, which must not pass for codes
+		byte[] text = FileUtil.getFileContent("tale.txt").getBytes(StandardCharsets.ISO_8859_1);
+		int n = 1 << 16;
+		byte[] encoded = new byte[BlockHuffmanCompression.maxEncodedLength(n)];
+		int length = BlockHuffmanCompression.encodeBlock(text, n, encoded);
+		char[] symbols = new char[n];
+		for (int i = 0; i < n; i++)
+			symbols[i] = (char) (text[i] & 0xff);
+		byte[] encodedSymbols = new byte[BlockHuffmanCompression.maxEncodedLength(n, 300)];
+		int symbolsLength = BlockHuffmanCompression.encodeSymbols(symbols, n, 300, encodedSymbols);
+		for (int cut = 1; cut <= 8; cut++) {
+			try {
+				BlockHuffmanCompression.decodeBlock(encoded, length - cut, new byte[n], n);
+				Assert.fail("block cut by " + cut + " bytes decoded");
+			} catch (IOException e) {
+			}
+			try {
+				BlockHuffmanCompression.decodeSymbols(encodedSymbols, symbolsLength - cut, new char[n], n, 300);
+				Assert.fail("symbols cut by " + cut + " bytes decoded");
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	private static byte[] compress(byte[] data, int blockSize) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BlockHuffmanCompression.compress(new ByteArrayInputStream(data), out, blockSize);
+		return out.toByteArray();
+	}
+
+	private static byte[] expand(byte[] compressed) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BlockHuffmanCompression.expand(new ByteArrayInputStream(compressed), out);
+		return out.toByteArray();
+	}
+
+}
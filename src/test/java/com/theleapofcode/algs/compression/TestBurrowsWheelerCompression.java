@@ -0,0 +1,110 @@
+package com.theleapofcode.algs.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.theleapofcode.algs.util.FileUtil;
+
+public class TestBurrowsWheelerCompression {
+
+	@Test
+	public void testTransform() throws IOException {
+		// the last column of the sorted rotations of banana$ is annb$aa
+		byte[] text = "banana".getBytes(StandardCharsets.US_ASCII);
+		byte[] last = new byte[text.length];
+		int primary = BurrowsWheelerCompression.transform(text, text.length, last);
+		Assert.assertEquals(4, primary);
+		Assert.assertArrayEquals("annbaa".getBytes(StandardCharsets.US_ASCII), last);
+		byte[] inverse = new byte[text.length];
+		BurrowsWheelerCompression.inverseTransform(last, text.length, primary, inverse);
+		Assert.assertArrayEquals(text, inverse);
+	}
+
+	@Test
+	public void testText() throws IOException {
+		byte[] text = FileUtil.getFileContent("tale.txt").getBytes(StandardCharsets.ISO_8859_1);
+		byte[] compressed = compress(text, BurrowsWheelerCompression.DEFAULT_BLOCK_SIZE);
+		Assert.assertArrayEquals(text, expand(compressed));
+		// contexts of the whole block beat the dictionary of LZW
+		ByteArrayOutputStream lzw = new ByteArrayOutputStream();
+		VariableWidthLZWCompression.compress(new ByteArrayInputStream(text), lzw);
+		Assert.assertTrue(compressed.length < lzw.size() * 0.8);
+		// and smaller blocks lose some of them
+		byte[] small = compress(text, 1 << 14);
+		Assert.assertArrayEquals(text, expand(small));
+		Assert.assertTrue(compressed.length < small.length);
+	}
+
+	@Test
+	public void testRandom() throws IOException {
+		Random random = new Random(67);
+		for (int trial = 0; trial < 200; trial++) {
+			int n = random.nextInt(random.nextBoolean() ? 100 : 100000);
+			int alphabet = 1 + random.nextInt(random.nextBoolean() ? 3 : 256);
+			byte[] data = new byte[n];
+			for (int i = 0; i < n; i++)
+				data[i] = (byte) random.nextInt(alphabet);
+			int blockSize = 1 + random.nextInt(random.nextBoolean() ? 64 : 200000);
+			Assert.assertArrayEquals(data, expand(compress(data, blockSize)));
+		}
+	}
+
+	@Test
+	public void testRuns() throws IOException {
+		// runs of zeros in the ranks far longer than a symbol can count
+		byte[] data = new byte[3000000];
+		Arrays.fill(data, 0, 2000000, (byte) 'a');
+		for (int i = 2000000; i < data.length; i++)
+			data[i] = (byte) "abc".charAt(i % 3);
+		byte[] compressed = compress(data, BurrowsWheelerCompression.MAX_BLOCK_SIZE);
+		Assert.assertTrue(compressed.length < 1000);
+		Assert.assertArrayEquals(data, expand(compressed));
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		Assert.assertArrayEquals(new byte[0], expand(compress(new byte[0], 16)));
+		Assert.assertArrayEquals(new byte[] { 7 }, expand(compress(new byte[] { 7 }, 16)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBlockSize() throws IOException {
+		compress(new byte[1], BurrowsWheelerCompression.MAX_BLOCK_SIZE + 1);
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncated() throws IOException {
+		byte[] text = FileUtil.getFileContent("tale.txt").getBytes(StandardCharsets.ISO_8859_1);
+		byte[] compressed = compress(text, BurrowsWheelerCompression.DEFAULT_BLOCK_SIZE);
+		expand(Arrays.copyOf(compressed, compressed.length / 2));
+	}
+
+	@Test(expected = IOException.class)
+	public void testCorrupt() throws IOException {
+		byte[] text = FileUtil.getFileContent("tale.txt").getBytes(StandardCharsets.ISO_8859_1);
+		byte[] compressed = compress(text, BurrowsWheelerCompression.DEFAULT_BLOCK_SIZE);
+		// the row of the sentinel, past the end of the block
+		compressed[12] = 0x7f;
+		expand(compressed);
+	}
+
+	private static byte[] compress(byte[] data, int blockSize) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BurrowsWheelerCompression.compress(new ByteArrayInputStream(data), out, blockSize);
+		return out.toByteArray();
+	}
+
+	private static byte[] expand(byte[] compressed) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BurrowsWheelerCompression.expand(new ByteArrayInputStream(compressed), out);
+		return out.toByteArray();
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.theleapofcode.algs.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.theleapofcode.algs.util.FileUtil;
+
+public class TestHuffmanCompression {
+
+	@Test
+	public void testText() throws IOException {
+		byte[] text = FileUtil.getFileContent("tale.txt").getBytes(StandardCharsets.ISO_8859_1);
+		byte[] compressed = compress(text);
+		Assert.assertTrue(compressed.length < text.length * 0.6);
+		Assert.assertArrayEquals(text, expand(compressed));
+	}
+
+	@Test
+	public void testSmall() throws IOException {
+		// the example of the book: 59 bits of trie, 32 of length and 28 of
+		// codes
+		byte[] abra = "ABRACADABRA!".getBytes(StandardCharsets.US_ASCII);
+		byte[] compressed = compress(abra);
+		Assert.assertEquals(15, compressed.length);
+		Assert.assertArrayEquals(abra, expand(compressed));
+		Assert.assertArrayEquals(new byte[0], expand(compress(new byte[0])));
+		Assert.assertArrayEquals(new byte[] { 0, 0, 0 }, expand(compress(new byte[] { 0, 0, 0 })));
+	}
+
+	@Test
+	public void testConcurrent() throws Exception {
+		// separate streams on separate threads
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			Random random = new Random(73);
+			Future<?>[] futures = new Future<?>[16];
+			for (int i = 0; i < futures.length; i++) {
+				byte[] data = new byte[random.nextInt(200000)];
+				int alphabet = 1 + random.nextInt(256);
+				for (int j = 0; j < data.length; j++)
+					data[j] = (byte) random.nextInt(alphabet);
+				futures[i] = executor.submit(() -> {
+					Assert.assertArrayEquals(data, expand(compress(data)));
+					return null;
+				});
+			}
+			for (Future<?> future : futures)
+				future.get();
+		} catch (ExecutionException e) {
+			throw (Exception) e.getCause();
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncated() throws IOException {
+		byte[] text = FileUtil.getFileContent("tale.txt").getBytes(StandardCharsets.ISO_8859_1);
+		byte[] compressed = compress(text);
+		expand(Arrays.copyOf(compressed, compressed.length / 2));
+	}
+
+	private static byte[] compress(byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		HuffmanCompression.compress(new ByteArrayInputStream(data), out);
+		return out.toByteArray();
+	}
+
+	private static byte[] expand(byte[] compressed) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		HuffmanCompression.expand(new ByteArrayInputStream(compressed), out);
+		return out.toByteArray();
+	}
+
+}
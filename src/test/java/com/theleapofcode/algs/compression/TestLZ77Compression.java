@@ -0,0 +1,116 @@
+package com.theleapofcode.algs.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.theleapofcode.algs.util.FileUtil;
+
+public class TestLZ77Compression {
+
+	@Test
+	public void testText() throws IOException {
+		byte[] text = FileUtil.getFileContent("tale.txt").getBytes(StandardCharsets.ISO_8859_1);
+		int previous = Integer.MAX_VALUE;
+		for (int level = LZ77Compression.MIN_LEVEL; level <= LZ77Compression.MAX_LEVEL; level += 4) {
+			byte[] compressed = compress(text, level, LZ77Compression.DEFAULT_WINDOW);
+			Assert.assertArrayEquals(text, expand(compressed));
+			Assert.assertTrue(compressed.length <= previous);
+			previous = compressed.length;
+		}
+		// better than LZW with wide codewords
+		ByteArrayOutputStream lzw = new ByteArrayOutputStream();
+		VariableWidthLZWCompression.compress(new ByteArrayInputStream(text), lzw);
+		Assert.assertTrue(previous < lzw.size() * 0.95);
+	}
+
+	@Test
+	public void testWindows() throws IOException {
+		// repeats at distances of 100 KB: found only by windows that reach them
+		Random random = new Random(59);
+		byte[] chunk = new byte[100000];
+		random.nextBytes(chunk);
+		byte[] data = new byte[10 * chunk.length];
+		for (int i = 0; i < 10; i++)
+			System.arraycopy(chunk, 0, data, i * chunk.length, chunk.length);
+		byte[] small = compress(data, 6, LZ77Compression.MIN_WINDOW);
+		byte[] large = compress(data, 6, LZ77Compression.MAX_WINDOW);
+		Assert.assertArrayEquals(data, expand(small));
+		Assert.assertArrayEquals(data, expand(large));
+		Assert.assertTrue(small.length > data.length * 0.9);
+		Assert.assertTrue(large.length < data.length * 0.2);
+	}
+
+	@Test
+	public void testRandom() throws IOException {
+		Random random = new Random(61);
+		for (int trial = 0; trial < 100; trial++) {
+			// short strings over small alphabets, with repeats near and far
+			int n = random.nextInt(random.nextBoolean() ? 1000 : 600000);
+			int alphabet = 1 + random.nextInt(random.nextBoolean() ? 4 : 256);
+			byte[] data = new byte[n];
+			for (int i = 0; i < n; i++) {
+				if (i > 100 && random.nextInt(50) == 0) {
+					int from = random.nextInt(i - 50), length = Math.min(random.nextInt(300), n - i);
+					System.arraycopy(data, from, data, i, Math.min(length, i - from));
+					i += Math.min(length, i - from) - 1;
+				} else {
+					data[i] = (byte) random.nextInt(alphabet);
+				}
+			}
+			int level = LZ77Compression.MIN_LEVEL + random.nextInt(LZ77Compression.MAX_LEVEL);
+			int window = LZ77Compression.MIN_WINDOW << random.nextInt(6);
+			Assert.assertArrayEquals(data, expand(compress(data, level, window)));
+		}
+	}
+
+	@Test
+	public void testRuns() throws IOException {
+		// overlapping matches and lengths far beyond a nibble
+		byte[] data = new byte[2000000];
+		Arrays.fill(data, 0, 1000000, (byte) 'a');
+		for (int i = 1000000; i < data.length; i++)
+			data[i] = (byte) "abc".charAt(i % 3);
+		byte[] compressed = compress(data, 1, LZ77Compression.MIN_WINDOW);
+		Assert.assertTrue(compressed.length < 5000);
+		Assert.assertArrayEquals(data, expand(compressed));
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		Assert.assertArrayEquals(new byte[0], expand(compress(new byte[0], 6, LZ77Compression.DEFAULT_WINDOW)));
+		Assert.assertArrayEquals(new byte[] { 1, 2, 3 },
+				expand(compress(new byte[] { 1, 2, 3 }, 6, LZ77Compression.DEFAULT_WINDOW)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testLevel() throws IOException {
+		compress(new byte[1], LZ77Compression.MAX_LEVEL + 1, LZ77Compression.DEFAULT_WINDOW);
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncated() throws IOException {
+		byte[] text = FileUtil.getFileContent("tale.txt").getBytes(StandardCharsets.ISO_8859_1);
+		byte[] compressed = compress(text, 6, LZ77Compression.DEFAULT_WINDOW);
+		expand(Arrays.copyOf(compressed, compressed.length / 2));
+	}
+
+	private static byte[] compress(byte[] data, int level, int window) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		LZ77Compression.compress(new ByteArrayInputStream(data), out, level, window);
+		return out.toByteArray();
+	}
+
+	private static byte[] expand(byte[] compressed) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		LZ77Compression.expand(new ByteArrayInputStream(compressed), out);
+		return out.toByteArray();
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.theleapofcode.algs.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestLZWCompression {
+
+	@Test
+	public void testSmall() throws IOException {
+		// the example of the book: twelve codewords and EOF
+		byte[] abra = "ABRACADABRABRABRA".getBytes(StandardCharsets.US_ASCII);
+		byte[] compressed = compress(abra);
+		Assert.assertEquals(20, compressed.length);
+		Assert.assertArrayEquals(abra, expand(compressed));
+		// a codeword used as soon as it is defined
+		byte[] abab = "ABABABA".getBytes(StandardCharsets.US_ASCII);
+		Assert.assertArrayEquals(abab, expand(compress(abab)));
+		Assert.assertArrayEquals(new byte[0], expand(compress(new byte[0])));
+	}
+
+	@Test
+	public void testBlock() throws IOException {
+		// the block encoding is the stream encoding without EOF
+		Random random = new Random(79);
+		byte[] data = new byte[20000];
+		for (int i = 0; i < data.length; i++)
+			data[i] = (byte) random.nextInt(4);
+		byte[] block = new byte[LZWCompression.maxEncodedLength(data.length)];
+		int length = LZWCompression.encodeBlock(data, data.length, block);
+		byte[] compressed = compress(data);
+		Assert.assertArrayEquals(Arrays.copyOf(block, length - 1), Arrays.copyOf(compressed, length - 1));
+		Assert.assertArrayEquals(data, expand(compressed));
+	}
+
+	@Test
+	public void testConcurrent() throws Exception {
+		// separate streams on separate threads
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			Random random = new Random(83);
+			Future<?>[] futures = new Future<?>[16];
+			for (int i = 0; i < futures.length; i++) {
+				byte[] data = new byte[random.nextInt(20000)];
+				int alphabet = 1 + random.nextInt(256);
+				for (int j = 0; j < data.length; j++)
+					data[j] = (byte) random.nextInt(alphabet);
+				futures[i] = executor.submit(() -> {
+					Assert.assertArrayEquals(data, expand(compress(data)));
+					return null;
+				});
+			}
+			for (Future<?> future : futures)
+				future.get();
+		} catch (ExecutionException e) {
+			throw (Exception) e.getCause();
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testCorrupt() throws IOException {
+		// codeword 4095 before the dictionary has grown to it
+		expand(new byte[] { 0x04, 0x1f, (byte) 0xff, 0x10, 0x00 });
+	}
+
+	private static byte[] compress(byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		LZWCompression.compress(new ByteArrayInputStream(data), out);
+		return out.toByteArray();
+	}
+
+	private static byte[] expand(byte[] compressed) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		LZWCompression.expand(new ByteArrayInputStream(compressed), out);
+		return out.toByteArray();
+	}
+
+}
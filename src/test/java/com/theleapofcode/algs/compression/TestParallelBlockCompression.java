@@ -0,0 +1,129 @@
+package com.theleapofcode.algs.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.theleapofcode.algs.compression.ParallelBlockCompression.Codec;
+import com.theleapofcode.algs.util.FileUtil;
+
+public class TestParallelBlockCompression {
+
+	private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+	@Test
+	public void testText() throws IOException {
+		byte[] text = FileUtil.getFileContent("tale.txt").getBytes(StandardCharsets.ISO_8859_1);
+		for (Codec codec : Codec.values()) {
+			ParallelBlockCompression compression = new ParallelBlockCompression(codec, POOL, 1 << 16, 3);
+			byte[] compressed = compress(compression, text);
+			Assert.assertTrue(compressed.length < text.length * 0.6);
+			Assert.assertArrayEquals(text, expand(compression, compressed));
+		}
+	}
+
+	@Test
+	public void testRandom() throws IOException {
+		Random random = new Random(41);
+		for (int trial = 0; trial < 100; trial++) {
+			int n = random.nextInt(20000);
+			int alphabet = 1 + random.nextInt(256);
+			byte[] data = new byte[n];
+			for (int i = 0; i < n; i++)
+				data[i] = (byte) random.nextInt(alphabet);
+			Codec codec = Codec.values()[trial % Codec.values().length];
+			ParallelBlockCompression compression = new ParallelBlockCompression(codec, POOL,
+					1 + random.nextInt(3000), 1 + random.nextInt(4));
+			Assert.assertArrayEquals(data, expand(compression, compress(compression, data)));
+		}
+	}
+
+	@Test
+	public void testRepetitive() throws IOException {
+		// long runs fill the LZW dictionary with long strings
+		byte[] data = new byte[300000];
+		for (int i = 0; i < data.length; i++)
+			data[i] = (byte) (i / 1000 % 3 == 0 ? 'a' : "abcab".charAt(i % 5));
+		ParallelBlockCompression compression = new ParallelBlockCompression(Codec.LZW, POOL, 100000, 2);
+		byte[] compressed = compress(compression, data);
+		Assert.assertTrue(compressed.length < data.length / 20);
+		Assert.assertArrayEquals(data, expand(compression, compressed));
+	}
+
+	@Test
+	public void testReader() throws IOException {
+		byte[] text = FileUtil.getFileContent("tale.txt").getBytes(StandardCharsets.ISO_8859_1);
+		int blockSize = 10000;
+		Path file = Files.createTempFile("blocks", ".pblk");
+		try {
+			for (Codec codec : Codec.values()) {
+				ParallelBlockCompression compression = new ParallelBlockCompression(codec, POOL, blockSize, 2);
+				Files.write(file, compress(compression, text));
+				try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+					ParallelBlockCompression.Reader reader = new ParallelBlockCompression.Reader(channel);
+					Assert.assertEquals(codec, reader.codec());
+					Assert.assertEquals(blockSize, reader.blockSize());
+					Assert.assertEquals((text.length + blockSize - 1) / blockSize, reader.blocks());
+					Assert.assertEquals(text.length, reader.size());
+					int last = reader.blocks() - 1;
+					Assert.assertArrayEquals(Arrays.copyOfRange(text, last * blockSize, text.length),
+							reader.block(last));
+
+					Random random = new Random(43);
+					for (int trial = 0; trial < 50; trial++) {
+						int position = random.nextInt(text.length);
+						byte[] b = new byte[random.nextInt(3 * blockSize)];
+						int read = reader.read(position, b, 0, b.length);
+						Assert.assertEquals(Math.min(b.length, text.length - position), read);
+						Assert.assertArrayEquals(Arrays.copyOfRange(text, position, position + read),
+								Arrays.copyOf(b, read));
+					}
+					Assert.assertEquals(-1, reader.read(text.length, new byte[1], 0, 1));
+				}
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		ParallelBlockCompression compression = new ParallelBlockCompression(Codec.HUFFMAN, POOL);
+		Assert.assertArrayEquals(new byte[0], expand(compression, compress(compression, new byte[0])));
+	}
+
+	@Test(expected = IOException.class)
+	public void testCorrupt() throws IOException {
+		byte[] text = FileUtil.getFileContent("tale.txt").getBytes(StandardCharsets.ISO_8859_1);
+		ParallelBlockCompression compression = new ParallelBlockCompression(Codec.LZW, POOL, 1 << 16, 2);
+		byte[] compressed = compress(compression, text);
+		// garble the codewords of the first block
+		for (int i = 20; i < 200; i++)
+			compressed[i] = (byte) 0xff;
+		expand(compression, compressed);
+	}
+
+	private static byte[] compress(ParallelBlockCompression compression, byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		compression.compress(new ByteArrayInputStream(data), out);
+		return out.toByteArray();
+	}
+
+	private static byte[] expand(ParallelBlockCompression compression, byte[] compressed) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		compression.expand(new ByteArrayInputStream(compressed), out);
+		return out.toByteArray();
+	}
+
+}
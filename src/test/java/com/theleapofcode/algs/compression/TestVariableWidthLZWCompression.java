@@ -0,0 +1,108 @@
+package com.theleapofcode.algs.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.theleapofcode.algs.util.FileUtil;
+
+public class TestVariableWidthLZWCompression {
+
+	@Test
+	public void testText() throws IOException {
+		byte[] text = FileUtil.getFileContent("tale.txt").getBytes(StandardCharsets.ISO_8859_1);
+		for (int width = VariableWidthLZWCompression.MIN_WIDTH; width <= VariableWidthLZWCompression.MAX_WIDTH; width++) {
+			byte[] compressed = compress(text, width);
+			Assert.assertArrayEquals(text, expand(compressed));
+		}
+		// wider codewords than the 12 bits of LZWCompression pay off on text
+		Assert.assertTrue(compress(text, 16).length < text.length * 0.45);
+	}
+
+	@Test
+	public void testRandom() throws IOException {
+		Random random = new Random(47);
+		for (int trial = 0; trial < 200; trial++) {
+			int n = random.nextInt(random.nextBoolean() ? 100 : 100000);
+			int alphabet = 1 + random.nextInt(256);
+			byte[] data = new byte[n];
+			for (int i = 0; i < n; i++)
+				data[i] = (byte) random.nextInt(alphabet);
+			int width = VariableWidthLZWCompression.MIN_WIDTH + random.nextInt(4);
+			Assert.assertArrayEquals(data, expand(compress(data, width)));
+		}
+	}
+
+	@Test
+	public void testReset() throws IOException {
+		// text, then random bytes, then text again: the dictionary of the text
+		// fills up and stops paying off on the random bytes
+		byte[] text = FileUtil.getFileContent("tale.txt").getBytes(StandardCharsets.ISO_8859_1);
+		byte[] noise = new byte[200000];
+		new Random(53).nextBytes(noise);
+		byte[] data = new byte[2 * text.length + noise.length];
+		System.arraycopy(text, 0, data, 0, text.length);
+		System.arraycopy(noise, 0, data, text.length, noise.length);
+		System.arraycopy(text, 0, data, text.length + noise.length, text.length);
+		byte[] compressed = compress(data, 12);
+		Assert.assertArrayEquals(data, expand(compressed));
+
+		// after the noise the dictionary is cleared once the ratio stops
+		// improving, so the text costs little more than on its own; a
+		// dictionary of random strings that is never cleared codes most bytes
+		// of the text with a codeword of their own, and costs more than three
+		// times as much
+		byte[] noisy = Arrays.copyOfRange(data, text.length, data.length);
+		int alone = compress(text, 12).length;
+		int after = compress(noisy, 12).length - compress(noise, 12).length;
+		Assert.assertTrue(after < alone * 3 / 2);
+		Assert.assertArrayEquals(noisy, expand(compress(noisy, 12)));
+	}
+
+	@Test
+	public void testRuns() throws IOException {
+		// one long run makes the longest strings the dictionary can hold
+		byte[] data = new byte[3000000];
+		Arrays.fill(data, (byte) 'a');
+		byte[] compressed = compress(data, 16);
+		Assert.assertTrue(compressed.length < 10000);
+		Assert.assertArrayEquals(data, expand(compressed));
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		Assert.assertArrayEquals(new byte[0], expand(compress(new byte[0], 16)));
+		Assert.assertArrayEquals(new byte[] { 7 }, expand(compress(new byte[] { 7 }, 9)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWidth() throws IOException {
+		compress(new byte[1], VariableWidthLZWCompression.MAX_WIDTH + 1);
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncated() throws IOException {
+		byte[] text = FileUtil.getFileContent("tale.txt").getBytes(StandardCharsets.ISO_8859_1);
+		byte[] compressed = compress(text, 16);
+		expand(Arrays.copyOf(compressed, compressed.length / 2));
+	}
+
+	private static byte[] compress(byte[] data, int maxWidth) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		VariableWidthLZWCompression.compress(new ByteArrayInputStream(data), out, maxWidth);
+		return out.toByteArray();
+	}
+
+	private static byte[] expand(byte[] compressed) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		VariableWidthLZWCompression.expand(new ByteArrayInputStream(compressed), out);
+		return out.toByteArray();
+	}
+
+}
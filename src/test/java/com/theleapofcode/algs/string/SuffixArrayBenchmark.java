@@ -0,0 +1,92 @@
+package com.theleapofcode.algs.string;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Reports the time to build suffix arrays with {@link SuffixArrays#build(byte[])}
+ * (SA-IS, on the calling thread) and with
+ * {@link SuffixArrays#build(byte[], ForkJoinPool)} on pools of 1, 2, 4, ...,
+ * 64 threads, on three texts: the two novels among the resources, random DNA
+ * bases, and a highly repetitive text. The sizes of the pools given as
+ * arguments replace the sweep.
+ * <p>
+ * Each build runs for a few seconds to let the JIT compile it, then several
+ * more times, and the best time is reported with the speedup over the pool of
+ * one thread. Pools larger than the number of cores are still run, so the
+ * table shows where the scaling stops.
+ */
+public class SuffixArrayBenchmark {
+
+	private static final int RUNS = 5;
+	private static final long WARMUP_NANOS = 3000000000L;
+	private static final int N = 5000000;
+
+	public static void main(String[] args) throws IOException {
+		int[] threads = args.length == 0 ? new int[] { 1, 2, 4, 8, 16, 32, 64 }
+				: Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+		System.out.printf("cores: %d%n", Runtime.getRuntime().availableProcessors());
+
+		Random random = new Random(2017);
+		byte[] dna = new byte[N];
+		for (int i = 0; i < N; i++)
+			dna[i] = (byte) "ACGT".charAt(random.nextInt(4));
+		byte[] chunk = Arrays.copyOf(dna, 1000);
+		byte[] repetitive = new byte[N];
+		for (int i = 0; i < N; i++)
+			repetitive[i] = chunk[i % chunk.length];
+
+		run("novels", novels(), threads);
+		run("random dna", dna, threads);
+		run("repetitive", repetitive, threads);
+	}
+
+	private static void run(String name, byte[] text, int[] threads) {
+		System.out.printf("%s: %d bytes%n", name, text.length);
+		System.out.printf("  %-12s %10s %8s%n", "builder", "best ms", "speedup");
+		long sais = best(() -> SuffixArrays.build(text));
+		System.out.printf("  %-12s %10.1f %8s%n", "sa-is", sais / 1e6, "");
+		long one = 0;
+		for (int t : threads) {
+			ForkJoinPool pool = new ForkJoinPool(t);
+			try {
+				long time = best(() -> SuffixArrays.build(text, pool));
+				if (one == 0)
+					one = time;
+				System.out.printf("  %-12s %10.1f %8.2f%n", t + " threads", time / 1e6, (double) one / time);
+			} finally {
+				pool.shutdown();
+			}
+		}
+	}
+
+	// returns the best time of a few runs, after the warm-up
+	private static long best(Runnable build) {
+		for (long warmup = System.nanoTime() + WARMUP_NANOS; System.nanoTime() < warmup;)
+			build.run();
+		long best = Long.MAX_VALUE;
+		for (int run = 0; run < RUNS; run++) {
+			long start = System.nanoTime();
+			build.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+
+	private static byte[] novels() throws IOException {
+		ByteArrayOutputStream text = new ByteArrayOutputStream();
+		for (String resource : new String[] { "tale.txt", "mobydick.txt" }) {
+			try (InputStream in = SuffixArrayBenchmark.class.getClassLoader().getResourceAsStream(resource)) {
+				byte[] buffer = new byte[1 << 16];
+				for (int n; (n = in.read(buffer)) > 0;)
+					text.write(buffer, 0, n);
+			}
+		}
+		return text.toByteArray();
+	}
+
+}
@@ -0,0 +1,103 @@
+package com.theleapofcode.algs.string;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.theleapofcode.algs.trie.RWayTrieSymbolTable;
+import com.theleapofcode.algs.trie.StringSymbolTable;
+
+public class TestAhoCorasickMultiPatternSearch {
+
+	private static StringSymbolTable<Integer> patterns(String... keys) {
+		StringSymbolTable<Integer> st = new RWayTrieSymbolTable<>();
+		for (int i = 0; i < keys.length; i++)
+			st.put(keys[i], i);
+		return st;
+	}
+
+	// every (pattern, offset) by brute force, ordered by end and longest first
+	private static List<String> naive(StringSymbolTable<Integer> st, String text) {
+		List<String> matches = new ArrayList<>();
+		for (int end = 0; end < text.length(); end++) {
+			for (int start = 0; start <= end; start++) {
+				String s = text.substring(start, end + 1);
+				if (st.contains(s))
+					matches.add(s + "@" + start);
+			}
+		}
+		return matches;
+	}
+
+	private static AhoCorasickMultiPatternSearch.MatchHandler collect(final List<String> matches) {
+		return new AhoCorasickMultiPatternSearch.MatchHandler() {
+			@Override
+			public void match(String pattern, long offset) {
+				matches.add(pattern + "@" + offset);
+			}
+		};
+	}
+
+	@Test
+	public void testSearch() {
+		AhoCorasickMultiPatternSearch ac = new AhoCorasickMultiPatternSearch(patterns("he", "she", "his", "hers"));
+		Assert.assertEquals(4, ac.size());
+		List<String> matches = new ArrayList<>();
+		ac.search("ushers", collect(matches));
+		Assert.assertEquals("[she@1, he@2, hers@2]", matches.toString());
+
+		StringBuilder sb = new StringBuilder();
+		for (AhoCorasickMultiPatternSearch.Match m : ac.searchAll("ahishers"))
+			sb.append(m);
+		Assert.assertEquals("(his @ 1)(she @ 3)(he @ 4)(hers @ 4)", sb.toString());
+
+		Assert.assertEquals(4, ac.searchFirst("ushers"));
+		Assert.assertEquals(-1, ac.searchFirst("xyz"));
+	}
+
+	@Test
+	public void testSourcesAgree() throws IOException {
+		Random random = new Random(7);
+		StringSymbolTable<Integer> st = new RWayTrieSymbolTable<>();
+		for (int i = 0; i < 200; i++) {
+			char[] key = new char[1 + random.nextInt(6)];
+			for (int j = 0; j < key.length; j++)
+				key[j] = (char) ('a' + random.nextInt(3));
+			st.put(new String(key), i);
+		}
+		char[] chars = new char[20000];
+		for (int i = 0; i < chars.length; i++)
+			chars[i] = (char) ('a' + random.nextInt(3));
+		String text = new String(chars);
+
+		AhoCorasickMultiPatternSearch ac = new AhoCorasickMultiPatternSearch(st);
+		List<String> expected = naive(st, text.substring(0, 2000));
+
+		List<String> fromChars = new ArrayList<>();
+		ac.search(chars, 0, 2000, collect(fromChars));
+		Assert.assertEquals(expected, fromChars);
+
+		List<String> fromString = new ArrayList<>();
+		ac.search(text, collect(fromString));
+		List<String> fromReader = new ArrayList<>();
+		ac.search(new StringReader(text), collect(fromReader));
+		List<String> fromBytes = new ArrayList<>();
+		ac.search(ByteBuffer.wrap(text.getBytes(StandardCharsets.ISO_8859_1)), collect(fromBytes));
+		Assert.assertEquals(fromString, fromReader);
+		Assert.assertEquals(fromString, fromBytes);
+		Assert.assertEquals(expected, fromString.subList(0, expected.size()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEmptyPattern() {
+		new AhoCorasickMultiPatternSearch(patterns("a", ""));
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.theleapofcode.algs.string;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.theleapofcode.algs.util.FileUtil;
+
+public class TestFMIndex {
+
+	private static int[] naive(String text, String pattern) {
+		int[] positions = new int[text.length() + 1];
+		int n = 0;
+		for (int i = text.indexOf(pattern); i >= 0; i = text.indexOf(pattern, i + 1))
+			positions[n++] = i;
+		return Arrays.copyOf(positions, n);
+	}
+
+	@Test
+	public void test() {
+		FMIndex fm = new FMIndex("ABRACADABRA".getBytes(StandardCharsets.UTF_8), 4);
+		Assert.assertEquals(11, fm.length());
+		Assert.assertEquals(2, fm.count("ABRA"));
+		Assert.assertEquals(5, fm.count("A"));
+		Assert.assertEquals(0, fm.count("ABRAX"));
+		Assert.assertEquals(0, fm.count("Z"));
+		Assert.assertArrayEquals(new int[] { 0, 7 }, fm.locate("ABRA"));
+		Assert.assertArrayEquals(new int[] { 0, 3, 5, 7, 10 }, fm.locate("A"));
+		Assert.assertArrayEquals(new int[] { 0 }, fm.locate("ABRACADABRA"));
+		Assert.assertArrayEquals(new int[0], fm.locate("CC"));
+	}
+
+	@Test
+	public void testRandom() {
+		Random random = new Random(3);
+		for (int trial = 0; trial < 200; trial++) {
+			int alphabet = 1 + random.nextInt(5);
+			char[] chars = new char[random.nextInt(300)];
+			for (int i = 0; i < chars.length; i++)
+				chars[i] = (char) ('a' + random.nextInt(alphabet));
+			String text = new String(chars);
+			FMIndex fm = new FMIndex(text.getBytes(StandardCharsets.UTF_8), 1 + random.nextInt(10));
+			for (int q = 0; q < 20; q++) {
+				char[] p = new char[1 + random.nextInt(4)];
+				for (int i = 0; i < p.length; i++)
+					p[i] = (char) ('a' + random.nextInt(alphabet + 1));
+				String pattern = new String(p);
+				int[] expected = naive(text, pattern);
+				Assert.assertEquals(expected.length, fm.count(pattern));
+				Assert.assertArrayEquals(expected, fm.locate(pattern));
+			}
+		}
+	}
+
+	@Test
+	public void testCompressed() {
+		String text = FileUtil.getFileContent("tale.txt");
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		FMIndex fm = new FMIndex(bytes);
+		Assert.assertTrue(fm.sizeInBytes() < bytes.length);
+		Assert.assertArrayEquals(naive(text, "majesty"), fm.locate("majesty"));
+		Assert.assertEquals(naive(text, "the ").length, fm.count("the "));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEmptyPattern() {
+		new FMIndex(new byte[] { 1, 2, 3 }).count("");
+	}
+
+}
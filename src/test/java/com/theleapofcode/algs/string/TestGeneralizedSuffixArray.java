@@ -0,0 +1,115 @@
+package com.theleapofcode.algs.string;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.theleapofcode.algs.symboltable.SeparateChainingHashSymbolTable;
+
+public class TestGeneralizedSuffixArray {
+
+	@Test
+	public void testLongestCommon() {
+		String[] lines = { "GET /index.html 200 12ms", "GET /about.html 200 9ms", "POST /login 302 40ms",
+				"GET /index.html 404 1ms" };
+		GeneralizedSuffixArray gsa = new GeneralizedSuffixArray(lines);
+		GeneralizedSuffixArray.Substring common = gsa.longestCommon(2);
+		Assert.assertEquals("GET /index.html ", gsa.substring(common));
+		Assert.assertEquals(2, common.occurrences());
+		Assert.assertEquals(".html 200 ", gsa.substring(new GeneralizedSuffixArray(
+				new String[] { lines[0], lines[1] }).longestCommon(2)));
+		Assert.assertEquals("T /", gsa.substring(gsa.longestCommon(4)));
+		Assert.assertNull(new GeneralizedSuffixArray(new String[] { "ab", "cd" }).longestCommon(2));
+	}
+
+	@Test
+	public void testAgainstNaive() {
+		Random random = new Random(37);
+		for (int trial = 0; trial < 300; trial++) {
+			String[] documents = new String[1 + random.nextInt(6)];
+			for (int d = 0; d < documents.length; d++) {
+				char[] chars = new char[random.nextInt(25)];
+				for (int i = 0; i < chars.length; i++)
+					chars[i] = (char) ('a' + random.nextInt(1 + trial % 3));
+				documents[d] = new String(chars);
+			}
+			GeneralizedSuffixArray gsa = new GeneralizedSuffixArray(documents);
+
+			for (int k = 1; k <= documents.length; k++) {
+				int best = 0;
+				for (String s : substrings(documents).keys())
+					if (documentsWith(documents, s) >= k)
+						best = Math.max(best, s.length());
+				GeneralizedSuffixArray.Substring common = gsa.longestCommon(k);
+				if (best == 0) {
+					Assert.assertNull(common);
+					continue;
+				}
+				String s = gsa.substring(common);
+				Assert.assertEquals(best, s.length());
+				Assert.assertTrue(documentsWith(documents, s) >= k);
+				Assert.assertEquals(occurrences(documents, s), common.occurrences());
+			}
+
+			// the (occurrences, length) of the maximal repeats, best first
+			SeparateChainingHashSymbolTable<String, Integer> all = substrings(documents);
+			int count = 0;
+			long[] expected = new long[all.size()];
+			for (String s : all.keys()) {
+				int occ = all.get(s);
+				if (occ < 2)
+					continue;
+				boolean maximal = true;
+				for (char c = 'a'; c <= 'c'; c++) {
+					Integer left = all.get(c + s), right = all.get(s + c);
+					if (left != null && left == occ || right != null && right == occ)
+						maximal = false;
+				}
+				if (maximal)
+					expected[count++] = -(((long) occ << 32) | s.length());
+			}
+			expected = Arrays.copyOf(expected, count);
+			Arrays.sort(expected);
+			int k = random.nextInt(count + 2);
+			GeneralizedSuffixArray.Substring[] repeats = gsa.topRepeated(k, 1);
+			Assert.assertEquals(Math.min(k, count), repeats.length);
+			for (int j = 0; j < repeats.length; j++) {
+				String s = gsa.substring(repeats[j]);
+				Assert.assertEquals(occurrences(documents, s), repeats[j].occurrences());
+				Assert.assertEquals(-expected[j], ((long) repeats[j].occurrences() << 32) | s.length());
+			}
+		}
+	}
+
+	// every nonempty substring, with its number of occurrences
+	private static SeparateChainingHashSymbolTable<String, Integer> substrings(String[] documents) {
+		SeparateChainingHashSymbolTable<String, Integer> st = new SeparateChainingHashSymbolTable<>();
+		for (String document : documents)
+			for (int i = 0; i < document.length(); i++)
+				for (int j = i + 1; j <= document.length(); j++) {
+					String s = document.substring(i, j);
+					Integer count = st.get(s);
+					st.put(s, count == null ? 1 : count + 1);
+				}
+		return st;
+	}
+
+	private static int documentsWith(String[] documents, String s) {
+		int count = 0;
+		for (String document : documents)
+			if (document.contains(s))
+				count++;
+		return count;
+	}
+
+	private static int occurrences(String[] documents, String s) {
+		int count = 0;
+		for (String document : documents)
+			for (int i = document.indexOf(s); i >= 0; i = document.indexOf(s, i + 1))
+				count++;
+		return count;
+	}
+
+}
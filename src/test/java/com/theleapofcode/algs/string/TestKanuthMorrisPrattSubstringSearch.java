@@ -0,0 +1,186 @@
+package com.theleapofcode.algs.string;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.theleapofcode.algs.stacksandqueues.Queue;
+import com.theleapofcode.algs.stacksandqueues.QueueLinkedListImpl;
+
+public class TestKanuthMorrisPrattSubstringSearch {
+
+	@Test
+	public void testSearch() {
+		KanuthMorrisPrattSubstringSearch search = new KanuthMorrisPrattSubstringSearch("needle");
+		Assert.assertEquals(15, search.search("in a haystack, needle in a haystack"));
+		Assert.assertEquals(15, search.search("in a haystack, needle in a haystack".getBytes()));
+		Assert.assertEquals(8, search.search("haystack".getBytes()));
+
+		ByteBuffer buffer = ByteBuffer.wrap("xx needle".getBytes());
+		buffer.position(1);
+		Assert.assertEquals(2, search.search(buffer));
+		Assert.assertEquals(1, buffer.position());
+	}
+
+	@Test
+	public void testSearchAll() {
+		KanuthMorrisPrattSubstringSearch search = new KanuthMorrisPrattSubstringSearch("aa");
+		Queue<Integer> matches = new QueueLinkedListImpl<>();
+		Assert.assertEquals(3, search.searchAll("baaaab", matches::enque));
+		Assert.assertEquals("1, 2, 3", matches.toString());
+		Assert.assertEquals(0, search.searchAll("ab", i -> {
+		}));
+
+		KanuthMorrisPrattSubstringSearch chars = new KanuthMorrisPrattSubstringSearch("aa".toCharArray(), 256);
+		Assert.assertEquals(3, chars.searchAll("baaaab".toCharArray(), i -> {
+		}));
+	}
+
+	@Test
+	public void testBytesAgainstNaive() {
+		Random random = new Random(11);
+		for (int trial = 0; trial < 300; trial++) {
+			int alphabet = 1 + random.nextInt(3);
+			char[] pattern = new char[1 + random.nextInt(trial % 3 == 0 ? 20 : 4)];
+			for (int j = 0; j < pattern.length; j++)
+				pattern[j] = (char) (0xfd + random.nextInt(alphabet));
+			byte[] text = new byte[random.nextInt(200)];
+			for (int i = 0; i < text.length; i++)
+				text[i] = (byte) (0xfd + random.nextInt(alphabet));
+
+			String expected = naive(pattern, text);
+			KanuthMorrisPrattSubstringSearch search = new KanuthMorrisPrattSubstringSearch(new String(pattern));
+			StringBuilder found = new StringBuilder();
+			search.searchAll(text, i -> found.append(i).append(' '));
+			Assert.assertEquals(expected, found.toString());
+
+			StringBuilder fromChars = new StringBuilder();
+			char[] chars = new char[text.length];
+			for (int i = 0; i < text.length; i++)
+				chars[i] = (char) (text[i] & 0xff);
+			new KanuthMorrisPrattSubstringSearch(pattern, 256).searchAll(chars, i -> fromChars.append(i).append(' '));
+			Assert.assertEquals(expected, fromChars.toString());
+
+			int first = expected.isEmpty() ? text.length : Integer.parseInt(expected.substring(0, expected.indexOf(' ')));
+			Assert.assertEquals(first, search.search(text));
+
+			// a direct buffer, searched from an unaligned position
+			int offset = random.nextInt(9);
+			ByteBuffer buffer = ByteBuffer.allocateDirect(offset + text.length);
+			buffer.position(offset);
+			buffer.put(text);
+			buffer.position(offset);
+			StringBuilder fromBuffer = new StringBuilder();
+			search.searchAll(buffer, i -> fromBuffer.append(i).append(' '));
+			Assert.assertEquals(expected, fromBuffer.toString());
+		}
+	}
+
+	@Test
+	public void testStreamAgainstBytes() throws IOException {
+		Random random = new Random(13);
+		for (int trial = 0; trial < 300; trial++) {
+			int alphabet = 1 + random.nextInt(3);
+			char[] pattern = new char[1 + random.nextInt(trial % 3 == 0 ? 20 : 4)];
+			for (int j = 0; j < pattern.length; j++)
+				pattern[j] = (char) ('a' + random.nextInt(alphabet));
+			byte[] text = new byte[random.nextInt(500)];
+			for (int i = 0; i < text.length; i++)
+				text[i] = (byte) ('a' + random.nextInt(alphabet));
+
+			KanuthMorrisPrattSubstringSearch search = new KanuthMorrisPrattSubstringSearch(new String(pattern));
+			StringBuilder expected = new StringBuilder();
+			search.searchAll(text, i -> expected.append(i).append(' '));
+
+			// small buffers and short reads, so that matches cross boundaries
+			ByteBuffer buffer = ByteBuffer.allocateDirect(pattern.length + random.nextInt(10));
+			StringBuilder found = new StringBuilder();
+			long count = search.searchAll(new ShortReads(text, random), buffer, i -> found.append(i).append(' '));
+			Assert.assertEquals(expected.toString(), found.toString());
+			Assert.assertEquals(expected.toString().split(" ", -1).length - 1, count);
+
+			Assert.assertEquals(search.search(text), search.search(new ShortReads(text, random)));
+		}
+	}
+
+	@Test
+	public void testFileChannel() throws IOException {
+		Path file = Files.createTempFile("search", ".log");
+		try {
+			byte[] text = new byte[300000];
+			for (int i = 0; i < text.length; i++)
+				text[i] = (byte) ('a' + i % 7);
+			byte[] needle = "needle".getBytes();
+			// across the boundary of the default 64K buffer
+			System.arraycopy(needle, 0, text, 65533, needle.length);
+			System.arraycopy(needle, 0, text, 299994, needle.length);
+			Files.write(file, text);
+
+			KanuthMorrisPrattSubstringSearch search = new KanuthMorrisPrattSubstringSearch("needle");
+			StringBuilder found = new StringBuilder();
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				Assert.assertEquals(2, search.searchAll(channel, i -> found.append(i).append(' ')));
+			}
+			Assert.assertEquals("65533 299994 ", found.toString());
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				Assert.assertEquals(65533, search.search(channel));
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testWidePatternInBytes() {
+		new KanuthMorrisPrattSubstringSearch("\u20ac".toCharArray(), 0x10000).search(new byte[10]);
+	}
+
+	private static String naive(char[] pattern, byte[] text) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i + pattern.length <= text.length; i++) {
+			int j = 0;
+			while (j < pattern.length && pattern[j] == (text[i + j] & 0xff))
+				j++;
+			if (j == pattern.length)
+				sb.append(i).append(' ');
+		}
+		return sb.toString();
+	}
+
+	// a channel over bytes that returns fewer bytes than asked
+	private static class ShortReads implements ReadableByteChannel {
+		private final byte[] bytes;
+		private final Random random;
+		private int position;
+
+		private ShortReads(byte[] bytes, Random random) {
+			this.bytes = bytes;
+			this.random = random;
+		}
+
+		public int read(ByteBuffer dst) {
+			if (position == bytes.length)
+				return -1;
+			int n = Math.min(1 + random.nextInt(dst.remaining()), bytes.length - position);
+			dst.put(bytes, position, n);
+			position += n;
+			return n;
+		}
+
+		public boolean isOpen() {
+			return true;
+		}
+
+		public void close() {
+		}
+	}
+
+}
@@ -1,5 +1,6 @@
 package com.theleapofcode.algs.string;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 import com.theleapofcode.algs.util.FileUtil;
@@ -14,4 +15,22 @@ public class TestLongestCommonSubstring {
 		System.out.println(result);
 	}
 
+	@Test
+	public void testEmpty() {
+		Assert.assertEquals("", LongestCommonSubstring.lcs("", ""));
+		Assert.assertEquals("", LongestCommonSubstring.lcs("", "abc"));
+		Assert.assertEquals("", LongestCommonSubstring.lcs("abc", ""));
+		Assert.assertEquals("", LongestCommonSubstring.lcs("abc", "xyz"));
+		Assert.assertEquals("b", LongestCommonSubstring.lcs("abc", "xbz"));
+	}
+
+	@Test
+	public void testKOfN() {
+		String[] strings = { "xxabcdyy", "zabcdz", "qqabcq", "bcdbcd" };
+		Assert.assertEquals("abcd", LongestCommonSubstring.lcs(strings, 2));
+		Assert.assertEquals("abc", LongestCommonSubstring.lcs(strings, 3));
+		Assert.assertEquals("bc", LongestCommonSubstring.lcs(strings, 4));
+		Assert.assertEquals("", LongestCommonSubstring.lcs(new String[] { "ab", "cd" }, 2));
+	}
+
 }
@@ -14,4 +14,48 @@ public class TestNFARegexMatch {
 		Assert.assertTrue(match);
 	}
 
+	@Test
+	public void testOperators() {
+		NFARegexMatch nfa = new NFARegexMatch("(GET|PUT|POST) /api/v[0-9]+/[a-z_]+(/[^/ ]*)?");
+		Assert.assertTrue(nfa.matches("GET /api/v2/users"));
+		Assert.assertTrue(nfa.matches("POST /api/v10/order_items/42"));
+		Assert.assertFalse(nfa.matches("DELETE /api/v2/users"));
+		Assert.assertFalse(nfa.matches("GET /api/v/users"));
+		Assert.assertFalse(nfa.matches("GET /api/v2/users/1/2"));
+
+		NFARegexMatch escaped = new NFARegexMatch("\\(a\\|b\\)[\\]x-z]+");
+		Assert.assertTrue(escaped.matches("(a|b)]zy"));
+		Assert.assertFalse(escaped.matches("(a|b)w"));
+	}
+
+	@Test
+	public void testFind() {
+		NFARegexMatch nfa = new NFARegexMatch("ERROR|FATAL");
+		Assert.assertTrue(nfa.find("2016-01-01 12:00:00 ERROR disk full"));
+		Assert.assertFalse(nfa.find("2016-01-01 12:00:00 INFO started"));
+		Assert.assertFalse(nfa.find("xxERRORxx", 3, 9));
+		Assert.assertTrue(nfa.find("xxERRORxx", 2, 7));
+		Assert.assertTrue(nfa.matches("xxERRORxx", 2, 7));
+		Assert.assertFalse(nfa.matches("xxERRORxx", 2, 8));
+	}
+
+	@Test
+	public void testSmallCache() {
+		// a two-state cache is flushed constantly and falls back to the NFA
+		NFARegexMatch nfa = new NFARegexMatch("(a|b)*a(a|b)(a|b)(a|b)", 2);
+		NFARegexMatch big = new NFARegexMatch("(a|b)*a(a|b)(a|b)(a|b)");
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 200; i++) {
+			sb.append(i % 3 == 0 ? 'a' : 'b');
+			String s = sb.toString();
+			Assert.assertEquals(big.matches(s), nfa.matches(s));
+			Assert.assertEquals(s.length() >= 4 && s.charAt(s.length() - 4) == 'a', nfa.matches(s));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnclosedClass() {
+		new NFARegexMatch("a[bc");
+	}
+
 }
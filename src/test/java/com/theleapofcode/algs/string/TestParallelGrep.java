@@ -0,0 +1,126 @@
+package com.theleapofcode.algs.string;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.theleapofcode.algs.stacksandqueues.Queue;
+import com.theleapofcode.algs.stacksandqueues.QueueLinkedListImpl;
+
+public class TestParallelGrep {
+
+	@Test
+	public void testAgainstSequential() throws IOException {
+		Random random = new Random(31);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		Path dir = Files.createTempDirectory("grep");
+		try {
+			Queue<Path> files = new QueueLinkedListImpl<>();
+			byte[][] texts = new byte[6][];
+			for (int f = 0; f < texts.length; f++) {
+				texts[f] = new byte[f == 0 ? 0 : random.nextInt(3000)];
+				for (int i = 0; i < texts[f].length; i++)
+					texts[f][i] = (byte) (random.nextInt(8) == 0 ? '\n' : 'a' + random.nextInt(3));
+				Path file = dir.resolve("file" + f + ".log");
+				Files.write(file, texts[f]);
+				files.enque(file);
+			}
+
+			for (int trial = 0; trial < 30; trial++) {
+				int chunkSize = 1 + random.nextInt(trial < 10 ? 8 : 500);
+				int window = 1 + random.nextInt(6);
+
+				String pattern = "";
+				for (int j = 1 + random.nextInt(4); j > 0; j--)
+					pattern += (char) ('a' + random.nextInt(3));
+				StringBuilder expected = new StringBuilder();
+				for (int f = 0; f < texts.length; f++) {
+					String text = new String(texts[f], "ISO-8859-1");
+					for (int i = text.indexOf(pattern); i >= 0; i = text.indexOf(pattern, i + 1))
+						expected.append(f).append(':').append(i).append(' ');
+				}
+				for (ParallelGrep.Engine engine : new ParallelGrep.Engine[] { ParallelGrep.Engine.KMP,
+						ParallelGrep.Engine.BOYER_MOORE }) {
+					ParallelGrep grep = new ParallelGrep(pattern, engine, pool, chunkSize, window);
+					Assert.assertEquals(expected.toString(), found(grep, files));
+				}
+
+				String regexp = "(a|b)c*" + (char) ('a' + random.nextInt(3)) + "b";
+				java.util.regex.Pattern reference = java.util.regex.Pattern.compile(regexp);
+				StringBuilder lines = new StringBuilder();
+				for (int f = 0; f < texts.length; f++) {
+					String text = new String(texts[f], "ISO-8859-1");
+					for (int start = 0; start < text.length();) {
+						int end = text.indexOf('\n', start);
+						if (end < 0)
+							end = text.length();
+						if (reference.matcher(text.substring(start, end)).find())
+							lines.append(f).append(':').append(start).append(' ');
+						start = end + 1;
+					}
+				}
+				ParallelGrep grep = new ParallelGrep(regexp, ParallelGrep.Engine.REGEX, pool, chunkSize, window);
+				Assert.assertEquals(lines.toString(), found(grep, files));
+			}
+
+			// stopping early cancels the chunks in the window
+			try (ParallelGrep.Matches it = new ParallelGrep("a", ParallelGrep.Engine.KMP, pool, 16, 2).search(files)) {
+				Assert.assertEquals("file1.log", it.next().file().getFileName().toString());
+				it.close();
+				Assert.assertFalse(it.hasNext());
+			}
+		} finally {
+			pool.shutdown();
+			for (Path file : Files.newDirectoryStream(dir))
+				Files.delete(file);
+			Files.delete(dir);
+		}
+	}
+
+	@Test
+	public void testLongLines() throws IOException {
+		// lines far longer than the overlap mapped past each chunk
+		ForkJoinPool pool = new ForkJoinPool(2);
+		Path dir = Files.createTempDirectory("grep");
+		try {
+			StringBuilder text = new StringBuilder();
+			for (int i = 0; i < 500000; i++)
+				text.append('a');
+			text.append("needle\nshort needle\n");
+			for (int i = 0; i < 300000; i++)
+				text.append('b');
+			text.append("needle");
+			Path file = dir.resolve("file0.log");
+			Files.write(file, text.toString().getBytes(StandardCharsets.ISO_8859_1));
+			Queue<Path> files = new QueueLinkedListImpl<>();
+			files.enque(file);
+			for (int chunkSize : new int[] { 1000, 100000, 1 << 20 }) {
+				ParallelGrep grep = new ParallelGrep("ne+dle", ParallelGrep.Engine.REGEX, pool, chunkSize, 3);
+				Assert.assertEquals("0:0 0:500007 0:500020 ", found(grep, files));
+			}
+		} finally {
+			pool.shutdown();
+			for (Path file : Files.newDirectoryStream(dir))
+				Files.delete(file);
+			Files.delete(dir);
+		}
+	}
+
+	private static String found(ParallelGrep grep, Iterable<Path> files) {
+		StringBuilder sb = new StringBuilder();
+		for (Iterator<ParallelGrep.Match> it = grep.search(files); it.hasNext();) {
+			ParallelGrep.Match match = it.next();
+			String name = match.file().getFileName().toString();
+			sb.append(name.charAt(4)).append(':').append(match.offset()).append(' ');
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.theleapofcode.algs.string;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRabinKarpSubstringSearch {
+
+	@Test
+	public void testSearch() {
+		RabinKarpSubstringSearch search = new RabinKarpSubstringSearch("needle");
+		Assert.assertEquals(15, search.search("in a haystack, needle in a haystack"));
+		Assert.assertEquals(8, search.search("haystack"));
+		Assert.assertEquals(2, search.search("a needle".toCharArray()));
+
+		RabinKarpSubstringSearch chars = new RabinKarpSubstringSearch("AB".toCharArray(), 256);
+		Assert.assertEquals(2, chars.search("AAAB"));
+	}
+
+	@Test
+	public void testSearchAll() {
+		RabinKarpSubstringSearch search = new RabinKarpSubstringSearch(new String[] { "aba", "bab", "aba" });
+		StringBuilder sb = new StringBuilder();
+		int count = search.searchAll("ababab", (pattern, offset) -> sb.append(offset).append(':').append(pattern).append(' '));
+		Assert.assertEquals(6, count);
+		Assert.assertEquals("0:0 0:2 1:1 2:0 2:2 3:1 ", sb.toString());
+	}
+
+	@Test
+	public void testManyPatternsAgainstNaive() {
+		Random random = new Random(17);
+		for (int trial = 0; trial < 200; trial++) {
+			int m = 1 + random.nextInt(5);
+			String[] patterns = new String[1 + random.nextInt(50)];
+			for (int p = 0; p < patterns.length; p++)
+				patterns[p] = randomString(random, m);
+			String text = randomString(random, random.nextInt(300));
+
+			StringBuilder expected = new StringBuilder();
+			for (int i = 0; i + m <= text.length(); i++)
+				for (int p = 0; p < patterns.length; p++)
+					if (text.startsWith(patterns[p], i))
+						expected.append(i).append(':').append(p).append(' ');
+			StringBuilder found = new StringBuilder();
+			new RabinKarpSubstringSearch(patterns).searchAll(text,
+					(pattern, offset) -> found.append(offset).append(':').append(pattern).append(' '));
+			Assert.assertEquals(expected.toString(), found.toString());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDifferentLengths() {
+		new RabinKarpSubstringSearch(new String[] { "ab", "abc" });
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCharacterOutsideAlphabet() {
+		new RabinKarpSubstringSearch("az".toCharArray(), 'b');
+	}
+
+	private static String randomString(Random random, int length) {
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++)
+			chars[i] = (char) ('a' + random.nextInt(3));
+		return new String(chars);
+	}
+
+}
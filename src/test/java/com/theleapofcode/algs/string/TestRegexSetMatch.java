@@ -0,0 +1,55 @@
+package com.theleapofcode.algs.string;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRegexSetMatch {
+
+	private static final String[] RULES = { "/api/v[0-9]+/users", "/api/v[0-9]+/users/[0-9]+", "/api/.*",
+			"/static/[^/]+\\.(css|js)", "/health", ".*/admin(/.*)?" };
+
+	@Test
+	public void testMatches() {
+		RegexSetMatch set = new RegexSetMatch(RULES);
+		Assert.assertEquals(6, set.size());
+		Assert.assertEquals("[0, 2]", Arrays.toString(set.matches("/api/v2/users")));
+		Assert.assertEquals("[1, 2]", Arrays.toString(set.matches("/api/v2/users/17")));
+		Assert.assertEquals("[2, 5]", Arrays.toString(set.matches("/api/admin")));
+		Assert.assertEquals("[3]", Arrays.toString(set.matches("/static/site.css")));
+		Assert.assertEquals("[]", Arrays.toString(set.matches("/static/a/site.css")));
+		Assert.assertTrue(set.matchesAny("/health"));
+		Assert.assertFalse(set.matchesAny("/healthz"));
+		Assert.assertEquals("[4]", Arrays.toString(set.matches("x/healthz", 1, 8)));
+	}
+
+	@Test
+	public void testFind() {
+		RegexSetMatch set = new RegexSetMatch("ERROR", "WARN(ING)?", "[0-9][0-9][0-9][0-9]-[0-9][0-9]");
+		Assert.assertEquals("[0, 2]", Arrays.toString(set.find("2016-01-01 ERROR disk full")));
+		Assert.assertEquals("[1]", Arrays.toString(set.find("WARNING: low memory")));
+		Assert.assertEquals("[]", Arrays.toString(set.find("started")));
+	}
+
+	@Test
+	public void testAgreesWithSingleMatches() {
+		String[] paths = { "/api/v1/users", "/api/v12/users/3", "/static/x.js", "/admin", "/a/admin/b", "/", "",
+				"/api/v/users", "/static/x.jsx" };
+		RegexSetMatch set = new RegexSetMatch(RULES);
+		RegexSetMatch small = new RegexSetMatch(RULES, 2);
+		for (String path : paths) {
+			StringBuilder expected = new StringBuilder();
+			for (int i = 0; i < RULES.length; i++)
+				if (new NFARegexMatch(RULES[i]).matches(path))
+					expected.append(i);
+			StringBuilder actual = new StringBuilder();
+			for (int i : set.matches(path))
+				actual.append(i);
+			Assert.assertEquals(expected.toString(), actual.toString());
+			Assert.assertArrayEquals(set.matches(path), small.matches(path));
+			Assert.assertArrayEquals(set.find(path), small.find(path));
+		}
+	}
+
+}
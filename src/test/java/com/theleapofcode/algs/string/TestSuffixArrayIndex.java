@@ -0,0 +1,85 @@
+package com.theleapofcode.algs.string;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.theleapofcode.algs.util.FileUtil;
+
+public class TestSuffixArrayIndex {
+
+	@Test
+	public void test() throws IOException {
+		String text = "ABRACADABRA";
+		Path dir = Files.createTempDirectory("sax");
+		try {
+			Path textFile = Files.write(dir.resolve("text.txt"), text.getBytes(StandardCharsets.UTF_8));
+			Path indexFile = dir.resolve("text.sax");
+
+			SuffixArray expected = new SuffixArray(text);
+			for (boolean withLcp : new boolean[] { true, false }) {
+				SuffixArrayIndex.build(textFile, indexFile, withLcp);
+				SuffixArrayIndex index = SuffixArrayIndex.open(textFile, indexFile);
+				Assert.assertEquals(withLcp, index.hasLcp());
+				Assert.assertEquals(expected.length(), index.length());
+				for (int i = 0; i < text.length(); i++) {
+					Assert.assertEquals(expected.index(i), index.index(i));
+					Assert.assertEquals(expected.select(i), index.select(i));
+					Assert.assertEquals(i, index.rank(index.select(i)));
+					if (i > 0)
+						Assert.assertEquals(expected.lcp(i), index.lcp(i));
+				}
+				for (String query : new String[] { "", "A", "ABRA", "B", "CAD", "Z", "ABRACADABRAX" })
+					Assert.assertEquals(expected.rank(query), index.rank(query));
+			}
+		} finally {
+			delete(dir);
+		}
+	}
+
+	@Test
+	public void testKeywordWithContext() throws IOException {
+		String text = FileUtil.getFileContent("tale.txt");
+		Path dir = Files.createTempDirectory("sax");
+		try {
+			Path textFile = Files.write(dir.resolve("tale.txt"), text.getBytes(StandardCharsets.UTF_8));
+			Path indexFile = dir.resolve("tale.sax");
+			SuffixArrayIndex.build(textFile, indexFile, false);
+			SuffixArrayIndex index = SuffixArrayIndex.open(textFile, indexFile);
+
+			Assert.assertEquals(KeywordWithContextSearch.search(text, 15, "majesty"),
+					KeywordWithContextSearch.search(index, 15, "majesty"));
+			Assert.assertTrue(KeywordWithContextSearch.search(index, 15, "xyzzy").isEmpty());
+		} finally {
+			delete(dir);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testMismatchedText() throws IOException {
+		Path dir = Files.createTempDirectory("sax");
+		try {
+			Path textFile = Files.write(dir.resolve("a.txt"), "banana".getBytes(StandardCharsets.UTF_8));
+			Path indexFile = dir.resolve("a.sax");
+			SuffixArrayIndex.build(textFile, indexFile, true);
+			Files.write(textFile, "bananas".getBytes(StandardCharsets.UTF_8));
+			SuffixArrayIndex.open(textFile, indexFile);
+		} finally {
+			delete(dir);
+		}
+	}
+
+	private static void delete(Path dir) throws IOException {
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+			for (Path file : files)
+				Files.delete(file);
+		}
+		Files.delete(dir);
+	}
+
+}
@@ -0,0 +1,113 @@
+package com.theleapofcode.algs.string;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestSuffixArrays {
+
+	// suffix array by sorting the suffixes
+	private static int[] naive(String text) {
+		Integer[] order = new Integer[text.length()];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, (a, b) -> text.substring(a).compareTo(text.substring(b)));
+		int[] sa = new int[order.length];
+		for (int i = 0; i < sa.length; i++)
+			sa[i] = order[i];
+		return sa;
+	}
+
+	private static int commonPrefix(String text, int a, int b) {
+		int h = 0;
+		while (a + h < text.length() && b + h < text.length() && text.charAt(a + h) == text.charAt(b + h))
+			h++;
+		return h;
+	}
+
+	@Test
+	public void testBuild() {
+		int[] sa = SuffixArrays.build("ABRACADABRA");
+		Assert.assertArrayEquals(new int[] { 10, 7, 0, 3, 5, 8, 1, 4, 6, 9, 2 }, sa);
+		Assert.assertArrayEquals(new int[] { 0, 1, 4, 1, 1, 0, 3, 0, 0, 0, 2 }, SuffixArrays.lcp("ABRACADABRA", sa));
+		Assert.assertArrayEquals(new int[0], SuffixArrays.build(""));
+	}
+
+	@Test
+	public void testRandom() {
+		Random random = new Random(11);
+		for (int trial = 0; trial < 300; trial++) {
+			int alphabet = 1 + random.nextInt(4);
+			char[] chars = new char[random.nextInt(200)];
+			for (int i = 0; i < chars.length; i++)
+				chars[i] = (char) ('a' + random.nextInt(alphabet));
+			String text = new String(chars);
+			int[] expected = naive(text);
+			int[] sa = SuffixArrays.build(text);
+			Assert.assertArrayEquals(expected, sa);
+			Assert.assertArrayEquals(expected, SuffixArrays.build(chars));
+
+			byte[] bytes = new byte[chars.length];
+			int[] ints = new int[chars.length];
+			for (int i = 0; i < chars.length; i++) {
+				bytes[i] = (byte) chars[i];
+				ints[i] = chars[i] - 'a';
+			}
+			Assert.assertArrayEquals(expected, SuffixArrays.build(bytes));
+			Assert.assertArrayEquals(expected, SuffixArrays.build(ints, 3));
+
+			int[] lcp = SuffixArrays.lcp(text, sa);
+			for (int i = 1; i < sa.length; i++)
+				Assert.assertEquals(commonPrefix(text, sa[i], sa[i - 1]), lcp[i]);
+			Assert.assertArrayEquals(lcp, SuffixArrays.lcp(chars, sa));
+			Assert.assertArrayEquals(lcp, SuffixArrays.lcp(bytes, sa));
+			Assert.assertArrayEquals(lcp, SuffixArrays.lcp(ints, sa));
+		}
+	}
+
+	@Test
+	public void testParallel() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			Random random = new Random(5);
+			for (int trial = 0; trial < 100; trial++) {
+				int alphabet = 1 + random.nextInt(4);
+				byte[] text = new byte[random.nextInt(trial < 90 ? 300 : 100000)];
+				for (int i = 0; i < text.length; i++)
+					text[i] = (byte) ('a' + random.nextInt(alphabet));
+				Assert.assertArrayEquals(SuffixArrays.build(text), SuffixArrays.build(text, pool));
+			}
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < 50000; i++)
+				sb.append(i % 1000 == 999 ? 'b' : 'a');
+			String text = sb.toString();
+			Assert.assertArrayEquals(SuffixArrays.build(text), SuffixArrays.build(text, pool));
+			Assert.assertArrayEquals(new int[0], SuffixArrays.build("", pool));
+			// symbols larger than the text, which are not renumbered
+			int[] ints = { 1000000, 5, 1000000, 5, 0, 1000000, 5 };
+			Assert.assertArrayEquals(SuffixArrays.build(ints, 1000000), SuffixArrays.build(ints, pool));
+
+			SuffixArray sa = new SuffixArray("ABRACADABRA", pool);
+			Assert.assertEquals(new SuffixArray("ABRACADABRA").toString(), sa.toString());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testUnsignedBytes() {
+		byte[] text = { (byte) 0xff, 0x01, (byte) 0x80, 0x01 };
+		Assert.assertArrayEquals(new int[] { 3, 1, 2, 0 }, SuffixArrays.build(text));
+	}
+
+	@Test
+	public void testLongestCommonSubstring() {
+		Assert.assertEquals("ABRA", LongestCommonSubstring.lcs("ABRACADABRA", "XABRAX"));
+		Assert.assertEquals("", LongestCommonSubstring.lcs("AAA", "BBB"));
+		Assert.assertEquals("ABRA", LongestRepeatedSubstring.lrs("ABRACADABRA"));
+	}
+
+}
@@ -0,0 +1,81 @@
+package com.theleapofcode.algs.string;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.theleapofcode.algs.util.FileUtil;
+
+public class TestWinnowing {
+
+	@Test
+	public void testSharedSubstring() {
+		Random random = new Random(23);
+		Winnowing winnowing = new Winnowing(5, 4);
+		for (int trial = 0; trial < 100; trial++) {
+			String shared = randomString(random, 8); // w + k - 1
+			String a = randomString(random, random.nextInt(50)) + shared + randomString(random, random.nextInt(50));
+			String b = randomString(random, random.nextInt(50)) + shared + randomString(random, random.nextInt(50));
+			Assert.assertTrue(Winnowing.resemblance(winnowing.fingerprints(a), winnowing.fingerprints(b)) > 0);
+		}
+	}
+
+	@Test
+	public void testAgainstNaive() {
+		Random random = new Random(29);
+		for (int trial = 0; trial < 200; trial++) {
+			int k = 1 + random.nextInt(4), w = 1 + random.nextInt(6);
+			String text = randomString(random, random.nextInt(100));
+			int grams = Math.max(text.length() - k + 1, 0);
+
+			// with one k-gram per window, every k-gram is a fingerprint
+			long[] hashes = new long[grams];
+			new Winnowing(k, 1).winnow(text, (hash, position) -> hashes[position] = hash);
+
+			// the rightmost minimum of each window, when it changes
+			StringBuilder expected = new StringBuilder();
+			int last = -1;
+			for (int start = 0; start == 0 && grams > 0 || start + w <= grams; start++) {
+				int min = start;
+				for (int i = start; i < Math.min(start + w, grams); i++)
+					if (hashes[i] <= hashes[min])
+						min = i;
+				if (min != last)
+					expected.append(min).append(' ');
+				last = min;
+			}
+			StringBuilder found = new StringBuilder();
+			new Winnowing(k, w).winnow(text, (hash, position) -> {
+				Assert.assertEquals(hashes[position], hash);
+				found.append(position).append(' ');
+			});
+			Assert.assertEquals(expected.toString(), found.toString());
+		}
+	}
+
+	@Test
+	public void testResemblance() {
+		Winnowing winnowing = new Winnowing(16, 16);
+		String text = FileUtil.getFileContent("tale.txt");
+		long[] a = winnowing.fingerprints(text);
+		Assert.assertEquals(1.0, Winnowing.resemblance(a, winnowing.fingerprints(text)), 0);
+		String edited = text.substring(0, text.length() / 2) + "an inserted sentence" + text.substring(text.length() / 2);
+		Assert.assertTrue(Winnowing.resemblance(a, winnowing.fingerprints(edited)) > 0.99);
+		String other = FileUtil.getFileContent("mobydick.txt");
+		Assert.assertTrue(Winnowing.resemblance(a, winnowing.fingerprints(other)) < 0.01);
+
+		int grams = text.length() - 16 + 1;
+		double density = (double) winnowing.winnow(text, (hash, position) -> {
+		}) / grams;
+		Assert.assertEquals(2.0 / 17, density, 0.02);
+	}
+
+	private static String randomString(Random random, int length) {
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++)
+			chars[i] = (char) ('a' + random.nextInt(4));
+		return new String(chars);
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.theleapofcode.algs.symboltable;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBPlusTreeSymbolTable {
+
+	OrderedSymbolTable<String, String> bpt = new BPlusTreeSymbolTable<>(4);
+
+	private void putAll() {
+		bpt.put("S", "S");
+		bpt.put("E", "E");
+		bpt.put("A", "A");
+		bpt.put("R", "R");
+		bpt.put("C", "C");
+		bpt.put("H", "H");
+		bpt.put("X", "X");
+		bpt.put("M", "M");
+		bpt.put("P", "P");
+	}
+
+	@Test
+	public void testPut() {
+		putAll();
+
+		Assert.assertEquals("[(A = A)(C = C)(E = E)(H = H)(M = M)(P = P)(R = R)(S = S)(X = X)]", bpt.toString());
+		Assert.assertEquals(9, bpt.size());
+		Assert.assertTrue(((BPlusTreeSymbolTable<String, String>) bpt).isBalanced());
+	}
+
+	@Test
+	public void testGet() {
+		putAll();
+
+		String result = bpt.get("H");
+		Assert.assertEquals("H", result);
+		Assert.assertNull(bpt.get("B"));
+	}
+
+	@Test
+	public void testDelete() {
+		putAll();
+
+		bpt.delete("P");
+		bpt.delete("A");
+		bpt.delete("S");
+		Assert.assertEquals(6, bpt.size());
+		Assert.assertEquals("[(C = C)(E = E)(H = H)(M = M)(R = R)(X = X)]", bpt.toString());
+		Assert.assertTrue(((BPlusTreeSymbolTable<String, String>) bpt).isBalanced());
+	}
+
+	@Test
+	public void testOrderedOperations() {
+		putAll();
+
+		Assert.assertEquals("A", bpt.minimum());
+		Assert.assertEquals("X", bpt.maximum());
+		Assert.assertEquals("H", bpt.floor("L"));
+		Assert.assertEquals("M", bpt.ceiling("L"));
+		Assert.assertNull(bpt.floor("0"));
+		Assert.assertNull(bpt.ceiling("Z"));
+		Assert.assertEquals("M", bpt.select(4));
+		Assert.assertEquals(4, ((BPlusTreeSymbolTable<String, String>) bpt).rank("M"));
+
+		StringBuilder sb = new StringBuilder();
+		for (String key : bpt.keys("D", "R"))
+			sb.append(key);
+		Assert.assertEquals("EHMPR", sb.toString());
+	}
+
+}
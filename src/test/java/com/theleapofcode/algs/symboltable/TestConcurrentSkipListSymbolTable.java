@@ -0,0 +1,82 @@
+package com.theleapofcode.algs.symboltable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestConcurrentSkipListSymbolTable {
+
+	OrderedSymbolTable<String, String> st = new ConcurrentSkipListSymbolTable<>();
+
+	private void putAll() {
+		st.put("S", "S");
+		st.put("E", "E");
+		st.put("A", "A");
+		st.put("R", "R");
+		st.put("C", "C");
+		st.put("H", "H");
+		st.put("X", "X");
+		st.put("M", "M");
+		st.put("P", "P");
+	}
+
+	@Test
+	public void testPut() {
+		putAll();
+
+		Assert.assertEquals("[(A = A)(C = C)(E = E)(H = H)(M = M)(P = P)(R = R)(S = S)(X = X)]", st.toString());
+		Assert.assertEquals(9, st.size());
+	}
+
+	@Test
+	public void testDelete() {
+		putAll();
+
+		st.delete("P");
+		st.delete("Q");
+		Assert.assertEquals(8, st.size());
+		Assert.assertFalse(st.contains("P"));
+	}
+
+	@Test
+	public void testOrderedOperations() {
+		putAll();
+
+		Assert.assertEquals("A", st.minimum());
+		Assert.assertEquals("X", st.maximum());
+		Assert.assertEquals("H", st.floor("L"));
+		Assert.assertEquals("M", st.ceiling("L"));
+		Assert.assertEquals("M", st.select(4));
+
+		StringBuilder sb = new StringBuilder();
+		for (String key : st.keys("D", "R"))
+			sb.append(key);
+		Assert.assertEquals("EHMPR", sb.toString());
+	}
+
+	@Test
+	public void testConcurrentPut() throws InterruptedException {
+		ConcurrentSkipListSymbolTable<Integer, Integer> cst = new ConcurrentSkipListSymbolTable<>();
+		int threads = 4, n = 10000;
+		List<Thread> writers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			final int offset = t;
+			writers.add(new Thread(() -> {
+				for (int i = 0; i < n; i++)
+					cst.put(i * threads + offset, i);
+			}));
+		}
+		for (Thread writer : writers)
+			writer.start();
+		for (Thread writer : writers)
+			writer.join();
+
+		Assert.assertEquals(threads * n, cst.size());
+		int expected = 0;
+		for (int key : cst.keys())
+			Assert.assertEquals(expected++, key);
+	}
+
+}
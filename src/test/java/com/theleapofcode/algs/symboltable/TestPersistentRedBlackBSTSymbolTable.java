@@ -0,0 +1,74 @@
+package com.theleapofcode.algs.symboltable;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestPersistentRedBlackBSTSymbolTable {
+
+	PersistentRedBlackBSTSymbolTable<String, String> bst = new PersistentRedBlackBSTSymbolTable<>();
+
+	private void putAll() {
+		bst.put("S", "S");
+		bst.put("E", "E");
+		bst.put("A", "A");
+		bst.put("R", "R");
+		bst.put("C", "C");
+		bst.put("H", "H");
+		bst.put("X", "X");
+		bst.put("M", "M");
+		bst.put("P", "P");
+	}
+
+	@Test
+	public void testPut() {
+		putAll();
+
+		Assert.assertEquals(
+				"(M = M) [ BLACK - (E = E) [ BLACK - (C = C) [ RED - (A = A) [,],],  BLACK - (H = H) [,]],  BLACK - (R = R) [ BLACK - (P = P) [,],  BLACK - (X = X) [ RED - (S = S) [,],]]]",
+				bst.toString());
+		Assert.assertEquals(9, bst.size());
+		Assert.assertTrue(bst.isBalanced());
+	}
+
+	@Test
+	public void testSnapshot() {
+		putAll();
+		PersistentRedBlackBSTSymbolTable<String, String> snapshot = bst.snapshot();
+
+		bst.delete("P");
+		bst.put("H", "h");
+		bst.put("Z", "Z");
+
+		Assert.assertEquals(9, bst.size());
+		Assert.assertNull(bst.get("P"));
+		Assert.assertEquals("h", bst.get("H"));
+		Assert.assertTrue(bst.isBalanced());
+
+		Assert.assertEquals(9, snapshot.size());
+		Assert.assertEquals("P", snapshot.get("P"));
+		Assert.assertEquals("H", snapshot.get("H"));
+		Assert.assertNull(snapshot.get("Z"));
+		Assert.assertTrue(snapshot.isBalanced());
+	}
+
+	@Test
+	public void testBatch() {
+		putAll();
+		PersistentRedBlackBSTSymbolTable<String, String> before = bst.snapshot();
+
+		bst.beginBatch();
+		for (char c = 'a'; c <= 'z'; c++)
+			bst.put(String.valueOf(c), String.valueOf(c));
+		PersistentRedBlackBSTSymbolTable<String, String> during = bst.snapshot();
+		bst.delete("a");
+		bst.endBatch();
+
+		Assert.assertEquals(34, bst.size());
+		Assert.assertEquals(35, during.size());
+		Assert.assertEquals("a", during.get("a"));
+		Assert.assertEquals(9, before.size());
+		Assert.assertTrue(bst.isBalanced());
+		Assert.assertTrue(during.isBalanced());
+	}
+
+}
@@ -59,4 +59,30 @@ public class TestRedBlackBSTSymbolTable {
 		Assert.assertTrue(((RedBlackBSTSymbolTable<String, String>) bst).isBalanced());
 	}
 
+	@Test
+	public void testAggregate() {
+		RedBlackBSTSymbolTable<Integer, Integer> sums = new RedBlackBSTSymbolTable<>(new Monoid<Integer>() {
+			@Override
+			public Integer identity() {
+				return 0;
+			}
+
+			@Override
+			public Integer combine(Integer a, Integer b) {
+				return a + b;
+			}
+		});
+		for (int i = 1; i <= 100; i++)
+			sums.put(i, i);
+		sums.put(50, 0);
+		sums.delete(100);
+
+		Assert.assertEquals(Integer.valueOf(4900), sums.aggregate());
+		Assert.assertEquals(Integer.valueOf(55), sums.aggregate(1, 10));
+		Assert.assertEquals(Integer.valueOf(496), sums.aggregate(40, 51));
+		Assert.assertEquals(Integer.valueOf(99), sums.aggregate(99, 200));
+		Assert.assertEquals(Integer.valueOf(0), sums.aggregate(20, 10));
+		Assert.assertTrue(sums.isBalanced());
+	}
+
 }
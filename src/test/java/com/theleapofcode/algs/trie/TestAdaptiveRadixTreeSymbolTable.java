@@ -0,0 +1,79 @@
+package com.theleapofcode.algs.trie;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestAdaptiveRadixTreeSymbolTable {
+
+	private StringSymbolTable<Integer> build() {
+		StringSymbolTable<Integer> st = new AdaptiveRadixTreeSymbolTable<>();
+		String[] arr = new String[] { "she", "sells", "sea", "shells", "by", "the", "shore" };
+		for (int i = 0; i < arr.length; i++) {
+			st.put(arr[i], i);
+		}
+		return st;
+	}
+
+	@Test
+	public void testPut() {
+		StringSymbolTable<Integer> st = build();
+
+		Assert.assertEquals("[(by = 4)(sea = 2)(sells = 1)(she = 0)(shells = 3)(shore = 6)(the = 5)]", st.toString());
+		Assert.assertEquals(7, st.size());
+	}
+
+	@Test
+	public void testGet() {
+		StringSymbolTable<Integer> st = build();
+
+		int val = st.get("she");
+		Assert.assertEquals(0, val);
+		Assert.assertNull(st.get("sh"));
+		Assert.assertNull(st.get("shell"));
+	}
+
+	@Test
+	public void testDelete() {
+		StringSymbolTable<Integer> st = build();
+
+		st.delete("she");
+		st.delete("sh");
+		Assert.assertNull(st.get("she"));
+		Assert.assertEquals(3, (int) st.get("shells"));
+		Assert.assertEquals(6, st.size());
+	}
+
+	@Test
+	public void testPrefixQueries() {
+		StringSymbolTable<Integer> st = build();
+
+		StringBuilder sb = new StringBuilder();
+		for (String key : st.keysWithPrefix("sh"))
+			sb.append(key).append(" ");
+		Assert.assertEquals("she shells shore ", sb.toString());
+
+		sb = new StringBuilder();
+		for (String key : st.keysThatMatch("s.."))
+			sb.append(key).append(" ");
+		Assert.assertEquals("sea she ", sb.toString());
+
+		Assert.assertEquals("shells", st.longestPrefixOf("shellsort"));
+		Assert.assertEquals("she", st.longestPrefixOf("shell"));
+		Assert.assertNull(st.longestPrefixOf("quicksort"));
+	}
+
+	@Test
+	public void testGrowAndShrink() {
+		StringSymbolTable<Integer> st = new AdaptiveRadixTreeSymbolTable<>();
+		for (int c = 0; c < 256; c++)
+			st.put("k" + (char) c, c);
+		Assert.assertEquals(256, st.size());
+		Assert.assertEquals(200, (int) st.get("k" + (char) 200));
+
+		for (int c = 0; c < 255; c++)
+			st.delete("k" + (char) c);
+		Assert.assertEquals(1, st.size());
+		Assert.assertEquals(255, (int) st.get("k" + (char) 255));
+	}
+
+}
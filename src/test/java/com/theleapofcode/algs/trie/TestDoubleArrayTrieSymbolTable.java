@@ -0,0 +1,75 @@
+package com.theleapofcode.algs.trie;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestDoubleArrayTrieSymbolTable {
+
+	private static final String[] KEYS = new String[] { "by", "sea", "sells", "she", "shells", "shore", "the" };
+
+	private DoubleArrayTrieSymbolTable<Integer> build() {
+		Integer[] values = new Integer[KEYS.length];
+		for (int i = 0; i < KEYS.length; i++)
+			values[i] = 10 * i;
+		return new DoubleArrayTrieSymbolTable<>(KEYS, values);
+	}
+
+	@Test
+	public void testGet() {
+		StringSymbolTable<Integer> st = build();
+
+		Assert.assertEquals("[(by = 0)(sea = 10)(sells = 20)(she = 30)(shells = 40)(shore = 50)(the = 60)]",
+				st.toString());
+		Assert.assertEquals(7, st.size());
+		Assert.assertEquals(30, (int) st.get("she"));
+		Assert.assertNull(st.get("sh"));
+		Assert.assertNull(st.get("shell"));
+	}
+
+	@Test
+	public void testPrefixQueries() {
+		StringSymbolTable<Integer> st = build();
+
+		StringBuilder sb = new StringBuilder();
+		for (String key : st.keysWithPrefix("sh"))
+			sb.append(key).append(" ");
+		Assert.assertEquals("she shells shore ", sb.toString());
+
+		sb = new StringBuilder();
+		for (String key : st.keysThatMatch("s.e"))
+			sb.append(key).append(" ");
+		Assert.assertEquals("she ", sb.toString());
+
+		Assert.assertEquals("shells", st.longestPrefixOf("shellsort"));
+		Assert.assertEquals("she", st.longestPrefixOf("shell"));
+		Assert.assertNull(st.longestPrefixOf("quicksort"));
+	}
+
+	@Test
+	public void testSaveAndLoad() throws IOException {
+		File file = File.createTempFile("dat", ".bin");
+		file.deleteOnExit();
+		build().save(file.toPath());
+
+		DoubleArrayTrieSymbolTable<Integer> st = DoubleArrayTrieSymbolTable.load(file.toPath());
+		Assert.assertEquals(7, st.size());
+		for (int i = 0; i < KEYS.length; i++)
+			Assert.assertEquals(i, (int) st.get(KEYS[i]));
+		Assert.assertNull(st.get("shell"));
+		Assert.assertEquals("she", st.longestPrefixOf("shell"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsortedKeys() {
+		new DoubleArrayTrieSymbolTable<>(new String[] { "she", "by" }, new Integer[] { 0, 1 });
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testPut() {
+		build().put("sea", 1);
+	}
+
+}
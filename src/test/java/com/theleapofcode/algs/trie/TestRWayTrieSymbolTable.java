@@ -42,4 +42,23 @@ public class TestRWayTrieSymbolTable {
 		Assert.assertEquals(6, st.size());
 	}
 
+	@Test
+	public void testKeysWithPrefixLimit() {
+		RWayTrieSymbolTable<Integer> st = new RWayTrieSymbolTable<>();
+		String[] arr = new String[] { "she", "sells", "sea", "shells", "by", "the", "shore" };
+		for (int i = 0; i < arr.length; i++) {
+			st.put(arr[i], i);
+		}
+
+		StringBuilder sb = new StringBuilder();
+		for (String key : st.keysWithPrefix("s", 3))
+			sb.append(key).append(" ");
+		Assert.assertEquals("sea sells she ", sb.toString());
+
+		sb = new StringBuilder();
+		for (String key : st.keysThatMatch(".he"))
+			sb.append(key).append(" ");
+		Assert.assertEquals("she the ", sb.toString());
+	}
+
 }
@@ -0,0 +1,60 @@
+package com.theleapofcode.algs.trie;
+
+import java.util.Comparator;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestTernarySearchTrieSymbolTable {
+
+	private TernarySearchTrieSymbolTable<Integer> build() {
+		TernarySearchTrieSymbolTable<Integer> st = new TernarySearchTrieSymbolTable<>(
+				Comparator.<Integer> naturalOrder());
+		String[] arr = new String[] { "she", "sells", "sea", "shells", "by", "the", "shore" };
+		for (int i = 0; i < arr.length; i++) {
+			st.put(arr[i], i);
+		}
+		return st;
+	}
+
+	private String join(Iterable<String> keys) {
+		StringBuilder sb = new StringBuilder();
+		for (String key : keys)
+			sb.append(key).append(" ");
+		return sb.toString();
+	}
+
+	@Test
+	public void testKeys() {
+		TernarySearchTrieSymbolTable<Integer> st = build();
+
+		Assert.assertEquals("by sea sells she shells shore the ", join(st.keys()));
+		Assert.assertEquals("she shells shore ", join(st.keysWithPrefix("sh")));
+		Assert.assertEquals("sea sells ", join(st.keysWithPrefix("s", 2)));
+		Assert.assertEquals("she the ", join(st.keysThatMatch(".he")));
+	}
+
+	@Test
+	public void testDelete() {
+		TernarySearchTrieSymbolTable<Integer> st = build();
+
+		st.delete("she");
+		st.delete("sh");
+		Assert.assertNull(st.get("she"));
+		Assert.assertEquals(3, (int) st.get("shells"));
+		Assert.assertEquals(6, st.size());
+		Assert.assertEquals("shells shore ", join(st.keysWithPrefix("sh")));
+	}
+
+	@Test
+	public void testTopKeysWithPrefix() {
+		TernarySearchTrieSymbolTable<Integer> st = build();
+
+		Assert.assertEquals("shore shells ", join(st.topKeysWithPrefix("s", 2)));
+		Assert.assertEquals("shore the by ", join(st.topKeysWithPrefix("", 3)));
+
+		st.delete("shore");
+		Assert.assertEquals("shells she ", join(st.topKeysWithPrefix("sh", 5)));
+	}
+
+}
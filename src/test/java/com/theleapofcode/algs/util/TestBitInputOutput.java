@@ -0,0 +1,89 @@
+package com.theleapofcode.algs.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBitInputOutput {
+
+	@Test
+	public void testFields() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BitOutput out = new BitOutput(bytes);
+		out.writeBit(true);
+		out.writeBits(0x5, 3);
+		out.writeByte(0xab);
+		out.writeInt(0xcafebabe);
+		out.writeLong(0x0123456789abcdefL);
+		out.writeBits(-1L, 0);
+		out.flush();
+		// 1 101, then the byte, int and long shifted by four bits, then padding
+		Assert.assertEquals(1 + 1 + 4 + 8, bytes.size());
+		Assert.assertEquals((byte) 0xda, bytes.toByteArray()[0]);
+		Assert.assertEquals((byte) 0xf0, bytes.toByteArray()[13]);
+
+		BitInput in = new BitInput(new ByteArrayInputStream(bytes.toByteArray()));
+		Assert.assertTrue(in.readBit());
+		Assert.assertEquals(0x5, in.readBits(3));
+		Assert.assertEquals(0xab, in.readByte());
+		Assert.assertEquals(0xcafebabe, in.readInt());
+		Assert.assertEquals(0x0123456789abcdefL, in.readLong());
+		Assert.assertEquals(0, in.readBits(4));
+		Assert.assertTrue(in.isEmpty());
+	}
+
+	@Test
+	public void testRandom() throws IOException {
+		// fields of every width, across the buffers of both sides
+		Random random = new Random(71);
+		int n = 100000;
+		int[] widths = new int[n];
+		long[] values = new long[n];
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BitOutput out = new BitOutput(bytes);
+		for (int i = 0; i < n; i++) {
+			widths[i] = random.nextInt(65);
+			values[i] = random.nextLong();
+			out.writeBits(values[i], widths[i]);
+		}
+		out.flush();
+
+		ByteBuffer buffer = ByteBuffer.allocate(bytes.size());
+		BitOutput copy = new BitOutput(buffer);
+		BitInput in = new BitInput(new ByteArrayInputStream(bytes.toByteArray()));
+		for (int i = 0; i < n; i++) {
+			long mask = widths[i] == 0 ? 0 : -1L >>> (64 - widths[i]);
+			long value = in.readBits(widths[i]);
+			Assert.assertEquals(values[i] & mask, value);
+			copy.writeBits(value, widths[i]);
+		}
+		copy.flush();
+		Assert.assertArrayEquals(bytes.toByteArray(), buffer.array());
+
+		buffer.flip();
+		BitInput again = new BitInput(buffer);
+		for (int i = 0; i < n; i++) {
+			long mask = widths[i] == 0 ? 0 : -1L >>> (64 - widths[i]);
+			Assert.assertEquals(values[i] & mask, again.readBits(widths[i]));
+		}
+	}
+
+	@Test(expected = EOFException.class)
+	public void testEnd() throws IOException {
+		BitInput in = new BitInput(new ByteArrayInputStream(new byte[] { 1, 2 }));
+		in.readBits(12);
+		in.readBits(5);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWidth() throws IOException {
+		new BitOutput(new ByteArrayOutputStream()).writeBits(0, 65);
+	}
+
+}